@@ -34,6 +34,12 @@ android {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
     }
+    testOptions {
+        unitTests.all {
+            // Timing runs in the unit tests are skipped unless run with -Ptakess.benchmark
+            it.systemProperty("takess.benchmark", project.hasProperty("takess.benchmark"))
+        }
+    }
 }
 
 dependencies {
@@ -41,7 +47,6 @@ dependencies {
     implementation(libs.material)
     implementation(libs.activity)
     implementation(libs.constraintlayout)
-    implementation("androidx.documentfile:documentfile:1.1.0")
     testImplementation(libs.junit)
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
@@ -0,0 +1,102 @@
+package com.example.takess;
+
+/**
+ * Proposes a crop for the preview's Auto button: the image without its system bars
+ * and without any uniform border (letterboxing, blank margins).
+ *
+ * Works on a thumbnail-sized sample of the frame rather than the frame, so a scan
+ * touches a few hundred thousand pixels at most. The status and navigation bars
+ * aren't uniform (icons, the gesture handle), so the caller passes their height in
+ * image rows; a bar is only cut if its rows are mostly one colour, which a
+ * full-screen app drawing under the bar usually isn't. From there each edge moves
+ * inward past rows or columns whose pixels are all within {@link #TOLERANCE} of each
+ * other. Plain Java — no Android types.
+ */
+final class AutoCrop {
+
+    /** Largest per-channel difference still counted as the same colour. */
+    static final int TOLERANCE = 12;
+
+    // A bar row must be at least this much background colour
+    private static final float BAR_FLAT_SHARE = 0.6f;
+    // Bar hints taller than this part of the image are ignored
+    private static final int MAX_BAR_DIVISOR = 4;
+
+    private AutoCrop() { }
+
+    /**
+     * The crop for {@code width × height} packed pixels as {@code {left, top, right,
+     * bottom}} in pixels, right and bottom exclusive; the whole image if it's blank or
+     * there's nothing to trim.
+     *
+     * @param topBarRows    status bar height in image rows, or 0 if the image doesn't start
+     *                      at the top of the screen
+     * @param bottomBarRows navigation bar height in image rows, or 0
+     */
+    static int[] find(int[] pixels, int width, int height, int topBarRows, int bottomBarRows) {
+        if (width <= 0 || height <= 0 || pixels.length < width * height) {
+            throw new IllegalArgumentException("bad image");
+        }
+        int left = 0, top = 0, right = width, bottom = height;
+
+        if (isBar(pixels, width, height, 0, topBarRows)) top = topBarRows;
+        if (isBar(pixels, width, height, height - bottomBarRows, bottomBarRows)) {
+            bottom = height - bottomBarRows;
+        }
+
+        while (top < bottom && isUniformRow(pixels, width, top, left, right)) top++;
+        if (top == bottom) return new int[] { 0, 0, width, height };
+        while (bottom > top && isUniformRow(pixels, width, bottom - 1, left, right)) bottom--;
+
+        while (left < right && isUniformColumn(pixels, width, left, top, bottom)) left++;
+        while (right > left && isUniformColumn(pixels, width, right - 1, top, bottom)) right--;
+
+        return new int[] { left, top, right, bottom };
+    }
+
+    // ──────────────────────────────────────────────
+    //  Scans
+    // ──────────────────────────────────────────────
+
+    /** Whether rows {@code from..from+rows} look like a system bar: mostly one colour. */
+    private static boolean isBar(int[] pixels, int width, int height, int from, int rows) {
+        if (rows <= 0 || rows > height / MAX_BAR_DIVISOR) return false;
+        long flat = 0;
+        for (int y = from; y < from + rows; y++) {
+            int row = y * width;
+            // Bars reach the screen edges, so the edge pixel is the background
+            int background = pixels[row];
+            for (int x = 0; x < width; x++) {
+                if (same(pixels[row + x], background)) flat++;
+            }
+        }
+        return flat >= (long) (BAR_FLAT_SHARE * width * rows);
+    }
+
+    private static boolean isUniformRow(int[] pixels, int width, int y, int from, int to) {
+        int row = y * width;
+        int first = pixels[row + from];
+        for (int x = from + 1; x < to; x++) {
+            if (!same(pixels[row + x], first)) return false;
+        }
+        return true;
+    }
+
+    private static boolean isUniformColumn(int[] pixels, int width, int x, int from, int to) {
+        int first = pixels[from * width + x];
+        for (int y = from + 1, p = (from + 1) * width + x; y < to; y++, p += width) {
+            if (!same(pixels[p], first)) return false;
+        }
+        return true;
+    }
+
+    /** Every channel within {@link #TOLERANCE}, in whatever order they're packed. */
+    private static boolean same(int a, int b) {
+        if (a == b) return true;
+        for (int shift = 0; shift < 32; shift += 8) {
+            int d = ((a >>> shift) & 0xFF) - ((b >>> shift) & 0xFF);
+            if (d > TOLERANCE || d < -TOLERANCE) return false;
+        }
+        return true;
+    }
+}
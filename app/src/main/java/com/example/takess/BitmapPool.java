@@ -0,0 +1,73 @@
+package com.example.takess;
+
+import android.content.ComponentCallbacks2;
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Process-wide pool of full-frame bitmaps shared by capture, crop and preview.
+ *
+ * Bitmaps are keyed by width, height and config. Callers {@link #obtain} a bitmap
+ * (pooled or new) and {@link #release} it when done instead of recycling; evicted
+ * bitmaps are recycled. Raw temp frames are copied straight into obtained bitmaps
+ * (see {@link TempFrameStore}), so nothing is decoded here.
+ */
+final class BitmapPool {
+
+    private static final String TAG = "BitmapPool";
+
+    private static BitmapPool instance;
+
+    private final SizedLruPool<Bitmap> pool;
+
+    static synchronized BitmapPool get() {
+        if (instance == null) {
+            // An eighth of the heap holds two or three 1440p frames on most devices
+            instance = new BitmapPool(Runtime.getRuntime().maxMemory() / 8);
+        }
+        return instance;
+    }
+
+    private BitmapPool(long maxBytes) {
+        pool = new SizedLruPool<>(maxBytes, Bitmap::recycle);
+    }
+
+    static String key(int width, int height, Bitmap.Config config) {
+        return width + "x" + height + ":" + config;
+    }
+
+    /** Returns a mutable bitmap of the given size; its previous contents are undefined. */
+    Bitmap obtain(int width, int height, Bitmap.Config config) {
+        Bitmap bitmap = pool.take(key(width, height, config));
+        if (bitmap != null && !bitmap.isRecycled()) return bitmap;
+        return Bitmap.createBitmap(width, height, config);
+    }
+
+    /** Hands a bitmap back for reuse. Null, recycled and immutable bitmaps are ignored. */
+    void release(@Nullable Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled()) return;
+        if (!bitmap.isMutable() || bitmap.getConfig() == null) {
+            bitmap.recycle();
+            return;
+        }
+        pool.put(key(bitmap.getWidth(), bitmap.getHeight(), bitmap.getConfig()),
+                bitmap, bitmap.getAllocationByteCount());
+    }
+
+    /** Called from onTrimMemory of the service and activities. */
+    void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            pool.clear();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            pool.trimTo(pool.maxBytes() / 2);
+        }
+        Log.d(TAG, "trimMemory(" + level + "): " + pool.stats());
+    }
+
+    String stats() {
+        return pool.stats();
+    }
+}
@@ -0,0 +1,276 @@
+package com.example.takess;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * On-disk index of every saved capture: when, where, how big and how long it took.
+ *
+ * Two append-only files: {@code history.idx} holds one fixed-size record per capture
+ * (numbers only, sorted by time, CRC-checked) and {@code history.dat} holds its
+ * variable-length strings. Only the last record is read at open; an entry
+ * costs one seek into each file, and a time range is found by binary search over
+ * the fixed records, so "what did I capture today" never touches MediaStore or SAF.
+ * A torn last record is dropped at open. Plain Java so it can be tested on the JVM.
+ */
+final class CaptureHistory {
+
+    static final int RECORD_BYTES = 64;
+
+    /** One saved capture. Timings are in ms; 0 means not measured (e.g. recovered saves). */
+    static final class Entry {
+        long timestamp;
+        String uri;
+        String fileName;
+        String format;
+        int width;
+        int height;
+        long bytes;
+        long contentHash;
+        /** Tap to frame in memory. */
+        int captureMs;
+        /** Encode and write to the destination. */
+        int encodeMs;
+        /** Publishing the written file (IS_PENDING cleared / renamed). */
+        int commitMs;
+    }
+
+    private static final Map<String, CaptureHistory> shared = new HashMap<>();
+
+    private final RandomAccessFile idx;
+    private final RandomAccessFile dat;
+    private int size;
+    private long lastTimestamp;
+
+    /** The process-wide history in {@code dir}, shared by the service and the UI. */
+    static synchronized CaptureHistory shared(File dir) throws IOException {
+        String key = dir.getAbsolutePath();
+        CaptureHistory history = shared.get(key);
+        if (history == null) {
+            history = open(dir);
+            shared.put(key, history);
+        }
+        return history;
+    }
+
+    static CaptureHistory open(File dir) throws IOException {
+        if (!dir.exists() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+        return new CaptureHistory(new File(dir, "history.idx"), new File(dir, "history.dat"));
+    }
+
+    private CaptureHistory(File idxFile, File datFile) throws IOException {
+        idx = new RandomAccessFile(idxFile, "rw");
+        dat = new RandomAccessFile(datFile, "rw");
+        size = (int) (idx.length() / RECORD_BYTES);
+        // Only the tail can be torn: drop a partial or corrupt last record
+        if (size > 0 && readRecord(size - 1) == null) size--;
+        if (idx.length() != (long) size * RECORD_BYTES) idx.setLength((long) size * RECORD_BYTES);
+        lastTimestamp = size > 0 ? timestampAt(size - 1) : Long.MIN_VALUE;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Appends an entry and returns its index. The index stays sorted: a timestamp before
+     * the previous entry's (clock change, a save recovered late) is moved up to it.
+     */
+    synchronized int append(Entry e) throws IOException {
+        e.timestamp = Math.max(e.timestamp, lastTimestamp);
+        idx.seek((long) size * RECORD_BYTES);
+        idx.write(record(e));
+
+        size++;
+        lastTimestamp = e.timestamp;
+        return size - 1;
+    }
+
+    /**
+     * Overwrites entry {@code index} with {@code e}, e.g. when a saved file is replaced.
+     * Its timestamp is kept so the index stays sorted; the old strings are left behind.
+     */
+    synchronized void update(int index, Entry e) throws IOException {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index + " of " + size);
+        e.timestamp = timestampAt(index);
+        idx.seek((long) index * RECORD_BYTES);
+        idx.write(record(e));
+    }
+
+    /** Entry {@code index} in time order (0 = oldest). */
+    synchronized Entry get(int index) throws IOException {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index + " of " + size);
+        byte[] record = readRecord(index);
+        if (record == null) throw new IOException("Corrupt history record " + index);
+
+        Entry e = new Entry();
+        e.timestamp = getLong(record, 0);
+        long offset = getLong(record, 8);
+        byte[] strings = new byte[getInt(record, 16)];
+        e.width = getInt(record, 20);
+        e.height = getInt(record, 24);
+        e.captureMs = getInt(record, 28);
+        e.bytes = getLong(record, 32);
+        e.contentHash = getLong(record, 40);
+        e.encodeMs = getInt(record, 48);
+        e.commitMs = getInt(record, 52);
+
+        dat.seek(offset);
+        dat.readFully(strings);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(strings));
+        e.uri = orNull(in.readUTF());
+        e.fileName = orNull(in.readUTF());
+        e.format = orNull(in.readUTF());
+        return e;
+    }
+
+    /** Index of the first entry at or after {@code timestamp} ({@link #size} if none). */
+    synchronized int indexAt(long timestamp) throws IOException {
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (timestampAt(mid) < timestamp) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /** Number of entries with {@code from <= timestamp < to}. */
+    synchronized int count(long from, long to) throws IOException {
+        return Math.max(0, indexAt(to) - indexAt(from));
+    }
+
+    /** Entries with {@code from <= timestamp < to}, oldest first. */
+    synchronized List<Entry> range(long from, long to) throws IOException {
+        int start = indexAt(from);
+        int end = indexAt(to);
+        List<Entry> entries = new ArrayList<>(Math.max(0, end - start));
+        for (int i = start; i < end; i++) entries.add(get(i));
+        return entries;
+    }
+
+    /**
+     * The newest entry with {@code contentHash} captured at or after {@code since},
+     * looking at no more than {@code maxEntries} entries back; null if none.
+     */
+    synchronized Entry findRecent(long contentHash, long since, int maxEntries) throws IOException {
+        int stop = Math.max(indexAt(since), size - maxEntries);
+        byte[] hash = new byte[8];
+        for (int i = size - 1; i >= stop; i--) {
+            idx.seek((long) i * RECORD_BYTES + 40);
+            idx.readFully(hash);
+            if (getLong(hash, 0) == contentHash) return get(i);
+        }
+        return null;
+    }
+
+    /** Total encoded bytes of the entries with {@code from <= timestamp < to}. */
+    synchronized long bytes(long from, long to) throws IOException {
+        long total = 0;
+        byte[] record = new byte[8];
+        for (int i = indexAt(from), end = indexAt(to); i < end; i++) {
+            idx.seek((long) i * RECORD_BYTES + 32);
+            idx.readFully(record);
+            total += getLong(record, 0);
+        }
+        return total;
+    }
+
+    synchronized void close() {
+        try {
+            idx.close();
+            dat.close();
+        } catch (IOException ignored) { }
+    }
+
+    // ──────────────────────────────────────────────
+    //  Records
+    // ──────────────────────────────────────────────
+
+    /** Appends {@code e}'s strings to the data file and returns its fixed record. */
+    private byte[] record(Entry e) throws IOException {
+        ByteArrayOutputStream strings = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(strings);
+        out.writeUTF(orEmpty(e.uri));
+        out.writeUTF(orEmpty(e.fileName));
+        out.writeUTF(orEmpty(e.format));
+        long offset = dat.length();
+        dat.seek(offset);
+        dat.write(strings.toByteArray());
+
+        byte[] record = new byte[RECORD_BYTES];
+        putLong(record, 0, e.timestamp);
+        putLong(record, 8, offset);
+        putInt(record, 16, strings.size());
+        putInt(record, 20, e.width);
+        putInt(record, 24, e.height);
+        putInt(record, 28, e.captureMs);
+        putLong(record, 32, e.bytes);
+        putLong(record, 40, e.contentHash);
+        putInt(record, 48, e.encodeMs);
+        putInt(record, 52, e.commitMs);
+        putInt(record, 60, crc(record));
+        return record;
+    }
+
+    private long timestampAt(int index) throws IOException {
+        idx.seek((long) index * RECORD_BYTES);
+        return idx.readLong();
+    }
+
+    /** The raw record, or null if it is short or fails its CRC. */
+    private byte[] readRecord(int index) throws IOException {
+        long pos = (long) index * RECORD_BYTES;
+        if (pos + RECORD_BYTES > idx.length()) return null;
+        byte[] record = new byte[RECORD_BYTES];
+        idx.seek(pos);
+        idx.readFully(record);
+        return getInt(record, 60) == crc(record) ? record : null;
+    }
+
+    private static int crc(byte[] record) {
+        CRC32 crc = new CRC32();
+        crc.update(record, 0, RECORD_BYTES - 4);
+        return (int) crc.getValue();
+    }
+
+    // Big-endian, matching RandomAccessFile.readLong()
+    private static void putLong(byte[] b, int off, long v) {
+        putInt(b, off, (int) (v >>> 32));
+        putInt(b, off + 4, (int) v);
+    }
+
+    private static void putInt(byte[] b, int off, int v) {
+        b[off] = (byte) (v >>> 24);
+        b[off + 1] = (byte) (v >>> 16);
+        b[off + 2] = (byte) (v >>> 8);
+        b[off + 3] = (byte) v;
+    }
+
+    private static long getLong(byte[] b, int off) {
+        return ((long) getInt(b, off) << 32) | (getInt(b, off + 4) & 0xFFFFFFFFL);
+    }
+
+    private static int getInt(byte[] b, int off) {
+        return (b[off] & 0xFF) << 24 | (b[off + 1] & 0xFF) << 16
+                | (b[off + 2] & 0xFF) << 8 | (b[off + 3] & 0xFF);
+    }
+
+    private static String orEmpty(String s) {
+        return s == null ? "" : s;
+    }
+
+    private static String orNull(String s) {
+        return s.isEmpty() ? null : s;
+    }
+}
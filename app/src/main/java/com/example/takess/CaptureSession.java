@@ -0,0 +1,304 @@
+package com.example.takess;
+
+import android.graphics.PixelFormat;
+import android.hardware.display.DisplayManager;
+import android.hardware.display.VirtualDisplay;
+import android.media.Image;
+import android.media.ImageReader;
+import android.media.projection.MediaProjection;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Long-lived VirtualDisplay + ImageReader pair bound to one MediaProjection.
+ *
+ * The display is created once and kept around between captures. While active it
+ * keeps the most recent frame in hand so a capture can be answered immediately;
+ * after {@link #IDLE_PAUSE_MS} without a capture it detaches its surface so the
+ * compositor stops rendering into it. It is only rebuilt when the display size,
+ * density or rotation changes. {@link #captureWhenSettled} instead watches the incoming
+ * frames and answers once a {@link FrameStabilityDetector} says the screen is still.
+ * {@link #sample} lends the held frame without giving it up, for bursts that read the
+ * same unchanged screen several times. While a {@link FrameListener} is set the
+ * surface stays attached and every frame is shown to it first.
+ *
+ * All methods must be called on the handler's thread.
+ */
+class CaptureSession {
+
+    private static final String TAG = "CaptureSession";
+    private static final int MAX_IMAGES = 3;
+    static final long IDLE_PAUSE_MS = 5000;
+    private static final long FRAME_TIMEOUT_MS = 1000;
+
+    interface FrameCallback {
+        /** Receives the frame (caller must close it) or null on timeout / failure. */
+        void onFrame(@Nullable Image image);
+    }
+
+    interface FrameListener {
+        /** Sees every rendered frame (must not close or keep it). */
+        void onFrame(Image image);
+    }
+
+    interface FrameSink {
+        /** Reads the frame (must not close or keep it) or gets null on timeout / failure. */
+        void onFrame(@Nullable Image image);
+    }
+
+    private final MediaProjection projection;
+    private final Handler handler;
+
+    private VirtualDisplay virtualDisplay;
+    private ImageReader reader;
+    private int width, height, density, rotation;
+
+    private boolean active = false;
+    private Image latest;
+    private FrameCallback pending;
+    // Set while a pending capture waits for the screen to settle
+    private FrameStabilityDetector settling;
+    private FrameListener listener;
+
+    private final Runnable pauseRunnable = this::pause;
+    private final Runnable timeoutRunnable = () -> deliver(null);
+    private final Runnable settleCheck = this::checkSettled;
+
+    CaptureSession(MediaProjection projection, Handler handler) {
+        this.projection = projection;
+        this.handler = handler;
+    }
+
+    /** Creates (or re-creates for a new geometry) the display. Starts paused. */
+    void ensure(int width, int height, int density, int rotation) {
+        if (virtualDisplay != null && width == this.width && height == this.height
+                && density == this.density && rotation == this.rotation) {
+            return;
+        }
+
+        this.width = width;
+        this.height = height;
+        this.density = density;
+        this.rotation = rotation;
+
+        closeLatest();
+        ImageReader oldReader = reader;
+        reader = ImageReader.newInstance(width, height, PixelFormat.RGBA_8888, MAX_IMAGES);
+        reader.setOnImageAvailableListener(this::onImageAvailable, handler);
+
+        if (virtualDisplay == null) {
+            // Only ever call createVirtualDisplay once per projection — Android 14+
+            // refuses a second call on the same MediaProjection instance.
+            virtualDisplay = projection.createVirtualDisplay(
+                    "ScreenCapture",
+                    width, height, density,
+                    DisplayManager.VIRTUAL_DISPLAY_FLAG_AUTO_MIRROR,
+                    null, null, handler);
+            Log.i(TAG, "Created virtual display " + width + "x" + height);
+        } else {
+            virtualDisplay.setSurface(null);
+            virtualDisplay.resize(width, height, density);
+            Log.i(TAG, "Resized virtual display to " + width + "x" + height);
+        }
+        if (oldReader != null) oldReader.close();
+        active = false;
+        if (listener != null) resume();
+    }
+
+    /**
+     * Keeps the display rendering and shows every frame to {@code listener}; null stops
+     * that and lets the display pause again once idle.
+     */
+    void setFrameListener(@Nullable FrameListener listener) {
+        this.listener = listener;
+        if (listener != null) {
+            handler.removeCallbacks(pauseRunnable);
+            resume();
+        } else {
+            schedulePause();
+        }
+    }
+
+    /**
+     * Delivers the newest frame. If the display is live and a frame is already held
+     * it is returned straight away; otherwise the surface is re-attached and the
+     * next rendered frame is delivered.
+     */
+    void capture(FrameCallback callback) {
+        handler.removeCallbacks(pauseRunnable);
+        if (pending != null) {
+            // A capture is already waiting for a frame — fail the older request
+            deliver(null);
+        }
+
+        if (active && latest != null) {
+            Image image = latest;
+            latest = null;
+            callback.onFrame(image);
+            schedulePause();
+            return;
+        }
+
+        pending = callback;
+        handler.postDelayed(timeoutRunnable, FRAME_TIMEOUT_MS);
+        resume();
+    }
+
+    /**
+     * Delivers the first frame after the screen stops changing (e.g. the shade has
+     * collapsed), or the newest frame once the detector's upper bound is reached.
+     */
+    void captureWhenSettled(FrameStabilityDetector detector, FrameCallback callback) {
+        handler.removeCallbacks(pauseRunnable);
+        if (pending != null) deliver(null);
+
+        pending = callback;
+        settling = detector;
+        detector.start(SystemClock.elapsedRealtime());
+        // A held frame is the baseline the shade is moving away from
+        if (active && latest != null) feed(latest);
+        resume();
+        checkSettled();
+    }
+
+    /**
+     * Lends the newest frame to {@code sink} and keeps holding it: a virtual display
+     * only renders when something changes, so an unchanged screen is sampled again
+     * from the held frame instead of waiting for one that never comes.
+     */
+    void sample(FrameSink sink) {
+        if (active && latest != null) {
+            handler.removeCallbacks(pauseRunnable);
+            sink.onFrame(latest);
+            schedulePause();
+            return;
+        }
+        capture(image -> {
+            sink.onFrame(image);
+            if (image != null) hold(image);
+        });
+    }
+
+    /** Takes back a delivered frame as the held one, e.g. the settled first frame of a burst. */
+    void hold(Image image) {
+        if (image == latest) return;
+        closeLatest();
+        latest = image;
+    }
+
+    private void feed(Image image) {
+        Image.Plane plane = image.getPlanes()[0];
+        settling.onFrame(plane.getBuffer(), image.getWidth(), image.getHeight(),
+                plane.getRowStride(), plane.getPixelStride(), SystemClock.elapsedRealtime());
+    }
+
+    private void checkSettled() {
+        handler.removeCallbacks(settleCheck);
+        FrameStabilityDetector detector = settling;
+        if (detector == null) return;
+        long now = SystemClock.elapsedRealtime();
+        if (!detector.isSettled(now)) {
+            handler.postDelayed(settleCheck, detector.readyAt() - now);
+            return;
+        }
+        long waited = now - detector.startedAt();
+        if (detector.timedOut(now)) {
+            Log.w(TAG, "Settle wait hit its bound: " + waited + " ms, " + detector.frames()
+                    + " frames, " + detector.changes() + " changes");
+        } else {
+            Log.i(TAG, "Screen settled after " + waited + " ms (" + detector.frames()
+                    + " frames, " + detector.changes() + " changes)");
+        }
+        Image image = latest;
+        latest = null;
+        deliver(image);
+    }
+
+    private void onImageAvailable(ImageReader r) {
+        if (r != reader) return;
+        // Free our slot before asking for the newest buffer
+        closeLatest();
+        Image image;
+        try {
+            image = r.acquireLatestImage();
+        } catch (IllegalStateException e) {
+            Log.w(TAG, "acquireLatestImage failed", e);
+            return;
+        }
+        if (image == null) return;
+        if (listener != null) listener.onFrame(image);
+
+        if (settling != null) {
+            latest = image;
+            feed(image);
+            checkSettled();
+        } else if (pending != null) {
+            handler.removeCallbacks(timeoutRunnable);
+            FrameCallback cb = pending;
+            pending = null;
+            cb.onFrame(image);
+            schedulePause();
+        } else {
+            latest = image;
+        }
+    }
+
+    private void deliver(@Nullable Image image) {
+        handler.removeCallbacks(timeoutRunnable);
+        handler.removeCallbacks(settleCheck);
+        settling = null;
+        FrameCallback cb = pending;
+        pending = null;
+        if (cb != null) cb.onFrame(image);
+        else if (image != null) image.close();
+        schedulePause();
+    }
+
+    private void resume() {
+        if (active || virtualDisplay == null) return;
+        virtualDisplay.setSurface(reader.getSurface());
+        active = true;
+    }
+
+    /** Detaches the surface so the display stops rendering while idle. */
+    void pause() {
+        handler.removeCallbacks(pauseRunnable);
+        if (!active || virtualDisplay == null || pending != null || listener != null) return;
+        virtualDisplay.setSurface(null);
+        active = false;
+        closeLatest();
+        Log.d(TAG, "Paused at " + SystemClock.elapsedRealtime());
+    }
+
+    private void schedulePause() {
+        handler.removeCallbacks(pauseRunnable);
+        handler.postDelayed(pauseRunnable, IDLE_PAUSE_MS);
+    }
+
+    private void closeLatest() {
+        if (latest != null) {
+            latest.close();
+            latest = null;
+        }
+    }
+
+    void release() {
+        listener = null;
+        handler.removeCallbacks(pauseRunnable);
+        if (pending != null) deliver(null);
+        handler.removeCallbacks(pauseRunnable);
+        closeLatest();
+        if (virtualDisplay != null) {
+            try { virtualDisplay.release(); } catch (Exception ignored) { }
+            virtualDisplay = null;
+        }
+        if (reader != null) {
+            try { reader.close(); } catch (Exception ignored) { }
+            reader = null;
+        }
+        active = false;
+    }
+}
@@ -15,6 +15,10 @@ import androidx.annotation.NonNull;
  * Transparent overlay that draws a crop rectangle with draggable edges.
  * The user drags the top/bottom/left/right edges to define the crop region.
  * The dimmed area outside the crop rect is shaded.
+ * The crop is kept as fractions of the image, so it stays put while the image under
+ * it is zoomed or panned; only {@link #setImageRect} changes.
+ * Given an {@link EdgeProjection} of the image, dragged edges snap to UI borders
+ * within {@link #SNAP_RADIUS_DP}.
  */
 public class CropOverlayView extends View {
 
@@ -29,12 +33,13 @@ public class CropOverlayView extends View {
     // Crop rect as percentages 0..1
     private float cropLeft = 0f, cropTop = 0f, cropRight = 1f, cropBottom = 1f;
 
-    // The actual image rect inside the view (accounting for fitCenter padding)
+    // Where the image sits in the view; larger than the view when zoomed in
     private final RectF imageRect = new RectF();
 
     private static final float HANDLE_TOUCH_RADIUS_DP = 32f;
     private static final float HANDLE_VISUAL_SIZE_DP = 16f;
     private static final float MIN_CROP_PCT = 0.05f; // minimum 5% in each dimension
+    private static final float SNAP_RADIUS_DP = 12f;
 
     private int draggingEdge = EDGE_NONE;
     private static final int EDGE_NONE = 0;
@@ -45,6 +50,8 @@ public class CropOverlayView extends View {
 
     private OnCropChangeListener listener;
     private boolean cropMode = false;
+    // Snap targets for the current image; null until built, or when not cropping
+    private EdgeProjection edges;
 
     public CropOverlayView(Context context) { this(context, null); }
     public CropOverlayView(Context context, AttributeSet attrs) { this(context, attrs, 0); }
@@ -71,6 +78,8 @@ public class CropOverlayView extends View {
         this.cropMode = enabled;
         if (enabled) {
             cropLeft = 0f; cropTop = 0f; cropRight = 1f; cropBottom = 1f;
+        } else {
+            edges = null;
         }
         invalidate();
     }
@@ -79,6 +88,11 @@ public class CropOverlayView extends View {
 
     public void setOnCropChangeListener(OnCropChangeListener l) { this.listener = l; }
 
+    /** Edges of the image the handles snap to while dragging; null turns snapping off. */
+    void setEdges(EdgeProjection edges) {
+        this.edges = edges;
+    }
+
     public void setImageRect(RectF rect) {
         imageRect.set(rect);
         invalidate();
@@ -89,6 +103,19 @@ public class CropOverlayView extends View {
         return new float[]{ cropLeft, cropTop, cropRight, cropBottom };
     }
 
+    /**
+     * Moves the edges to fractions of the image; an axis narrower than
+     * {@link #MIN_CROP_PCT} is left uncropped.
+     */
+    public void setCrop(float leftPct, float topPct, float rightPct, float bottomPct) {
+        cropLeft = clamp01(leftPct); cropTop = clamp01(topPct);
+        cropRight = clamp01(rightPct); cropBottom = clamp01(bottomPct);
+        if (cropRight - cropLeft < MIN_CROP_PCT) { cropLeft = 0f; cropRight = 1f; }
+        if (cropBottom - cropTop < MIN_CROP_PCT) { cropTop = 0f; cropBottom = 1f; }
+        invalidate();
+        notifyListener();
+    }
+
     public void resetCrop() {
         cropLeft = 0f; cropTop = 0f; cropRight = 1f; cropBottom = 1f;
         invalidate();
@@ -118,9 +145,9 @@ public class CropOverlayView extends View {
         // Draw crop border
         canvas.drawRect(cL, cT, cR, cB, borderPaint);
 
-        // Draw edge handles (small circles at midpoints)
+        // Draw edge handles (small circles at the midpoints of the visible edges)
         float hs = dp(HANDLE_VISUAL_SIZE_DP) / 2f;
-        float midX = (cL + cR) / 2f, midY = (cT + cB) / 2f;
+        float midX = visibleMid(cL, cR, getWidth()), midY = visibleMid(cT, cB, getHeight());
 
         canvas.drawCircle(midX, cT, hs, handlePaint);   // top
         canvas.drawCircle(midX, cB, hs, handlePaint);   // bottom
@@ -170,7 +197,7 @@ public class CropOverlayView extends View {
         float cT = iT + cropTop * iH;
         float cR = iL + cropRight * iW;
         float cB = iT + cropBottom * iH;
-        float midX = (cL + cR) / 2f, midY = (cT + cB) / 2f;
+        float midX = visibleMid(cL, cR, getWidth()), midY = visibleMid(cT, cB, getHeight());
 
         float r = dp(HANDLE_TOUCH_RADIUS_DP);
 
@@ -189,6 +216,12 @@ public class CropOverlayView extends View {
 
         float pctX = Math.max(0, Math.min(1, (x - iL) / iW));
         float pctY = Math.max(0, Math.min(1, (y - iT) / iH));
+        if (edges != null) {
+            // Table lookups only; the projection was built off the UI thread
+            float radius = dp(SNAP_RADIUS_DP);
+            if (edge == EDGE_TOP || edge == EDGE_BOTTOM) pctY = edges.snapRow(pctY, radius / iH);
+            else pctX = edges.snapColumn(pctX, radius / iW);
+        }
 
         switch (edge) {
             case EDGE_TOP:
@@ -212,6 +245,19 @@ public class CropOverlayView extends View {
         }
     }
 
+    /**
+     * Midpoint of the part of {@code from..to} inside the view, so an edge's handle stays
+     * reachable while the crop extends past the view (zoomed in).
+     */
+    private static float visibleMid(float from, float to, int viewSize) {
+        float a = Math.max(from, 0), b = Math.min(to, viewSize);
+        return a < b ? (a + b) / 2f : (from + to) / 2f;
+    }
+
+    private static float clamp01(float v) {
+        return Math.max(0f, Math.min(1f, v));
+    }
+
     private float dp(float dp) {
         return dp * getResources().getDisplayMetrics().density;
     }
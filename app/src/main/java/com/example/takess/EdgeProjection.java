@@ -0,0 +1,105 @@
+package com.example.takess;
+
+/**
+ * How strongly each horizontal and vertical line of an image is an edge, so that
+ * {@link CropOverlayView} can snap its handles to UI borders while dragging.
+ *
+ * Built once per crop from a thumbnail-sized sample of the frame, off the UI thread:
+ * boundary {@code y} (between rows {@code y - 1} and {@code y}) gets the mean luminance
+ * step across it, and likewise for columns, one byte each. A drag then only looks at
+ * the few entries within the snap radius, so moving a handle does no image work.
+ * Positions are fractions of the image, like the overlay's crop. Plain Java — no
+ * Android types.
+ */
+final class EdgeProjection {
+
+    /** Weakest mean step (0..255) a boundary needs to attract a handle. */
+    static final int MIN_STRENGTH = 24;
+
+    // Mean luminance step per boundary, 0..255 unsigned; both ends are always 0
+    private final byte[] rows;
+    private final byte[] columns;
+
+    private EdgeProjection(byte[] rows, byte[] columns) {
+        this.rows = rows;
+        this.columns = columns;
+    }
+
+    /** Projects {@code width × height} ARGB pixels. */
+    static EdgeProjection build(int[] pixels, int width, int height) {
+        if (width <= 0 || height <= 0 || pixels.length < width * height) {
+            throw new IllegalArgumentException("bad image");
+        }
+        long[] rowSums = new long[height + 1];
+        long[] columnSums = new long[width + 1];
+        int[] above = new int[width];
+        int[] line = new int[width];
+
+        for (int y = 0; y < height; y++) {
+            int p = y * width;
+            int left = 0;
+            long rowSum = 0;
+            for (int x = 0; x < width; x++) {
+                int lum = luminance(pixels[p + x]);
+                line[x] = lum;
+                if (x > 0) columnSums[x] += Math.abs(lum - left);
+                if (y > 0) rowSum += Math.abs(lum - above[x]);
+                left = lum;
+            }
+            rowSums[y] = rowSum;
+            int[] t = above; above = line; line = t;
+        }
+        return new EdgeProjection(normalize(rowSums, width), normalize(columnSums, height));
+    }
+
+    private static byte[] normalize(long[] sums, int length) {
+        byte[] out = new byte[sums.length];
+        for (int i = 0; i < sums.length; i++) out[i] = (byte) (sums[i] / length);
+        return out;
+    }
+
+    private static int luminance(int argb) {
+        return (((argb >> 16) & 0xFF) * 77 + ((argb >> 8) & 0xFF) * 150 + (argb & 0xFF) * 29) >> 8;
+    }
+
+    // ──────────────────────────────────────────────
+    //  Lookups (UI thread)
+    // ──────────────────────────────────────────────
+
+    int rowStrength(int boundary) { return rows[boundary] & 0xFF; }
+    int columnStrength(int boundary) { return columns[boundary] & 0xFF; }
+
+    /** {@code pct} moved onto the best horizontal edge within {@code radiusPct}, or unchanged. */
+    float snapRow(float pct, float radiusPct) {
+        return snap(rows, pct, radiusPct);
+    }
+
+    /** {@code pct} moved onto the best vertical edge within {@code radiusPct}, or unchanged. */
+    float snapColumn(float pct, float radiusPct) {
+        return snap(columns, pct, radiusPct);
+    }
+
+    /**
+     * Strong edges win over near ones, but an edge counts for less the further it is:
+     * strength × (1 − distance / (radius + 1)).
+     */
+    private static float snap(byte[] strengths, float pct, float radiusPct) {
+        int size = strengths.length - 1;
+        float pos = pct * size;
+        int radius = (int) (radiusPct * size);
+        int from = Math.max(1, (int) Math.ceil(pos - radius));
+        int to = Math.min(size - 1, (int) Math.floor(pos + radius));
+        int best = -1;
+        float bestScore = 0;
+        for (int i = from; i <= to; i++) {
+            int s = strengths[i] & 0xFF;
+            if (s < MIN_STRENGTH) continue;
+            float score = s * (1f - Math.abs(i - pos) / (radius + 1));
+            if (score > bestScore) {
+                bestScore = score;
+                best = i;
+            }
+        }
+        return best < 0 ? pct : (float) best / size;
+    }
+}
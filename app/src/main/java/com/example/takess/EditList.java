@@ -0,0 +1,191 @@
+package com.example.takess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The edits made in the preview, kept as a list of operations against the original
+ * frame instead of as pixels.
+ *
+ * Nothing is rendered while editing: the preview shows {@link #geometry} of the ops
+ * through a downscaled thumbnail, and the service applies the same geometry to the
+ * full-resolution frame in one pass right before the encode. Undo and redo only move
+ * a cursor over the list. Crops are stored as fractions of the image they were made
+ * on, so the same list fits frames of any size (downscaled recent frames). Not
+ * thread-safe; {@link #copy} for other threads. Plain Java — no Android types.
+ */
+final class EditList {
+
+    /** One edit. Immutable. */
+    interface Op {
+        void apply(Geometry g);
+
+        String encode();
+    }
+
+    /** Crop to fractions (0..1) of the image as edited so far. */
+    static final class Crop implements Op {
+        final float left, top, right, bottom;
+
+        Crop(float left, float top, float right, float bottom) {
+            this.left = left;
+            this.top = top;
+            this.right = right;
+            this.bottom = bottom;
+        }
+
+        @Override
+        public void apply(Geometry g) {
+            // Output pixels, truncated and clamped the way the preview always has
+            int l = (int) (left * g.width);
+            int t = (int) (top * g.height);
+            int w = (int) (right * g.width) - l;
+            int h = (int) (bottom * g.height) - t;
+            if (w <= 0 || h <= 0) return;
+            if (l + w > g.width) w = g.width - l;
+            if (t + h > g.height) h = g.height - t;
+            if (w <= 0 || h <= 0) return;
+
+            // Back to frame pixels; exact while nothing has been resized
+            int sw = g.right - g.left, sh = g.bottom - g.top;
+            int sl = g.left + (int) ((long) l * sw / g.width);
+            int st = g.top + (int) ((long) t * sh / g.height);
+            g.right = g.left + (int) ((long) (l + w) * sw / g.width);
+            g.bottom = g.top + (int) ((long) (t + h) * sh / g.height);
+            g.left = sl;
+            g.top = st;
+            g.width = w;
+            g.height = h;
+        }
+
+        @Override
+        public String encode() {
+            return String.format(Locale.US, "crop:%s,%s,%s,%s", left, top, right, bottom);
+        }
+    }
+
+    /** Scale the image as edited so far to {@code width × height} pixels. */
+    static final class Resize implements Op {
+        final int width, height;
+
+        Resize(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public void apply(Geometry g) {
+            if (width <= 0 || height <= 0) return;
+            g.width = width;
+            g.height = height;
+        }
+
+        @Override
+        public String encode() {
+            return "resize:" + width + "," + height;
+        }
+    }
+
+    /** What the ops do to a frame: the frame pixels used and the size they come out at. */
+    static final class Geometry {
+        int left, top, right, bottom;
+        int width, height;
+
+        Geometry(int frameWidth, int frameHeight) {
+            right = width = frameWidth;
+            bottom = height = frameHeight;
+        }
+
+        int sourceWidth() { return right - left; }
+        int sourceHeight() { return bottom - top; }
+
+        boolean isCropped(int frameWidth, int frameHeight) {
+            return left != 0 || top != 0 || right != frameWidth || bottom != frameHeight;
+        }
+
+        boolean isResized() {
+            return width != sourceWidth() || height != sourceHeight();
+        }
+    }
+
+    private final List<Op> ops = new ArrayList<>();
+    // Ops before this index are applied; the rest can be redone
+    private int applied;
+
+    /** Adds an edit after the applied ones; anything that could be redone is dropped. */
+    void push(Op op) {
+        while (ops.size() > applied) ops.remove(ops.size() - 1);
+        ops.add(op);
+        applied++;
+    }
+
+    boolean canUndo() { return applied > 0; }
+    boolean canRedo() { return applied < ops.size(); }
+
+    boolean undo() {
+        if (!canUndo()) return false;
+        applied--;
+        return true;
+    }
+
+    boolean redo() {
+        if (!canRedo()) return false;
+        applied++;
+        return true;
+    }
+
+    boolean isEmpty() {
+        return applied == 0;
+    }
+
+    /** The applied ops on a {@code frameWidth × frameHeight} frame. */
+    Geometry geometry(int frameWidth, int frameHeight) {
+        Geometry g = new Geometry(frameWidth, frameHeight);
+        for (int i = 0; i < applied; i++) ops.get(i).apply(g);
+        return g;
+    }
+
+    /** The applied ops only, for another thread or another process. */
+    EditList copy() {
+        EditList c = new EditList();
+        c.ops.addAll(ops.subList(0, applied));
+        c.applied = applied;
+        return c;
+    }
+
+    /** The applied ops as text, e.g. {@code crop:0.1,0,1,0.5;resize:540,600}. */
+    String encode() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < applied; i++) {
+            if (i > 0) sb.append(';');
+            sb.append(ops.get(i).encode());
+        }
+        return sb.toString();
+    }
+
+    /** Parses {@link #encode} output; unknown or malformed ops are skipped. */
+    static EditList decode(String s) {
+        EditList list = new EditList();
+        if (s == null || s.isEmpty()) return list;
+        for (String op : s.split(";")) {
+            int colon = op.indexOf(':');
+            if (colon < 0) continue;
+            String[] a = op.substring(colon + 1).split(",");
+            try {
+                switch (op.substring(0, colon)) {
+                    case "crop":
+                        if (a.length == 4) list.push(new Crop(Float.parseFloat(a[0]), Float.parseFloat(a[1]),
+                                Float.parseFloat(a[2]), Float.parseFloat(a[3])));
+                        break;
+                    case "resize":
+                        if (a.length == 2) list.push(new Resize(Integer.parseInt(a[0]), Integer.parseInt(a[1])));
+                        break;
+                    default:
+                        break;
+                }
+            } catch (NumberFormatException ignored) { }
+        }
+        return list;
+    }
+}
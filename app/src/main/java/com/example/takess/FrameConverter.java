@@ -0,0 +1,122 @@
+package com.example.takess;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Packs a strided RGBA plane (as handed out by ImageReader) into a tightly packed
+ * buffer that Bitmap.copyPixelsFromBuffer() can consume directly, and box-filters
+ * regions of such planes down to preview thumbnails.
+ *
+ * The destination buffer is kept and reused across frames of the same size, so a
+ * steady stream of captures allocates nothing. Plain Java — no Android types.
+ */
+final class FrameConverter {
+
+    private ByteBuffer packed;
+
+    /**
+     * Returns a buffer holding exactly {@code width * height * pixelStride} bytes
+     * positioned at 0. When the plane has no row padding the source itself is
+     * returned (rewound) and no copy is made.
+     */
+    ByteBuffer pack(ByteBuffer src, int width, int height, int pixelStride, int rowStride) {
+        int rowBytes = width * pixelStride;
+        if (rowStride == rowBytes) {
+            ByteBuffer view = src.duplicate();
+            view.position(0);
+            view.limit(rowBytes * height);
+            return view;
+        }
+
+        int size = rowBytes * height;
+        if (packed == null || packed.capacity() < size) {
+            packed = ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+        }
+        packed.clear();
+        copyRows(src, width, height, pixelStride, rowStride, packed);
+        packed.flip();
+        return packed;
+    }
+
+    /**
+     * Copies {@code height} rows of {@code width * pixelStride} bytes from a plane whose
+     * rows start every {@code rowStride} bytes, skipping the padding. Writes at
+     * {@code dst}'s position and advances it; {@code src}'s position is not touched.
+     * The last row of {@code src} may be unpadded, as ImageReader planes often are.
+     */
+    static void copyRows(ByteBuffer src, int width, int height,
+                         int pixelStride, int rowStride, ByteBuffer dst) {
+        int rowBytes = width * pixelStride;
+        if (rowStride < rowBytes) {
+            throw new IllegalArgumentException(
+                    "rowStride " + rowStride + " < row bytes " + rowBytes);
+        }
+        if (dst.remaining() < rowBytes * height) {
+            throw new IllegalArgumentException("destination too small");
+        }
+
+        ByteBuffer row = src.duplicate();
+        for (int y = 0; y < height; y++) {
+            int start = y * rowStride;
+            row.limit(start + rowBytes);
+            row.position(start);
+            dst.put(row);
+        }
+    }
+
+    /**
+     * Integer downsample factor for showing a {@code width × height} region scaled to
+     * fit {@code maxWidth × maxHeight}: the largest factor that still leaves at least
+     * as many pixels as the fitted size, so the thumbnail is never upscaled.
+     */
+    static int sampleSize(int width, int height, int maxWidth, int maxHeight) {
+        if (maxWidth <= 0 || maxHeight <= 0) return 1;
+        return Math.max(1, Math.max(width / maxWidth, height / maxHeight));
+    }
+
+    /** Output size of {@link #downsample} along one axis. */
+    static int sampledSize(int size, int sample) {
+        return (size + sample - 1) / sample;
+    }
+
+    /**
+     * Box-filters the region ({@code x0}, {@code y0}, {@code width}, {@code height}) of a
+     * strided plane down by {@code sample}, writing packed
+     * {@code sampledSize(width) × sampledSize(height)} pixels at {@code dst}'s position.
+     * Blocks at the right/bottom edge average only the pixels inside the region, so the
+     * thumbnail covers exactly the region. Works per byte, so premultiplied RGBA stays
+     * premultiplied.
+     */
+    static void downsample(ByteBuffer src, int rowStride, int pixelStride,
+                           int x0, int y0, int width, int height, int sample, ByteBuffer dst) {
+        int outW = sampledSize(width, sample);
+        int outH = sampledSize(height, sample);
+        if (dst.remaining() < outW * outH * pixelStride) {
+            throw new IllegalArgumentException("destination too small");
+        }
+
+        int[] sums = new int[outW * pixelStride];
+        for (int oy = 0; oy < outH; oy++) {
+            Arrays.fill(sums, 0);
+            int yEnd = Math.min(height, (oy + 1) * sample);
+            int rows = yEnd - oy * sample;
+            for (int y = oy * sample; y < yEnd; y++) {
+                int rowStart = (y0 + y) * rowStride + x0 * pixelStride;
+                for (int x = 0; x < width; x++) {
+                    int s = rowStart + x * pixelStride;
+                    int o = (x / sample) * pixelStride;
+                    for (int c = 0; c < pixelStride; c++) sums[o + c] += src.get(s + c) & 0xFF;
+                }
+            }
+            for (int ox = 0; ox < outW; ox++) {
+                int cols = Math.min(width, (ox + 1) * sample) - ox * sample;
+                int n = cols * rows;
+                for (int c = 0; c < pixelStride; c++) {
+                    dst.put((byte) ((sums[ox * pixelStride + c] + n / 2) / n));
+                }
+            }
+        }
+    }
+}
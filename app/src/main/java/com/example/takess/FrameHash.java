@@ -0,0 +1,61 @@
+package com.example.takess;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 64-bit content hash of a region of a strided pixel plane, read in place (e.g. from
+ * a mapped temp frame) so no pixels are copied. Not cryptographic: it identifies
+ * identical frames, it does not defend against crafted collisions. Plain Java — no
+ * Android types.
+ */
+final class FrameHash {
+
+    private static final long K1 = 0x9E3779B97F4A7C15L;
+    private static final long K2 = 0xC2B2AE3D27D4EB4FL;
+
+    private FrameHash() { }
+
+    /** Hashes {@code width × height} pixels at ({@code x0}, {@code y0}); padding is ignored. */
+    static long of(ByteBuffer src, int rowStride, int pixelStride,
+                   int x0, int y0, int width, int height) {
+        ByteBuffer buf = src.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int rowBytes = width * pixelStride;
+        // Four independent lanes so the multiplies overlap instead of forming one chain
+        long h0 = K1 ^ ((long) width << 32 | height), h1 = K2, h2 = ~K1, h3 = ~K2;
+        for (int y = 0; y < height; y++) {
+            int p = (y0 + y) * rowStride + x0 * pixelStride;
+            int end = p + rowBytes;
+            for (; p + 32 <= end; p += 32) {
+                h0 = mix(h0, buf.getLong(p));
+                h1 = mix(h1, buf.getLong(p + 8));
+                h2 = mix(h2, buf.getLong(p + 16));
+                h3 = mix(h3, buf.getLong(p + 24));
+            }
+            for (; p + 8 <= end; p += 8) h0 = mix(h0, buf.getLong(p));
+            for (; p < end; p++) h1 = mix(h1, buf.get(p) & 0xFFL);
+            // Row boundary, so the same bytes in a different shape hash differently
+            h2 = mix(h2, y);
+        }
+        return finish(mix(mix(mix(h0, h1), h2), h3));
+    }
+
+    private static long mix(long h, long v) {
+        return Long.rotateLeft(h ^ (v * K2), 31) * K1;
+    }
+
+    private static long finish(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /** Fixed-width hex, as stored and logged. */
+    static String toHex(long hash) {
+        String s = Long.toHexString(hash);
+        return "0000000000000000".substring(s.length()) + s;
+    }
+}
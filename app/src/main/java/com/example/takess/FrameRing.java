@@ -0,0 +1,94 @@
+package com.example.takess;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Preallocated ring of packed frame buffers for burst capture, sized by bytes rather
+ * than by frame count: a budget that holds ten 1080p frames holds five 1440p ones.
+ *
+ * All buffers are allocated up front, so a burst allocates nothing per frame. When
+ * the ring is full the oldest frame is overwritten and counted as dropped. Not
+ * thread-safe: the capture thread fills it, and hands it over to the save pipeline
+ * only once the burst is complete. Plain Java — no Android types.
+ */
+final class FrameRing {
+
+    /** One packed frame: {@code height} rows of {@code width * 4} bytes. */
+    static final class Frame {
+        final ByteBuffer pixels;
+        int width;
+        int height;
+        /** Wall-clock capture time in ms. */
+        long capturedAt;
+
+        Frame(int bytes) {
+            pixels = ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    private final Frame[] slots;
+    private final int frameBytes;
+    private int start;
+    private int size;
+    private int dropped;
+
+    /** As many {@code frameBytes} slots as fit in {@code maxBytes}, but at least one. */
+    FrameRing(long maxBytes, int frameBytes) {
+        this.frameBytes = frameBytes;
+        int count = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxBytes / frameBytes));
+        slots = new Frame[count];
+        for (int i = 0; i < count; i++) slots[i] = new Frame(frameBytes);
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    int frameBytes() {
+        return frameBytes;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Frames overwritten since the last {@link #clear}. */
+    int dropped() {
+        return dropped;
+    }
+
+    /**
+     * The slot to fill next, cleared and counted as part of the ring; overwrites the
+     * oldest frame when the ring is full.
+     */
+    Frame next() {
+        Frame frame;
+        if (size < slots.length) {
+            frame = slots[(start + size) % slots.length];
+            size++;
+        } else {
+            frame = slots[start];
+            start = (start + 1) % slots.length;
+            dropped++;
+        }
+        frame.pixels.clear();
+        return frame;
+    }
+
+    /** Held frames, oldest first. */
+    List<Frame> frames() {
+        List<Frame> frames = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) frames.add(slots[(start + i) % slots.length]);
+        return frames;
+    }
+
+    /** Forgets the held frames; the buffers stay allocated for the next burst. */
+    void clear() {
+        start = 0;
+        size = 0;
+        dropped = 0;
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.takess;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Decides when the screen has stopped changing, e.g. once the notification shade has
+ * finished collapsing after a tile tap, so a capture can fire as early as possible.
+ *
+ * Each frame is reduced to a grid of tile hashes over a sparse set of rows; a frame
+ * "changes" when more than {@link #TOLERATED_TILES} tiles differ from the previous
+ * one (so a blinking cursor doesn't count). A virtual display only renders when
+ * something moves, so stillness is measured in time, not frames: the screen is
+ * settled {@code quietMs} after the last change. If nothing moves at all — the shade
+ * was already gone — it is settled {@code noChangeMs} after the start. Never later
+ * than {@code maxWaitMs}. Plain Java so it can be fed synthetic frames on the JVM.
+ */
+final class FrameStabilityDetector {
+
+    static final int COLS = 8;
+    static final int ROWS = 16;
+    /** Rows sampled per tile row; a moving shade edge crosses several of them per frame. */
+    static final int SAMPLED_ROWS_PER_TILE = 12;
+    static final int TOLERATED_TILES = 1;
+
+    private static final long K1 = 0x9E3779B97F4A7C15L;
+    private static final long K2 = 0xC2B2AE3D27D4EB4FL;
+
+    private final long quietMs;
+    private final long noChangeMs;
+    private final long maxWaitMs;
+
+    private long[] tiles = new long[COLS * ROWS];
+    private long[] previous = new long[COLS * ROWS];
+    private long startAt;
+    private long lastChangeAt;
+    private int frames;
+    private int changes;
+
+    FrameStabilityDetector(long quietMs, long noChangeMs, long maxWaitMs) {
+        this.quietMs = quietMs;
+        this.noChangeMs = noChangeMs;
+        this.maxWaitMs = maxWaitMs;
+    }
+
+    /** Starts a new wait at {@code now}. */
+    void start(long now) {
+        startAt = now;
+        lastChangeAt = now;
+        frames = 0;
+        changes = 0;
+    }
+
+    /**
+     * Feeds a frame that arrived at {@code now} and returns true if it differs from the
+     * previous one. The first frame only sets the baseline.
+     */
+    boolean onFrame(ByteBuffer pixels, int width, int height, int rowStride, int pixelStride, long now) {
+        long[] t = previous;
+        previous = tiles;
+        tiles = t;
+        hashTiles(pixels, width, height, rowStride, pixelStride, tiles);
+
+        boolean changed = false;
+        if (frames > 0) {
+            int differing = 0;
+            for (int i = 0; i < tiles.length; i++) {
+                if (tiles[i] != previous[i]) differing++;
+            }
+            changed = differing > TOLERATED_TILES;
+        }
+        frames++;
+        if (changed) {
+            changes++;
+            lastChangeAt = now;
+        }
+        return changed;
+    }
+
+    /** Earliest time the screen counts as settled unless another change arrives. */
+    long readyAt() {
+        return Math.min(settledAt(), startAt + maxWaitMs);
+    }
+
+    boolean isSettled(long now) {
+        return now >= readyAt();
+    }
+
+    /** True if the wait ends at {@code maxWaitMs} rather than because the screen settled. */
+    boolean timedOut(long now) {
+        long deadline = startAt + maxWaitMs;
+        return now >= deadline && settledAt() > deadline;
+    }
+
+    private long settledAt() {
+        if (frames == 0) return Long.MAX_VALUE;   // nothing to capture yet
+        long ready = lastChangeAt + quietMs;
+        if (changes == 0) ready = Math.max(ready, startAt + noChangeMs);
+        return ready;
+    }
+
+    long startedAt() {
+        return startAt;
+    }
+
+    int frames() {
+        return frames;
+    }
+
+    int changes() {
+        return changes;
+    }
+
+    /** Hashes {@link #SAMPLED_ROWS_PER_TILE} evenly spaced rows of every tile. */
+    static void hashTiles(ByteBuffer pixels, int width, int height, int rowStride,
+                          int pixelStride, long[] out) {
+        ByteBuffer buf = pixels.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        Arrays.fill(out, K1);
+        int tileH = Math.max(1, height / ROWS);
+        int step = Math.max(1, tileH / SAMPLED_ROWS_PER_TILE);
+        for (int y = step / 2; y < height; y += step) {
+            int ty = Math.min(ROWS - 1, y / tileH);
+            int row = y * rowStride;
+            for (int tx = 0; tx < COLS; tx++) {
+                int from = row + (tx * width / COLS) * pixelStride;
+                int to = row + ((tx + 1) * width / COLS) * pixelStride;
+                long h = out[ty * COLS + tx];
+                int p = from;
+                for (; p + 8 <= to; p += 8) h = Long.rotateLeft(h ^ (buf.getLong(p) * K2), 31) * K1;
+                for (; p < to; p++) h = Long.rotateLeft(h ^ ((buf.get(p) & 0xFFL) * K2), 31) * K1;
+                out[ty * COLS + tx] = h;
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.takess;
+
+import android.os.Bundle;
+import android.text.format.Formatter;
+import android.util.Log;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.ListView;
+import android.widget.TextView;
+
+import androidx.activity.EdgeToEdge;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.graphics.Insets;
+import androidx.core.view.ViewCompat;
+import androidx.core.view.WindowInsetsCompat;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Pages through {@link CaptureHistory}, newest first, without loading any images.
+ * Entries are read in pages on a background thread and only a few pages are kept.
+ */
+public class HistoryActivity extends AppCompatActivity {
+
+    private static final String TAG = "HistoryActivity";
+    private static final int PAGE_SIZE = 50;
+    private static final int PAGES_KEPT = 6;
+
+    private final ExecutorService loader = Executors.newSingleThreadExecutor();
+    private CaptureHistory history;
+    private HistoryAdapter adapter;
+    private TextView tvSummary;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        EdgeToEdge.enable(this);
+        setContentView(R.layout.activity_history);
+        ViewCompat.setOnApplyWindowInsetsListener(findViewById(R.id.history_root), (v, insets) -> {
+            Insets systemBars = insets.getInsets(WindowInsetsCompat.Type.systemBars());
+            v.setPadding(systemBars.left, systemBars.top, systemBars.right, systemBars.bottom);
+            return insets;
+        });
+
+        tvSummary = findViewById(R.id.tv_history_summary);
+        ListView list = findViewById(R.id.list_history);
+        list.setEmptyView(findViewById(R.id.tv_history_empty));
+        adapter = new HistoryAdapter();
+        list.setAdapter(adapter);
+
+        loader.execute(this::loadSummary);
+    }
+
+    /** Opens the index and counts today's captures; runs on the loader. */
+    private void loadSummary() {
+        int size;
+        int today;
+        long todayBytes;
+        try {
+            history = CaptureHistory.shared(new File(getFilesDir(), "history"));
+            size = history.size();
+            long midnight = startOfToday();
+            today = history.count(midnight, Long.MAX_VALUE);
+            todayBytes = history.bytes(midnight, Long.MAX_VALUE);
+        } catch (IOException e) {
+            Log.e(TAG, "history unavailable", e);
+            return;
+        }
+        String summary = "Today: " + today + (today == 1 ? " screenshot, " : " screenshots, ")
+                + Formatter.formatShortFileSize(this, todayBytes) + "  ·  All time: " + size;
+        runOnUiThread(() -> {
+            if (isDestroyed()) return;
+            tvSummary.setText(summary);
+            adapter.setCount(size);
+        });
+    }
+
+    private static long startOfToday() {
+        Calendar c = Calendar.getInstance();
+        c.set(Calendar.HOUR_OF_DAY, 0);
+        c.set(Calendar.MINUTE, 0);
+        c.set(Calendar.SECOND, 0);
+        c.set(Calendar.MILLISECOND, 0);
+        return c.getTimeInMillis();
+    }
+
+    @Override
+    protected void onDestroy() {
+        loader.shutdownNow();
+        super.onDestroy();
+    }
+
+    // ──────────────────────────────────────────────
+    //  Paged adapter
+    // ──────────────────────────────────────────────
+
+    private final class HistoryAdapter extends BaseAdapter {
+
+        private final SimpleDateFormat dateFormat =
+                new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
+        // Main thread only; least recently shown pages are dropped first
+        private final Map<Integer, List<CaptureHistory.Entry>> pages =
+                new LinkedHashMap<Integer, List<CaptureHistory.Entry>>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<Integer, List<CaptureHistory.Entry>> e) {
+                        return size() > PAGES_KEPT;
+                    }
+                };
+        private final Set<Integer> loading = new HashSet<>();
+        // Snapshot of the index size, so rows don't shift while new captures land
+        private int count;
+
+        void setCount(int count) {
+            this.count = count;
+            pages.clear();
+            notifyDataSetChanged();
+        }
+
+        @Override
+        public int getCount() {
+            return count;
+        }
+
+        /** Row 0 is the newest capture. */
+        @Override
+        public CaptureHistory.Entry getItem(int position) {
+            List<CaptureHistory.Entry> page = pages.get(position / PAGE_SIZE);
+            if (page == null) {
+                requestPage(position / PAGE_SIZE);
+                return null;
+            }
+            int i = position % PAGE_SIZE;
+            return i < page.size() ? page.get(i) : null;
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return position;
+        }
+
+        @Override
+        public View getView(int position, View convertView, ViewGroup parent) {
+            View row = convertView != null ? convertView
+                    : LayoutInflater.from(parent.getContext()).inflate(R.layout.item_history, parent, false);
+            TextView name = row.findViewById(R.id.tv_history_name);
+            TextView details = row.findViewById(R.id.tv_history_details);
+            TextView uri = row.findViewById(R.id.tv_history_uri);
+
+            CaptureHistory.Entry e = getItem(position);
+            if (e == null) {
+                name.setText(R.string.history_loading);
+                details.setText("");
+                uri.setText("");
+                return row;
+            }
+            name.setText(e.fileName);
+            details.setText(dateFormat.format(new Date(e.timestamp)) + "  ·  "
+                    + e.width + " × " + e.height + "  ·  "
+                    + Formatter.formatShortFileSize(row.getContext(), e.bytes) + "  ·  " + e.format
+                    + "\ncapture " + e.captureMs + " ms, encode " + e.encodeMs
+                    + " ms, commit " + e.commitMs + " ms  ·  #" + FrameHash.toHex(e.contentHash).substring(0, 8));
+            uri.setText(e.uri);
+            return row;
+        }
+
+        private void requestPage(int page) {
+            if (!loading.add(page)) return;
+            int total = count;
+            loader.execute(() -> {
+                // Rows run newest first; the index is oldest first
+                int first = total - 1 - page * PAGE_SIZE;
+                int last = Math.max(0, first - PAGE_SIZE + 1);
+                List<CaptureHistory.Entry> entries = new ArrayList<>(first - last + 1);
+                try {
+                    for (int i = first; i >= last; i--) entries.add(history.get(i));
+                } catch (IOException e) {
+                    Log.e(TAG, "history page " + page, e);
+                }
+                runOnUiThread(() -> {
+                    loading.remove(page);
+                    if (isDestroyed() || total != count) return;
+                    pages.put(page, entries);
+                    notifyDataSetChanged();
+                });
+            });
+        }
+    }
+}
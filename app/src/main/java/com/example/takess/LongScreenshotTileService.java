@@ -0,0 +1,46 @@
+package com.example.takess;
+
+import android.content.Intent;
+import android.os.SystemClock;
+import android.provider.Settings;
+import android.service.quicksettings.Tile;
+
+/**
+ * Quick Settings tile for long screenshots: the service scrolls the app on screen
+ * through {@link SwipeDetectorService} and stitches the frames. Until that
+ * accessibility service is enabled, the tile opens the accessibility settings.
+ */
+public class LongScreenshotTileService extends ScreenshotTileService {
+
+    @Override
+    public void onStartListening() {
+        Tile tile = getQsTile();
+        if (tile != null) {
+            tile.setState(ScreenshotService.isServiceRunning() && SwipeDetectorService.get() != null
+                    ? Tile.STATE_ACTIVE
+                    : Tile.STATE_INACTIVE);
+            tile.setLabel(getString(R.string.long_tile_label));
+            tile.updateTile();
+        }
+    }
+
+    @Override
+    public void onClick() {
+        if (!ScreenshotService.isServiceRunning()) {
+            // Same consent flow as the screenshot tile
+            super.onClick();
+            return;
+        }
+        if (SwipeDetectorService.get() == null) {
+            Intent settings = new Intent(Settings.ACTION_ACCESSIBILITY_SETTINGS);
+            settings.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+            collapseAndStart(settings, 4);
+            return;
+        }
+        Intent captureIntent = new Intent(this, ScreenshotService.class);
+        captureIntent.setAction(ScreenshotService.ACTION_LONG_CAPTURE);
+        captureIntent.putExtra("requestedAt", SystemClock.elapsedRealtime());
+        startService(captureIntent);
+        collapsePanel();
+    }
+}
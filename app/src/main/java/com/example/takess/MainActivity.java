@@ -28,7 +28,8 @@ import androidx.core.content.ContextCompat;
 import androidx.core.graphics.Insets;
 import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
-import androidx.documentfile.provider.DocumentFile;
+
+import com.google.android.material.materialswitch.MaterialSwitch;
 
 public class MainActivity extends AppCompatActivity {
 
@@ -40,6 +41,8 @@ public class MainActivity extends AppCompatActivity {
     private RadioButton rbSdCard;
     private Button btnChooseFolder;
     private Button btnToggleService;
+    private TextView tvFormatStats;
+    private TextView tvFilenamePreview;
     private ActivityResultLauncher<Intent> folderPickerLauncher;
     private ActivityResultLauncher<Intent> projectionLauncher;
 
@@ -75,7 +78,9 @@ public class MainActivity extends AppCompatActivity {
                             getContentResolver().takePersistableUriPermission(treeUri,
                                     Intent.FLAG_GRANT_READ_URI_PERMISSION |
                                             Intent.FLAG_GRANT_WRITE_URI_PERMISSION);
-                            prefs.edit().putString("saf_uri", treeUri.toString()).apply();
+                            // The cached name belongs to the previous folder
+                            prefs.edit().putString("saf_uri", treeUri.toString())
+                                    .remove("saf_name").apply();
                             updatePathDisplay();
                             Toast.makeText(this, "Folder selected successfully", Toast.LENGTH_SHORT).show();
                         }
@@ -125,6 +130,31 @@ public class MainActivity extends AppCompatActivity {
         });
 
 
+        // ── Warm / cold capture mode ──
+        MaterialSwitch switchWarm = findViewById(R.id.switch_warm_capture);
+        switchWarm.setChecked(!ScreenshotService.CAPTURE_MODE_COLD.equals(
+                prefs.getString("capture_mode", ScreenshotService.CAPTURE_MODE_WARM)));
+        switchWarm.setOnCheckedChangeListener((b, checked) ->
+                prefs.edit().putString("capture_mode", checked
+                        ? ScreenshotService.CAPTURE_MODE_WARM
+                        : ScreenshotService.CAPTURE_MODE_COLD).apply());
+
+        MaterialSwitch switchCompare = findViewById(R.id.switch_compare_save);
+        switchCompare.setChecked(prefs.getBoolean("compare_save_paths", false));
+        switchCompare.setOnCheckedChangeListener((b, checked) ->
+                prefs.edit().putBoolean("compare_save_paths", checked).apply());
+
+        MaterialSwitch switchDedupe = findViewById(R.id.switch_dedupe);
+        switchDedupe.setChecked(prefs.getBoolean("dedupe_captures", false));
+        switchDedupe.setOnCheckedChangeListener((b, checked) ->
+                prefs.edit().putBoolean("dedupe_captures", checked).apply());
+
+        // The running service follows this preference as soon as it changes
+        MaterialSwitch switchRecent = findViewById(R.id.switch_recent_buffer);
+        switchRecent.setChecked(prefs.getBoolean("recent_buffer", false));
+        switchRecent.setOnCheckedChangeListener((b, checked) ->
+                prefs.edit().putBoolean("recent_buffer", checked).apply());
+
         // ── Storage radio buttons ──
         String storageType = prefs.getString("storage_type", "internal");
         if ("sd_card".equals(storageType)) {
@@ -152,6 +182,67 @@ public class MainActivity extends AppCompatActivity {
 
         btnChooseFolder.setOnClickListener(v -> openFolderPicker());
 
+        // ── Capture history ──
+        findViewById(R.id.btn_history).setOnClickListener(v ->
+                startActivity(new Intent(this, HistoryActivity.class)));
+
+        // ── Output format + profile ──
+        tvFormatStats = findViewById(R.id.tv_format_stats);
+        RadioGroup formatGroup = findViewById(R.id.radio_group_format);
+        RadioGroup profileGroup = findViewById(R.id.radio_group_profile);
+        formatGroup.check(formatButtonId(OutputFormat.fromId(prefs.getString("output_format", null))));
+        profileGroup.check(profileButtonId(
+                OutputFormat.Profile.fromId(prefs.getString("output_profile", null))));
+
+        formatGroup.setOnCheckedChangeListener((group, checkedId) -> {
+            OutputFormat format = OutputFormat.PNG;
+            if (checkedId == R.id.rb_format_webp_lossless) format = OutputFormat.WEBP_LOSSLESS;
+            else if (checkedId == R.id.rb_format_webp) format = OutputFormat.WEBP_LOSSY;
+            else if (checkedId == R.id.rb_format_jpeg) format = OutputFormat.JPEG;
+            prefs.edit().putString("output_format", format.id).apply();
+            updateFilenamePreview(tvFilenamePreview, prefs.getString("file_prefix", "Screenshot"));
+        });
+        profileGroup.setOnCheckedChangeListener((group, checkedId) -> {
+            OutputFormat.Profile profile = OutputFormat.Profile.BALANCED;
+            if (checkedId == R.id.rb_profile_quality) profile = OutputFormat.Profile.QUALITY;
+            else if (checkedId == R.id.rb_profile_speed) profile = OutputFormat.Profile.SPEED;
+            prefs.edit().putString("output_profile", profile.id).apply();
+        });
+
+        MaterialSwitch switchParallelPng = findViewById(R.id.switch_parallel_png);
+        switchParallelPng.setChecked(ScreenshotService.PNG_ENCODER_PARALLEL.equals(
+                prefs.getString("png_encoder", ScreenshotService.PNG_ENCODER_PLATFORM)));
+        MaterialSwitch switchFastThenMax = findViewById(R.id.switch_png_fast_then_max);
+        switchFastThenMax.setChecked(prefs.getBoolean("png_fast_then_max", false));
+        switchFastThenMax.setEnabled(switchParallelPng.isChecked());
+        switchFastThenMax.setOnCheckedChangeListener((b, checked) ->
+                prefs.edit().putBoolean("png_fast_then_max", checked).apply());
+
+        switchParallelPng.setOnCheckedChangeListener((b, checked) -> {
+            prefs.edit().putString("png_encoder", checked
+                    ? ScreenshotService.PNG_ENCODER_PARALLEL
+                    : ScreenshotService.PNG_ENCODER_PLATFORM).apply();
+            switchFastThenMax.setEnabled(checked);
+        });
+
+        // ── Settle wait upper bound ──
+        EditText etSettleMax = findViewById(R.id.et_settle_max);
+        etSettleMax.setText(String.valueOf(
+                prefs.getInt("settle_max_ms", ScreenshotService.DEFAULT_SETTLE_MAX_MS)));
+        etSettleMax.addTextChangedListener(new TextWatcher() {
+            @Override public void beforeTextChanged(CharSequence s, int st, int c, int a) { }
+            @Override public void onTextChanged(CharSequence s, int st, int b, int c) { }
+            @Override
+            public void afterTextChanged(Editable s) {
+                try {
+                    int val = Integer.parseInt(s.toString());
+                    if (val < 100) val = 100;
+                    if (val > 5000) val = 5000;
+                    prefs.edit().putInt("settle_max_ms", val).apply();
+                } catch (NumberFormatException ignored) { }
+            }
+        });
+
         // ── Preview duration EditText ──
         EditText etDuration = findViewById(R.id.et_duration);
 
@@ -174,7 +265,7 @@ public class MainActivity extends AppCompatActivity {
 
         // ── File name prefix EditText ──
         EditText etFilePrefix = findViewById(R.id.et_file_prefix);
-        TextView tvFilenamePreview = findViewById(R.id.tv_filename_preview);
+        tvFilenamePreview = findViewById(R.id.tv_filename_preview);
 
         String savedPrefix = prefs.getString("file_prefix", "Screenshot");
         etFilePrefix.setText(savedPrefix);
@@ -218,6 +309,33 @@ public class MainActivity extends AppCompatActivity {
     protected void onResume() {
         super.onResume();
         updateServiceStatus();
+        updateFormatStats();
+    }
+
+    private void updateFormatStats() {
+        String summary = ScreenshotService.getSaveStats().summary();
+        tvFormatStats.setText(summary.isEmpty()
+                ? getString(R.string.format_stats_empty)
+                : summary.replace(" | ", "\n"));
+    }
+
+    private static int formatButtonId(OutputFormat format) {
+        switch (format) {
+            case WEBP_LOSSLESS: return R.id.rb_format_webp_lossless;
+            case WEBP_LOSSY: return R.id.rb_format_webp;
+            case JPEG: return R.id.rb_format_jpeg;
+            case PNG:
+            default: return R.id.rb_format_png;
+        }
+    }
+
+    private static int profileButtonId(OutputFormat.Profile profile) {
+        switch (profile) {
+            case QUALITY: return R.id.rb_profile_quality;
+            case SPEED: return R.id.rb_profile_speed;
+            case BALANCED:
+            default: return R.id.rb_profile_balanced;
+        }
     }
 
     private void updateServiceStatus() {
@@ -240,9 +358,10 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void updateFilenamePreview(TextView tv, String prefix) {
-        String sample = prefix + "_" +
+        OutputFormat format = OutputFormat.fromId(prefs.getString("output_format", null));
+        String sample = format.fileName(prefix + "_" +
                 new java.text.SimpleDateFormat("yyyyMMdd_HHmmss", java.util.Locale.getDefault())
-                        .format(new java.util.Date()) + ".png";
+                        .format(new java.util.Date()));
         tv.setText("Preview: " + sample);
     }
 
@@ -261,17 +380,16 @@ public class MainActivity extends AppCompatActivity {
             tvCurrentPath.setText("📁 Pictures/TakeSS (Internal Storage)");
             tvStatus.setText("✅ Screenshots will be saved to internal storage");
         } else {
-            String safUri = prefs.getString("saf_uri", null);
-            if (safUri != null) {
-                try {
-                    DocumentFile dir = DocumentFile.fromTreeUri(this, Uri.parse(safUri));
-                    String folderName = dir != null ? dir.getName() : "Selected folder";
+            // Same cache the service saves through — only the first lookup queries the tree
+            SafFolder folder = SafFolder.get(this);
+            if (folder != null) {
+                String folderName = folder.displayName();
+                if (folderName != null) {
                     tvCurrentPath.setText("📁 " + folderName + " (Custom Folder)");
-                    tvStatus.setText("✅ Screenshots will be saved to selected folder");
-                } catch (Exception e) {
+                } else {
                     tvCurrentPath.setText("📁 Custom folder (URI saved)");
-                    tvStatus.setText("✅ Screenshots will be saved to selected folder");
                 }
+                tvStatus.setText("✅ Screenshots will be saved to selected folder");
             } else {
                 tvCurrentPath.setText("📁 No folder selected");
                 tvStatus.setText("⚠️ Please select a folder for screenshots");
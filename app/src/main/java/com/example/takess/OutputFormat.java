@@ -0,0 +1,77 @@
+package com.example.takess;
+
+/**
+ * Output encodings a screenshot can be saved in. Each format carries its MIME type
+ * and file extension together so the two can never disagree, and maps a
+ * {@link Profile} to the quality value handed to the encoder.
+ */
+enum OutputFormat {
+
+    PNG("png", "image/png", "png", true),
+    WEBP_LOSSLESS("webp_lossless", "image/webp", "webp", true),
+    WEBP_LOSSY("webp", "image/webp", "webp", false),
+    JPEG("jpeg", "image/jpeg", "jpg", false);
+
+    /** Trade-off between output size / fidelity and encode time. */
+    enum Profile {
+        QUALITY("quality"),
+        BALANCED("balanced"),
+        SPEED("speed");
+
+        final String id;
+
+        Profile(String id) {
+            this.id = id;
+        }
+
+        static Profile fromId(String id) {
+            for (Profile p : values()) {
+                if (p.id.equals(id)) return p;
+            }
+            return BALANCED;
+        }
+    }
+
+    final String id;
+    final String mimeType;
+    final String extension;
+    final boolean lossless;
+
+    OutputFormat(String id, String mimeType, String extension, boolean lossless) {
+        this.id = id;
+        this.mimeType = mimeType;
+        this.extension = extension;
+        this.lossless = lossless;
+    }
+
+    /** Unknown or missing ids fall back to PNG, the historical default. */
+    static OutputFormat fromId(String id) {
+        for (OutputFormat f : values()) {
+            if (f.id.equals(id)) return f;
+        }
+        return PNG;
+    }
+
+    /**
+     * The 0..100 value for Bitmap.compress(). For lossy formats it is visual quality;
+     * for lossless WebP it is encoder effort (higher = smaller but slower); PNG
+     * ignores it.
+     */
+    int quality(Profile profile) {
+        switch (this) {
+            case WEBP_LOSSLESS:
+                return profile == Profile.QUALITY ? 100 : profile == Profile.BALANCED ? 75 : 25;
+            case WEBP_LOSSY:
+                return profile == Profile.QUALITY ? 95 : profile == Profile.BALANCED ? 85 : 75;
+            case JPEG:
+                return profile == Profile.QUALITY ? 95 : profile == Profile.BALANCED ? 90 : 80;
+            case PNG:
+            default:
+                return 100;
+        }
+    }
+
+    String fileName(String baseName) {
+        return baseName + "." + extension;
+    }
+}
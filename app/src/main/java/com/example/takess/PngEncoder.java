@@ -0,0 +1,578 @@
+package com.example.takess;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Pure-Java PNG encoder that filters and deflates horizontal strips in parallel.
+ *
+ * Each strip is compressed as a raw deflate segment primed with the previous
+ * strip's tail as its dictionary; every segment but the last ends with a sync
+ * flush, so the segments concatenate into one valid zlib stream (the Adler-32 of
+ * the whole stream is combined from the per-strip checksums). Opaque images are
+ * written as 8-bit RGB, anything else as 8-bit RGBA. Strips hold at most
+ * {@link #MAX_STRIP_BYTES} of filtered rows and only a pool's worth are in flight, each
+ * written out and dropped in order, so a 60 000-row long screenshot needs no more heap
+ * than a normal one.
+ *
+ * With {@link #FILTER_ADAPTIVE} each row gets the filter whose residuals look
+ * cheapest to deflate, estimated on a sample of its pixels; {@link Mode} bundles
+ * that with a zlib level for interactive ("fast") or background ("max") saves.
+ *
+ * Works on ARGB ints or RGBA bytes so it can be tested on the JVM.
+ */
+final class PngEncoder {
+
+    private static final byte[] SIGNATURE = {
+            (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+    private static final int DICTIONARY_BYTES = 32 * 1024;
+    private static final int MAX_IDAT_BYTES = 1 << 20;
+    private static final int MIN_STRIP_ROWS = 16;
+    // Largest sideways move, in pixels, still taken for a shifted copy of the row above
+    private static final int MAX_ROW_SHIFT = 2;
+    static final int MAX_STRIP_BYTES = 4 * 1024 * 1024;
+
+    static final int FILTER_NONE = 0;
+    static final int FILTER_SUB = 1;
+    static final int FILTER_UP = 2;
+    static final int FILTER_AVERAGE = 3;
+    static final int FILTER_PAETH = 4;
+    /** Not a PNG filter type: pick one of the five per row. */
+    static final int FILTER_ADAPTIVE = 5;
+
+    /** Compression presets. The sample step is how many pixels one adaptive probe covers. */
+    enum Mode {
+        /** Interactive saves: cheapest deflate, filter chosen from every 4th pixel. */
+        FAST(Deflater.BEST_SPEED, 4),
+        DEFAULT(Deflater.DEFAULT_COMPRESSION, 2),
+        /** Background re-compression: best deflate, filter chosen from every pixel. */
+        MAX(Deflater.BEST_COMPRESSION, 1);
+
+        final int level;
+        final int sampleStep;
+
+        Mode(int level, int sampleStep) {
+            this.level = level;
+            this.sampleStep = sampleStep;
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private final int level;
+    private final int filter;
+    private final int sampleStep;
+
+    PngEncoder(ForkJoinPool pool, int level, int filter) {
+        this(pool, level, filter, 1);
+    }
+
+    private PngEncoder(ForkJoinPool pool, int level, int filter, int sampleStep) {
+        this.pool = pool;
+        this.level = level;
+        this.filter = filter;
+        this.sampleStep = sampleStep;
+    }
+
+    static PngEncoder forMode(ForkJoinPool pool, Mode mode) {
+        return new PngEncoder(pool, mode.level, FILTER_ADAPTIVE, mode.sampleStep);
+    }
+
+    /** Default encoder: common pool, zlib level 6, Sub filter on every row. */
+    PngEncoder() {
+        this(ForkJoinPool.commonPool(), Deflater.DEFAULT_COMPRESSION, FILTER_SUB);
+    }
+
+    /** Source of one image row as 8-bit R, G, B(, A) samples. */
+    private interface RowSource {
+        boolean isOpaque();
+
+        /** Fills {@code dst} with row {@code y} in {@code bpp} bytes per pixel. */
+        void row(int y, byte[] dst, int bpp);
+    }
+
+    /** Encodes non-premultiplied ARGB ints (Bitmap.getPixels order). */
+    void encode(int[] argb, int width, int height, OutputStream out) throws IOException {
+        checkSize(width, height);
+        if (argb.length < width * height) throw new IllegalArgumentException("pixel array too small");
+        encode(new RowSource() {
+            @Override
+            public boolean isOpaque() {
+                for (int i = 0, n = width * height; i < n; i++) {
+                    if ((argb[i] >>> 24) != 0xFF) return false;
+                }
+                return true;
+            }
+
+            @Override
+            public void row(int y, byte[] dst, int bpp) {
+                int p = y * width;
+                for (int x = 0, o = 0; x < width; x++, o += bpp) {
+                    int c = argb[p + x];
+                    dst[o] = (byte) (c >> 16);
+                    dst[o + 1] = (byte) (c >> 8);
+                    dst[o + 2] = (byte) c;
+                    if (bpp == 4) dst[o + 3] = (byte) (c >>> 24);
+                }
+            }
+        }, width, height, out);
+    }
+
+    /**
+     * Encodes RGBA bytes as laid out by Bitmap.copyPixelsToBuffer() for ARGB_8888.
+     * {@code premultiplied} pixels (what Android bitmaps hold) are un-premultiplied,
+     * as PNG requires straight alpha.
+     */
+    void encodeRgba(ByteBuffer rgba, int width, int height, int stride,
+                    boolean premultiplied, OutputStream out) throws IOException {
+        checkSize(width, height);
+        int base = rgba.position();
+        if (stride < width * 4 || rgba.remaining() < (long) stride * (height - 1) + width * 4) {
+            throw new IllegalArgumentException("pixel buffer too small");
+        }
+        encode(new RowSource() {
+            @Override
+            public boolean isOpaque() {
+                for (int y = 0; y < height; y++) {
+                    int p = base + y * stride + 3;
+                    for (int x = 0; x < width; x++, p += 4) {
+                        if (rgba.get(p) != (byte) 0xFF) return false;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public void row(int y, byte[] dst, int bpp) {
+                int p = base + y * stride;
+                for (int x = 0, o = 0; x < width; x++, o += bpp, p += 4) {
+                    int a = rgba.get(p + 3) & 0xFF;
+                    int r = rgba.get(p) & 0xFF, g = rgba.get(p + 1) & 0xFF, b = rgba.get(p + 2) & 0xFF;
+                    if (premultiplied && a != 0xFF && a != 0) {
+                        r = Math.min(255, (r * 255 + a / 2) / a);
+                        g = Math.min(255, (g * 255 + a / 2) / a);
+                        b = Math.min(255, (b * 255 + a / 2) / a);
+                    }
+                    dst[o] = (byte) r;
+                    dst[o + 1] = (byte) g;
+                    dst[o + 2] = (byte) b;
+                    if (bpp == 4) dst[o + 3] = (byte) a;
+                }
+            }
+        }, width, height, out);
+    }
+
+    private static void checkSize(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Bad size " + width + "x" + height);
+        }
+    }
+
+    // ──────────────────────────────────────────────
+    //  Strip pipeline
+    // ──────────────────────────────────────────────
+
+    private static final class Strip {
+        byte[] deflated;
+        int deflatedLength;
+        int adler;
+        long rawLength;
+    }
+
+    private void encode(RowSource src, int width, int height, OutputStream out) throws IOException {
+        boolean opaque = src.isOpaque();
+        int bpp = opaque ? 3 : 4;
+        int rowBytes = width * bpp;
+
+        int parallelism = Math.max(1, pool.getParallelism());
+        int rowsPerStrip = stripRows(rowBytes, height, parallelism);
+        int strips = (height + rowsPerStrip - 1) / rowsPerStrip;
+
+        // Strips in flight: enough to keep the pool busy while this thread writes
+        ArrayDeque<Future<Strip>> inFlight = new ArrayDeque<>();
+        int window = parallelism + 1;
+        int submitted = 0;
+        while (submitted < Math.min(window, strips)) {
+            inFlight.add(submitStrip(src, submitted++, rowsPerStrip, strips, height, rowBytes, bpp));
+        }
+
+        ByteArrayOutputStream ihdr = new ByteArrayOutputStream(13);
+        writeInt(ihdr, width);
+        writeInt(ihdr, height);
+        ihdr.write(8);                   // bit depth
+        ihdr.write(opaque ? 2 : 6);      // colour type: RGB / RGBA
+        ihdr.write(0);                   // deflate
+        ihdr.write(0);                   // adaptive filtering
+        ihdr.write(0);                   // no interlace
+
+        out.write(SIGNATURE);
+        writeChunk(out, "IHDR", ihdr.toByteArray(), 0, ihdr.size());
+
+        // zlib stream: header, strip segments, combined Adler-32 — split into IDAT chunks
+        IdatWriter idat = new IdatWriter(out);
+        idat.write(new byte[]{ 0x78, (byte) 0x9C }, 0, 2);
+        int adler = 1;
+        while (!inFlight.isEmpty()) {
+            Strip s;
+            try {
+                s = inFlight.poll().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("PNG encode interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IOException("PNG strip failed", e.getCause());
+            }
+            idat.write(s.deflated, 0, s.deflatedLength);
+            adler = adler32Combine(adler, s.adler, s.rawLength);
+            // This strip's buffers are garbage now; only then start another
+            if (submitted < strips) {
+                inFlight.add(submitStrip(src, submitted++, rowsPerStrip, strips, height, rowBytes, bpp));
+            }
+        }
+        byte[] trailer = { (byte) (adler >>> 24), (byte) (adler >>> 16), (byte) (adler >>> 8), (byte) adler };
+        idat.write(trailer, 0, 4);
+        idat.flush();
+
+        writeChunk(out, "IEND", new byte[0], 0, 0);
+        out.flush();
+    }
+
+    /**
+     * Rows per strip: the image split two strips per worker, but no strip over
+     * {@link #MAX_STRIP_BYTES} of filtered data or under {@link #MIN_STRIP_ROWS} rows.
+     */
+    static int stripRows(int rowBytes, int height, int parallelism) {
+        int strips = Math.max(1, Math.min(parallelism * 2, height / MIN_STRIP_ROWS));
+        int rows = (height + strips - 1) / strips;
+        int maxRows = Math.max(MIN_STRIP_ROWS, MAX_STRIP_BYTES / (rowBytes + 1));
+        return Math.min(rows, maxRows);
+    }
+
+    private Future<Strip> submitStrip(RowSource src, int index, int rowsPerStrip, int strips,
+                                      int height, int rowBytes, int bpp) {
+        int y0 = index * rowsPerStrip;
+        int y1 = Math.min(height, y0 + rowsPerStrip);
+        boolean last = index == strips - 1;
+        return pool.submit(() -> encodeStrip(src, y0, y1, height, rowBytes, bpp, last));
+    }
+
+    private Strip encodeStrip(RowSource src, int y0, int y1, int height, int rowBytes, int bpp,
+                              boolean last) {
+        byte[] filtered = new byte[(y1 - y0) * (rowBytes + 1)];
+        RowFilter rowFilter = new RowFilter(rowBytes, bpp, sampleStep, rawMatchesWin(level));
+        filterRows(src, y0, y1, height, rowBytes, bpp, rowFilter, filtered);
+
+        Deflater deflater = new Deflater(level, true);
+        try {
+            if (y0 > 0) {
+                // Prime with the tail of the previous strip's filtered bytes so matches can span strips
+                byte[] dict = previousTail(src, y0, height, rowBytes, bpp, rowFilter);
+                deflater.setDictionary(dict);
+            }
+            deflater.setInput(filtered);
+            if (last) deflater.finish();
+
+            byte[] buf = new byte[Math.max(64, filtered.length / 4 + 64)];
+            int len = 0;
+            while (true) {
+                if (len == buf.length) buf = Arrays.copyOf(buf, buf.length * 2);
+                int space = buf.length - len;
+                if (last) {
+                    len += deflater.deflate(buf, len, space);
+                    if (deflater.finished()) break;
+                } else {
+                    // A sync flush is complete once it stops filling the whole buffer
+                    int n = deflater.deflate(buf, len, space, Deflater.SYNC_FLUSH);
+                    len += n;
+                    if (n < space) break;
+                }
+            }
+
+            Adler32 a = new Adler32();
+            a.update(filtered, 0, filtered.length);
+            Strip s = new Strip();
+            s.deflated = buf;
+            s.deflatedLength = len;
+            s.adler = (int) a.getValue();
+            s.rawLength = filtered.length;
+            return s;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Rebuilds the last (up to 32 KB of) filtered bytes preceding row {@code y0} —
+     * exactly what the decoder's window holds when this strip's segment starts.
+     */
+    private byte[] previousTail(RowSource src, int y0, int height, int rowBytes, int bpp,
+                                RowFilter rowFilter) {
+        int stride = rowBytes + 1;
+        int rows = Math.min(y0, (DICTIONARY_BYTES + stride - 1) / stride);
+        byte[] out = new byte[rows * stride];
+        filterRows(src, y0 - rows, y0, height, rowBytes, bpp, rowFilter, out);
+        if (out.length <= DICTIONARY_BYTES) return out;
+        return Arrays.copyOfRange(out, out.length - DICTIONARY_BYTES, out.length);
+    }
+
+    /** Filters rows {@code from..to} into {@code out}, each row preceded by its filter type. */
+    private void filterRows(RowSource src, int from, int to, int height, int rowBytes, int bpp,
+                            RowFilter rowFilter, byte[] out) {
+        byte[] prev = new byte[rowBytes];
+        byte[] cur = new byte[rowBytes];
+        byte[] next = new byte[rowBytes];
+        // The first row is filtered against the unfiltered row above it, from the previous strip
+        if (from > 0) src.row(from - 1, prev, bpp);
+        src.row(from, cur, bpp);
+        for (int y = from, o = 0; y < to; y++, o += rowBytes + 1) {
+            boolean hasNext = y + 1 < height;
+            if (hasNext) src.row(y + 1, next, bpp);
+            out[o] = (byte) rowFilter.apply(filter, cur, prev, hasNext ? next : null, y == 0, out, o + 1);
+            byte[] t = prev; prev = cur; cur = next; next = t;
+        }
+    }
+
+    // ──────────────────────────────────────────────
+    //  Row filters
+    // ──────────────────────────────────────────────
+
+    /**
+     * Whether zlib at {@code level} finds a row's match against the row above in raw
+     * bytes but misses it in filtered ones. Levels 5-7 give up after a short hash
+     * chain, which the many short zero runs of filtered rows use up; level 8 and up
+     * search far enough for both, and the fast levels for neither.
+     */
+    static boolean rawMatchesWin(int level) {
+        if (level == Deflater.DEFAULT_COMPRESSION) level = 6;
+        return level >= 5 && level <= 7;
+    }
+
+    /** Applies PNG row filters; the returned filter type goes in the row's first byte. */
+    static final class RowFilter {
+        private final int rowBytes;
+        private final int bpp;
+        private final int sampleStep;
+        private final boolean rawMatchesWin;
+        // Per-filter residual histograms (256-bit sets) and sums for choose()
+        private final long[] seen = new long[5 * 4];
+        private final long[] sad = new long[5];
+
+        RowFilter(int rowBytes, int bpp, int sampleStep, boolean rawMatchesWin) {
+            this.rowBytes = rowBytes;
+            this.bpp = bpp;
+            this.sampleStep = Math.max(1, sampleStep);
+            this.rawMatchesWin = rawMatchesWin;
+        }
+
+        /**
+         * Writes {@code cur} filtered with {@code type} into {@code out[off..]}.
+         * {@code prev} is the unfiltered row above (ignored when {@code firstRow}) and
+         * {@code next} the one below, null for the last row. The choice for
+         * {@link #FILTER_ADAPTIVE} depends only on these rows, so the same row always
+         * filters the same way (the strip dictionaries rely on that).
+         */
+        int apply(int type, byte[] cur, byte[] prev, byte[] next, boolean firstRow, byte[] out, int off) {
+            if (type == FILTER_ADAPTIVE) type = choose(cur, prev, next, firstRow);
+            switch (type) {
+                case FILTER_SUB:
+                    for (int i = 0; i < rowBytes; i++) {
+                        int left = i >= bpp ? cur[i - bpp] : 0;
+                        out[off + i] = (byte) (cur[i] - left);
+                    }
+                    return FILTER_SUB;
+                case FILTER_UP:
+                    for (int i = 0; i < rowBytes; i++) {
+                        int up = firstRow ? 0 : prev[i];
+                        out[off + i] = (byte) (cur[i] - up);
+                    }
+                    return FILTER_UP;
+                case FILTER_AVERAGE:
+                    for (int i = 0; i < rowBytes; i++) {
+                        int left = i >= bpp ? cur[i - bpp] & 0xFF : 0;
+                        int up = firstRow ? 0 : prev[i] & 0xFF;
+                        out[off + i] = (byte) (cur[i] - ((left + up) >> 1));
+                    }
+                    return FILTER_AVERAGE;
+                case FILTER_PAETH:
+                    for (int i = 0; i < rowBytes; i++) {
+                        int a = i >= bpp ? cur[i - bpp] & 0xFF : 0;
+                        int b = firstRow ? 0 : prev[i] & 0xFF;
+                        int c = i >= bpp && !firstRow ? prev[i - bpp] & 0xFF : 0;
+                        out[off + i] = (byte) (cur[i] - paeth(a, b, c));
+                    }
+                    return FILTER_PAETH;
+                case FILTER_NONE:
+                default:
+                    System.arraycopy(cur, 0, out, off, rowBytes);
+                    return FILTER_NONE;
+            }
+        }
+
+        /**
+         * Scores each filter on every {@code sampleStep}-th pixel: fewest distinct
+         * residual bytes first (what deflate's Huffman stage pays for), then the
+         * minimum sum of absolute signed residuals. Plain MSAD alone prefers Sub/Up on
+         * sparse text rows, where None leaves two literal values and wins.
+         * None's raw bytes have no sign, so it wins ties on distinct bytes (the
+         * cheaper-to-decode filter). A run of rows that each are the one above moved
+         * sideways (diagonal gradients) goes unfiltered where {@link #rawMatchesWin}:
+         * each row is then a single long match, which no per-row score can see.
+         */
+        int choose(byte[] cur, byte[] prev, byte[] next, boolean firstRow) {
+            // Repeated rows (flat backgrounds) are all zeros under Up
+            if (!firstRow && Arrays.equals(cur, prev)) return FILTER_UP;
+            if (rawMatchesWin && ((!firstRow && isShifted(cur, prev)) || (next != null && isShifted(next, cur)))) {
+                return FILTER_NONE;
+            }
+
+            Arrays.fill(seen, 0L);
+            Arrays.fill(sad, 0L);
+            int pixelStep = sampleStep * bpp;
+            for (int px = 0; px < rowBytes; px += pixelStep) {
+                for (int i = px, end = Math.min(rowBytes, px + bpp); i < end; i++) {
+                    int x = cur[i] & 0xFF;
+                    int a = i >= bpp ? cur[i - bpp] & 0xFF : 0;
+                    int b = firstRow ? 0 : prev[i] & 0xFF;
+                    int c = i >= bpp && !firstRow ? prev[i - bpp] & 0xFF : 0;
+                    score(FILTER_NONE, x);
+                    score(FILTER_SUB, x - a);
+                    score(FILTER_UP, x - b);
+                    score(FILTER_AVERAGE, x - ((a + b) >> 1));
+                    score(FILTER_PAETH, x - paeth(a, b, c));
+                }
+            }
+
+            int best = FILTER_NONE;
+            int bestDistinct = distinct(FILTER_NONE);
+            for (int f = FILTER_SUB; f <= FILTER_PAETH; f++) {
+                int d = distinct(f);
+                if (d < bestDistinct || (d == bestDistinct && best != FILTER_NONE && sad[f] < sad[best])) {
+                    best = f;
+                    bestDistinct = d;
+                }
+            }
+            return best;
+        }
+
+        /** Whether {@code cur} is {@code prev} moved up to {@link #MAX_ROW_SHIFT} pixels either way. */
+        private boolean isShifted(byte[] cur, byte[] prev) {
+            for (int shift = 1; shift <= MAX_ROW_SHIFT; shift++) {
+                int n = rowBytes - shift * bpp;
+                if (n <= 0) break;
+                if (sameRange(cur, shift * bpp, prev, 0, n) || sameRange(cur, 0, prev, shift * bpp, n)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean sameRange(byte[] a, int aFrom, byte[] b, int bFrom, int n) {
+            for (int i = 0; i < n; i++) {
+                if (a[aFrom + i] != b[bFrom + i]) return false;
+            }
+            return true;
+        }
+
+        private void score(int filter, int residual) {
+            int v = residual & 0xFF;
+            seen[filter * 4 + (v >> 6)] |= 1L << (v & 63);
+            sad[filter] += Math.abs((byte) v);
+        }
+
+        private int distinct(int filter) {
+            int o = filter * 4;
+            return Long.bitCount(seen[o]) + Long.bitCount(seen[o + 1])
+                    + Long.bitCount(seen[o + 2]) + Long.bitCount(seen[o + 3]);
+        }
+
+        private static int paeth(int a, int b, int c) {
+            int p = a + b - c;
+            int pa = Math.abs(p - a), pb = Math.abs(p - b), pc = Math.abs(p - c);
+            if (pa <= pb && pa <= pc) return a;
+            return pb <= pc ? b : c;
+        }
+    }
+
+    // ──────────────────────────────────────────────
+    //  Chunk output
+    // ──────────────────────────────────────────────
+
+    /** Buffers zlib bytes and emits them as IDAT chunks of at most {@link #MAX_IDAT_BYTES}. */
+    private static final class IdatWriter {
+        private final OutputStream out;
+        private final byte[] buf = new byte[64 * 1024];
+        private int len;
+
+        IdatWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        void write(byte[] b, int off, int n) throws IOException {
+            // Large strip payloads go straight out as their own chunks
+            if (n >= buf.length) {
+                flush();
+                while (n > 0) {
+                    int c = Math.min(n, MAX_IDAT_BYTES);
+                    writeChunk(out, "IDAT", b, off, c);
+                    off += c;
+                    n -= c;
+                }
+                return;
+            }
+            if (len + n > buf.length) flush();
+            System.arraycopy(b, off, buf, len, n);
+            len += n;
+        }
+
+        void flush() throws IOException {
+            if (len > 0) {
+                writeChunk(out, "IDAT", buf, 0, len);
+                len = 0;
+            }
+        }
+    }
+
+    private static void writeChunk(OutputStream out, String type, byte[] data, int off, int len)
+            throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        writeInt(out, len);
+        out.write(typeBytes);
+        out.write(data, off, len);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, off, len);
+        writeInt(out, (int) crc.getValue());
+    }
+
+    private static void writeInt(OutputStream out, int v) throws IOException {
+        out.write(v >>> 24);
+        out.write(v >>> 16);
+        out.write(v >>> 8);
+        out.write(v);
+    }
+
+    /** zlib's adler32_combine(): the checksum of A+B from those of A and B and B's length. */
+    static int adler32Combine(int adler1, int adler2, long len2) {
+        final int base = 65521;
+        long rem = len2 % base;
+        long sum1 = adler1 & 0xFFFF;
+        long sum2 = (rem * sum1) % base;
+        sum1 += (adler2 & 0xFFFF) + base - 1;
+        sum2 += ((adler1 >>> 16) & 0xFFFF) + ((adler2 >>> 16) & 0xFFFF) + base - rem;
+        if (sum1 >= base) sum1 -= base;
+        if (sum1 >= base) sum1 -= base;
+        if (sum2 >= ((long) base << 1)) sum2 -= ((long) base << 1);
+        if (sum2 >= base) sum2 -= base;
+        return (int) (sum1 | (sum2 << 16));
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.takess;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Opens a frame written by {@link RawFrameWriter}. The pixel rows are exposed as a
+ * read-only {@link MappedByteBuffer}, so nothing is copied or decompressed until the
+ * caller uploads them (e.g. into a bitmap).
+ */
+final class RawFrameReader {
+
+    final int width;
+    final int height;
+    final int stride;
+    final int pixelFormat;
+    private final MappedByteBuffer pixels;
+
+    private RawFrameReader(int width, int height, int stride, int pixelFormat,
+                           MappedByteBuffer pixels) {
+        this.width = width;
+        this.height = height;
+        this.stride = stride;
+        this.pixelFormat = pixelFormat;
+        this.pixels = pixels;
+    }
+
+    /** Validates the header and maps the pixel rows. */
+    static RawFrameReader open(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel ch = raf.getChannel()) {
+            ByteBuffer header = ByteBuffer.allocate(RawFrameWriter.HEADER_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (ch.read(header) < 0) throw new IOException("Truncated header in " + file);
+            }
+            header.flip();
+
+            if (header.getInt() != RawFrameWriter.MAGIC) {
+                throw new IOException("Not a raw frame: " + file);
+            }
+            int version = header.getInt();
+            if (version != RawFrameWriter.VERSION) {
+                throw new IOException("Unsupported raw frame version " + version);
+            }
+            int width = header.getInt();
+            int height = header.getInt();
+            int stride = header.getInt();
+            int pixelFormat = header.getInt();
+            if (width <= 0 || height <= 0) {
+                throw new IOException("Bad size " + width + "x" + height);
+            }
+            int bpp;
+            try {
+                bpp = RawFrameWriter.bytesPerPixel(pixelFormat);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(e.getMessage());
+            }
+            if (stride < width * bpp) throw new IOException("Bad stride " + stride);
+
+            long size = (long) stride * height;
+            if (ch.size() < RawFrameWriter.HEADER_BYTES + size) {
+                throw new IOException("Truncated pixels in " + file);
+            }
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer mapped = ch.map(FileChannel.MapMode.READ_ONLY,
+                    RawFrameWriter.HEADER_BYTES, size);
+            return new RawFrameReader(width, height, stride, pixelFormat, mapped);
+        }
+    }
+
+    int bytesPerPixel() {
+        return RawFrameWriter.bytesPerPixel(pixelFormat);
+    }
+
+    /** True when rows have no padding, i.e. the pixels can be uploaded as-is. */
+    boolean isPacked() {
+        return stride == width * bytesPerPixel();
+    }
+
+    /** A fresh read-only view of the mapped rows, positioned at 0. */
+    ByteBuffer pixels() {
+        return pixels.duplicate();
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.takess;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Writes the uncompressed frame format used to hand captures from the service to
+ * the preview. Layout (little-endian):
+ *
+ * <pre>
+ *   0  int  magic  'TSRF'
+ *   4  int  version
+ *   8  int  width
+ *  12  int  height
+ *  16  int  stride     bytes per row, >= width * bytesPerPixel
+ *  20  int  pixelFormat
+ *  24  ...  height rows of stride bytes
+ * </pre>
+ *
+ * Read it back with {@link RawFrameReader}, which memory-maps the pixel rows. Frames
+ * whose height isn't known up front (stitched long screenshots) are streamed with an
+ * {@link Appender}.
+ */
+final class RawFrameWriter {
+
+    static final int MAGIC = 0x46525354; // "TSRF" as little-endian bytes
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 24;
+
+    /** 4 bytes per pixel, R G B A in memory — what ARGB_8888 bitmaps and ImageReader use. */
+    static final int FORMAT_RGBA_8888 = 1;
+
+    private RawFrameWriter() { }
+
+    static int bytesPerPixel(int pixelFormat) {
+        if (pixelFormat == FORMAT_RGBA_8888) return 4;
+        throw new IllegalArgumentException("Unknown pixel format " + pixelFormat);
+    }
+
+    /**
+     * Writes {@code height * stride} bytes from {@code pixels} (from its position)
+     * to {@code file}, replacing any existing content. {@code pixels}' position is
+     * left unchanged.
+     */
+    static void write(File file, ByteBuffer pixels, int width, int height,
+                      int stride, int pixelFormat) throws IOException {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Bad size " + width + "x" + height);
+        }
+        if (stride < width * bytesPerPixel(pixelFormat)) {
+            throw new IllegalArgumentException("stride " + stride + " too small for width " + width);
+        }
+        long size = (long) stride * height;
+        if (pixels.remaining() < size) {
+            throw new IllegalArgumentException("pixel buffer holds " + pixels.remaining()
+                    + " bytes, need " + size);
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height)
+                .putInt(stride).putInt(pixelFormat);
+        header.flip();
+
+        ByteBuffer body = pixels.duplicate();
+        body.limit(body.position() + (int) size);
+
+        // FileOutputStream rather than FileChannel.open(Path): java.nio.file needs API 26
+        try (FileOutputStream fos = new FileOutputStream(file);
+             FileChannel ch = fos.getChannel()) {
+            ByteBuffer[] parts = { header, body };
+            while (body.hasRemaining() || header.hasRemaining()) {
+                ch.write(parts);
+            }
+        }
+    }
+
+    /**
+     * Streams a packed frame of fixed width row by row, so a frame taller than memory
+     * allows never exists in one piece. The height in the header is filled in by
+     * {@link #finish}; until then the file doesn't open as a frame.
+     */
+    static final class Appender implements Closeable {
+        private final FileOutputStream out;
+        private final FileChannel channel;
+        private final int width;
+        private final int rowBytes;
+        private int height;
+
+        Appender(File file, int width, int pixelFormat) throws IOException {
+            if (width <= 0) throw new IllegalArgumentException("Bad width " + width);
+            this.width = width;
+            this.rowBytes = width * bytesPerPixel(pixelFormat);
+            out = new FileOutputStream(file);
+            channel = out.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(0)
+                    .putInt(rowBytes).putInt(pixelFormat);
+            header.flip();
+            writeFully(header);
+        }
+
+        /**
+         * Appends {@code count} rows starting at row {@code y0} of {@code src}, whose rows
+         * start every {@code rowStride} bytes from its position (which is not moved).
+         */
+        void append(ByteBuffer src, int rowStride, int y0, int count) throws IOException {
+            ByteBuffer row = src.duplicate();
+            int base = src.position();
+            for (int y = y0; y < y0 + count; y++) {
+                row.limit(base + y * rowStride + rowBytes);
+                row.position(base + y * rowStride);
+                writeFully(row);
+            }
+            height += count;
+        }
+
+        int height() {
+            return height;
+        }
+
+        int width() {
+            return width;
+        }
+
+        /** Writes the final height into the header and closes the file. */
+        void finish() throws IOException {
+            if (height == 0) throw new IOException("No rows appended");
+            ByteBuffer h = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            h.putInt(height).flip();
+            while (h.hasRemaining()) channel.write(h, 12 + h.position());
+            close();
+        }
+
+        private void writeFully(ByteBuffer buf) throws IOException {
+            while (buf.hasRemaining()) channel.write(buf);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+            out.close();
+        }
+    }
+}
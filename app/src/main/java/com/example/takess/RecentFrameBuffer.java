@@ -0,0 +1,253 @@
+package com.example.takess;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rolling buffer of the last few seconds of (downscaled) frames, so a capture can
+ * go back to something that was on screen a moment before the tap.
+ *
+ * Frames are split into {@link #TILE}-pixel tiles. The oldest frame is the keyframe
+ * and owns all its tiles; every later frame stores only the tiles that changed and
+ * shares the rest with the frame before it. Tiles are never modified once stored, so
+ * evicting the oldest frame only frees the tiles the next one replaced, and the next
+ * one becomes the keyframe without any copying. Frames are evicted once older than
+ * the window or when the tiles exceed the byte budget; the latter are counted as
+ * dropped. Not thread-safe; a {@link Snapshot} can be read on any thread. Plain Java
+ * — no Android types.
+ */
+final class RecentFrameBuffer {
+
+    static final int TILE = 32;
+    private static final int BYTES_PER_PIXEL = 4;
+    // Tile reference array plus object headers, per stored frame
+    private static final int FRAME_OVERHEAD = 64;
+
+    /** Memory use and losses since the buffer was created. */
+    static final class Stats {
+        int frames;
+        long bytes;
+        long budgetBytes;
+        /** Frames offered to {@link #add}. */
+        long offered;
+        /** Offered frames identical to the previous one, not stored. */
+        long unchanged;
+        /** Stored frames evicted by the budget before they left the window. */
+        long dropped;
+
+        /** Dropped frames as a share of the frames that were stored. */
+        double dropRate() {
+            long stored = offered - unchanged;
+            return stored == 0 ? 0 : (double) dropped / stored;
+        }
+
+        @Override
+        public String toString() {
+            return frames + " frames, " + bytes / 1024 + " of " + budgetBytes / 1024 + " KB, "
+                    + offered + " offered, " + unchanged + " unchanged, " + dropped + " dropped ("
+                    + Math.round(dropRate() * 1000) / 10.0 + "%)";
+        }
+    }
+
+    private static final class Frame {
+        final long timestamp;
+        final byte[][] tiles;
+        final int changedTiles;
+
+        Frame(long timestamp, byte[][] tiles, int changedTiles) {
+            this.timestamp = timestamp;
+            this.tiles = tiles;
+            this.changedTiles = changedTiles;
+        }
+    }
+
+    /** The frames held at one moment; stays valid while the buffer moves on. */
+    static final class Snapshot {
+        final int width;
+        final int height;
+        private final int cols;
+        private final List<Frame> frames;
+
+        private Snapshot(int width, int height, int cols, List<Frame> frames) {
+            this.width = width;
+            this.height = height;
+            this.cols = cols;
+            this.frames = frames;
+        }
+
+        int size() {
+            return frames.size();
+        }
+
+        long timestamp(int index) {
+            return frames.get(index).timestamp;
+        }
+
+        /** Tiles that differ from the previous frame (all of them for the keyframe). */
+        int changedTiles(int index) {
+            return frames.get(index).changedTiles;
+        }
+
+        /** Writes frame {@code index} as packed pixels at {@code dst}'s position and advances it. */
+        void render(int index, ByteBuffer dst) {
+            byte[][] tiles = frames.get(index).tiles;
+            int rowBytes = width * BYTES_PER_PIXEL;
+            int base = dst.position();
+            for (int i = 0; i < tiles.length; i++) {
+                int x0 = (i % cols) * TILE;
+                int y0 = (i / cols) * TILE;
+                int tileRowBytes = Math.min(TILE, width - x0) * BYTES_PER_PIXEL;
+                int tileRows = Math.min(TILE, height - y0);
+                for (int y = 0; y < tileRows; y++) {
+                    dst.position(base + (y0 + y) * rowBytes + x0 * BYTES_PER_PIXEL);
+                    dst.put(tiles[i], y * tileRowBytes, tileRowBytes);
+                }
+            }
+            dst.position(base + rowBytes * height);
+        }
+    }
+
+    private final int width;
+    private final int height;
+    private final int cols;
+    private final int rows;
+    private final long budgetBytes;
+    private final long windowMs;
+    private final ArrayDeque<Frame> frames = new ArrayDeque<>();
+    private final byte[] scratch = new byte[TILE * TILE * BYTES_PER_PIXEL];
+    private long bytes;
+    private long offered;
+    private long unchanged;
+    private long dropped;
+
+    RecentFrameBuffer(int width, int height, long budgetBytes, long windowMs) {
+        this.width = width;
+        this.height = height;
+        this.cols = (width + TILE - 1) / TILE;
+        this.rows = (height + TILE - 1) / TILE;
+        this.budgetBytes = budgetBytes;
+        this.windowMs = windowMs;
+    }
+
+    int width() {
+        return width;
+    }
+
+    int height() {
+        return height;
+    }
+
+    int size() {
+        return frames.size();
+    }
+
+    /** Bytes held by stored tiles and per-frame bookkeeping. */
+    long bytes() {
+        return bytes;
+    }
+
+    /**
+     * Adds a frame of packed pixels ({@code width * 4} bytes per row, from
+     * {@code pixels}' position, which is not moved) taken at {@code now}. Returns false
+     * if it is identical to the newest frame and wasn't stored.
+     */
+    boolean add(ByteBuffer pixels, long now) {
+        offered++;
+        Frame previous = frames.peekLast();
+        byte[][] tiles = new byte[cols * rows][];
+        int changed = 0;
+        long added = FRAME_OVERHEAD + tiles.length * 8L;
+
+        ByteBuffer src = pixels.duplicate();
+        int base = pixels.position();
+        int rowBytes = width * BYTES_PER_PIXEL;
+        for (int i = 0; i < tiles.length; i++) {
+            int x0 = (i % cols) * TILE;
+            int y0 = (i / cols) * TILE;
+            int tileRowBytes = Math.min(TILE, width - x0) * BYTES_PER_PIXEL;
+            int tileRows = Math.min(TILE, height - y0);
+            int length = tileRowBytes * tileRows;
+            for (int y = 0; y < tileRows; y++) {
+                src.position(base + (y0 + y) * rowBytes + x0 * BYTES_PER_PIXEL);
+                src.get(scratch, y * tileRowBytes, tileRowBytes);
+            }
+            byte[] old = previous == null ? null : previous.tiles[i];
+            if (old != null && sameBytes(old, scratch, length)) {
+                tiles[i] = old;
+            } else {
+                byte[] tile = new byte[length];
+                System.arraycopy(scratch, 0, tile, 0, length);
+                tiles[i] = tile;
+                added += length;
+                changed++;
+            }
+        }
+        if (previous != null && changed == 0) {
+            unchanged++;
+            evict(now);
+            return false;
+        }
+
+        frames.addLast(new Frame(now, tiles, changed));
+        bytes += added;
+        evict(now);
+        return true;
+    }
+
+    private void evict(long now) {
+        long expired = now - windowMs;
+        while (frames.size() > 1 && (bytes > budgetBytes || frames.peekFirst().timestamp < expired)) {
+            Frame oldest = frames.pollFirst();
+            Frame next = frames.peekFirst();
+            bytes -= FRAME_OVERHEAD + oldest.tiles.length * 8L;
+            for (int i = 0; i < oldest.tiles.length; i++) {
+                // Tiles the next frame shares are now owned by it, its new keyframe
+                if (oldest.tiles[i] != next.tiles[i]) bytes -= oldest.tiles[i].length;
+            }
+            if (oldest.timestamp >= expired) dropped++;
+        }
+    }
+
+    private static boolean sameBytes(byte[] a, byte[] b, int length) {
+        if (a.length != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (a[i] != b[i]) return false;
+        }
+        return true;
+    }
+
+    /** The frames taken at or before {@code until}, oldest first. */
+    Snapshot snapshot(long until) {
+        List<Frame> held = new ArrayList<>(frames.size());
+        for (Frame f : frames) {
+            if (f.timestamp <= until) held.add(f);
+        }
+        return new Snapshot(width, height, cols, held);
+    }
+
+    Stats stats() {
+        Stats s = new Stats();
+        s.frames = frames.size();
+        s.bytes = bytes;
+        s.budgetBytes = budgetBytes;
+        s.offered = offered;
+        s.unchanged = unchanged;
+        s.dropped = dropped;
+        return s;
+    }
+
+    /**
+     * Up to {@code max} indices out of {@code size}, evenly spread and always including
+     * the newest, for offering a few frames rather than every one.
+     */
+    static int[] spread(int size, int max) {
+        int n = Math.min(size, max);
+        int[] picked = new int[n];
+        for (int i = 0; i < n; i++) {
+            picked[n - 1 - i] = size - 1 - (int) ((long) i * (size - 1) / Math.max(1, n - 1));
+        }
+        return picked;
+    }
+}
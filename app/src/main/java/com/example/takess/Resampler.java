@@ -0,0 +1,230 @@
+package com.example.takess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Pure-Java image resize for the preview's Resize edit.
+ *
+ * Separable: one pass along rows, one along columns (the order that keeps the
+ * intermediate image smaller), each split into row strips across the pool. Every output
+ * pixel's filter taps are precomputed once per axis as 14-bit fixed-point weights, so
+ * the inner loops are integer multiply-adds over {@code int[]} pixels with no
+ * allocation. An axis that shrinks uses exact area averaging (each input pixel weighted
+ * by how much of it the output pixel covers), which keeps text legible without
+ * ringing; one that grows uses Lanczos-3. Channels are filtered independently, in
+ * whatever order they are packed, so premultiplied RGBA from the temp frame resizes
+ * correctly as is. Plain Java — no Android types.
+ */
+final class Resampler {
+
+    enum Filter {
+        /** Box filter over the exact footprint of each output pixel. */
+        AREA,
+        /** Windowed sinc, 3 lobes; widened by the scale factor when shrinking. */
+        LANCZOS3;
+
+        /** AREA for an axis that shrinks, LANCZOS3 for one that grows. */
+        static Filter forAxis(int inSize, int outSize) {
+            return outSize < inSize ? AREA : LANCZOS3;
+        }
+    }
+
+    private static final int PRECISION_BITS = 14;
+    private static final int ONE = 1 << PRECISION_BITS;
+    private static final int HALF = 1 << (PRECISION_BITS - 1);
+    private static final int MIN_STRIP_ROWS = 16;
+    private static final double LANCZOS_SUPPORT = 3.0;
+
+    /** Filter taps along one axis: output {@code i} reads {@code count[i]} inputs from {@code start[i]}. */
+    static final class Taps {
+        final int[] start;
+        final int[] count;
+        /** {@code stride} weights per output, summing to {@code 1 << 14}. */
+        final int[] weights;
+        final int stride;
+
+        Taps(int[] start, int[] count, int[] weights, int stride) {
+            this.start = start;
+            this.count = count;
+            this.weights = weights;
+            this.stride = stride;
+        }
+    }
+
+    private final ForkJoinPool pool;
+
+    Resampler(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /** Default resampler: common pool. */
+    Resampler() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /** Resizes with {@link Filter#forAxis} for each axis. */
+    void resize(int[] src, int srcWidth, int srcHeight, int[] dst, int dstWidth, int dstHeight) {
+        resize(src, srcWidth, srcHeight, dst, dstWidth, dstHeight, null);
+    }
+
+    /** Resizes packed 4×8-bit pixels {@code src} into {@code dst}; a null filter picks per axis. */
+    void resize(int[] src, int srcWidth, int srcHeight, int[] dst, int dstWidth, int dstHeight,
+                Filter filter) {
+        if (srcWidth <= 0 || srcHeight <= 0 || dstWidth <= 0 || dstHeight <= 0) {
+            throw new IllegalArgumentException("empty image");
+        }
+        if (src.length < srcWidth * srcHeight || dst.length < dstWidth * dstHeight) {
+            throw new IllegalArgumentException("pixel array too small");
+        }
+        boolean resizeX = srcWidth != dstWidth, resizeY = srcHeight != dstHeight;
+        if (!resizeX && !resizeY) {
+            System.arraycopy(src, 0, dst, 0, dstWidth * dstHeight);
+            return;
+        }
+        Taps x = resizeX ? taps(srcWidth, dstWidth,
+                filter != null ? filter : Filter.forAxis(srcWidth, dstWidth)) : null;
+        Taps y = resizeY ? taps(srcHeight, dstHeight,
+                filter != null ? filter : Filter.forAxis(srcHeight, dstHeight)) : null;
+        if (!resizeY) {
+            horizontal(src, srcWidth, srcHeight, x, dst, dstWidth);
+        } else if (!resizeX) {
+            vertical(src, srcWidth, y, dst, dstHeight);
+        } else if ((long) dstWidth * srcHeight <= (long) srcWidth * dstHeight) {
+            int[] tmp = new int[dstWidth * srcHeight];
+            horizontal(src, srcWidth, srcHeight, x, tmp, dstWidth);
+            vertical(tmp, dstWidth, y, dst, dstHeight);
+        } else {
+            int[] tmp = new int[srcWidth * dstHeight];
+            vertical(src, srcWidth, y, tmp, dstHeight);
+            horizontal(tmp, srcWidth, dstHeight, x, dst, dstWidth);
+        }
+    }
+
+    // ──────────────────────────────────────────────
+    //  Passes
+    // ──────────────────────────────────────────────
+
+    /** Each of {@code height} rows, {@code srcWidth} → {@code dstWidth} pixels. */
+    private void horizontal(int[] src, int srcWidth, int height, Taps taps, int[] dst, int dstWidth) {
+        inStrips(height, (y0, y1) -> {
+            for (int y = y0; y < y1; y++) {
+                int in = y * srcWidth, out = y * dstWidth;
+                for (int x = 0; x < dstWidth; x++) {
+                    dst[out + x] = filter(src, in + taps.start[x], 1, taps, x);
+                }
+            }
+        });
+    }
+
+    /** Each column of {@code width} pixels, to {@code dstHeight} rows. */
+    private void vertical(int[] src, int width, Taps taps, int[] dst, int dstHeight) {
+        inStrips(dstHeight, (y0, y1) -> {
+            for (int y = y0; y < y1; y++) {
+                int in = taps.start[y] * width, out = y * width;
+                for (int x = 0; x < width; x++) {
+                    dst[out + x] = filter(src, in + x, width, taps, y);
+                }
+            }
+        });
+    }
+
+    /** One output pixel: taps {@code i} applied to pixels {@code step} apart from {@code p}. */
+    private static int filter(int[] src, int p, int step, Taps taps, int i) {
+        int c0 = HALF, c1 = HALF, c2 = HALF, c3 = HALF;
+        int w = i * taps.stride;
+        for (int k = 0, n = taps.count[i]; k < n; k++, p += step) {
+            int weight = taps.weights[w + k];
+            int px = src[p];
+            c0 += (px & 0xFF) * weight;
+            c1 += ((px >>> 8) & 0xFF) * weight;
+            c2 += ((px >>> 16) & 0xFF) * weight;
+            c3 += (px >>> 24) * weight;
+        }
+        return clamp(c0) | clamp(c1) << 8 | clamp(c2) << 16 | clamp(c3) << 24;
+    }
+
+    private static int clamp(int sum) {
+        int v = sum >> PRECISION_BITS;
+        return v < 0 ? 0 : Math.min(v, 255);
+    }
+
+    private interface StripTask {
+        void run(int y0, int y1);
+    }
+
+    private void inStrips(int rows, StripTask task) {
+        int parallelism = Math.max(1, pool.getParallelism());
+        int strips = Math.max(1, Math.min(parallelism * 2, rows / MIN_STRIP_ROWS));
+        if (strips == 1) {
+            task.run(0, rows);
+            return;
+        }
+        int rowsPerStrip = (rows + strips - 1) / strips;
+        List<ForkJoinTask<?>> futures = new ArrayList<>(strips);
+        for (int y0 = 0; y0 < rows; y0 += rowsPerStrip) {
+            int from = y0, to = Math.min(rows, y0 + rowsPerStrip);
+            futures.add(pool.submit(() -> task.run(from, to)));
+        }
+        for (ForkJoinTask<?> f : futures) f.join();
+    }
+
+    // ──────────────────────────────────────────────
+    //  Filter taps
+    // ──────────────────────────────────────────────
+
+    static Taps taps(int inSize, int outSize, Filter filter) {
+        double scale = (double) inSize / outSize;
+        double support = filter == Filter.AREA ? Math.max(scale, 1) / 2 + 1
+                : LANCZOS_SUPPORT * Math.max(scale, 1);
+        int stride = (int) Math.ceil(support) * 2 + 1;
+        int[] start = new int[outSize];
+        int[] count = new int[outSize];
+        int[] weights = new int[outSize * stride];
+        double[] w = new double[stride];
+
+        for (int i = 0; i < outSize; i++) {
+            double center = (i + 0.5) * scale;
+            int from = Math.max(0, (int) Math.floor(center - support));
+            int to = Math.min(inSize, (int) Math.ceil(center + support));
+            double total = 0;
+            int n = 0;
+            for (int x = from; x < to && n < stride; x++, n++) {
+                w[n] = filter == Filter.AREA ? coverage(x, i * scale, (i + 1) * scale)
+                        : lanczos((x + 0.5 - center) / Math.max(scale, 1));
+                total += w[n];
+            }
+            // Trim zero taps at both ends
+            int first = 0, last = n - 1;
+            while (first < last && w[first] == 0) first++;
+            while (last > first && w[last] == 0) last--;
+
+            start[i] = from + first;
+            count[i] = last - first + 1;
+            int base = i * stride, sum = 0, largest = base;
+            for (int k = first; k <= last; k++) {
+                int q = (int) Math.round(w[k] / total * ONE);
+                weights[base + k - first] = q;
+                sum += q;
+                if (q > weights[largest]) largest = base + k - first;
+            }
+            // Rounding error goes to the largest tap so flat areas stay exactly flat
+            weights[largest] += ONE - sum;
+        }
+        return new Taps(start, count, weights, stride);
+    }
+
+    /** How much of input pixel {@code x} lies within the output pixel's footprint {@code lo..hi}. */
+    private static double coverage(int x, double lo, double hi) {
+        return Math.max(0, Math.min(x + 1, hi) - Math.max(x, lo));
+    }
+
+    private static double lanczos(double x) {
+        if (x == 0) return 1;
+        if (x <= -LANCZOS_SUPPORT || x >= LANCZOS_SUPPORT) return 0;
+        double px = Math.PI * x;
+        return LANCZOS_SUPPORT * Math.sin(px) * Math.sin(px / LANCZOS_SUPPORT) / (px * px);
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.takess;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.ParcelFileDescriptor;
+import android.provider.DocumentsContract;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The user's custom (SAF) folder, resolved once and cached for the process.
+ *
+ * DocumentFile re-resolves the tree, queries canWrite() and lists the folder on every
+ * save, which costs several binder round-trips — hundreds of ms on SD cards. This
+ * keeps the tree's document id, writability, display name and child names from one
+ * pair of queries, creates documents directly through {@link DocumentsContract}, and
+ * only re-queries after an operation fails.
+ */
+final class SafFolder {
+
+    private static final String TAG = "SafFolder";
+
+    /** Output buffer for SAF writes; SD card providers favour large writes. */
+    static final int BUFFER_BYTES = 256 * 1024;
+
+    private static SafFolder instance;
+
+    /** A document made by {@link #create} and the final name reserved for it. */
+    static final class Created {
+        final Uri uri;
+        final String name;
+
+        Created(Uri uri, String name) {
+            this.uri = uri;
+            this.name = name;
+        }
+    }
+
+    final Uri treeUri;
+    private final Uri dirUri;
+    private final ContentResolver resolver;
+    private final SharedPreferences prefs;
+
+    // Guarded by this
+    private boolean validated;
+    private boolean writable;
+    private String displayName;
+    private final Set<String> names = new HashSet<>();
+
+    /** The folder for the "saf_uri" preference, or null if none was picked. */
+    @Nullable
+    static synchronized SafFolder get(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences("takess_prefs", Context.MODE_PRIVATE);
+        String uri = prefs.getString("saf_uri", null);
+        if (uri == null) return null;
+        if (instance == null || !instance.treeUri.toString().equals(uri)) {
+            instance = new SafFolder(context.getApplicationContext().getContentResolver(),
+                    prefs, Uri.parse(uri));
+        }
+        return instance;
+    }
+
+    private SafFolder(ContentResolver resolver, SharedPreferences prefs, Uri treeUri) {
+        this.resolver = resolver;
+        this.prefs = prefs;
+        this.treeUri = treeUri;
+        this.dirUri = DocumentsContract.buildDocumentUriUsingTree(treeUri,
+                DocumentsContract.getTreeDocumentId(treeUri));
+        // Last known name, so the settings screen can show it without a query
+        this.displayName = prefs.getString("saf_name", null);
+    }
+
+    /** Cached folder name; resolves the folder only if it has never been named. */
+    @Nullable
+    synchronized String displayName() {
+        if (displayName == null) {
+            try {
+                validate();
+            } catch (IOException e) {
+                Log.w(TAG, "displayName: " + e);
+            }
+        }
+        return displayName;
+    }
+
+    synchronized boolean canWrite() {
+        try {
+            ensureValid();
+        } catch (IOException e) {
+            return false;
+        }
+        return writable;
+    }
+
+    /** Forgets the cached state; the next operation re-queries the folder. */
+    synchronized void invalidate() {
+        validated = false;
+    }
+
+    /**
+     * Creates a document named {@code prefix + name}, with {@code name} made unique
+     * against the known names, and reserves that unique name for the later
+     * {@link #rename} so no other save can take it. Re-validates and retries once if
+     * the cached state was stale.
+     */
+    synchronized Created create(String mimeType, String prefix, String name) throws IOException {
+        for (int attempt = 0; ; attempt++) {
+            ensureValid();
+            if (!writable) throw new IOException("Folder not writable: " + treeUri);
+            String unique = uniqueName(prefix, name);
+            Uri uri = null;
+            try {
+                uri = DocumentsContract.createDocument(resolver, dirUri, mimeType, prefix + unique);
+            } catch (FileNotFoundException | RuntimeException e) {
+                Log.w(TAG, "create " + prefix + unique + ": " + e);
+            }
+            if (uri != null) {
+                names.add(prefix + unique);
+                // Reserved until the next validate(), which sees the pending document instead
+                names.add(unique);
+                return new Created(uri, unique);
+            }
+            if (attempt > 0) throw new IOException("Cannot create " + prefix + unique + " in " + treeUri);
+            validated = false;
+        }
+    }
+
+    /** Renames a document and returns its new URI. */
+    synchronized Uri rename(Uri document, String oldName, String newName) throws IOException {
+        Uri renamed;
+        try {
+            renamed = DocumentsContract.renameDocument(resolver, document, newName);
+        } catch (FileNotFoundException | RuntimeException e) {
+            validated = false;
+            throw new FileNotFoundException("Cannot rename to " + newName + ": " + e);
+        }
+        if (renamed == null) {
+            validated = false;
+            throw new FileNotFoundException("Cannot rename to " + newName);
+        }
+        names.remove(oldName);
+        names.add(newName);
+        return renamed;
+    }
+
+    synchronized void delete(Uri document, @Nullable String name) {
+        try {
+            DocumentsContract.deleteDocument(resolver, document);
+        } catch (FileNotFoundException | RuntimeException e) {
+            Log.w(TAG, "delete " + document + ": " + e);
+        }
+        if (name != null) names.remove(name);
+    }
+
+    /** Finds a child by exact name; only queries when the cache says it may exist. */
+    @Nullable
+    synchronized Uri find(String name) throws IOException {
+        ensureValid();
+        if (!names.contains(name)) return null;
+        String[] projection = { DocumentsContract.Document.COLUMN_DOCUMENT_ID,
+                DocumentsContract.Document.COLUMN_DISPLAY_NAME };
+        Uri children = DocumentsContract.buildChildDocumentsUriUsingTree(treeUri,
+                DocumentsContract.getDocumentId(dirUri));
+        try (Cursor c = resolver.query(children, projection, null, null, null)) {
+            while (c != null && c.moveToNext()) {
+                if (name.equals(c.getString(1))) {
+                    return DocumentsContract.buildDocumentUriUsingTree(treeUri, c.getString(0));
+                }
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Cannot list " + treeUri, e);
+        }
+        names.remove(name);
+        return null;
+    }
+
+    /**
+     * Opens a document for writing straight through its file channel. Callers buffer
+     * in front of it with at least {@link #BUFFER_BYTES}.
+     */
+    static OutputStream openOutput(ContentResolver resolver, Uri document) throws IOException {
+        ParcelFileDescriptor pfd = resolver.openFileDescriptor(document, "w");
+        if (pfd == null) throw new FileNotFoundException("Cannot open " + document);
+        FileOutputStream out = new ParcelFileDescriptor.AutoCloseOutputStream(pfd);
+        // Closing the channel stream closes the descriptor with it
+        return Channels.newOutputStream(out.getChannel());
+    }
+
+    // ──────────────────────────────────────────────
+    //  Validation
+    // ──────────────────────────────────────────────
+
+    private void ensureValid() throws IOException {
+        if (!validated) validate();
+    }
+
+    /** One query for the folder itself and one for its children's names. */
+    private void validate() throws IOException {
+        String[] self = { DocumentsContract.Document.COLUMN_DISPLAY_NAME,
+                DocumentsContract.Document.COLUMN_FLAGS };
+        try (Cursor c = resolver.query(dirUri, self, null, null, null)) {
+            if (c == null || !c.moveToFirst()) throw new FileNotFoundException("Folder gone: " + treeUri);
+            displayName = c.getString(0);
+            writable = (c.getInt(1) & DocumentsContract.Document.FLAG_DIR_SUPPORTS_CREATE) != 0;
+        } catch (RuntimeException e) {
+            // Permission revoked or the card was removed
+            writable = false;
+            throw new IOException("No access to " + treeUri, e);
+        }
+        prefs.edit().putString("saf_name", displayName).apply();
+
+        names.clear();
+        Uri children = DocumentsContract.buildChildDocumentsUriUsingTree(treeUri,
+                DocumentsContract.getDocumentId(dirUri));
+        String[] projection = { DocumentsContract.Document.COLUMN_DISPLAY_NAME };
+        try (Cursor c = resolver.query(children, projection, null, null, null)) {
+            while (c != null && c.moveToNext()) names.add(c.getString(0));
+        } catch (RuntimeException e) {
+            throw new IOException("Cannot list " + treeUri, e);
+        }
+        validated = true;
+    }
+
+    /**
+     * "a.png" → "a (1).png" … free both as itself and with {@code prefix}, so the
+     * provider never renames behind our back, now or at the final rename.
+     */
+    private String uniqueName(String prefix, String name) {
+        if (isFree(prefix, name)) return name;
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String ext = dot > 0 ? name.substring(dot) : "";
+        for (int n = 1; ; n++) {
+            String candidate = base + " (" + n + ")" + ext;
+            if (isFree(prefix, candidate)) return candidate;
+        }
+    }
+
+    private boolean isFree(String prefix, String name) {
+        return !names.contains(name) && !names.contains(prefix + name);
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.takess;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Single background worker for frame conversion, encoding and storage I/O.
+ *
+ * Work runs in submission order on one thread with a bounded queue. When the queue
+ * is full {@link #submit} refuses the task instead of blocking, so callers can tell
+ * the user to wait rather than piling up full-frame bitmaps. Results are delivered
+ * on the result executor (the main thread in the app). Housekeeping (recovery, cache
+ * cleaning) queues behind the same worker but doesn't count against the capacity, so
+ * it never crowds out a save. Every task failure goes to the {@link ErrorLog}, whether
+ * or not the task has a callback.
+ */
+final class SaveExecutor {
+
+    interface Callback<T> {
+        /** Exactly one of {@code result} / {@code error} is meaningful. */
+        void onResult(T result, Exception error);
+    }
+
+    interface ErrorLog {
+        void log(Exception error);
+    }
+
+    // Housekeeping tasks queued at once beyond the capacity; more are refused
+    private static final int HOUSEKEEPING_SLOTS = 4;
+
+    private final ThreadPoolExecutor worker;
+    private final Executor resultExecutor;
+    private final int capacity;
+    private final ErrorLog errorLog;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicInteger housekeeping = new AtomicInteger();
+
+    SaveExecutor(int capacity, Executor resultExecutor) {
+        this(capacity, resultExecutor, error -> { });
+    }
+
+    SaveExecutor(int capacity, Executor resultExecutor, ErrorLog errorLog) {
+        this.capacity = capacity;
+        this.resultExecutor = resultExecutor;
+        this.errorLog = errorLog;
+        // The running task is not in the queue, so the queue holds capacity - 1
+        this.worker = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, capacity - 1) + HOUSEKEEPING_SLOTS),
+                r -> {
+                    Thread t = new Thread(r, "takess-save");
+                    t.setPriority(Thread.NORM_PRIORITY - 1);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /** True when another task would be refused — callers should back off. */
+    boolean isSaturated() {
+        return pending.get() >= capacity;
+    }
+
+    int pending() {
+        return pending.get();
+    }
+
+    /** Runs {@code task} on the worker; returns false (and runs nothing) if saturated. */
+    boolean submit(Runnable task) {
+        return submit(() -> {
+            task.run();
+            return null;
+        }, null);
+    }
+
+    /**
+     * Runs {@code task} on the worker after whatever is queued, outside the capacity
+     * count. Returns false if {@link #HOUSEKEEPING_SLOTS} are already taken or the
+     * executor is shut down.
+     */
+    boolean submitHousekeeping(Runnable task) {
+        if (housekeeping.incrementAndGet() > HOUSEKEEPING_SLOTS) {
+            housekeeping.decrementAndGet();
+            return false;
+        }
+        try {
+            worker.execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    errorLog.log(e);
+                } finally {
+                    housekeeping.decrementAndGet();
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            housekeeping.decrementAndGet();
+            return false;
+        }
+    }
+
+    /**
+     * Runs {@code task} on the worker and posts its outcome to {@code callback} on the
+     * result executor. Returns false if the queue is full or the executor is shut down.
+     */
+    <T> boolean submit(Callable<T> task, Callback<T> callback) {
+        if (pending.incrementAndGet() > capacity) {
+            pending.decrementAndGet();
+            return false;
+        }
+        try {
+            worker.execute(() -> {
+                T result = null;
+                Exception error = null;
+                try {
+                    result = task.call();
+                } catch (Exception e) {
+                    error = e;
+                    errorLog.log(e);
+                } finally {
+                    pending.decrementAndGet();
+                }
+                if (callback != null) {
+                    T r = result;
+                    Exception err = error;
+                    resultExecutor.execute(() -> callback.onResult(r, err));
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            pending.decrementAndGet();
+            return false;
+        }
+    }
+
+    /** Lets queued saves finish but accepts nothing new. */
+    void shutdown() {
+        worker.shutdown();
+    }
+}
@@ -0,0 +1,367 @@
+package com.example.takess;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of save jobs, so a capture survives the process being killed
+ * anywhere between the temp frame and the published screenshot.
+ *
+ * A job moves PENDING → ENCODING → WRITTEN → COMMITTED (or DISCARDED). Each
+ * transition appends one CRC-checked line with the job's full state and is synced
+ * before the step it guards runs, so the last intact line per job is always safe to
+ * resume from; a torn last line is ignored. The destination is written under a
+ * temporary name and only published by {@link Store#commit}, so a half-written file
+ * is never visible. Pure Java so crash/replay can be tested on the JVM.
+ */
+final class SaveJournal {
+
+    enum State { PENDING, ENCODING, WRITTEN, COMMITTED, DISCARDED }
+
+    /** Destination side of a save, implemented by the service (MediaStore, SAF or files). */
+    interface Store {
+        /** Picks target, file name and format for a job that has none yet. */
+        void prepare(Job job);
+
+        /** Creates the temporary destination for {@code job} and returns its location. */
+        String createTemp(Job job) throws IOException;
+
+        /** {@link #createTemp} for several jobs; stores override it to batch the work. */
+        default List<String> createTemps(List<Job> jobs) throws IOException {
+            List<String> locations = new ArrayList<>(jobs.size());
+            for (Job job : jobs) locations.add(createTemp(job));
+            return locations;
+        }
+
+        /** Encodes the job's frame into {@link Job#location}. */
+        void write(Job job) throws IOException;
+
+        /** Publishes the written temp under {@link Job#fileName}; must tolerate a repeat. */
+        void commit(Job job) throws IOException;
+
+        /** {@link #commit} for several jobs; stores override it to batch the work. */
+        default void commitAll(List<Job> jobs) throws IOException {
+            for (Job job : jobs) commit(job);
+        }
+
+        /** Removes a half-written temp; {@link Job#location} may be null or already gone. */
+        void deleteTemp(Job job);
+
+        /** Removes the captured frame once it is no longer needed. */
+        void deleteFrame(Job job);
+    }
+
+    /** One capture on its way to storage; the frame path doubles as the job id. */
+    static final class Job {
+        final String framePath;
+        State state = State.PENDING;
+        /** Crop in frame pixels (left, top, right, bottom), or null for the whole frame. */
+        int[] crop;
+        /** Output size (width, height) the crop is scaled to, or null to keep it as is. */
+        int[] size;
+        /** Which kind of destination {@link #location} refers to (store-defined). */
+        String target;
+        String fileName;
+        String format;
+        String location;
+
+        Job(String framePath) {
+            this.framePath = framePath;
+        }
+
+        Job copy() {
+            Job j = new Job(framePath);
+            j.state = state;
+            j.crop = crop == null ? null : crop.clone();
+            j.size = size == null ? null : size.clone();
+            j.target = target;
+            j.fileName = fileName;
+            j.format = format;
+            j.location = location;
+            return j;
+        }
+    }
+
+    private final File file;
+    private final Map<String, Job> open = new LinkedHashMap<>();
+    private FileOutputStream out;
+
+    private SaveJournal(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Reads the journal, keeping the last intact record of every unfinished job, and
+     * rewrites it compacted.
+     */
+    static SaveJournal open(File file) throws IOException {
+        SaveJournal journal = new SaveJournal(file);
+        if (file.exists()) {
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                    new FileInputStream(file), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    Job job = decode(line);
+                    if (job == null) continue;   // torn or corrupt line
+                    if (isTerminal(job.state)) journal.open.remove(job.framePath);
+                    else journal.open.put(job.framePath, job);
+                }
+            }
+        }
+        journal.compact();
+        return journal;
+    }
+
+    /** Records a freshly captured frame. */
+    synchronized Job begin(String framePath) throws IOException {
+        Job job = new Job(framePath);
+        append(job);
+        return job.copy();
+    }
+
+    /** The unfinished job for {@code framePath}, or null (e.g. frames from before the journal). */
+    synchronized Job find(String framePath) {
+        Job job = open.get(framePath);
+        return job == null ? null : job.copy();
+    }
+
+    synchronized List<Job> unfinished() {
+        List<Job> jobs = new ArrayList<>();
+        for (Job job : open.values()) jobs.add(job.copy());
+        return jobs;
+    }
+
+    /** Drops the job and everything it left behind. */
+    void discard(Job job, Store store) throws IOException {
+        store.deleteTemp(job);
+        store.deleteFrame(job);
+        transition(job, State.DISCARDED);
+    }
+
+    /**
+     * Runs {@code job} from its current state to COMMITTED. A job that crashed while
+     * encoding starts over from its frame; one that crashed after WRITTEN only commits.
+     */
+    void save(Job job, Store store) throws IOException {
+        saveAll(Collections.singletonList(job), store);
+    }
+
+    /**
+     * {@link #save} for several jobs (multi-shot sessions, recovery) with one
+     * {@link Store#createTemps} and one {@link Store#commitAll}. Each job still goes
+     * through every state on its own, so a crash leaves the same records as
+     * {@link #save} would.
+     */
+    void saveAll(List<Job> jobs, Store store) throws IOException {
+        List<Job> toWrite = new ArrayList<>();
+        List<Job> toCommit = new ArrayList<>();
+        for (Job job : jobs) {
+            if (isTerminal(job.state)) continue;
+            if (job.state == State.WRITTEN) {
+                toCommit.add(job);
+                continue;
+            }
+            if (job.state == State.ENCODING) store.deleteTemp(job);
+            job.location = null;
+            if (job.fileName == null) store.prepare(job);
+            transition(job, State.ENCODING);
+            toWrite.add(job);
+        }
+
+        if (!toWrite.isEmpty()) {
+            List<String> locations = store.createTemps(toWrite);
+            for (int i = 0; i < toWrite.size(); i++) {
+                Job job = toWrite.get(i);
+                job.location = locations.get(i);
+                // Again, now that a later crash can find the temp and delete it
+                transition(job, State.ENCODING);
+            }
+            for (Job job : toWrite) {
+                store.write(job);
+                transition(job, State.WRITTEN);
+                toCommit.add(job);
+            }
+        }
+
+        if (toCommit.isEmpty()) return;
+        store.commitAll(toCommit);
+        for (Job job : toCommit) {
+            store.deleteFrame(job);
+            transition(job, State.COMMITTED);
+        }
+    }
+
+    /**
+     * Replays every unfinished job, batched through {@link #saveAll}. Jobs whose frame
+     * is gone can't be re-encoded and are discarded. If the batch fails the jobs are
+     * retried one by one; a failing job stays in the journal for the next start.
+     * Returns the number of jobs committed.
+     */
+    int recover(Store store) {
+        List<Job> jobs = new ArrayList<>();
+        for (Job job : unfinished()) {
+            if (job.state != State.WRITTEN && !new File(job.framePath).exists()) {
+                try {
+                    discard(job, store);
+                } catch (IOException e) {
+                    // Dropped again at the next start
+                }
+            } else {
+                jobs.add(job);
+            }
+        }
+        if (jobs.isEmpty()) return 0;
+        try {
+            saveAll(jobs, store);
+            return jobs.size();
+        } catch (IOException e) {
+            // Fall through to one at a time, from whatever state the batch reached
+        }
+
+        int committed = 0;
+        for (Job job : unfinished()) {
+            try {
+                save(job, store);
+                committed++;
+            } catch (IOException e) {
+                // Left for the next start; the frame is still there
+            }
+        }
+        return committed;
+    }
+
+    synchronized void close() {
+        if (out == null) return;
+        try {
+            out.close();
+        } catch (IOException ignored) { }
+        out = null;
+    }
+
+    // ──────────────────────────────────────────────
+    //  Records
+    // ──────────────────────────────────────────────
+
+    private synchronized void transition(Job job, State state) throws IOException {
+        job.state = state;
+        append(job);
+    }
+
+    private void append(Job job) throws IOException {
+        if (isTerminal(job.state)) open.remove(job.framePath);
+        else open.put(job.framePath, job.copy());
+
+        if (open.isEmpty()) {
+            // Nothing left to recover — start the next job from an empty file
+            compact();
+            return;
+        }
+        if (out == null) out = new FileOutputStream(file, true);
+        out.write((encode(job) + "\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+        out.getFD().sync();
+    }
+
+    /** Rewrites the journal with one record per unfinished job (temp file, then rename). */
+    private void compact() throws IOException {
+        close();
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream o = new FileOutputStream(tmp)) {
+            StringBuilder sb = new StringBuilder();
+            for (Job job : open.values()) sb.append(encode(job)).append('\n');
+            o.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+            o.getFD().sync();
+        }
+        if (!tmp.renameTo(file)) {
+            //noinspection ResultOfMethodCallIgnored
+            tmp.delete();
+            throw new IOException("Cannot replace " + file);
+        }
+    }
+
+    private static boolean isTerminal(State state) {
+        return state == State.COMMITTED || state == State.DISCARDED;
+    }
+
+    static String encode(Job job) {
+        String crop = job.crop == null ? "" : job.crop[0] + "," + job.crop[1] + ","
+                + job.crop[2] + "," + job.crop[3];
+        String size = job.size == null ? "" : job.size[0] + "," + job.size[1];
+        String body = job.state.name() + '\t' + escape(job.framePath) + '\t' + crop + '\t'
+                + escape(job.target) + '\t' + escape(job.fileName) + '\t'
+                + escape(job.format) + '\t' + escape(job.location) + '\t' + size;
+        return body + '\t' + Long.toHexString(crc(body));
+    }
+
+    /** Parses one record, or returns null if it is torn or corrupt. */
+    static Job decode(String line) {
+        int tab = line.lastIndexOf('\t');
+        if (tab < 0) return null;
+        String body = line.substring(0, tab);
+        if (!line.substring(tab + 1).equals(Long.toHexString(crc(body)))) return null;
+
+        String[] f = body.split("\t", -1);
+        // Records written before the output size was added have 7 fields
+        if (f.length != 7 && f.length != 8) return null;
+        try {
+            Job job = new Job(unescape(f[1]));
+            job.state = State.valueOf(f[0]);
+            if (!f[2].isEmpty()) {
+                String[] c = f[2].split(",");
+                job.crop = new int[] { Integer.parseInt(c[0]), Integer.parseInt(c[1]),
+                        Integer.parseInt(c[2]), Integer.parseInt(c[3]) };
+            }
+            job.target = unescape(f[3]);
+            job.fileName = unescape(f[4]);
+            job.format = unescape(f[5]);
+            job.location = unescape(f[6]);
+            if (f.length == 8 && !f[7].isEmpty()) {
+                String[] s = f[7].split(",");
+                job.size = new int[] { Integer.parseInt(s[0]), Integer.parseInt(s[1]) };
+            }
+            return job.framePath == null ? null : job;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static long crc(String s) {
+        CRC32 crc = new CRC32();
+        crc.update(s.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    // Empty field = null; backslash escapes keep tabs and newlines out of the fields
+    private static String escape(String s) {
+        if (s == null) return "";
+        if (s.isEmpty()) return "\\0";
+        return s.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n");
+    }
+
+    private static String unescape(String s) {
+        if (s.isEmpty()) return null;
+        if (s.equals("\\0")) return "";
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\\' && i + 1 < s.length()) {
+                char n = s.charAt(++i);
+                sb.append(n == 't' ? '\t' : n == 'n' ? '\n' : n);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
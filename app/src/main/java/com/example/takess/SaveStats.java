@@ -0,0 +1,89 @@
+package com.example.takess;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Per-pipeline save counters: how many encodes/decodes a save cost, how many
+ * bytes it wrote and how long it took. Saves are keyed by output format id, so
+ * formats can be compared with each other and with the legacy JPEG → PNG → PNG
+ * chain side by side. Whole saves, storage round-trips included, are also counted
+ * as screenshots per second.
+ */
+final class SaveStats {
+
+    static final String PATH_LEGACY = "legacy";
+
+    static final class Totals {
+        int saves;
+        int encodes;
+        int decodes;
+        long bytes;
+        long millis;
+    }
+
+    private final Map<String, Totals> totals = new LinkedHashMap<>();
+
+    // Whole saves (create, encode, publish) for the screenshots-per-second figure
+    private int shots;
+    private long shotMillis;
+
+    synchronized void record(String path, int encodes, int decodes, long bytes, long millis) {
+        Totals t = totals.get(path);
+        if (t == null) {
+            t = new Totals();
+            totals.put(path, t);
+        }
+        t.saves++;
+        t.encodes += encodes;
+        t.decodes += decodes;
+        t.bytes += bytes;
+        t.millis += millis;
+    }
+
+    /** Records {@code count} screenshots fully stored in {@code millis} of wall time. */
+    synchronized void recordThroughput(int count, long millis) {
+        shots += count;
+        shotMillis += millis;
+    }
+
+    /** Screenshots stored per second of save time, or 0 before the first save. */
+    synchronized float shotsPerSecond() {
+        if (shots == 0) return 0f;
+        return shots * 1000f / Math.max(1L, shotMillis);
+    }
+
+    /** Returns a copy of the totals for {@code path}, or null if nothing was recorded. */
+    synchronized Totals totals(String path) {
+        Totals t = totals.get(path);
+        if (t == null) return null;
+        Totals copy = new Totals();
+        copy.saves = t.saves;
+        copy.encodes = t.encodes;
+        copy.decodes = t.decodes;
+        copy.bytes = t.bytes;
+        copy.millis = t.millis;
+        return copy;
+    }
+
+    /** One line per pipeline with per-save averages. */
+    synchronized String summary() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Totals> e : totals.entrySet()) {
+            Totals t = e.getValue();
+            if (sb.length() > 0) sb.append(" | ");
+            sb.append(String.format(Locale.US,
+                    "%s: %d saves, %.1f enc + %.1f dec, %d KB, %d ms per save",
+                    e.getKey(), t.saves,
+                    t.encodes / (float) t.saves, t.decodes / (float) t.saves,
+                    t.bytes / t.saves / 1024, t.millis / t.saves));
+        }
+        if (shots > 0) {
+            if (sb.length() > 0) sb.append(" | ");
+            sb.append(String.format(Locale.US, "throughput: %.1f shots/s over %d",
+                    shotsPerSecond(), shots));
+        }
+        return sb.toString();
+    }
+}
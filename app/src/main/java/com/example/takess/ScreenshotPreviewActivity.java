@@ -3,46 +3,88 @@ package com.example.takess;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.graphics.Matrix;
-import android.graphics.RectF;
+import android.graphics.Point;
+import android.graphics.Rect;
 import android.annotation.SuppressLint;
 import android.os.Bundle;
 import android.os.CountDownTimer;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.util.DisplayMetrics;
 import android.view.MotionEvent;
 import android.view.View;
-import android.view.ViewTreeObserver;
-import android.widget.ImageView;
+import android.widget.CheckBox;
+import android.widget.EditText;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.graphics.Insets;
+import androidx.core.view.ViewCompat;
+import androidx.core.view.WindowInsetsCompat;
 
 import com.google.android.material.button.MaterialButton;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Small floating preview pinned to top-left.
  * Features:
  *  • 3-second auto-save countdown (paused on interaction)
- *  • Inline crop by dragging edges on the screenshot thumbnail
+ *  • Pinch-zoom and pan, with tiles decoded from the frame (long screenshots)
+ *  • Inline crop by dragging edges on the screenshot thumbnail (or Auto: past the system
+ *    bars and uniform borders), resize, undo / redo —
+ *    kept as an {@link EditList} and only rendered at full size by the service
  *  • Save / Discard
+ *  • Bursts and recent frames: step through the frames and tick the ones to keep
  *  • Tap anywhere outside the card → instant save & dismiss
  */
 public class ScreenshotPreviewActivity extends AppCompatActivity {
 
     public static final String EXTRA_IMAGE_PATH = "image_path";
-
-    private ImageView ivPreview;
+    /** All frames to pick from, oldest first; {@link #EXTRA_IMAGE_PATH} is the one shown first. */
+    public static final String EXTRA_IMAGE_PATHS = "image_paths";
+    /** Index into {@link #EXTRA_IMAGE_PATHS} shown first. */
+    public static final String EXTRA_START_INDEX = "start_index";
+    /** Which of {@link #EXTRA_IMAGE_PATHS} start ticked; all of them if absent. */
+    public static final String EXTRA_KEEP = "keep";
+
+    private TiledImageView ivPreview;
     private CropOverlayView cropOverlay;
     private TextView tvCountdown;
     private TextView tvCropInfo;
     private MaterialButton btnCrop;
+    private MaterialButton btnUndo;
+    private MaterialButton btnRedo;
     private View cardPreview;
 
     private String imagePath;
+    // Frames to pick from (a single-element array otherwise) and which of them to save
+    private String[] imagePaths;
+    private boolean[] keep;
+    private int current;
+    private TextView tvBurstIndex;
+    private CheckBox cbBurstKeep;
+    // Card-sized thumbnail of region; zoomed-in detail comes from ivPreview's tiles
     private Bitmap currentBitmap;
+    // Edits so far, sent to the service for the final render and encode; they apply to
+    // every frame, whatever its size
+    private final EditList edits = new EditList();
+    // The part of the current frame the edits keep, and the size it comes out at
+    private final Rect region = new Rect();
+    private int outWidth;
+    private int outHeight;
+    private int frameWidth;
+    private int frameHeight;
+    private int thumbMaxWidth;
+    private int thumbMaxHeight;
+    private final ExecutorService thumbnailLoader = Executors.newSingleThreadExecutor();
     private CountDownTimer autoSaveTimer;
     private boolean userInteracted = false;
     private boolean inCropMode = false;
@@ -82,32 +124,34 @@ public class ScreenshotPreviewActivity extends AppCompatActivity {
             finish();
             return;
         }
-
-        currentBitmap = BitmapFactory.decodeFile(imagePath);
-        if (currentBitmap == null) {
-            Toast.makeText(this, "Failed to load screenshot", Toast.LENGTH_SHORT).show();
-            finish();
-            return;
+        imagePaths = getIntent().getStringArrayExtra(EXTRA_IMAGE_PATHS);
+        if (imagePaths == null || imagePaths.length == 0) imagePaths = new String[] { imagePath };
+        keep = getIntent().getBooleanArrayExtra(EXTRA_KEEP);
+        if (keep == null || keep.length != imagePaths.length) {
+            keep = new boolean[imagePaths.length];
+            Arrays.fill(keep, true);
         }
-
-        ivPreview.setImageBitmap(currentBitmap);
-
-        // Once the ImageView has laid out, compute where the image actually sits
-        ivPreview.getViewTreeObserver().addOnGlobalLayoutListener(
-                new ViewTreeObserver.OnGlobalLayoutListener() {
-                    @Override
-                    public void onGlobalLayout() {
-                        ivPreview.getViewTreeObserver().removeOnGlobalLayoutListener(this);
-                        updateImageRect();
-                    }
-                });
+        current = Math.max(0, Math.min(imagePaths.length - 1,
+                getIntent().getIntExtra(EXTRA_START_INDEX, 0)));
+        imagePath = imagePaths[current];
+        if (imagePaths.length > 1) setUpBurstBar();
+
+        // Fixed card size from the layout, so the thumbnail can load before layout
+        thumbMaxWidth = cardPreview.getLayoutParams().width;
+        thumbMaxHeight = findViewById(R.id.crop_container).getLayoutParams().height;
+        loadThumbnail();
+
+        // The overlay follows the image as it is zoomed and panned
+        ivPreview.setOnImageRectChangeListener(cropOverlay::setImageRect);
+        ivPreview.setOnTouchListener((v, event) -> {
+            if (event.getActionMasked() == MotionEvent.ACTION_DOWN) pauseTimerOnInteraction();
+            return false;
+        });
 
         // Crop overlay listener — show live info
         cropOverlay.setOnCropChangeListener((l, t, r, b) -> {
-            int w = currentBitmap.getWidth();
-            int h = currentBitmap.getHeight();
-            int cw = (int) ((r - l) * w);
-            int ch = (int) ((b - t) * h);
+            int cw = (int) ((r - l) * outWidth);
+            int ch = (int) ((b - t) * outHeight);
             tvCropInfo.setText(cw + " × " + ch + " px");
         });
 
@@ -128,38 +172,107 @@ public class ScreenshotPreviewActivity extends AppCompatActivity {
             toggleCropMode();
         });
 
+        btnUndo = findViewById(R.id.btn_undo);
+        btnRedo = findViewById(R.id.btn_redo);
+        btnUndo.setOnClickListener(v -> {
+            pauseTimerOnInteraction();
+            if (inCropMode) toggleCropMode();
+            if (edits.undo()) editsChanged();
+        });
+        btnRedo.setOnClickListener(v -> {
+            pauseTimerOnInteraction();
+            if (inCropMode) toggleCropMode();
+            if (edits.redo()) editsChanged();
+        });
+        findViewById(R.id.btn_resize).setOnClickListener(v -> {
+            pauseTimerOnInteraction();
+            showResizeDialog();
+        });
+        findViewById(R.id.btn_auto_crop).setOnClickListener(v -> {
+            pauseTimerOnInteraction();
+            autoCrop();
+        });
+        updateEditButtons();
+
         startAutoSaveTimer();
     }
 
     // ──────────────────────────────────────────────
-    //  Compute the actual image rect inside the ImageView (fitCenter)
+    //  Frame picker (bursts, recent frames)
     // ──────────────────────────────────────────────
 
-    private void updateImageRect() {
-        if (currentBitmap == null || ivPreview.getDrawable() == null) return;
+    private void setUpBurstBar() {
+        findViewById(R.id.burst_bar).setVisibility(View.VISIBLE);
+        tvBurstIndex = findViewById(R.id.tv_burst_index);
+        cbBurstKeep = findViewById(R.id.cb_burst_keep);
+        cbBurstKeep.setOnClickListener(v -> {
+            pauseTimerOnInteraction();
+            keep[current] = cbBurstKeep.isChecked();
+        });
+        findViewById(R.id.btn_burst_prev).setOnClickListener(v -> showFrame(current - 1));
+        findViewById(R.id.btn_burst_next).setOnClickListener(v -> showFrame(current + 1));
+        updateBurstBar();
+    }
+
+    /** Switches to frame {@code index}; the edits so far apply to every frame. */
+    private void showFrame(int index) {
+        pauseTimerOnInteraction();
+        if (index < 0 || index >= imagePaths.length || index == current) return;
+        if (inCropMode) toggleCropMode();
+        current = index;
+        imagePath = imagePaths[index];
+        loadThumbnail();
+        updateBurstBar();
+    }
 
-        float[] values = new float[9];
-        Matrix imageMatrix = ivPreview.getImageMatrix();
-        imageMatrix.getValues(values);
+    private void updateBurstBar() {
+        tvBurstIndex.setText((current + 1) + " / " + imagePaths.length);
+        cbBurstKeep.setChecked(keep[current]);
+    }
 
-        float scaleX = values[Matrix.MSCALE_X];
-        float scaleY = values[Matrix.MSCALE_Y];
-        float transX = values[Matrix.MTRANS_X];
-        float transY = values[Matrix.MTRANS_Y];
+    // ──────────────────────────────────────────────
+    //  Thumbnail loading
+    // ──────────────────────────────────────────────
 
-        float imgW = currentBitmap.getWidth() * scaleX;
-        float imgH = currentBitmap.getHeight() * scaleY;
+    /**
+     * Samples the part of the current frame the edits keep, off the UI thread. This is
+     * the preview's only render of the edits; a resize just changes the size shown.
+     */
+    private void loadThumbnail() {
+        String path = imagePath;
+        EditList snapshot = edits.copy();
+        thumbnailLoader.execute(() -> {
+            Point size = TempFrameStore.frameSize(path);
+            EditList.Geometry g = size == null ? null : snapshot.geometry(size.x, size.y);
+            Rect r = g == null ? null : new Rect(g.left, g.top, g.right, g.bottom);
+            TempFrameStore.Thumbnail thumb = r == null ? null
+                    : TempFrameStore.readThumbnail(path, r, thumbMaxWidth, thumbMaxHeight);
+            runOnUiThread(() -> showThumbnail(path, r, g, thumb));
+        });
+    }
 
-        // Account for ImageView padding
-        float padL = ivPreview.getPaddingLeft();
-        float padT = ivPreview.getPaddingTop();
+    private void showThumbnail(String path, Rect r, EditList.Geometry g, TempFrameStore.Thumbnail thumb) {
+        if (isDestroyed()) {
+            if (thumb != null) BitmapPool.get().release(thumb.bitmap);
+            return;
+        }
+        if (thumb == null) {
+            if (currentBitmap == null) {
+                Toast.makeText(this, "Failed to load screenshot", Toast.LENGTH_SHORT).show();
+                finish();
+            }
+            return;
+        }
 
-        RectF rect = new RectF(
-                padL + transX,
-                padT + transY,
-                padL + transX + imgW,
-                padT + transY + imgH);
-        cropOverlay.setImageRect(rect);
+        region.set(r);
+        outWidth = g.width;
+        outHeight = g.height;
+        frameWidth = thumb.frameWidth;
+        frameHeight = thumb.frameHeight;
+        // The thumbnail covers exactly the region, so crop percents stay image coordinates
+        ivPreview.setImage(path, region, thumb.bitmap);
+        BitmapPool.get().release(currentBitmap);
+        currentBitmap = thumb.bitmap;
     }
 
     // ──────────────────────────────────────────────
@@ -167,14 +280,15 @@ public class ScreenshotPreviewActivity extends AppCompatActivity {
     // ──────────────────────────────────────────────
 
     private void toggleCropMode() {
+        if (currentBitmap == null) return;
         inCropMode = !inCropMode;
         cropOverlay.setCropMode(inCropMode);
 
         if (inCropMode) {
+            buildEdges();
             btnCrop.setText("Apply");
             tvCropInfo.setVisibility(View.VISIBLE);
-            int w = currentBitmap.getWidth(), h = currentBitmap.getHeight();
-            tvCropInfo.setText(w + " × " + h + " px");
+            tvCropInfo.setText(outWidth + " × " + outHeight + " px");
         } else {
             // "Apply" was pressed — apply the crop
             applyCrop();
@@ -183,41 +297,186 @@ public class ScreenshotPreviewActivity extends AppCompatActivity {
         }
     }
 
+    /**
+     * Projects the edges of a thumbnail-sized sample of the frame for handle snapping,
+     * all on the thumbnail loader; the overlay gets it once it's ready.
+     */
+    private void buildEdges() {
+        String path = imagePath;
+        Rect r = new Rect(region);
+        thumbnailLoader.execute(() -> {
+            TempFrameStore.Sampled sampled = TempFrameStore.readSampled(path, r, thumbMaxWidth, thumbMaxHeight);
+            if (sampled == null) return;
+            EdgeProjection edges = EdgeProjection.build(sampled.pixels, sampled.width, sampled.height);
+            runOnUiThread(() -> {
+                // Still the same crop of the same frame
+                if (inCropMode && path.equals(imagePath) && r.equals(region)) cropOverlay.setEdges(edges);
+            });
+        });
+    }
+
     private void applyCrop() {
         if (!cropOverlay.isCropMode()) return;
 
+        // Percents are of the thumbnail, which shows exactly what the edits so far keep
         float[] pct = cropOverlay.getCropPercents();
-        int origW = currentBitmap.getWidth();
-        int origH = currentBitmap.getHeight();
-
-        int left = (int) (pct[0] * origW);
-        int top = (int) (pct[1] * origH);
-        int right = (int) (pct[2] * origW);
-        int bottom = (int) (pct[3] * origH);
-
-        int cropW = right - left;
-        int cropH = bottom - top;
-        if (cropW <= 0 || cropH <= 0) return;
-
-        // Clamp
-        if (left + cropW > origW) cropW = origW - left;
-        if (top + cropH > origH) cropH = origH - top;
-        if (cropW <= 0 || cropH <= 0) return;
-
-        Bitmap cropped = Bitmap.createBitmap(currentBitmap, left, top, cropW, cropH);
-        currentBitmap.recycle();
-        currentBitmap = cropped;
-        ivPreview.setImageBitmap(currentBitmap);
+        EditList.Crop crop = new EditList.Crop(pct[0], pct[1], pct[2], pct[3]);
+        EditList.Geometry before = edits.geometry(frameWidth, frameHeight);
+        EditList.Geometry after = edits.geometry(frameWidth, frameHeight);
+        crop.apply(after);
 
         cropOverlay.setCropMode(false);
         inCropMode = false;
         btnCrop.setText(getString(R.string.crop));
         tvCropInfo.setVisibility(View.GONE);
+        if (after.width == before.width && after.height == before.height) return;
+
+        edits.push(crop);
+        editsChanged();
+        Toast.makeText(this, "Cropped to " + after.width + "×" + after.height, Toast.LENGTH_SHORT).show();
+    }
+
+    /**
+     * Enters crop mode with the edges already past the system bars and any uniform
+     * border, found by scanning a thumbnail-sized sample of the frame on the thumbnail
+     * loader; Apply still confirms it.
+     */
+    private void autoCrop() {
+        if (currentBitmap == null || region.isEmpty()) return;
+        String path = imagePath;
+        Rect r = new Rect(region);
+        int frameBottom = frameHeight;
+        Insets bars = systemBars();
+        float framePerScreen = framePerScreenPx();
+        thumbnailLoader.execute(() -> {
+            TempFrameStore.Sampled sampled = TempFrameStore.readSampled(path, r, thumbMaxWidth, thumbMaxHeight);
+            int[] c = null;
+            if (sampled != null) {
+                // Bars are in screen pixels; only the edges still at the screen's edges have them
+                float rowsPerScreenPx = (float) sampled.height / r.height() * framePerScreen;
+                int topBar = r.top == 0 ? (int) Math.ceil(bars.top * rowsPerScreenPx) : 0;
+                int bottomBar = r.bottom == frameBottom ? (int) Math.ceil(bars.bottom * rowsPerScreenPx) : 0;
+                c = AutoCrop.find(sampled.pixels, sampled.width, sampled.height, topBar, bottomBar);
+            }
+            int[] crop = c;
+            runOnUiThread(() -> showAutoCrop(path, r, sampled, crop));
+        });
+    }
 
-        // Recompute image rect after bitmap change
-        ivPreview.post(this::updateImageRect);
+    private void showAutoCrop(String path, Rect r, TempFrameStore.Sampled sampled, int[] c) {
+        // Skipped if the frame or the edits changed while scanning
+        if (isDestroyed() || !path.equals(imagePath) || !r.equals(region)) return;
+        int w = sampled == null ? 0 : sampled.width, h = sampled == null ? 0 : sampled.height;
+        if (c == null || (c[0] == 0 && c[1] == 0 && c[2] == w && c[3] == h)) {
+            Toast.makeText(this, R.string.auto_crop_none, Toast.LENGTH_SHORT).show();
+            return;
+        }
+        if (!inCropMode) toggleCropMode();
+        cropOverlay.setCrop((float) c[0] / w, (float) c[1] / h, (float) c[2] / w, (float) c[3] / h);
+    }
+
+    /** Status and navigation bar sizes, whether or not they're showing over the preview. */
+    private Insets systemBars() {
+        WindowInsetsCompat insets = ViewCompat.getRootWindowInsets(getWindow().getDecorView());
+        if (insets == null) return Insets.NONE;
+        Insets status = insets.getInsetsIgnoringVisibility(WindowInsetsCompat.Type.statusBars());
+        Insets nav = insets.getInsetsIgnoringVisibility(WindowInsetsCompat.Type.navigationBars());
+        return Insets.of(0, status.top, 0, nav.bottom);
+    }
+
+    /**
+     * Frame pixels per screen pixel; recent frames are kept downscaled. Measured across
+     * the width, since a stitched long screenshot is many screens tall but one wide.
+     */
+    @SuppressWarnings("deprecation")
+    private float framePerScreenPx() {
+        DisplayMetrics metrics = new DisplayMetrics();
+        getWindowManager().getDefaultDisplay().getRealMetrics(metrics);
+        return metrics.widthPixels > 0 ? (float) frameWidth / metrics.widthPixels : 1f;
+    }
+
+    // ──────────────────────────────────────────────
+    //  Resize, undo / redo
+    // ──────────────────────────────────────────────
+
+    /** Re-samples the thumbnail from the frame, so a small crop gets a sharper one. */
+    private void editsChanged() {
+        loadThumbnail();
+        updateEditButtons();
+    }
+
+    private void updateEditButtons() {
+        btnUndo.setEnabled(edits.canUndo());
+        btnRedo.setEnabled(edits.canRedo());
+    }
+
+    /** Width and height stay in the current aspect ratio; typing one fills in the other. */
+    private void showResizeDialog() {
+        if (currentBitmap == null || outWidth <= 0 || outHeight <= 0) return;
+        if (inCropMode) toggleCropMode();
+        View content = getLayoutInflater().inflate(R.layout.dialog_resize, null);
+        EditText etWidth = content.findViewById(R.id.et_resize_width);
+        EditText etHeight = content.findViewById(R.id.et_resize_height);
+        ((TextView) content.findViewById(R.id.tv_resize_current))
+                .setText(getString(R.string.resize_current, outWidth, outHeight));
+        etWidth.setText(String.valueOf(outWidth));
+        etHeight.setText(String.valueOf(outHeight));
+        linkAspect(etWidth, etHeight, (double) outHeight / outWidth);
+        linkAspect(etHeight, etWidth, (double) outWidth / outHeight);
+        content.findViewById(R.id.btn_resize_half).setOnClickListener(v ->
+                setResizeWidth(etWidth, etHeight, Math.max(1, outWidth / 2)));
+        content.findViewById(R.id.btn_resize_1280).setOnClickListener(v ->
+                setResizeWidth(etWidth, etHeight, 1280));
+        content.findViewById(R.id.btn_resize_800).setOnClickListener(v ->
+                setResizeWidth(etWidth, etHeight, 800));
+
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.resize_title)
+                .setView(content)
+                .setNegativeButton(android.R.string.cancel, null)
+                .setPositiveButton(R.string.resize, (d, which) -> {
+                    int w = parseSize(etWidth), h = parseSize(etHeight);
+                    // Up to twice the pixels kept: more only makes the file bigger
+                    int maxW = 2 * region.width(), maxH = 2 * region.height();
+                    if (w <= 0 || h <= 0 || w > maxW || h > maxH) {
+                        Toast.makeText(this, getString(R.string.resize_invalid, maxW, maxH),
+                                Toast.LENGTH_SHORT).show();
+                        return;
+                    }
+                    if (w == outWidth && h == outHeight) return;
+                    edits.push(new EditList.Resize(w, h));
+                    editsChanged();
+                })
+                .show();
+    }
+
+    private void setResizeWidth(EditText etWidth, EditText etHeight, int width) {
+        etWidth.setText(String.valueOf(width));
+        etHeight.setText(String.valueOf(Math.max(1, Math.round((double) width * outHeight / outWidth))));
+    }
+
+    /** Typing in {@code from} sets {@code to} to {@code from × ratio}. */
+    private static void linkAspect(EditText from, EditText to, double ratio) {
+        from.addTextChangedListener(new TextWatcher() {
+            @Override public void beforeTextChanged(CharSequence s, int start, int count, int after) { }
+            @Override public void onTextChanged(CharSequence s, int start, int before, int count) { }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                // Only for the user's typing, not the other field's update
+                if (!from.hasFocus()) return;
+                int v = parseSize(from);
+                if (v > 0) to.setText(String.valueOf(Math.max(1, Math.round(v * ratio))));
+            }
+        });
+    }
 
-        Toast.makeText(this, "Cropped to " + cropW + "×" + cropH, Toast.LENGTH_SHORT).show();
+    private static int parseSize(EditText field) {
+        try {
+            return Integer.parseInt(field.getText().toString().trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
     }
 
     // ──────────────────────────────────────────────
@@ -274,34 +533,57 @@ public class ScreenshotPreviewActivity extends AppCompatActivity {
     // ──────────────────────────────────────────────
 
     private void saveAndFinish() {
-        if (currentBitmap == null || currentBitmap.isRecycled()) {
-            finish();
+        if (imagePaths.length > 1) {
+            saveBurstAndFinish();
             return;
         }
-
-        try {
-            java.io.FileOutputStream fos = new java.io.FileOutputStream(imagePath);
-            currentBitmap.compress(Bitmap.CompressFormat.PNG, 100, fos);
-            fos.flush();
-            fos.close();
-        } catch (Exception e) {
-            Toast.makeText(this, "Error saving: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-        }
-
+        // No render or encode here — the service applies the edits to the original frame once
         Intent intent = new Intent(this, ScreenshotService.class);
         intent.setAction(ScreenshotService.ACTION_SAVE_TEMP);
         intent.putExtra("tempPath", imagePath);
+        if (!edits.isEmpty()) intent.putExtra("edits", edits.encode());
         startService(intent);
 
         finish();
     }
 
+    /** Ticked frames are saved in one batch with the shared edits, the rest discarded. */
+    private void saveBurstAndFinish() {
+        List<String> kept = new ArrayList<>();
+        List<String> dropped = new ArrayList<>();
+        for (int i = 0; i < imagePaths.length; i++) {
+            (keep[i] ? kept : dropped).add(imagePaths[i]);
+        }
+        if (!kept.isEmpty()) {
+            Intent intent = new Intent(this, ScreenshotService.class);
+            intent.setAction(ScreenshotService.ACTION_SAVE_TEMP);
+            intent.putExtra("tempPaths", kept.toArray(new String[0]));
+            if (!edits.isEmpty()) intent.putExtra("edits", edits.encode());
+            startService(intent);
+        }
+        if (!dropped.isEmpty()) {
+            Intent intent = new Intent(this, ScreenshotService.class);
+            intent.setAction(ScreenshotService.ACTION_DISCARD_TEMP);
+            intent.putExtra("tempPaths", dropped.toArray(new String[0]));
+            startService(intent);
+        }
+        finish();
+    }
+
     @SuppressWarnings("ResultOfMethodCallIgnored")
     private void discardAndFinish() {
-        try {
-            File f = new File(imagePath);
-            if (f.exists()) f.delete();
-        } catch (Exception ignored) { }
+        for (String path : imagePaths) {
+            try {
+                File f = new File(path);
+                if (f.exists()) f.delete();
+            } catch (Exception ignored) { }
+        }
+        // Closes the frames' save-journal entries so they aren't replayed after a restart
+        Intent intent = new Intent(this, ScreenshotService.class);
+        intent.setAction(ScreenshotService.ACTION_DISCARD_TEMP);
+        if (imagePaths.length > 1) intent.putExtra("tempPaths", imagePaths);
+        else intent.putExtra("tempPath", imagePath);
+        startService(intent);
         Toast.makeText(this, "Screenshot discarded", Toast.LENGTH_SHORT).show();
         finish();
     }
@@ -321,9 +603,22 @@ public class ScreenshotPreviewActivity extends AppCompatActivity {
                 && y <= location[1] + view.getHeight();
     }
 
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        BitmapPool.get().trimMemory(level);
+        if (ivPreview != null) ivPreview.trimMemory(level);
+    }
+
     @Override
     protected void onDestroy() {
         cancelTimer();
+        thumbnailLoader.shutdown();
+        if (ivPreview != null) ivPreview.release();
+        if (currentBitmap != null) {
+            BitmapPool.get().release(currentBitmap);
+            currentBitmap = null;
+        }
         super.onDestroy();
     }
 }
@@ -8,6 +8,7 @@ import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.widget.Toast;
 
 import androidx.activity.result.ActivityResultLauncher;
@@ -28,10 +29,12 @@ public class ScreenshotRequestActivity extends AppCompatActivity {
         // If launched to collapse the shade and then capture
         if (justCollapse) {
             if (captureAfter && ScreenshotService.isServiceRunning()) {
-                // Tell the service to capture after a delay (shade needs time to collapse)
+                // Tell the service to capture once the shade has finished collapsing
+                boolean burst = getIntent().getBooleanExtra("burst", false);
                 Intent captureIntent = new Intent(this, ScreenshotService.class);
-                captureIntent.setAction(ScreenshotService.ACTION_CAPTURE);
-                captureIntent.putExtra("delayMs", 300L);
+                captureIntent.setAction(burst ? ScreenshotService.ACTION_BURST : ScreenshotService.ACTION_CAPTURE);
+                captureIntent.putExtra("waitForSettle", true);
+                captureIntent.putExtra("requestedAt", SystemClock.elapsedRealtime());
                 startService(captureIntent);
             }
             finish();
@@ -42,6 +45,7 @@ public class ScreenshotRequestActivity extends AppCompatActivity {
         if (ScreenshotService.isServiceRunning()) {
             Intent captureIntent = new Intent(this, ScreenshotService.class);
             captureIntent.setAction(ScreenshotService.ACTION_CAPTURE);
+            captureIntent.putExtra("requestedAt", SystemClock.elapsedRealtime());
             startService(captureIntent);
             finish();
             return;
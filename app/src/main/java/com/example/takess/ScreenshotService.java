@@ -5,13 +5,20 @@ import android.app.NotificationChannel;
 import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.app.Service;
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
+import android.content.BroadcastReceiver;
 import android.content.ContentValues;
 import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.OperationApplicationException;
 import android.content.SharedPreferences;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.graphics.PixelFormat;
+import android.graphics.Point;
+import android.graphics.Rect;
 import android.hardware.display.DisplayManager;
 import android.hardware.display.VirtualDisplay;
 import android.media.Image;
@@ -21,8 +28,14 @@ import android.media.projection.MediaProjectionManager;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.IBinder;
 import android.os.Looper;
+import android.os.ParcelFileDescriptor;
+import android.os.PowerManager;
+import android.os.Process;
+import android.os.RemoteException;
+import android.os.SystemClock;
 import android.provider.MediaStore;
 import android.util.DisplayMetrics;
 import android.util.Log;
@@ -31,16 +44,29 @@ import android.widget.Toast;
 
 import androidx.annotation.Nullable;
 import androidx.core.app.NotificationCompat;
-import androidx.documentfile.provider.DocumentFile;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Persistent foreground service that keeps MediaProjection alive.
@@ -48,8 +74,27 @@ import java.util.Locale;
  * ACTIONS:
  *   ACTION_INIT      – first launch: receives resultCode+data, sets up the projection
  *   ACTION_CAPTURE   – captures a single frame → shows preview (auto-saves in 3 s)
- *   ACTION_SAVE_TEMP – saves a temp-file bitmap to the user's configured storage
+ *   ACTION_BURST     – captures several frames at an interval → preview picks which to keep
+ *   ACTION_LONG_CAPTURE – scrolls via {@link SwipeDetectorService} and stitches one tall frame
+ *   ACTION_SAVE_TEMP – crops the raw temp frame and encodes it once into the user's storage
+ *   ACTION_DISCARD_TEMP – drops a previewed frame the user discarded
  *   ACTION_STOP      – user explicitly stops the service
+ *
+ * Capture uses a warm {@link CaptureSession} created once in ACTION_INIT. Setting
+ * the "capture_mode" preference to "cold" restores the old create-per-shot path so
+ * tap-to-frame latency of both can be compared in logcat.
+ *
+ * THREADING: intents arrive on the main thread. Frames are acquired and converted on
+ * the "takess-capture" HandlerThread (which alone touches {@link CaptureSession});
+ * temp writes, encodes and storage I/O run on a bounded {@link SaveExecutor}, whose
+ * results are posted back to the main thread.
+ *
+ * With the "recent_buffer" preference on (and the screen on), the warm display keeps
+ * rendering into a {@link RecentFrameBuffer} of the last few seconds, and a capture
+ * also offers a few of those frames in the preview.
+ *
+ * Every frame is tracked by a {@link SaveJournal} from capture to the published
+ * file, so saves interrupted by process death are finished on the next start.
  */
 public class ScreenshotService extends Service {
 
@@ -59,18 +104,146 @@ public class ScreenshotService extends Service {
 
     public static final String ACTION_INIT = "com.example.takess.ACTION_INIT";
     public static final String ACTION_CAPTURE = "com.example.takess.ACTION_CAPTURE";
+    public static final String ACTION_BURST = "com.example.takess.ACTION_BURST";
+    public static final String ACTION_LONG_CAPTURE = "com.example.takess.ACTION_LONG_CAPTURE";
     public static final String ACTION_SAVE_TEMP = "com.example.takess.ACTION_SAVE_TEMP";
+    public static final String ACTION_DISCARD_TEMP = "com.example.takess.ACTION_DISCARD_TEMP";
     public static final String ACTION_STOP = "com.example.takess.ACTION_STOP";
 
-    private MediaProjection mediaProjection;
-    private boolean isProjectionReady = false;
-    private static boolean isRunning = false;
+    public static final String CAPTURE_MODE_WARM = "warm";
+    public static final String CAPTURE_MODE_COLD = "cold";
+
+    public static final String PNG_ENCODER_PLATFORM = "platform";
+    public static final String PNG_ENCODER_PARALLEL = "parallel";
+
+    private static final String TARGET_MEDIA_STORE = "mediastore";
+    private static final String TARGET_SAF = "saf";
+    private static final String TARGET_FILE = "file";
+    // Destinations are written under this prefix and renamed (or un-pended) on commit
+    private static final String PENDING_PREFIX = ".pending-";
+
+    // Bounds for the destination write buffer, which is sized from past output
+    private static final int MIN_WRITE_BUFFER = 64 * 1024;
+    private static final int MAX_WRITE_BUFFER = 1024 * 1024;
+    // Frames taller than this (long screenshots) are beyond WebP and too big for one
+    // bitmap: they are saved as PNG, encoded straight from the mapped temp frame
+    private static final int TALL_FRAME_ROWS = 16383;
+
+    // A capture identical to one saved this recently is dropped (when dedupe is on)
+    private static final long DEDUPE_WINDOW_MS = 10 * 60 * 1000;
+    private static final int DEDUPE_MAX_ENTRIES = 64;
+
+    // Waiting for the screen to settle after a tile tap: still this long after the last
+    // change, or this long if nothing moves at all; the upper bound is a preference
+    private static final long SETTLE_QUIET_MS = 64;
+    private static final long SETTLE_NO_CHANGE_MS = 150;
+    static final int DEFAULT_SETTLE_MAX_MS = 1000;
+    private static final long COLD_SETTLE_DELAY_MS = 300;
+
+    // Burst frames are held uncompressed in a preallocated ring of at most this many
+    // bytes until the burst ends; the ring then goes to the save executor in one task
+    private static final long BURST_RING_BYTES = 96L * 1024 * 1024;
+    private static final int DEFAULT_BURST_COUNT = 8;
+    private static final long DEFAULT_BURST_INTERVAL_MS = 100;
+    private static final long MIN_BURST_INTERVAL_MS = 16;
+
+    // Long screenshots: each swipe scrolls this share of the screen, leaving ample
+    // overlap; scrolled content is given longer to come to rest than the shade
+    private static final float LONG_SCROLL_FRACTION = 0.4f;
+    private static final int LONG_MIN_OVERLAP_ROWS = 48;
+    private static final long LONG_SETTLE_QUIET_MS = 120;
+    private static final int LONG_SETTLE_MAX_MS = 1500;
+    // Frames that didn't move before the content is taken to have ended
+    private static final int LONG_END_STEPS = 2;
+    private static final int LONG_MAX_STEPS = 40;
+    private static final int LONG_MAX_ROWS = 60_000;
+
+    // Recent-frames buffer: a downscaled frame every RECENT_INTERVAL_MS, kept for the
+    // window within the byte budget; a capture offers at most RECENT_MAX_OFFERED of them
+    private static final int RECENT_MAX_EDGE = 1200;
+    private static final long RECENT_INTERVAL_MS = 250;
+    private static final long RECENT_WINDOW_MS = 10_000;
+    private static final long RECENT_BUDGET_BYTES = 16L * 1024 * 1024;
+    private static final int RECENT_MAX_OFFERED = 6;
+    private static final long RECENT_LOG_INTERVAL_MS = 30_000;
+
+    // Captures queued or in flight before new ones are refused
+    private static final int SAVE_QUEUE_CAPACITY = 3;
+
+    private volatile MediaProjection mediaProjection;
+    private volatile boolean isProjectionReady = false;
+    private static volatile boolean isRunning = false;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private HandlerThread captureThread;
+    private Handler captureHandler;
+    private SaveExecutor saveExecutor;
+
+    // Capture thread only
+    private CaptureSession captureSession;
+    private final FrameConverter frameConverter = new FrameConverter();
+    // The current burst's ring, sized for its frame count; dropped once its frames are
+    // written. Owned by the save executor while burstInFlight is set
+    private volatile FrameRing burstRing;
+    private final AtomicBoolean burstInFlight = new AtomicBoolean();
+    private final AtomicBoolean longCaptureInFlight = new AtomicBoolean();
+    // Null whenever the buffer is off, so it holds no memory then
+    private RecentFrameBuffer recentBuffer;
+    private ByteBuffer recentScratch;
+    private long lastRecentAt;
+    private long recentLoggedAt;
+
+    // Shared with MainActivity, which shows the measured per-format numbers
+    private static final SaveStats saveStats = new SaveStats();
+
+    // One journal per process, shared by service instances; recovered on the first start
+    private static SaveJournal saveJournal;
+    private static boolean journalRecovered;
+
+    // Save executor only
+    private final DestinationStore destinationStore = new DestinationStore();
+    private final TempCacheCleaner tempCacheCleaner = new TempCacheCleaner(
+            TempCacheCleaner.DEFAULT_MAX_BYTES, TempCacheCleaner.DEFAULT_MAX_AGE_MS,
+            TempCacheCleaner.DEFAULT_GRACE_MS);
+    private long lastEncodedBytes;
+    // Tap-to-frame per temp frame, until its save lands in the capture history
+    private final Map<String, Integer> captureLatencies = new HashMap<>();
+    // Content hashes computed for dedupe, reused by the history entry of the same save
+    private final Map<String, Long> frameHashes = new HashMap<>();
+    private ByteBuffer encodeScratch;
+    private final PngEncoder defaultPngEncoder =
+            PngEncoder.forMode(ForkJoinPool.commonPool(), PngEncoder.Mode.DEFAULT);
+    private final PngEncoder fastPngEncoder =
+            PngEncoder.forMode(ForkJoinPool.commonPool(), PngEncoder.Mode.FAST);
+    private final PngEncoder maxPngEncoder =
+            PngEncoder.forMode(ForkJoinPool.commonPool(), PngEncoder.Mode.MAX);
+    // The preview's Resize edit, applied at save time
+    private static final Resampler resampler = new Resampler(ForkJoinPool.commonPool());
+
+    // Main thread only
     private Toast currentToast;
+    private boolean screenOn = true;
+    private final BroadcastReceiver screenReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            screenOn = Intent.ACTION_SCREEN_ON.equals(intent.getAction());
+            updateRecentBuffer();
+        }
+    };
+    // Held in a field: SharedPreferences only keeps listeners weakly
+    private final SharedPreferences.OnSharedPreferenceChangeListener prefsListener = (p, key) -> {
+        if ("recent_buffer".equals(key) || "capture_mode".equals(key)) updateRecentBuffer();
+    };
 
     public static boolean isServiceRunning() {
         return isRunning;
     }
 
+    /** Encode time and output size per output format (and legacy path) for this process. */
+    static SaveStats getSaveStats() {
+        return saveStats;
+    }
+
     // ──────────────────────────────────────────────
     //  Lifecycle
     // ──────────────────────────────────────────────
@@ -79,6 +252,19 @@ public class ScreenshotService extends Service {
     public void onCreate() {
         super.onCreate();
         createNotificationChannel();
+        captureThread = new HandlerThread("takess-capture", Process.THREAD_PRIORITY_DISPLAY);
+        captureThread.start();
+        captureHandler = new Handler(captureThread.getLooper());
+        saveExecutor = new SaveExecutor(SAVE_QUEUE_CAPACITY, mainHandler::post,
+                error -> Log.e(TAG, "save executor task failed", error));
+        saveExecutor.submitHousekeeping(this::recoverSaves);
+        saveExecutor.submitHousekeeping(this::cleanTempCache);
+        PowerManager power = (PowerManager) getSystemService(Context.POWER_SERVICE);
+        screenOn = power == null || power.isInteractive();
+        IntentFilter screenFilter = new IntentFilter(Intent.ACTION_SCREEN_OFF);
+        screenFilter.addAction(Intent.ACTION_SCREEN_ON);
+        registerReceiver(screenReceiver, screenFilter);
+        getSharedPreferences("takess_prefs", MODE_PRIVATE).registerOnSharedPreferenceChangeListener(prefsListener);
         isRunning = true;
     }
 
@@ -88,7 +274,8 @@ public class ScreenshotService extends Service {
 
         if (intent == null) {
             // Service restarted by system after force-stop — no projection data available
-            // Stop ourselves since we can't do anything without MediaProjection
+            // Stop ourselves since we can't do anything without MediaProjection; journal
+            // recovery queued in onCreate still finishes before the executor winds down
             cleanup();
             stopForeground(true);
             stopSelf();
@@ -104,14 +291,55 @@ public class ScreenshotService extends Service {
                 break;
             case ACTION_CAPTURE:
                 long delayMs = intent.getLongExtra("delayMs", 0);
+                long requestedAt = intent.getLongExtra("requestedAt", SystemClock.elapsedRealtime());
+                // Callers that collapse the shade ask to wait until the screen is still
+                boolean settle = intent.getBooleanExtra("waitForSettle", false);
                 if (delayMs > 0) {
-                    new Handler(Looper.getMainLooper()).postDelayed(this::handleCapture, delayMs);
+                    mainHandler.postDelayed(() -> handleCapture(requestedAt, settle), delayMs);
                 } else {
-                    handleCapture();
+                    handleCapture(requestedAt, settle);
                 }
                 break;
+            case ACTION_BURST:
+                handleBurst(intent.getIntExtra("count", DEFAULT_BURST_COUNT),
+                        intent.getLongExtra("intervalMs", DEFAULT_BURST_INTERVAL_MS),
+                        intent.getLongExtra("requestedAt", SystemClock.elapsedRealtime()),
+                        intent.getBooleanExtra("waitForSettle", false));
+                break;
+            case ACTION_LONG_CAPTURE:
+                handleLongCapture(intent.getLongExtra("requestedAt", SystemClock.elapsedRealtime()));
+                break;
             case ACTION_SAVE_TEMP:
-                handleSaveTemp(intent);
+                String tempPath = intent.getStringExtra("tempPath");
+                // A burst preview sends every frame the user kept
+                String[] tempPaths = intent.getStringArrayExtra("tempPaths");
+                // The preview's edit list; it fits every frame, whatever its size
+                EditList edits = EditList.decode(intent.getStringExtra("edits"));
+                if (tempPath == null && tempPaths == null) break;
+                if (!saveExecutor.submit(() -> {
+                    if (tempPaths != null) handleSaveTemps(tempPaths, edits);
+                    else handleSaveTemp(tempPath, edits);
+                    cleanTempCache();
+                    return null;
+                }, (result, error) -> {
+                    // Already logged by the executor; handleSaveTemp* report their own failures
+                    if (error != null) showToast("Failed to save screenshot");
+                })) {
+                    showToast("Too many screenshots saving — please try again");
+                }
+                break;
+            case ACTION_DISCARD_TEMP:
+                String discardPath = intent.getStringExtra("tempPath");
+                String[] discardPaths = discardPath != null ? new String[] { discardPath }
+                        : intent.getStringArrayExtra("tempPaths");
+                if (discardPaths == null) break;
+                if (!saveExecutor.submit(() -> {
+                    for (String path : discardPaths) handleDiscardTemp(path);
+                })) {
+                    // Queue full: the journal entries are dropped at the next recovery instead
+                    //noinspection ResultOfMethodCallIgnored
+                    for (String path : discardPaths) new File(path).delete();
+                }
                 break;
             case ACTION_STOP:
                 cleanup();
@@ -129,7 +357,7 @@ public class ScreenshotService extends Service {
 
     private void handleInit(Intent intent) {
         if (isProjectionReady && mediaProjection != null) {
-            handleCapture();
+            handleCapture(SystemClock.elapsedRealtime(), true);
             return;
         }
 
@@ -149,17 +377,27 @@ public class ScreenshotService extends Service {
             public void onStop() {
                 isProjectionReady = false;
                 mediaProjection = null;
+                captureHandler.post(() -> releaseCaptureSession());
                 Log.i(TAG, "MediaProjection stopped by system");
             }
-        }, new Handler(Looper.getMainLooper()));
+        }, mainHandler);
+
+        // Build the warm display up front so the first capture skips the setup cost
+        MediaProjection projection = mediaProjection;
+        captureHandler.post(() -> {
+            releaseCaptureSession();
+            captureSession = new CaptureSession(projection, captureHandler);
+            ensureCaptureSession();
+        });
 
         isProjectionReady = true;
+        updateRecentBuffer();
         showToast("TakeSS ready! Use the tile or notification button to capture.");
         startForegroundWithNotification();
 
-        // If launched from the tile after force-stop, capture immediately
+        // If launched from the tile after force-stop, capture once the consent dialog is gone
         if (intent.getBooleanExtra("captureAfterInit", false)) {
-            new Handler(Looper.getMainLooper()).postDelayed(this::handleCapture, 400);
+            handleCapture(SystemClock.elapsedRealtime(), true);
         }
     }
 
@@ -167,49 +405,837 @@ public class ScreenshotService extends Service {
     //  ACTION_CAPTURE — single screenshot → preview
     // ──────────────────────────────────────────────
 
-    private void handleCapture() {
+    /** {@code settle}: wait for the screen to stop changing (shade, dialog) before grabbing. */
+    private void handleCapture(long requestedAt, boolean settle) {
         if (!isProjectionReady || mediaProjection == null) {
             showToast("Permission expired. Please re-enable from the app.");
             return;
         }
 
+        // Backpressure: don't grab another full frame while saves are still queued up
+        if (saveExecutor.isSaturated()) {
+            showToast("Still saving previous screenshots — try again in a moment");
+            return;
+        }
+
         // Cancel any visible toast so it doesn't appear in the screenshot
         if (currentToast != null) {
             currentToast.cancel();
             currentToast = null;
         }
 
-        captureFrame(bitmap -> {
+        MediaProjection projection = mediaProjection;
+        captureHandler.post(() -> captureFrame(projection, requestedAt, settle, bitmap -> {
             if (bitmap == null) {
                 showToast("Failed to capture screenshot");
                 return;
             }
-            String tempPath = saveBitmapToTemp(bitmap);
-            bitmap.recycle();
-            if (tempPath != null) {
-                launchPreview(tempPath);
-            } else {
-                showToast("Failed to save temporary screenshot");
+            int captureMs = (int) (SystemClock.elapsedRealtime() - requestedAt);
+            // Frames from before the tap only; the wait for the shade to close is not wanted
+            RecentFrameBuffer.Snapshot recent = recentBuffer == null ? null
+                    : recentBuffer.snapshot(System.currentTimeMillis() - captureMs);
+            boolean queued = saveExecutor.submit(() -> {
+                String path;
+                try {
+                    path = TempFrameStore.write(this, bitmap);
+                } finally {
+                    BitmapPool.get().release(bitmap);
+                }
+                if (path == null) return null;
+                captureLatencies.put(path, captureMs);
+                beginJob(path);
+                if (recent == null || recent.size() == 0) return new String[] { path };
+                List<String> paths = writeRecent(recent);
+                paths.add(path);
+                return paths.toArray(new String[0]);
+            }, (tempPaths, error) -> {
+                if (tempPaths != null && tempPaths.length == 1) {
+                    launchPreview(tempPaths[0]);
+                } else if (tempPaths != null) {
+                    // The live frame is last and the only one kept unless the user picks
+                    boolean[] keep = new boolean[tempPaths.length];
+                    keep[keep.length - 1] = true;
+                    launchPreview(tempPaths, keep, keep.length - 1);
+                } else {
+                    Log.e(TAG, "temp write failed", error);
+                    showToast("Failed to save temporary screenshot");
+                }
+            });
+            if (!queued) {
+                BitmapPool.get().release(bitmap);
+                showToast("Still saving previous screenshots — try again in a moment");
+            }
+        }));
+    }
+
+    // ──────────────────────────────────────────────
+    //  ACTION_BURST — several frames → preview picks
+    // ──────────────────────────────────────────────
+
+    /**
+     * Captures {@code count} frames {@code intervalMs} apart into {@link #burstRing}.
+     * Nothing is encoded or written while the burst runs; the frames go to the save
+     * executor together once it ends.
+     */
+    private void handleBurst(int count, long intervalMs, long requestedAt, boolean settle) {
+        if (!isProjectionReady || mediaProjection == null) {
+            showToast("Permission expired. Please re-enable from the app.");
+            return;
+        }
+        if (saveExecutor.isSaturated()) {
+            showToast("Still saving previous screenshots — try again in a moment");
+            return;
+        }
+        if (!burstInFlight.compareAndSet(false, true)) {
+            showToast("A burst is already in progress");
+            return;
+        }
+        if (currentToast != null) {
+            currentToast.cancel();
+            currentToast = null;
+        }
+
+        MediaProjection projection = mediaProjection;
+        long interval = Math.max(MIN_BURST_INTERVAL_MS, intervalMs);
+        captureHandler.post(() -> captureBurst(projection, Math.max(1, count), interval,
+                requestedAt, settle));
+    }
+
+    /**
+     * Runs on the capture thread. Bursts always use the warm session: the cold path
+     * would rebuild the display for every frame.
+     */
+    private void captureBurst(@Nullable MediaProjection projection, int count, long intervalMs,
+                              long requestedAt, boolean settle) {
+        if (projection == null) {
+            burstInFlight.set(false);
+            showToast("Failed to capture screenshot");
+            return;
+        }
+        if (captureSession == null) {
+            captureSession = new CaptureSession(projection, captureHandler);
+        }
+        ensureCaptureSession();
+        Burst burst = new Burst(count, intervalMs, requestedAt);
+        if (settle) {
+            long maxWait = getSharedPreferences("takess_prefs", MODE_PRIVATE)
+                    .getInt("settle_max_ms", DEFAULT_SETTLE_MAX_MS);
+            captureSession.captureWhenSettled(new FrameStabilityDetector(
+                    SETTLE_QUIET_MS, SETTLE_NO_CHANGE_MS, maxWait), image -> {
+                if (image == null) {
+                    burst.onFrame(null);
+                    return;
+                }
+                // Held again so the next tick can sample it if nothing has changed
+                captureSession.hold(image);
+                burst.tick();
+            });
+        } else {
+            burst.tick();
+        }
+    }
+
+    /** One burst in progress. Capture thread only. */
+    private final class Burst implements CaptureSession.FrameSink {
+        final int count;
+        final long intervalMs;
+        final long requestedAt;
+        FrameRing ring;
+        long nextAt;
+
+        Burst(int count, long intervalMs, long requestedAt) {
+            this.count = count;
+            this.intervalMs = intervalMs;
+            this.requestedAt = requestedAt;
+        }
+
+        void tick() {
+            if (captureSession == null) {
+                onFrame(null);
+                return;
+            }
+            nextAt = SystemClock.elapsedRealtime() + intervalMs;
+            captureSession.sample(this);
+        }
+
+        @Override
+        public void onFrame(@Nullable Image image) {
+            if (image == null || !copy(image) || ring.size() >= count) {
+                finish();
+                return;
+            }
+            captureHandler.postDelayed(this::tick,
+                    Math.max(0, nextAt - SystemClock.elapsedRealtime()));
+        }
+
+        /** Copies the frame into the next ring slot; false if it can't join this burst. */
+        private boolean copy(Image image) {
+            int width = image.getWidth();
+            int height = image.getHeight();
+            int frameBytes = width * height * 4;
+            if (ring == null) {
+                ring = ring(frameBytes, count);
+                if (ring.capacity() < count) {
+                    Log.w(TAG, "Burst of " + count + " limited to " + ring.capacity()
+                            + " frames by the " + BURST_RING_BYTES / (1024 * 1024) + " MB ring");
+                }
+            } else if (frameBytes != ring.frameBytes()) {
+                // Rotated mid-burst: keep what was captured before
+                return false;
+            }
+            if (ring.size() == ring.capacity()) return false;
+
+            Image.Plane plane = image.getPlanes()[0];
+            FrameRing.Frame frame = ring.next();
+            FrameConverter.copyRows(plane.getBuffer(), width, height,
+                    plane.getPixelStride(), plane.getRowStride(), frame.pixels);
+            frame.width = width;
+            frame.height = height;
+            frame.capturedAt = System.currentTimeMillis();
+            if (ring.size() == 1) logLatency("burst", requestedAt);
+            return true;
+        }
+
+        private void finish() {
+            if (ring == null || ring.size() == 0) {
+                burstRing = null;
+                burstInFlight.set(false);
+                showToast("Failed to capture screenshot");
+                return;
+            }
+            FrameRing frames = ring;
+            Log.i(TAG, "Burst: " + frames.size() + " frames in "
+                    + (SystemClock.elapsedRealtime() - requestedAt) + " ms");
+            boolean queued = saveExecutor.submit(() -> writeBurst(frames), (paths, error) -> {
+                // Written to temp files (or failed): the buffers can go
+                burstRing = null;
+                burstInFlight.set(false);
+                if (paths != null && paths.length > 0) {
+                    launchPreview(paths, null, 0);
+                } else {
+                    Log.e(TAG, "burst temp write failed", error);
+                    showToast("Failed to save temporary screenshot");
+                }
+            });
+            if (!queued) {
+                burstRing = null;
+                burstInFlight.set(false);
+                showToast("Still saving previous screenshots — try again in a moment");
+            }
+        }
+    }
+
+    /** A ring for {@code count} frames of {@code frameBytes}, or as many as fit in the budget. */
+    private FrameRing ring(int frameBytes, int count) {
+        burstRing = null;   // let any old buffers go before allocating the new ones
+        burstRing = new FrameRing(Math.min(BURST_RING_BYTES, (long) count * frameBytes), frameBytes);
+        return burstRing;
+    }
+
+    /**
+     * Runs on the save executor: writes every ring frame to its own temp file, opens a
+     * journal job for each and returns the paths oldest first. Frames already written
+     * are kept (and recoverable) if a later one fails.
+     */
+    private String[] writeBurst(FrameRing ring) throws IOException {
+        List<FrameRing.Frame> frames = ring.frames();
+        List<String> paths = new ArrayList<>(frames.size());
+        IOException failure = null;
+        for (int i = 0; i < frames.size(); i++) {
+            String path;
+            try {
+                path = TempFrameStore.write(this, frames.get(i), i);
+            } catch (IOException e) {
+                failure = e;
+                break;
+            }
+            paths.add(path);
+            beginJob(path);
+        }
+        if (paths.isEmpty() && failure != null) throw failure;
+        if (failure != null) Log.e(TAG, "burst: kept " + paths.size() + " of " + frames.size(), failure);
+        return paths.toArray(new String[0]);
+    }
+
+    // ──────────────────────────────────────────────
+    //  ACTION_LONG_CAPTURE — scroll, capture, stitch
+    // ──────────────────────────────────────────────
+
+    /**
+     * Captures the screen, has {@link SwipeDetectorService} scroll it, and repeats until
+     * the content stops moving. Each frame is handed to a {@link ScrollStitcher} on the
+     * save executor, which streams the new rows to one temp frame on disk.
+     */
+    private void handleLongCapture(long requestedAt) {
+        if (!isProjectionReady || mediaProjection == null) {
+            showToast("Permission expired. Please re-enable from the app.");
+            return;
+        }
+        if (SwipeDetectorService.get() == null) {
+            showToast("Turn on TakeSS in Accessibility settings to take long screenshots");
+            return;
+        }
+        if (saveExecutor.isSaturated()) {
+            showToast("Still saving previous screenshots — try again in a moment");
+            return;
+        }
+        if (!longCaptureInFlight.compareAndSet(false, true)) {
+            showToast("A long screenshot is already in progress");
+            return;
+        }
+        if (currentToast != null) {
+            currentToast.cancel();
+            currentToast = null;
+        }
+        LongCapture capture = new LongCapture(mediaProjection, requestedAt);
+        captureHandler.post(capture::captureStep);
+    }
+
+    /**
+     * One long screenshot. The steps run one at a time, each on its own thread: capture
+     * (capture thread) → stitch (save executor) → scroll (main thread) → capture…, so
+     * the frame buffer and the stitcher are only ever touched by one of them.
+     */
+    private final class LongCapture {
+        final MediaProjection projection;
+        final long requestedAt;
+        File file;
+        RawFrameWriter.Appender appender;
+        ScrollStitcher stitcher;
+        ByteBuffer frame;
+        int width;
+        int height;
+        int steps;
+        int unmoved;
+
+        LongCapture(MediaProjection projection, long requestedAt) {
+            this.projection = projection;
+            this.requestedAt = requestedAt;
+        }
+
+        /** Capture thread: waits for the scroll (or the shade) to come to rest, then grabs. */
+        void captureStep() {
+            if (captureSession == null) {
+                captureSession = new CaptureSession(projection, captureHandler);
+            }
+            ensureCaptureSession();
+            long maxWait = Math.max(LONG_SETTLE_MAX_MS, getSharedPreferences("takess_prefs", MODE_PRIVATE)
+                    .getInt("settle_max_ms", DEFAULT_SETTLE_MAX_MS));
+            captureSession.captureWhenSettled(new FrameStabilityDetector(
+                    LONG_SETTLE_QUIET_MS, SETTLE_NO_CHANGE_MS, maxWait), image -> {
+                if (image == null) {
+                    finish("no frame");
+                    return;
+                }
+                try {
+                    if (!copy(image)) {
+                        finish("screen size changed");
+                        return;
+                    }
+                } finally {
+                    image.close();
+                }
+                if (!saveExecutor.submit(this::stitchStep, this::onStitched)) finish("save queue full");
+            });
+        }
+
+        private boolean copy(Image image) {
+            if (frame == null) {
+                width = image.getWidth();
+                height = image.getHeight();
+                frame = ByteBuffer.allocateDirect(width * height * 4);
+            } else if (image.getWidth() != width || image.getHeight() != height) {
+                return false;
+            }
+            Image.Plane plane = image.getPlanes()[0];
+            frame.clear();
+            FrameConverter.copyRows(plane.getBuffer(), width, height,
+                    plane.getPixelStride(), plane.getRowStride(), frame);
+            frame.flip();
+            return true;
+        }
+
+        /** Save executor: returns the rows this frame scrolled, or NOT_FOUND. */
+        private Integer stitchStep() throws IOException {
+            if (stitcher == null) {
+                File dir = TempFrameStore.dir(ScreenshotService.this);
+                if (!dir.exists() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+                file = new File(dir, "temp_long_" + System.currentTimeMillis() + ".raw");
+                appender = new RawFrameWriter.Appender(file, width, RawFrameWriter.FORMAT_RGBA_8888);
+                stitcher = new ScrollStitcher(width, height, LONG_MIN_OVERLAP_ROWS, appender::append);
+            }
+            return stitcher.add(frame, width * 4);
+        }
+
+        /** Main thread: scroll again, or stop at the end of the content or a limit. */
+        private void onStitched(Integer scrolled, Exception error) {
+            if (error != null) {
+                Log.e(TAG, "long screenshot: stitch failed", error);
+                fail();
+                return;
+            }
+            steps++;
+            if (scrolled == ScrollStitcher.NOT_FOUND) {
+                // Jumped (a fling, a page change): keep what lines up so far
+                finish("frame " + steps + " doesn't overlap the previous one");
+                return;
             }
+            unmoved = steps > 1 && scrolled == 0 ? unmoved + 1 : 0;
+            if (unmoved >= LONG_END_STEPS) {
+                finish("end of content");
+                return;
+            }
+            if (steps >= LONG_MAX_STEPS || stitcher.outputHeight() + height > LONG_MAX_ROWS) {
+                finish("size limit");
+                return;
+            }
+            SwipeDetectorService scroller = SwipeDetectorService.get();
+            if (scroller == null) {
+                finish("accessibility service turned off");
+                return;
+            }
+            scroller.scrollDown(width, height, LONG_SCROLL_FRACTION, dispatched -> {
+                if (dispatched) captureHandler.post(this::captureStep);
+                else finish("scroll gesture refused");
+            });
+        }
+
+        /** Any thread: closes the image on the save executor and opens the preview. */
+        private void finish(String reason) {
+            Log.i(TAG, "Long screenshot: " + steps + " frames, stopped: " + reason);
+            boolean queued = saveExecutor.submit(() -> {
+                if (stitcher == null) throw new IOException("No frames captured");
+                int rows = stitcher.finish();
+                appender.finish();
+                Log.i(TAG, "Long screenshot: " + width + "x" + rows + " in "
+                        + (SystemClock.elapsedRealtime() - requestedAt) + " ms");
+                String path = file.getAbsolutePath();
+                beginJob(path);
+                return path;
+            }, (path, error) -> {
+                longCaptureInFlight.set(false);
+                if (path != null) {
+                    launchPreview(path);
+                } else {
+                    Log.e(TAG, "long screenshot failed", error);
+                    discardFile();
+                    showToast("Failed to take long screenshot");
+                }
+            });
+            if (!queued) fail();
+        }
+
+        private void fail() {
+            longCaptureInFlight.set(false);
+            // Runs after any stitch step still queued, never alongside one
+            if (!saveExecutor.submit(this::discardFile)) Log.w(TAG, "long screenshot: temp left for the cache cleaner");
+            showToast("Failed to take long screenshot");
+        }
+
+        /** Save executor (or after it is done with this capture). */
+        private void discardFile() {
+            if (appender != null) {
+                try {
+                    appender.close();
+                } catch (IOException ignored) { }
+            }
+            if (file != null) //noinspection ResultOfMethodCallIgnored
+                file.delete();
+        }
+    }
+
+    // ──────────────────────────────────────────────
+    //  Recent-frames buffer
+    // ──────────────────────────────────────────────
+
+    /**
+     * Starts or stops the buffer to match the preference, the projection and the
+     * screen. It needs the warm display, so the cold capture mode turns it off.
+     */
+    private void updateRecentBuffer() {
+        SharedPreferences prefs = getSharedPreferences("takess_prefs", MODE_PRIVATE);
+        boolean cold = CAPTURE_MODE_COLD.equals(prefs.getString("capture_mode", CAPTURE_MODE_WARM))
+                && Build.VERSION.SDK_INT < Build.VERSION_CODES.UPSIDE_DOWN_CAKE;
+        MediaProjection projection = mediaProjection;
+        boolean run = isProjectionReady && projection != null && screenOn && !cold
+                && prefs.getBoolean("recent_buffer", false);
+        captureHandler.post(() -> {
+            if (run) startRecentBuffer(projection);
+            else stopRecentBuffer();
         });
     }
 
+    /** Runs on the capture thread. */
+    private void startRecentBuffer(MediaProjection projection) {
+        if (captureSession == null) {
+            captureSession = new CaptureSession(projection, captureHandler);
+        }
+        ensureCaptureSession();
+        captureSession.setFrameListener(this::onRecentFrame);
+        Log.i(TAG, "Recent buffer started");
+    }
+
+    /** Runs on the capture thread; lets the display pause and drops every buffered frame. */
+    private void stopRecentBuffer() {
+        if (captureSession != null) captureSession.setFrameListener(null);
+        if (recentBuffer != null) Log.i(TAG, "Recent buffer stopped: " + recentBuffer.stats());
+        recentBuffer = null;
+        recentScratch = null;
+    }
+
+    /** Capture thread: downscales at most one frame per {@link #RECENT_INTERVAL_MS} into the buffer. */
+    private void onRecentFrame(Image image) {
+        long now = SystemClock.elapsedRealtime();
+        if (now - lastRecentAt < RECENT_INTERVAL_MS) return;
+        lastRecentAt = now;
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int sample = FrameConverter.sampleSize(width, height, RECENT_MAX_EDGE, RECENT_MAX_EDGE);
+        int w = FrameConverter.sampledSize(width, sample);
+        int h = FrameConverter.sampledSize(height, sample);
+        if (recentBuffer == null || recentBuffer.width() != w || recentBuffer.height() != h) {
+            // New geometry (rotation): older frames can't be compared tile by tile
+            recentBuffer = new RecentFrameBuffer(w, h, RECENT_BUDGET_BYTES, RECENT_WINDOW_MS);
+        }
+        if (recentScratch == null || recentScratch.capacity() < w * h * 4) {
+            recentScratch = ByteBuffer.allocateDirect(w * h * 4);
+        }
+        recentScratch.clear();
+        Image.Plane plane = image.getPlanes()[0];
+        FrameConverter.downsample(plane.getBuffer(), plane.getRowStride(), plane.getPixelStride(),
+                0, 0, width, height, sample, recentScratch);
+        recentScratch.flip();
+        recentBuffer.add(recentScratch, System.currentTimeMillis());
+
+        if (now - recentLoggedAt >= RECENT_LOG_INTERVAL_MS) {
+            recentLoggedAt = now;
+            Log.i(TAG, "Recent buffer: " + recentBuffer.stats());
+        }
+    }
+
+    /**
+     * Runs on the save executor: writes up to {@link #RECENT_MAX_OFFERED} recent frames
+     * as temp frames with journal jobs, oldest first. A frame that fails to write is
+     * just not offered.
+     */
+    private List<String> writeRecent(RecentFrameBuffer.Snapshot recent) {
+        List<String> paths = new ArrayList<>();
+        for (int index : RecentFrameBuffer.spread(recent.size(), RECENT_MAX_OFFERED)) {
+            try {
+                String path = TempFrameStore.write(this, recent, index);
+                paths.add(path);
+                beginJob(path);
+            } catch (IOException e) {
+                Log.e(TAG, "recent frame write failed", e);
+            }
+        }
+        return paths;
+    }
+
     // ──────────────────────────────────────────────
     //  ACTION_SAVE_TEMP — persist temp file to storage
     // ──────────────────────────────────────────────
 
-    private void handleSaveTemp(Intent intent) {
-        String tempPath = intent.getStringExtra("tempPath");
-        if (tempPath == null) return;
+    /** Runs on the save executor. */
+    private void handleSaveTemp(String tempPath, EditList edits) {
+        SaveJournal journal = journal();
+        SaveJournal.Job job = journal == null ? null : journal.find(tempPath);
+        try {
+            if (journal == null) throw new IOException("Save journal unavailable");
+            // Frames captured before the journal existed have no job yet
+            if (job == null) job = journal.begin(tempPath);
+            applyEdits(job, edits);
+            CaptureHistory.Entry same = findDuplicate(job);
+            if (same != null) {
+                Log.i(TAG, "Identical to " + same.uri + ", not saving " + tempPath);
+                discard(journal, job, tempPath);
+                showToast("Identical to " + same.fileName + " — not saved again");
+                return;
+            }
+            long start = SystemClock.elapsedRealtime();
+            journal.save(job, destinationStore);
+            saveStats.recordThroughput(1, SystemClock.elapsedRealtime() - start);
+        } catch (IOException | RuntimeException e) {
+            // Either way the job is closed, not left encoding until the next process start
+            Log.e(TAG, "save failed: " + tempPath, e);
+            discard(journal, job, tempPath);
+            showToast("Failed to save screenshot");
+            return;
+        }
+        Log.d(TAG, "Bitmap pool: " + BitmapPool.get().stats());
+        Log.i(TAG, "Save stats: " + saveStats.summary());
+        showToast("Screenshot saved: " + job.fileName);
+    }
+
+    /**
+     * Runs on the save executor: the frames a multi-frame preview kept, all with the
+     * same edits, in one {@link SaveJournal#saveAll} so MediaStore sees one batch.
+     */
+    private void handleSaveTemps(String[] tempPaths, EditList edits) {
+        SaveJournal journal = journal();
+        if (journal == null) {
+            Log.e(TAG, "save failed: journal unavailable");
+            for (String path : tempPaths) discard(null, null, path);
+            showToast("Failed to save screenshots");
+            return;
+        }
+        List<SaveJournal.Job> jobs = new ArrayList<>(tempPaths.length);
+        int duplicates = 0;
+        try {
+            for (String path : tempPaths) {
+                SaveJournal.Job job = journal.find(path);
+                if (job == null) job = journal.begin(path);
+                applyEdits(job, edits);
+                if (findDuplicate(job) != null) {
+                    discard(journal, job, path);
+                    duplicates++;
+                } else {
+                    jobs.add(job);
+                }
+            }
+            long start = SystemClock.elapsedRealtime();
+            journal.saveAll(jobs, destinationStore);
+            saveStats.recordThroughput(jobs.size(), SystemClock.elapsedRealtime() - start);
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "burst save failed", e);
+            // Frames that already committed are no longer open and stay saved
+            for (String path : tempPaths) {
+                SaveJournal.Job open = journal.find(path);
+                if (open != null) discard(journal, open, path);
+            }
+            showToast("Failed to save screenshots");
+            return;
+        }
+        Log.i(TAG, "Save stats: " + saveStats.summary());
+        String saved = jobs.size() == 1 ? "Screenshot saved: " + jobs.get(0).fileName
+                : jobs.size() + " screenshots saved";
+        showToast(duplicates == 0 ? saved : saved + " (" + duplicates + " identical skipped)");
+    }
+
+    /**
+     * Resolves the preview's edits against the job's own frame into the crop and output
+     * size the journal keeps, so a replayed job needs neither the edits nor the preview.
+     */
+    private static void applyEdits(SaveJournal.Job job, EditList edits) {
+        if (edits.isEmpty()) return;
+        Point size = TempFrameStore.frameSize(job.framePath);
+        if (size == null) return;
+        EditList.Geometry g = edits.geometry(size.x, size.y);
+        job.crop = g.isCropped(size.x, size.y) ? new int[] { g.left, g.top, g.right, g.bottom } : null;
+        job.size = g.isResized() ? new int[] { g.width, g.height } : null;
+    }
+
+    /** Runs on the save executor: the preview's Discard button. */
+    private void handleDiscardTemp(String tempPath) {
+        SaveJournal journal = journal();
+        discard(journal, journal == null ? null : journal.find(tempPath), tempPath);
+    }
+
+    private void discard(@Nullable SaveJournal journal, @Nullable SaveJournal.Job job, String tempPath) {
+        captureLatencies.remove(tempPath);
+        frameHashes.remove(tempPath);
+        if (journal != null && job != null) {
+            try {
+                journal.discard(job, destinationStore);
+                return;
+            } catch (IOException e) {
+                Log.e(TAG, "discard: journal write failed", e);
+            }
+        }
+        //noinspection ResultOfMethodCallIgnored
+        new File(tempPath).delete();
+    }
+
+    /**
+     * With "dedupe_captures" on, a recent saved capture with the same pixels (after
+     * crop) whose file still exists; null otherwise. Hashes the mapped frame in place,
+     * before anything is decoded or encoded.
+     */
+    @Nullable
+    private CaptureHistory.Entry findDuplicate(SaveJournal.Job job) {
+        if (!getSharedPreferences("takess_prefs", MODE_PRIVATE).getBoolean("dedupe_captures", false)) {
+            return null;
+        }
+        CaptureHistory history = history();
+        if (history == null) return null;
+        long start = SystemClock.elapsedRealtime();
+        long hash = contentHash(job);
+        if (hash == 0) return null;
+        frameHashes.put(job.framePath, hash);
+        try {
+            CaptureHistory.Entry same = history.findRecent(hash,
+                    System.currentTimeMillis() - DEDUPE_WINDOW_MS, DEDUPE_MAX_ENTRIES);
+            Log.d(TAG, "Dedupe check: " + (SystemClock.elapsedRealtime() - start) + " ms");
+            // The user may have deleted the earlier file since
+            return same != null && same.uri != null && destinationExists(Uri.parse(same.uri)) ? same : null;
+        } catch (IOException e) {
+            Log.w(TAG, "dedupe lookup failed: " + e);
+            return null;
+        }
+    }
+
+    private boolean destinationExists(Uri uri) {
+        if ("file".equals(uri.getScheme())) return new File(uri.getPath()).exists();
+        try (ParcelFileDescriptor pfd = getContentResolver().openFileDescriptor(uri, "r")) {
+            return pfd != null;
+        } catch (IOException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    /** Hash of the job's (cropped) frame, read in place from the temp file; 0 if unreadable. */
+    private static long contentHash(SaveJournal.Job job) {
+        try {
+            RawFrameReader frame = RawFrameReader.open(new File(job.framePath));
+            Rect r = new Rect(0, 0, frame.width, frame.height);
+            if (job.crop != null && !r.intersect(job.crop[0], job.crop[1], job.crop[2], job.crop[3])) {
+                return 0;
+            }
+            return FrameHash.of(frame.pixels(), frame.stride, frame.bytesPerPixel(),
+                    r.left, r.top, r.width(), r.height());
+        } catch (IOException e) {
+            Log.w(TAG, "contentHash: " + e);
+            return 0;
+        }
+    }
+
+    /**
+     * Renders a job's edits right before the one and only encode: only the crop is read
+     * from the mapped frame, and if it was resized, {@link #resampler} goes straight
+     * from those pixels to the output size. Release the result to {@link BitmapPool}.
+     */
+    @Nullable
+    private static Bitmap loadFrame(SaveJournal.Job job) {
+        Rect crop = cropOf(job);
+        if (!isResized(job)) return TempFrameStore.read(job.framePath, crop);
+
+        int[] resized = resize(job);
+        if (resized == null) return null;
+        Bitmap bitmap = BitmapPool.get().obtain(job.size[0], job.size[1], Bitmap.Config.ARGB_8888);
+        bitmap.copyPixelsFromBuffer(IntBuffer.wrap(resized));
+        return bitmap;
+    }
+
+    /** The job's crop in frame pixels, or null for the whole frame. */
+    @Nullable
+    private static Rect cropOf(SaveJournal.Job job) {
+        if (job.crop == null) return null;
+        Rect crop = new Rect(job.crop[0], job.crop[1], job.crop[2], job.crop[3]);
+        return crop.isEmpty() ? null : crop;
+    }
+
+    private static boolean isResized(SaveJournal.Job job) {
+        return job.size != null && job.size[0] > 0 && job.size[1] > 0;
+    }
+
+    /** The job's crop resampled to its output size, as packed pixels in frame byte order. */
+    @Nullable
+    private static int[] resize(SaveJournal.Job job) {
+        Rect crop = cropOf(job);
+        if (crop == null) {
+            Point size = TempFrameStore.frameSize(job.framePath);
+            if (size == null) return null;
+            crop = new Rect(0, 0, size.x, size.y);
+        }
+        int[] src = TempFrameStore.readPixels(job.framePath, crop);
+        if (src == null) return null;
+        int[] dst = new int[job.size[0] * job.size[1]];
+        long start = SystemClock.elapsedRealtime();
+        resampler.resize(src, crop.width(), crop.height(), dst, job.size[0], job.size[1]);
+        Log.i(TAG, "Resized " + crop.width() + "x" + crop.height() + " to " + job.size[0] + "x"
+                + job.size[1] + " in " + (SystemClock.elapsedRealtime() - start) + " ms");
+        return dst;
+    }
+
+    /** Height of the job's output: its frame after the crop and resize. */
+    private static int outputHeight(SaveJournal.Job job, int frameHeight) {
+        if (job.size != null) return job.size[1];
+        if (job.crop == null || job.crop[3] <= job.crop[1]) return frameHeight;
+        return Math.min(job.crop[3], frameHeight) - Math.max(job.crop[1], 0);
+    }
+
+    // ──────────────────────────────────────────────
+    //  Save journal
+    // ──────────────────────────────────────────────
+
+    /** Process-wide journal, opened on first use; null if the file can't be written. */
+    @Nullable
+    private SaveJournal journal() {
+        synchronized (ScreenshotService.class) {
+            if (saveJournal == null) {
+                try {
+                    saveJournal = SaveJournal.open(new File(getFilesDir(), "save_journal"));
+                } catch (IOException e) {
+                    Log.e(TAG, "save journal unavailable", e);
+                }
+            }
+            return saveJournal;
+        }
+    }
 
-        Bitmap bitmap = BitmapFactory.decodeFile(tempPath);
-        if (bitmap == null) { showToast("Failed to read screenshot"); return; }
+    /** Opens the job for a new temp frame; without one it still saves, but isn't recoverable. */
+    private void beginJob(String tempPath) {
+        SaveJournal journal = journal();
+        if (journal == null) return;
+        try {
+            journal.begin(tempPath);
+        } catch (IOException e) {
+            Log.e(TAG, "journal begin failed", e);
+        }
+    }
 
-        saveScreenshot(bitmap);
-        bitmap.recycle();
+    /** Process-wide capture history, opened on first use; null if it can't be written. */
+    @Nullable
+    private CaptureHistory history() {
+        try {
+            return CaptureHistory.shared(new File(getFilesDir(), "history"));
+        } catch (IOException e) {
+            Log.e(TAG, "capture history unavailable", e);
+            return null;
+        }
+    }
 
-        try { //noinspection ResultOfMethodCallIgnored
-            new File(tempPath).delete(); } catch (Exception ignored) { }
+    /**
+     * Runs on the save executor when the service starts. Only the first start in a
+     * process recovers: jobs found then were left by a process that was killed, while
+     * later ones may still have a preview on screen.
+     */
+    private void recoverSaves() {
+        synchronized (ScreenshotService.class) {
+            if (journalRecovered) return;
+            journalRecovered = true;
+        }
+        SaveJournal journal = journal();
+        if (journal == null) return;
+        int unfinished = journal.unfinished().size();
+        if (unfinished == 0) return;
+
+        long start = SystemClock.elapsedRealtime();
+        int recovered = journal.recover(destinationStore);
+        long ms = SystemClock.elapsedRealtime() - start;
+        if (recovered > 0) saveStats.recordThroughput(recovered, ms);
+        Log.i(TAG, "Recovered " + recovered + " of " + unfinished + " unfinished saves in " + ms + " ms");
+        if (recovered > 0) {
+            showToast(recovered == 1 ? "Recovered 1 unsaved screenshot"
+                    : "Recovered " + recovered + " unsaved screenshots");
+        }
+    }
+
+    /**
+     * Runs on the save executor at start and after each save. Frames with an unfinished
+     * journal job (a preview on screen or a save in flight) are never evicted.
+     */
+    private void cleanTempCache() {
+        SaveJournal journal = journal();
+        if (journal == null) return;   // can't tell which frames are still live
+        Set<String> live = new HashSet<>();
+        for (SaveJournal.Job job : journal.unfinished()) {
+            live.add(new File(job.framePath).getAbsolutePath());
+        }
+        TempCacheCleaner.Result result = tempCacheCleaner.clean(
+                TempFrameStore.dir(this), live, System.currentTimeMillis());
+        if (result.deleted > 0) Log.i(TAG, "Temp cache: " + result);
     }
 
     // ──────────────────────────────────────────────
@@ -220,8 +1246,82 @@ public class ScreenshotService extends Service {
         void onCaptured(@Nullable Bitmap bitmap);
     }
 
+    /** Runs on the capture thread; the callback is invoked there too. */
+    private void captureFrame(@Nullable MediaProjection projection, long requestedAt,
+                              boolean settle, CaptureCallback callback) {
+        if (projection == null) {
+            callback.onCaptured(null);
+            return;
+        }
+        SharedPreferences prefs = getSharedPreferences("takess_prefs", MODE_PRIVATE);
+        String mode = prefs.getString("capture_mode", CAPTURE_MODE_WARM);
+
+        // Android 14+ allows only one createVirtualDisplay per projection, so cold is warm-only there
+        if (CAPTURE_MODE_COLD.equals(mode)
+                && Build.VERSION.SDK_INT < Build.VERSION_CODES.UPSIDE_DOWN_CAKE) {
+            releaseCaptureSession();
+            // No frames to watch before the display exists, so cold keeps the fixed delay
+            captureHandler.postDelayed(() -> captureFrameCold(projection, bitmap -> {
+                logLatency(CAPTURE_MODE_COLD, requestedAt);
+                callback.onCaptured(bitmap);
+            }), settle ? COLD_SETTLE_DELAY_MS : 0);
+            return;
+        }
+
+        if (captureSession == null) {
+            captureSession = new CaptureSession(projection, captureHandler);
+        }
+        ensureCaptureSession();
+        CaptureSession.FrameCallback onFrame = image -> {
+            logLatency(CAPTURE_MODE_WARM, requestedAt);
+            Bitmap bitmap = null;
+            if (image != null) {
+                try {
+                    bitmap = imageToBitmap(image, image.getWidth(), image.getHeight());
+                } catch (Exception e) {
+                    Log.e(TAG, "captureFrame error", e);
+                } finally {
+                    image.close();
+                }
+            }
+            callback.onCaptured(bitmap);
+        };
+        if (settle) {
+            long maxWait = prefs.getInt("settle_max_ms", DEFAULT_SETTLE_MAX_MS);
+            captureSession.captureWhenSettled(new FrameStabilityDetector(
+                    SETTLE_QUIET_MS, SETTLE_NO_CHANGE_MS, maxWait), onFrame);
+        } else {
+            captureSession.capture(onFrame);
+        }
+    }
+
+    /** Rebuilds the warm display only if size, density or rotation changed. */
+    @SuppressWarnings("deprecation")
+    private void ensureCaptureSession() {
+        if (captureSession == null) return;
+        WindowManager wm = (WindowManager) getSystemService(Context.WINDOW_SERVICE);
+        DisplayMetrics metrics = new DisplayMetrics();
+        wm.getDefaultDisplay().getMetrics(metrics);
+        captureSession.ensure(metrics.widthPixels, metrics.heightPixels,
+                metrics.densityDpi, wm.getDefaultDisplay().getRotation());
+    }
+
+    private void releaseCaptureSession() {
+        stopRecentBuffer();
+        if (captureSession != null) {
+            captureSession.release();
+            captureSession = null;
+        }
+    }
+
+    private void logLatency(String mode, long requestedAt) {
+        Log.i(TAG, "Tap-to-frame (" + mode + "): "
+                + (SystemClock.elapsedRealtime() - requestedAt) + " ms");
+    }
+
+    /** Legacy path: a fresh ImageReader + VirtualDisplay per capture. */
     @SuppressWarnings("deprecation")
-    private void captureFrame(CaptureCallback callback) {
+    private void captureFrameCold(MediaProjection projection, CaptureCallback callback) {
         WindowManager wm = (WindowManager) getSystemService(Context.WINDOW_SERVICE);
         DisplayMetrics metrics = new DisplayMetrics();
         wm.getDefaultDisplay().getMetrics(metrics);
@@ -231,10 +1331,10 @@ public class ScreenshotService extends Service {
         int density = metrics.densityDpi;
 
         ImageReader reader = ImageReader.newInstance(width, height, PixelFormat.RGBA_8888, 2);
-        Handler handler = new Handler(Looper.getMainLooper());
+        Handler handler = captureHandler;
         final boolean[] captured = {false};
 
-        VirtualDisplay vd = mediaProjection.createVirtualDisplay(
+        VirtualDisplay vd = projection.createVirtualDisplay(
                 "ScreenCapture",
                 width, height, density,
                 DisplayManager.VIRTUAL_DISPLAY_FLAG_AUTO_MIRROR,
@@ -275,23 +1375,18 @@ public class ScreenshotService extends Service {
         }, 1000);
     }
 
+    /**
+     * Copies the frame row by row past the stride padding into one reused
+     * packed buffer and a pooled ARGB_8888 bitmap — no per-capture allocation
+     * once the pool is warm. The caller releases the bitmap back to the pool.
+     */
     private Bitmap imageToBitmap(Image image, int width, int height) {
-        Image.Plane[] planes = image.getPlanes();
-        ByteBuffer buffer = planes[0].getBuffer();
-        int pixelStride = planes[0].getPixelStride();
-        int rowStride = planes[0].getRowStride();
-        int rowPadding = rowStride - pixelStride * width;
-
-        Bitmap bitmap = Bitmap.createBitmap(
-                width + rowPadding / pixelStride, height,
-                Bitmap.Config.ARGB_8888);
-        bitmap.copyPixelsFromBuffer(buffer);
-
-        if (bitmap.getWidth() > width) {
-            Bitmap cropped = Bitmap.createBitmap(bitmap, 0, 0, width, height);
-            bitmap.recycle();
-            return cropped;
-        }
+        Image.Plane plane = image.getPlanes()[0];
+        ByteBuffer packed = frameConverter.pack(plane.getBuffer(), width, height,
+                plane.getPixelStride(), plane.getRowStride());
+
+        Bitmap bitmap = BitmapPool.get().obtain(width, height, Bitmap.Config.ARGB_8888);
+        bitmap.copyPixelsFromBuffer(packed);
         return bitmap;
     }
 
@@ -299,26 +1394,6 @@ public class ScreenshotService extends Service {
     //  Temp file & preview launcher
     // ──────────────────────────────────────────────
 
-    private String saveBitmapToTemp(Bitmap bitmap) {
-        try {
-            File tempDir = new File(getCacheDir(), "screenshots");
-            if (!tempDir.exists()) //noinspection ResultOfMethodCallIgnored
-                tempDir.mkdirs();
-            String fileName = "temp_ss_" + System.currentTimeMillis() + ".jpg";
-            File tempFile = new File(tempDir, fileName);
-
-            FileOutputStream fos = new FileOutputStream(tempFile);
-            java.io.BufferedOutputStream bos = new java.io.BufferedOutputStream(fos, 8192);
-            bitmap.compress(Bitmap.CompressFormat.JPEG, 95, bos);
-            bos.flush();
-            bos.close();
-            return tempFile.getAbsolutePath();
-        } catch (IOException e) {
-            Log.e(TAG, "saveBitmapToTemp error", e);
-            return null;
-        }
-    }
-
     private void launchPreview(String tempPath) {
         Intent previewIntent = new Intent(this, ScreenshotPreviewActivity.class);
         previewIntent.putExtra(ScreenshotPreviewActivity.EXTRA_IMAGE_PATH, tempPath);
@@ -326,103 +1401,655 @@ public class ScreenshotService extends Service {
         startActivity(previewIntent);
     }
 
+    /**
+     * Several frames (a burst, or recent frames plus the capture) to step through,
+     * starting at {@code start}; {@code keep} null keeps them all.
+     */
+    private void launchPreview(String[] tempPaths, @Nullable boolean[] keep, int start) {
+        Intent previewIntent = new Intent(this, ScreenshotPreviewActivity.class);
+        previewIntent.putExtra(ScreenshotPreviewActivity.EXTRA_IMAGE_PATH, tempPaths[start]);
+        previewIntent.putExtra(ScreenshotPreviewActivity.EXTRA_IMAGE_PATHS, tempPaths);
+        previewIntent.putExtra(ScreenshotPreviewActivity.EXTRA_START_INDEX, start);
+        if (keep != null) previewIntent.putExtra(ScreenshotPreviewActivity.EXTRA_KEEP, keep);
+        previewIntent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+        startActivity(previewIntent);
+    }
+
     // ──────────────────────────────────────────────
     //  Final save logic
     // ──────────────────────────────────────────────
 
-    private void saveScreenshot(Bitmap bitmap) {
-        SharedPreferences prefs = getSharedPreferences("takess_prefs", MODE_PRIVATE);
-        String storageType = prefs.getString("storage_type", "internal");
-        String safUri = prefs.getString("saf_uri", null);
-
-        String filePrefix = prefs.getString("file_prefix", "Screenshot");
+    /** Lossless WebP needs API 30 (WEBP_LOSSLESS) — older devices save PNG instead. */
+    private static OutputFormat resolveFormat(OutputFormat format) {
+        if (format == OutputFormat.WEBP_LOSSLESS && Build.VERSION.SDK_INT < Build.VERSION_CODES.R) {
+            return OutputFormat.PNG;
+        }
+        return format;
+    }
 
-        String fileName = filePrefix + "_" +
-                new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(new Date()) +
-                ".png";
+    @SuppressWarnings("deprecation")
+    private static Bitmap.CompressFormat compressFormat(OutputFormat format) {
+        switch (format) {
+            case WEBP_LOSSLESS:
+                return Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+                        ? Bitmap.CompressFormat.WEBP_LOSSLESS : Bitmap.CompressFormat.PNG;
+            case WEBP_LOSSY:
+                return Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+                        ? Bitmap.CompressFormat.WEBP_LOSSY : Bitmap.CompressFormat.WEBP;
+            case JPEG:
+                return Bitmap.CompressFormat.JPEG;
+            case PNG:
+            default:
+                return Bitmap.CompressFormat.PNG;
+        }
+    }
 
-        boolean saved;
-        if ("sd_card".equals(storageType) && safUri != null) {
-            saved = saveWithSAF(bitmap, safUri, fileName);
-        } else {
-            saved = saveToInternalStorage(bitmap, fileName);
+    /**
+     * The single encode of a save: straight into the destination stream, then closed.
+     * PNG goes through {@code pngEncoder} if there is one, else the platform encoder.
+     */
+    private void encode(Bitmap bitmap, OutputFormat format, int quality, @Nullable PngEncoder pngEncoder,
+                        OutputStream os, int bufferBytes) throws IOException {
+        CountingOutputStream counter = new CountingOutputStream(new BufferedOutputStream(os, bufferBytes));
+        try {
+            if (pngEncoder != null && format == OutputFormat.PNG) {
+                encodeParallelPng(pngEncoder, bitmap, counter);
+            } else {
+                bitmap.compress(compressFormat(format), quality, counter);
+            }
+            counter.flush();
+        } finally {
+            counter.close();
         }
+        lastEncodedBytes = counter.getCount();
+    }
 
-        showToast(saved ? "Screenshot saved: " + fileName : "Failed to save screenshot");
+    /** Pure-Java strip-parallel PNG encode, the alternative to Bitmap.compress(PNG). */
+    private void encodeParallelPng(PngEncoder encoder, Bitmap bitmap, OutputStream out) throws IOException {
+        int size = bitmap.getByteCount();
+        if (encodeScratch == null || encodeScratch.capacity() < size) {
+            encodeScratch = ByteBuffer.allocateDirect(size);
+        }
+        encodeScratch.clear();
+        bitmap.copyPixelsToBuffer(encodeScratch);
+        encodeScratch.flip();
+        encoder.encodeRgba(encodeScratch, bitmap.getWidth(), bitmap.getHeight(),
+                bitmap.getRowBytes(), bitmap.isPremultiplied(), out);
     }
 
-    private boolean saveWithSAF(Bitmap bitmap, String uriString, String fileName) {
+    /**
+     * Background half of fast-then-max: decodes the PNG just saved and re-encodes it
+     * with {@link PngEncoder.Mode#MAX} in memory. If it shrank, it goes to a new
+     * destination that replaces the saved one only once complete, so a kill or failed
+     * write never leaves a truncated screenshot. PNG is lossless, so the round trip
+     * doesn't change the pixels. History entry {@code historyIndex} then points at the
+     * replacement.
+     */
+    private void recompressPng(SaveJournal.Job job, Uri uri, long fastBytes, int historyIndex) {
+        long start = SystemClock.elapsedRealtime();
+        Bitmap bitmap;
         try {
-            Uri treeUri = Uri.parse(uriString);
-            DocumentFile directory = DocumentFile.fromTreeUri(this, treeUri);
-            if (directory == null || !directory.canWrite()) {
-                showToast("Cannot write to selected folder.");
-                return false;
-            }
-            DocumentFile file = directory.createFile("image/png", fileName);
-            if (file == null) return false;
-            OutputStream os = getContentResolver().openOutputStream(file.getUri());
-            if (os == null) return false;
-            bitmap.compress(Bitmap.CompressFormat.PNG, 100, os);
-            os.flush();
-            os.close();
-            return true;
+            bitmap = decodePooled(uri);
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "recompressPng: read failed", e);
+            return;
+        }
+        if (bitmap == null) return;
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream((int) fastBytes);
+        try {
+            encodeParallelPng(maxPngEncoder, bitmap, png);
         } catch (IOException e) {
-            Log.e(TAG, "saveWithSAF: ", e);
-            return false;
+            Log.e(TAG, "recompressPng: encode failed", e);
+            return;
+        } finally {
+            BitmapPool.get().release(bitmap);
         }
+
+        if (png.size() >= fastBytes) {
+            Log.i(TAG, "Max PNG not smaller (" + png.size() + " >= " + fastBytes + "), keeping fast");
+            return;
+        }
+        Uri replaced;
+        try {
+            replaced = replaceSaved(job, uri, png);
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "recompressPng: replace failed, keeping fast PNG", e);
+            return;
+        }
+        long ms = SystemClock.elapsedRealtime() - start;
+        saveStats.record(OutputFormat.PNG.id + "-max", 1, 1, png.size(), ms);
+        Log.i(TAG, "Re-compressed " + replaced + ": " + fastBytes + " -> " + png.size() + " bytes in " + ms + " ms");
+        updateHistory(historyIndex, uri, replaced, png.size());
     }
 
-    private boolean saveToInternalStorage(Bitmap bitmap, String fileName) {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
-            return saveWithMediaStore(bitmap, fileName);
-        } else {
-            return saveDirectly(bitmap, fileName);
+    /**
+     * Decodes {@code uri} into a bitmap from {@link BitmapPool}, bounds first so the
+     * pooled bitmap can be sized; null if it isn't an image. Release the result to the pool.
+     */
+    @Nullable
+    private Bitmap decodePooled(Uri uri) throws IOException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        try (InputStream in = getContentResolver().openInputStream(uri)) {
+            if (in == null) return null;
+            BitmapFactory.decodeStream(in, null, options);
+        }
+        if (options.outWidth <= 0 || options.outHeight <= 0) return null;
+
+        Bitmap target = BitmapPool.get().obtain(options.outWidth, options.outHeight, Bitmap.Config.ARGB_8888);
+        options.inJustDecodeBounds = false;
+        options.inMutable = true;
+        options.inBitmap = target;
+        Bitmap decoded = null;
+        try (InputStream in = getContentResolver().openInputStream(uri)) {
+            if (in != null) decoded = BitmapFactory.decodeStream(in, null, options);
+        } finally {
+            if (decoded == null) BitmapPool.get().release(target);
+        }
+        return decoded;
+    }
+
+    /** Points history entry {@code index}, still showing {@code saved}, at its replacement. */
+    private void updateHistory(int index, Uri saved, Uri replaced, long bytes) {
+        CaptureHistory history = history();
+        if (history == null || index < 0) return;
+        try {
+            CaptureHistory.Entry entry = history.get(index);
+            if (!saved.toString().equals(entry.uri)) return;
+            entry.uri = replaced.toString();
+            entry.bytes = bytes;
+            history.update(index, entry);
+        } catch (IOException | IndexOutOfBoundsException e) {
+            Log.e(TAG, "history update failed", e);
+        }
+    }
+
+    /**
+     * Writes {@code png} to a new destination next to the saved {@code uri}, then swaps
+     * it in. Each step leaves a whole screenshot behind: at worst a duplicate or a
+     * pending-named copy, never a truncated file. Returns the replacement's URI.
+     */
+    private Uri replaceSaved(SaveJournal.Job job, Uri uri, ByteArrayOutputStream png) throws IOException {
+        OutputFormat format = OutputFormat.fromId(job.format);
+        switch (job.target) {
+            case TARGET_MEDIA_STORE: {
+                Uri fresh = getContentResolver().insert(MediaStore.Images.Media.EXTERNAL_CONTENT_URI,
+                        pendingValues(job.fileName, format));
+                if (fresh == null) throw new IOException("MediaStore insert failed");
+                try (OutputStream os = getContentResolver().openOutputStream(fresh)) {
+                    if (os == null) throw new IOException("Cannot open " + fresh);
+                    png.writeTo(os);
+                } catch (IOException | RuntimeException e) {
+                    getContentResolver().delete(fresh, null, null);
+                    throw e;
+                }
+                // Published under a provider-picked name first, so both rows are never hidden
+                ContentValues publish = new ContentValues();
+                publish.put(MediaStore.Images.Media.IS_PENDING, 0);
+                getContentResolver().update(fresh, publish, null, null);
+                getContentResolver().delete(uri, null, null);
+                ContentValues rename = new ContentValues();
+                rename.put(MediaStore.Images.Media.DISPLAY_NAME, job.fileName);
+                getContentResolver().update(fresh, rename, null, null);
+                return fresh;
+            }
+            case TARGET_SAF: {
+                SafFolder folder = safFolder();
+                SafFolder.Created fresh = folder.create(format.mimeType, PENDING_PREFIX, job.fileName);
+                try (OutputStream os = new BufferedOutputStream(
+                        SafFolder.openOutput(getContentResolver(), fresh.uri), SafFolder.BUFFER_BYTES)) {
+                    png.writeTo(os);
+                } catch (IOException | RuntimeException e) {
+                    folder.delete(fresh.uri, PENDING_PREFIX + fresh.name);
+                    throw e;
+                }
+                folder.delete(uri, job.fileName);
+                return folder.rename(fresh.uri, PENDING_PREFIX + fresh.name, job.fileName);
+            }
+            default: {
+                File target = new File(uri.getPath());
+                File temp = new File(target.getParentFile(), PENDING_PREFIX + job.fileName);
+                try (FileOutputStream os = new FileOutputStream(temp)) {
+                    png.writeTo(os);
+                    os.getFD().sync();
+                } catch (IOException e) {
+                    //noinspection ResultOfMethodCallIgnored
+                    temp.delete();
+                    throw e;
+                }
+                // Atomic on the same file system: the old file until the new one is whole
+                if (!temp.renameTo(target)) {
+                    //noinspection ResultOfMethodCallIgnored
+                    temp.delete();
+                    throw new IOException("Cannot replace " + target);
+                }
+                Intent mediaScanIntent = new Intent(Intent.ACTION_MEDIA_SCANNER_SCAN_FILE);
+                mediaScanIntent.setData(uri);
+                sendBroadcast(mediaScanIntent);
+                return uri;
+            }
         }
     }
 
-    private boolean saveWithMediaStore(Bitmap bitmap, String fileName) {
+    private ContentValues pendingValues(String fileName, OutputFormat format) {
         ContentValues values = new ContentValues();
         values.put(MediaStore.Images.Media.DISPLAY_NAME, fileName);
-        values.put(MediaStore.Images.Media.MIME_TYPE, "image/png");
+        values.put(MediaStore.Images.Media.MIME_TYPE, format.mimeType);
         values.put(MediaStore.Images.Media.RELATIVE_PATH, "Pictures/TakeSS");
+        // Hidden from galleries and scanners until commit clears it
+        values.put(MediaStore.Images.Media.IS_PENDING, 1);
+        return values;
+    }
 
-        Uri uri = getContentResolver().insert(MediaStore.Images.Media.EXTERNAL_CONTENT_URI, values);
-        if (uri == null) return false;
-        try {
+    /**
+     * Debug comparison ("compare_save_paths" pref): replays the old chain — JPEG-95 temp,
+     * decode, PNG re-encode, decode, PNG final — in memory and records it next to the
+     * single-encode numbers.
+     */
+    private void measureLegacySave(Bitmap bitmap) {
+        long start = SystemClock.elapsedRealtime();
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        bitmap.compress(Bitmap.CompressFormat.JPEG, 95, jpeg);
+        Bitmap decoded = BitmapFactory.decodeByteArray(jpeg.toByteArray(), 0, jpeg.size());
+        if (decoded == null) return;
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        decoded.compress(Bitmap.CompressFormat.PNG, 100, png);
+        decoded.recycle();
+        Bitmap decodedAgain = BitmapFactory.decodeByteArray(png.toByteArray(), 0, png.size());
+        if (decodedAgain == null) return;
+        CountingOutputStream out = new CountingOutputStream(new ByteArrayOutputStream());
+        decodedAgain.compress(Bitmap.CompressFormat.PNG, 100, out);
+        decodedAgain.recycle();
+        long bytes = jpeg.size() + png.size() + out.getCount();
+        saveStats.record(SaveStats.PATH_LEGACY, 3, 2, bytes, SystemClock.elapsedRealtime() - start);
+    }
+
+    // ──────────────────────────────────────────────
+    //  Destinations: temp, then commit
+    // ──────────────────────────────────────────────
+
+    /**
+     * The three destinations behind {@link SaveJournal}: a pending MediaStore row
+     * (Android 10+), a ".pending-" document in the cached {@link SafFolder}, or a
+     * ".pending-" file in Pictures/TakeSS. Nothing is visible under the final name until {@link #commit}.
+     * Save executor only.
+     */
+    private final class DestinationStore implements SaveJournal.Store {
+
+        // Fast-then-max jobs written but not yet committed, by frame path: the fast size
+        private final Map<String, Long> recompressAfterCommit = new HashMap<>();
+        // Names handed out for the current second, so saves within it (a burst) don't collide
+        private String lastNameBase;
+        private int sameNameCount;
+        // History entries measured by write(), appended once the job commits
+        private final Map<String, CaptureHistory.Entry> pendingHistory = new HashMap<>();
+
+        @Override
+        public void prepare(SaveJournal.Job job) {
+            SharedPreferences prefs = getSharedPreferences("takess_prefs", MODE_PRIVATE);
+            if ("sd_card".equals(prefs.getString("storage_type", "internal"))
+                    && prefs.getString("saf_uri", null) != null) {
+                job.target = TARGET_SAF;
+            } else {
+                job.target = Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q ? TARGET_MEDIA_STORE : TARGET_FILE;
+            }
+            OutputFormat format = resolveFormat(OutputFormat.fromId(prefs.getString("output_format", null)));
+            Point size = TempFrameStore.frameSize(job.framePath);
+            if (size != null && outputHeight(job, size.y) > TALL_FRAME_ROWS) format = OutputFormat.PNG;
+            job.format = format.id;
+            String filePrefix = prefs.getString("file_prefix", "Screenshot");
+            job.fileName = format.fileName(uniqueBase(filePrefix + "_" +
+                    new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(new Date())));
+        }
+
+        /** {@code base}, or {@code base_2}, {@code base_3}… when it was already used this second. */
+        private String uniqueBase(String base) {
+            if (base.equals(lastNameBase)) return base + "_" + (++sameNameCount);
+            lastNameBase = base;
+            sameNameCount = 1;
+            return base;
+        }
+
+        @Override
+        public String createTemp(SaveJournal.Job job) throws IOException {
+            OutputFormat format = OutputFormat.fromId(job.format);
+            switch (job.target) {
+                case TARGET_MEDIA_STORE: {
+                    Uri uri = getContentResolver().insert(MediaStore.Images.Media.EXTERNAL_CONTENT_URI,
+                            pendingValues(job.fileName, format));
+                    if (uri == null) throw new IOException("MediaStore insert failed");
+                    return uri.toString();
+                }
+                case TARGET_SAF: {
+                    SafFolder.Created created = safFolder().create(format.mimeType, PENDING_PREFIX, job.fileName);
+                    // Journaled with the location, so commit renames to the name reserved here
+                    job.fileName = created.name;
+                    return created.uri.toString();
+                }
+                default: {
+                    File dir = picturesDir();
+                    if (!dir.exists() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+                    return Uri.fromFile(new File(dir, PENDING_PREFIX + job.fileName)).toString();
+                }
+            }
+        }
+
+        /** Multi-shot sessions: all pending MediaStore rows in one applyBatch. */
+        @Override
+        public List<String> createTemps(List<SaveJournal.Job> jobs) throws IOException {
+            if (jobs.size() < 2 || !allMediaStore(jobs)) return SaveJournal.Store.super.createTemps(jobs);
+            ArrayList<ContentProviderOperation> ops = new ArrayList<>(jobs.size());
+            for (SaveJournal.Job job : jobs) {
+                ops.add(ContentProviderOperation.newInsert(MediaStore.Images.Media.EXTERNAL_CONTENT_URI)
+                        .withValues(pendingValues(job.fileName, OutputFormat.fromId(job.format)))
+                        .build());
+            }
+            ContentProviderResult[] results = applyMediaBatch(ops);
+            List<String> locations = new ArrayList<>(results.length);
+            for (ContentProviderResult r : results) {
+                if (r.uri == null) throw new IOException("MediaStore batch insert failed");
+                locations.add(r.uri.toString());
+            }
+            return locations;
+        }
+
+        @Override
+        public void write(SaveJournal.Job job) throws IOException {
+            RawFrameReader frame = RawFrameReader.open(new File(job.framePath));
+            if (outputHeight(job, frame.height) > TALL_FRAME_ROWS) {
+                writeTall(job, frame);
+                return;
+            }
+            Bitmap bitmap = loadFrame(job);
+            if (bitmap == null) throw new IOException("Cannot read frame " + job.framePath);
+            try {
+                SharedPreferences prefs = getSharedPreferences("takess_prefs", MODE_PRIVATE);
+                OutputFormat format = OutputFormat.fromId(job.format);
+                int quality = format.quality(OutputFormat.Profile.fromId(prefs.getString("output_profile", null)));
+                boolean parallelPng = format == OutputFormat.PNG && PNG_ENCODER_PARALLEL.equals(
+                        prefs.getString("png_encoder", PNG_ENCODER_PLATFORM));
+                // Fast-then-max: the interactive save uses the cheapest deflate, then the file is
+                // re-compressed at max in the background
+                boolean fastThenMax = parallelPng && prefs.getBoolean("png_fast_then_max", false);
+                String statsKey = parallelPng ? format.id + "-" + PNG_ENCODER_PARALLEL : format.id;
+                if (fastThenMax) statsKey += "-fast";
+                PngEncoder pngEncoder = !parallelPng ? null : fastThenMax ? fastPngEncoder : defaultPngEncoder;
+
+                long start = SystemClock.elapsedRealtime();
+                lastEncodedBytes = 0;
+                try {
+                    encode(bitmap, format, quality, pngEncoder, openTemp(job), bufferBytes(job, statsKey));
+                } catch (IOException e) {
+                    // The cached folder state may be stale (card removed, permission revoked)
+                    if (TARGET_SAF.equals(job.target)) safFolder().invalidate();
+                    throw e;
+                }
+                long ms = SystemClock.elapsedRealtime() - start;
+                saveStats.record(statsKey, 1, 0, lastEncodedBytes, ms);
+                if (fastThenMax) recompressAfterCommit.put(job.framePath, lastEncodedBytes);
+                else recompressAfterCommit.remove(job.framePath);
+                Log.i(TAG, "Saved " + statsKey + " q" + quality + ": " + lastEncodedBytes + " bytes in " + ms + " ms");
+
+                CaptureHistory.Entry entry = historyEntry(job);
+                entry.width = bitmap.getWidth();
+                entry.height = bitmap.getHeight();
+                entry.bytes = lastEncodedBytes;
+                Long hash = frameHashes.remove(job.framePath);
+                entry.contentHash = hash != null ? hash : contentHash(job);
+                entry.encodeMs = (int) ms;
+                Integer captureMs = captureLatencies.remove(job.framePath);
+                if (captureMs != null) entry.captureMs = captureMs;
+                pendingHistory.put(job.framePath, entry);
+
+                if (prefs.getBoolean("compare_save_paths", false)) measureLegacySave(bitmap);
+            } finally {
+                BitmapPool.get().release(bitmap);
+            }
+        }
+
+        /**
+         * PNG-encodes (the crop of) a tall frame from the map, or from the resampled pixels
+         * if it was resized, never holding it as a bitmap.
+         */
+        private void writeTall(SaveJournal.Job job, RawFrameReader frame) throws IOException {
+            Rect crop = new Rect(0, 0, frame.width, frame.height);
+            ByteBuffer pixels;
+            int stride;
+            if (isResized(job)) {
+                int[] resized = resize(job);
+                if (resized == null) throw new IOException("Cannot resize frame " + job.framePath);
+                crop.set(0, 0, job.size[0], job.size[1]);
+                pixels = ByteBuffer.allocateDirect(resized.length * 4).order(ByteOrder.nativeOrder());
+                pixels.asIntBuffer().put(resized);
+                stride = job.size[0] * 4;
+            } else {
+                if (job.crop != null && !crop.intersect(job.crop[0], job.crop[1], job.crop[2], job.crop[3])) {
+                    throw new IOException("Crop outside frame " + job.framePath);
+                }
+                pixels = frame.pixels();
+                pixels.position(crop.top * frame.stride + crop.left * frame.bytesPerPixel());
+                stride = frame.stride;
+            }
+            recompressAfterCommit.remove(job.framePath);
+
+            long start = SystemClock.elapsedRealtime();
+            CountingOutputStream counter = new CountingOutputStream(
+                    new BufferedOutputStream(openTemp(job), bufferBytes(job, OutputFormat.PNG.id)));
+            try {
+                defaultPngEncoder.encodeRgba(pixels, crop.width(), crop.height(), stride, true, counter);
+                counter.flush();
+            } catch (IOException e) {
+                if (TARGET_SAF.equals(job.target)) safFolder().invalidate();
+                throw e;
+            } finally {
+                counter.close();
+            }
+            long ms = SystemClock.elapsedRealtime() - start;
+            lastEncodedBytes = counter.getCount();
+            Log.i(TAG, "Saved tall PNG " + crop.width() + "x" + crop.height() + ": "
+                    + lastEncodedBytes + " bytes in " + ms + " ms");
+
+            CaptureHistory.Entry entry = historyEntry(job);
+            entry.width = crop.width();
+            entry.height = crop.height();
+            entry.bytes = lastEncodedBytes;
+            Long hash = frameHashes.remove(job.framePath);
+            entry.contentHash = hash != null ? hash : contentHash(job);
+            entry.encodeMs = (int) ms;
+            Integer captureMs = captureLatencies.remove(job.framePath);
+            if (captureMs != null) entry.captureMs = captureMs;
+            pendingHistory.put(job.framePath, entry);
+        }
+
+        /**
+         * Sized from the average output of this format so far, so a typical screenshot
+         * reaches the provider in one or a few large writes instead of 64 KB pieces.
+         */
+        private int bufferBytes(SaveJournal.Job job, String statsKey) {
+            int min = TARGET_SAF.equals(job.target) ? SafFolder.BUFFER_BYTES : MIN_WRITE_BUFFER;
+            SaveStats.Totals t = saveStats.totals(statsKey);
+            if (t == null || t.saves == 0) return min;
+            return (int) Math.max(min, Math.min(MAX_WRITE_BUFFER, t.bytes / t.saves));
+        }
+
+        private OutputStream openTemp(SaveJournal.Job job) throws IOException {
+            Uri uri = Uri.parse(job.location);
+            if (TARGET_FILE.equals(job.target)) return new FileOutputStream(uri.getPath());
+            if (TARGET_SAF.equals(job.target)) return SafFolder.openOutput(getContentResolver(), uri);
             OutputStream os = getContentResolver().openOutputStream(uri);
-            if (os == null) return false;
-            bitmap.compress(Bitmap.CompressFormat.PNG, 100, os);
-            os.flush();
-            os.close();
-            return true;
-        } catch (IOException e) {
-            Log.e(TAG, "saveWithMediaStore: ", e);
-            return false;
+            if (os == null) throw new IOException("Cannot open " + uri);
+            return os;
         }
-    }
 
-    @SuppressWarnings("deprecation")
-    private boolean saveDirectly(Bitmap bitmap, String fileName) {
-        File dir = new File(
-                android.os.Environment.getExternalStoragePublicDirectory(
-                        android.os.Environment.DIRECTORY_PICTURES), "TakeSS");
-        if (!dir.exists()) //noinspection ResultOfMethodCallIgnored
-            dir.mkdirs();
-
-        File file = new File(dir, fileName);
-        try {
-            FileOutputStream fos = new FileOutputStream(file);
-            bitmap.compress(Bitmap.CompressFormat.PNG, 100, fos);
-            fos.flush();
-            fos.close();
-            Intent mediaScanIntent = new Intent(Intent.ACTION_MEDIA_SCANNER_SCAN_FILE);
-            mediaScanIntent.setData(Uri.fromFile(file));
-            sendBroadcast(mediaScanIntent);
+        @Override
+        public void commit(SaveJournal.Job job) throws IOException {
+            long start = SystemClock.elapsedRealtime();
+            Uri saved;
+            switch (job.target) {
+                case TARGET_MEDIA_STORE: {
+                    saved = Uri.parse(job.location);
+                    ContentValues values = new ContentValues();
+                    values.put(MediaStore.Images.Media.IS_PENDING, 0);
+                    if (getContentResolver().update(saved, values, null, null) == 0) {
+                        throw new IOException("MediaStore row gone: " + saved);
+                    }
+                    break;
+                }
+                case TARGET_SAF: {
+                    SafFolder folder = safFolder();
+                    try {
+                        saved = folder.rename(Uri.parse(job.location), PENDING_PREFIX + job.fileName, job.fileName);
+                    } catch (FileNotFoundException e) {
+                        // Renamed by a run that died before COMMITTED was journaled
+                        saved = folder.find(job.fileName);
+                        if (saved == null) throw e;
+                    }
+                    break;
+                }
+                default: {
+                    File temp = new File(Uri.parse(job.location).getPath());
+                    File target = new File(temp.getParentFile(), job.fileName);
+                    if (temp.exists() && !temp.renameTo(target)) throw new IOException("Cannot rename " + temp);
+                    if (!target.exists()) throw new IOException("Nothing to commit: " + target);
+                    saved = Uri.fromFile(target);
+                    Intent mediaScanIntent = new Intent(Intent.ACTION_MEDIA_SCANNER_SCAN_FILE);
+                    mediaScanIntent.setData(saved);
+                    sendBroadcast(mediaScanIntent);
+                    break;
+                }
+            }
+
+            int historyIndex = recordHistory(job, saved, SystemClock.elapsedRealtime() - start);
+            scheduleRecompress(job, saved, historyIndex);
+        }
+
+        /** Queues the max re-encode of a fast-then-max job that just committed. */
+        private void scheduleRecompress(SaveJournal.Job job, Uri saved, int historyIndex) {
+            Long fastBytes = recompressAfterCommit.remove(job.framePath);
+            if (fastBytes == null) return;
+            SaveJournal.Job committed = job.copy();
+            // Best effort: skipped when interactive saves are queued
+            if (!saveExecutor.submit(() -> recompressPng(committed, saved, fastBytes, historyIndex))) {
+                Log.i(TAG, "Save queue busy, keeping fast PNG: " + saved);
+            }
+        }
+
+        /** Multi-shot sessions: clears IS_PENDING on every row in one applyBatch. */
+        @Override
+        public void commitAll(List<SaveJournal.Job> jobs) throws IOException {
+            if (jobs.size() < 2 || !allMediaStore(jobs)) {
+                SaveJournal.Store.super.commitAll(jobs);
+                return;
+            }
+            long start = SystemClock.elapsedRealtime();
+            ArrayList<ContentProviderOperation> ops = new ArrayList<>(jobs.size());
+            for (SaveJournal.Job job : jobs) {
+                ops.add(ContentProviderOperation.newUpdate(Uri.parse(job.location))
+                        .withValue(MediaStore.Images.Media.IS_PENDING, 0)
+                        .build());
+            }
+            applyMediaBatch(ops);
+            long each = (SystemClock.elapsedRealtime() - start) / jobs.size();
+            for (SaveJournal.Job job : jobs) {
+                Uri saved = Uri.parse(job.location);
+                scheduleRecompress(job, saved, recordHistory(job, saved, each));
+            }
+        }
+
+        /** The entry write() measured, or a bare one for a job recovered after WRITTEN. */
+        private CaptureHistory.Entry historyEntry(SaveJournal.Job job) {
+            CaptureHistory.Entry entry = pendingHistory.remove(job.framePath);
+            if (entry != null) return entry;
+            entry = new CaptureHistory.Entry();
+            // Frames are named and stamped when captured
+            long captured = new File(job.framePath).lastModified();
+            entry.timestamp = captured > 0 ? captured : System.currentTimeMillis();
+            entry.fileName = job.fileName;
+            entry.format = job.format;
+            return entry;
+        }
+
+        /** Appends the job's history entry; its index, or -1 if it couldn't be written. */
+        private int recordHistory(SaveJournal.Job job, Uri saved, long commitMs) {
+            CaptureHistory history = history();
+            if (history == null) return -1;
+            CaptureHistory.Entry entry = historyEntry(job);
+            entry.uri = saved.toString();
+            entry.commitMs = (int) commitMs;
+            try {
+                return history.append(entry);
+            } catch (IOException e) {
+                Log.e(TAG, "history append failed", e);
+                return -1;
+            }
+        }
+
+        private boolean allMediaStore(List<SaveJournal.Job> jobs) {
+            for (SaveJournal.Job job : jobs) {
+                if (!TARGET_MEDIA_STORE.equals(job.target)) return false;
+            }
             return true;
-        } catch (IOException e) {
-            Log.e(TAG, "saveDirectly: ", e);
-            return false;
+        }
+
+        private ContentProviderResult[] applyMediaBatch(ArrayList<ContentProviderOperation> ops)
+                throws IOException {
+            try {
+                return getContentResolver().applyBatch(MediaStore.AUTHORITY, ops);
+            } catch (RemoteException | OperationApplicationException e) {
+                throw new IOException("MediaStore batch failed", e);
+            }
+        }
+
+        @Override
+        public void deleteTemp(SaveJournal.Job job) {
+            if (job.target == null) return;
+            try {
+                switch (job.target) {
+                    case TARGET_MEDIA_STORE:
+                        // A pending row that never made it into the journal expires on its own
+                        if (job.location != null) {
+                            getContentResolver().delete(Uri.parse(job.location), null, null);
+                        }
+                        break;
+                    case TARGET_SAF: {
+                        SafFolder folder = safFolder();
+                        String pendingName = job.fileName == null ? null : PENDING_PREFIX + job.fileName;
+                        Uri temp = job.location != null ? Uri.parse(job.location)
+                                : pendingName != null ? folder.find(pendingName) : null;
+                        if (temp != null) folder.delete(temp, pendingName);
+                        break;
+                    }
+                    default:
+                        if (job.fileName != null) //noinspection ResultOfMethodCallIgnored
+                            new File(picturesDir(), PENDING_PREFIX + job.fileName).delete();
+                        break;
+                }
+            } catch (IOException | RuntimeException e) {
+                // Already gone, or the folder permission was revoked
+                Log.w(TAG, "deleteTemp " + job.location + ": " + e);
+            }
+        }
+
+        @Override
+        public void deleteFrame(SaveJournal.Job job) {
+            //noinspection ResultOfMethodCallIgnored
+            new File(job.framePath).delete();
+        }
+
+        private SafFolder safFolder() throws IOException {
+            SafFolder folder = SafFolder.get(ScreenshotService.this);
+            if (folder == null || !folder.canWrite()) {
+                showToast("Cannot write to selected folder.");
+                throw new IOException("SAF folder not writable: " + (folder == null ? null : folder.treeUri));
+            }
+            return folder;
+        }
+
+        @SuppressWarnings("deprecation")
+        private File picturesDir() {
+            return new File(android.os.Environment.getExternalStoragePublicDirectory(
+                    android.os.Environment.DIRECTORY_PICTURES), "TakeSS");
         }
     }
 
@@ -445,6 +2072,15 @@ public class ScreenshotService extends Service {
         PendingIntent capturePending = PendingIntent.getActivity(this, 2, captureActivityIntent,
                 PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
 
+        // "Burst" action — same shade-collapse route, then several frames
+        Intent burstActivityIntent = new Intent(this, ScreenshotRequestActivity.class);
+        burstActivityIntent.putExtra("justCollapse", true);
+        burstActivityIntent.putExtra("captureAfter", true);
+        burstActivityIntent.putExtra("burst", true);
+        burstActivityIntent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
+        PendingIntent burstPending = PendingIntent.getActivity(this, 3, burstActivityIntent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+
         String text = isProjectionReady
                 ? "Ready — tap the tile or \"Take Screenshot\" below"
                 : "Starting up…";
@@ -459,6 +2095,7 @@ public class ScreenshotService extends Service {
 
         if (isProjectionReady) {
             builder.addAction(R.drawable.ic_screenshot_tile, "Take Screenshot", capturePending);
+            builder.addAction(R.drawable.ic_screenshot_tile, "Burst", burstPending);
         }
 
         Notification notification = builder.build();
@@ -487,6 +2124,7 @@ public class ScreenshotService extends Service {
 
     private void cleanup() {
         isProjectionReady = false;
+        if (captureHandler != null) captureHandler.post(this::releaseCaptureSession);
         if (mediaProjection != null) {
             mediaProjection.stop();
             mediaProjection = null;
@@ -507,6 +2145,14 @@ public class ScreenshotService extends Service {
         }
     }
 
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        BitmapPool.get().trimMemory(level);
+        // Normally already dropped after its burst; a burst in flight keeps its own
+        if (!burstInFlight.get()) burstRing = null;
+    }
+
     @Nullable
     @Override
     public IBinder onBind(Intent intent) {
@@ -515,7 +2161,12 @@ public class ScreenshotService extends Service {
 
     @Override
     public void onDestroy() {
+        unregisterReceiver(screenReceiver);
+        getSharedPreferences("takess_prefs", MODE_PRIVATE).unregisterOnSharedPreferenceChangeListener(prefsListener);
         cleanup();
+        // Queued saves still finish; the capture thread quits after releasing the display
+        saveExecutor.shutdown();
+        captureThread.quitSafely();
         isRunning = false;
         super.onDestroy();
     }
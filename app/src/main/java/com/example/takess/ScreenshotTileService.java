@@ -4,6 +4,7 @@ import android.annotation.SuppressLint;
 import android.app.PendingIntent;
 import android.content.Intent;
 import android.os.Build;
+import android.os.SystemClock;
 import android.service.quicksettings.Tile;
 import android.service.quicksettings.TileService;
 
@@ -31,7 +32,8 @@ public class ScreenshotTileService extends TileService {
             // startActivityAndCollapse() handles collapsing the shade for us
             Intent captureIntent = new Intent(this, ScreenshotService.class);
             captureIntent.setAction(ScreenshotService.ACTION_CAPTURE);
-            captureIntent.putExtra("delayMs", 300L); // wait for shade to collapse
+            captureIntent.putExtra("waitForSettle", true); // fire once the shade has collapsed
+            captureIntent.putExtra("requestedAt", SystemClock.elapsedRealtime());
             startService(captureIntent);
             // Still need to collapse the shade
             collapsePanel();
@@ -47,7 +49,7 @@ public class ScreenshotTileService extends TileService {
     }
 
     @SuppressLint("NewApi")
-    private void collapsePanel() {
+    void collapsePanel() {
         try {
             // Use a no-op activity just to trigger shade collapse
             Intent collapseIntent = new Intent(this, ScreenshotRequestActivity.class);
@@ -69,7 +71,7 @@ public class ScreenshotTileService extends TileService {
     }
 
     @SuppressLint({"NewApi", "StartActivityAndCollapseDeprecated"})
-    private void collapseAndStart(Intent intent, int requestCode) {
+    void collapseAndStart(Intent intent, int requestCode) {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.UPSIDE_DOWN_CAKE) {
             // API 34+: use PendingIntent overload
             // Use FLAG_MUTABLE so extras are delivered properly after force-stop
@@ -0,0 +1,219 @@
+package com.example.takess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Stitches the frames of a scrolled screen into one tall image.
+ *
+ * Every row of a frame is reduced to a 64-bit hash. Rows that stay put between two
+ * frames at the top and bottom are the fixed header (status bar, toolbar) and footer
+ * (navigation bar). In the part that scrolls, rows whose hash is unique in the
+ * previous frame vote for the scroll distance that would line them up with the same
+ * row in the new frame; the winning distance is confirmed against every overlapping
+ * row. Only the rows that scrolled into view are passed on to the {@link RowSink}.
+ *
+ * Only the previous frame is kept (one packed copy and its row hashes), so the output
+ * can be far taller than memory would hold. Not thread-safe. Plain Java — no
+ * Android types.
+ */
+final class ScrollStitcher {
+
+    /** Returned by {@link #add} when the frame doesn't line up with the previous one. */
+    static final int NOT_FOUND = -1;
+
+    private static final int BYTES_PER_PIXEL = 4;
+    // The header and the footer are each at most this share of the frame
+    private static final int MAX_FIXED_DIVISOR = 3;
+    private static final int MIN_VOTES = 3;
+    // Candidate distances confirmed before giving up
+    private static final int MAX_CANDIDATES = 3;
+
+    /** Receives the stitched rows, top to bottom. */
+    interface RowSink {
+        /** Takes {@code count} rows from row {@code y0} of {@code src} (rows every {@code rowStride} bytes). */
+        void append(ByteBuffer src, int rowStride, int y0, int count) throws IOException;
+    }
+
+    private final int width;
+    private final int height;
+    private final int rowBytes;
+    private final int minOverlap;
+    private final RowSink sink;
+    private final ByteBuffer previous;
+    private long[] previousHashes;
+    private long[] hashes;
+    private int frames;
+    private int header = -1;
+    private int footer;
+    private int outputHeight;
+
+    /**
+     * {@code minOverlap}: rows two frames must share (beyond the header and footer) to
+     * be stitched; less than that is treated as no match.
+     */
+    ScrollStitcher(int width, int height, int minOverlap, RowSink sink) {
+        this.width = width;
+        this.height = height;
+        this.rowBytes = width * BYTES_PER_PIXEL;
+        this.minOverlap = Math.max(1, minOverlap);
+        this.sink = sink;
+        previous = ByteBuffer.allocateDirect(rowBytes * height).order(ByteOrder.nativeOrder());
+        previousHashes = new long[height];
+        hashes = new long[height];
+    }
+
+    /**
+     * Adds the next frame ({@code width × height} RGBA rows every {@code rowStride} bytes
+     * from {@code pixels}' position) and returns how many rows it scrolled: 0 for the
+     * first frame or one that didn't move (the end of the content), {@link #NOT_FOUND}
+     * if it can't be lined up, in which case it is ignored.
+     */
+    int add(ByteBuffer pixels, int rowStride) throws IOException {
+        rowHashes(pixels, rowStride, width, height, hashes);
+        if (frames == 0) {
+            keep(pixels, rowStride);
+            return 0;
+        }
+
+        boolean detected = header < 0;
+        if (detected) detectFixedRows();
+        if (header + footer >= height) {
+            // Identical frames: nothing scrolled, and nothing learned about the layout
+            header = -1;
+            return 0;
+        }
+        int shift = findShift(previousHashes, hashes, header, height - footer, minOverlap);
+        if (shift == NOT_FOUND) {
+            if (detected) header = -1;
+            return NOT_FOUND;
+        }
+        if (shift == 0) {
+            // Something changed in place; that says nothing about what is fixed
+            if (detected) header = -1;
+            return 0;
+        }
+
+        if (outputHeight == 0) {
+            sink.append(previous, rowBytes, 0, height - footer);
+            outputHeight = height - footer;
+        }
+        sink.append(pixels, rowStride, height - footer - shift, shift);
+        outputHeight += shift;
+        keep(pixels, rowStride);
+        return shift;
+    }
+
+    /** Appends the footer of the last frame (or the whole frame if nothing scrolled). */
+    int finish() throws IOException {
+        if (frames == 0) throw new IllegalStateException("No frames added");
+        if (outputHeight == 0) {
+            sink.append(previous, rowBytes, 0, height);
+            outputHeight = height;
+        } else if (footer > 0) {
+            sink.append(previous, rowBytes, height - footer, footer);
+            outputHeight += footer;
+        }
+        return outputHeight;
+    }
+
+    /** Rows passed to the sink so far. */
+    int outputHeight() {
+        return outputHeight;
+    }
+
+    int header() {
+        return Math.max(0, header);
+    }
+
+    int footer() {
+        return footer;
+    }
+
+    private void keep(ByteBuffer pixels, int rowStride) {
+        previous.clear();
+        FrameConverter.copyRows(pixels, width, height, BYTES_PER_PIXEL, rowStride, previous);
+        previous.flip();
+        long[] t = previousHashes;
+        previousHashes = hashes;
+        hashes = t;
+        frames++;
+    }
+
+    private void detectFixedRows() {
+        int max = height / MAX_FIXED_DIVISOR;
+        int top = 0;
+        while (top < height && previousHashes[top] == hashes[top]) top++;
+        if (top == height) {
+            header = height;
+            footer = 0;
+            return;
+        }
+        int bottom = 0;
+        while (bottom < height && previousHashes[height - 1 - bottom] == hashes[height - 1 - bottom]) bottom++;
+        header = Math.min(top, max);
+        footer = Math.min(bottom, max);
+    }
+
+    // ──────────────────────────────────────────────
+    //  Row hashing and overlap search
+    // ──────────────────────────────────────────────
+
+    static void rowHashes(ByteBuffer pixels, int rowStride, int width, int height, long[] out) {
+        for (int y = 0; y < height; y++) {
+            out[y] = FrameHash.of(pixels, rowStride, BYTES_PER_PIXEL, 0, y, width, 1);
+        }
+    }
+
+    /**
+     * How many rows the content between rows {@code top} and {@code bottom} moved up
+     * from {@code prev} to {@code cur}, or {@link #NOT_FOUND}. Rows that repeat within
+     * {@code prev} (blank space, list dividers) carry no position and don't vote.
+     */
+    static int findShift(long[] prev, long[] cur, int top, int bottom, int minOverlap) {
+        Map<Long, Integer> rowOf = new HashMap<>();
+        Set<Long> repeated = new HashSet<>();
+        for (int y = top; y < bottom; y++) {
+            if (rowOf.put(prev[y], y) != null) repeated.add(prev[y]);
+        }
+
+        Map<Integer, Integer> votes = new HashMap<>();
+        for (int y = top; y < bottom; y++) {
+            if (repeated.contains(cur[y])) continue;
+            Integer py = rowOf.get(cur[y]);
+            if (py == null || py < y) continue;
+            int shift = py - y;
+            if (bottom - top - shift < minOverlap) continue;
+            Integer n = votes.get(shift);
+            votes.put(shift, n == null ? 1 : n + 1);
+        }
+
+        List<Map.Entry<Integer, Integer>> ranked = new ArrayList<>(votes.entrySet());
+        ranked.sort((a, b) -> a.getValue().equals(b.getValue())
+                ? Integer.compare(a.getKey(), b.getKey()) : Integer.compare(b.getValue(), a.getValue()));
+        for (int i = 0; i < Math.min(MAX_CANDIDATES, ranked.size()); i++) {
+            Map.Entry<Integer, Integer> candidate = ranked.get(i);
+            if (candidate.getValue() < MIN_VOTES) break;
+            if (confirms(prev, cur, top, bottom, candidate.getKey())) return candidate.getKey();
+        }
+        return NOT_FOUND;
+    }
+
+    /** Every overlapping row matches, bar a few (a scrollbar thumb drawn over some of them). */
+    private static boolean confirms(long[] prev, long[] cur, int top, int bottom, int shift) {
+        int overlap = bottom - top - shift;
+        int allowed = Math.max(2, overlap / 32);
+        int mismatched = 0;
+        for (int y = top; y < bottom - shift; y++) {
+            if (cur[y] != prev[y + shift] && ++mismatched > allowed) return false;
+        }
+        return true;
+    }
+}
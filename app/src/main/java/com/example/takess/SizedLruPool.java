@@ -0,0 +1,105 @@
+package com.example.takess;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+
+/**
+ * Keyed object pool with a byte budget and least-recently-released eviction.
+ *
+ * Holds the bookkeeping behind {@link BitmapPool} so it can be tested on the JVM:
+ * items are grouped by a string key (size + config for bitmaps), the total size
+ * never exceeds {@code maxBytes}, and hits / misses / evictions are counted.
+ * Thread-safe.
+ */
+final class SizedLruPool<T> {
+
+    interface Evictor<T> {
+        void onEvicted(T item);
+    }
+
+    private static final class Entry<T> {
+        final String key;
+        final T item;
+        final long bytes;
+
+        Entry(String key, T item, long bytes) {
+            this.key = key;
+            this.item = item;
+            this.bytes = bytes;
+        }
+    }
+
+    // Oldest at the head, most recently released at the tail
+    private final LinkedList<Entry<T>> entries = new LinkedList<>();
+    private final Evictor<T> evictor;
+    private long maxBytes;
+    private long currentBytes;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    SizedLruPool(long maxBytes, Evictor<T> evictor) {
+        this.maxBytes = maxBytes;
+        this.evictor = evictor;
+    }
+
+    /** Removes and returns the most recently released item for {@code key}, or null. */
+    synchronized T take(String key) {
+        Iterator<Entry<T>> it = entries.descendingIterator();
+        while (it.hasNext()) {
+            Entry<T> e = it.next();
+            if (e.key.equals(key)) {
+                it.remove();
+                currentBytes -= e.bytes;
+                hits++;
+                return e.item;
+            }
+        }
+        misses++;
+        return null;
+    }
+
+    /** Returns an item to the pool, evicting the oldest entries if over budget. */
+    synchronized void put(String key, T item, long bytes) {
+        if (bytes > maxBytes) {
+            evictions++;
+            evictor.onEvicted(item);
+            return;
+        }
+        entries.addLast(new Entry<>(key, item, bytes));
+        currentBytes += bytes;
+        trimTo(maxBytes);
+    }
+
+    /** Evicts oldest entries until at most {@code targetBytes} remain. */
+    synchronized void trimTo(long targetBytes) {
+        while (currentBytes > targetBytes && !entries.isEmpty()) {
+            Entry<T> e = entries.removeFirst();
+            currentBytes -= e.bytes;
+            evictions++;
+            evictor.onEvicted(e.item);
+        }
+    }
+
+    synchronized void clear() {
+        trimTo(0);
+    }
+
+    synchronized void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        trimTo(maxBytes);
+    }
+
+    synchronized long maxBytes() { return maxBytes; }
+    synchronized long currentBytes() { return currentBytes; }
+    synchronized int size() { return entries.size(); }
+    synchronized long hits() { return hits; }
+    synchronized long misses() { return misses; }
+    synchronized long evictions() { return evictions; }
+
+    synchronized String stats() {
+        return "hits=" + hits + " misses=" + misses + " evictions=" + evictions
+                + " pooled=" + entries.size() + " bytes=" + currentBytes + "/" + maxBytes;
+    }
+}
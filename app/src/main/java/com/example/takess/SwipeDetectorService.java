@@ -1,13 +1,89 @@
 package com.example.takess;
 
 import android.accessibilityservice.AccessibilityService;
+import android.accessibilityservice.GestureDescription;
+import android.content.Intent;
+import android.graphics.Path;
+import android.util.Log;
 import android.view.accessibility.AccessibilityEvent;
 
+import androidx.annotation.Nullable;
+
 /**
- * Stub — this service is no longer used. Remove this file and its
- * manifest entry when convenient.
+ * Scrolls the app on screen for long screenshots. It ignores accessibility events
+ * and does nothing on its own: {@link ScreenshotService} asks it for one swipe at a
+ * time and captures after each. Enabled by the user in the system accessibility
+ * settings; {@link #get} is null until then.
  */
 public class SwipeDetectorService extends AccessibilityService {
+
+    private static final String TAG = "SwipeDetectorService";
+    // Slow enough that the content follows the finger instead of flinging past it
+    private static final long SWIPE_DURATION_MS = 600;
+    // Where the swipe starts, as a share of the screen height
+    private static final float SWIPE_START = 0.75f;
+
+    private static volatile SwipeDetectorService instance;
+
+    interface ScrollCallback {
+        /** {@code dispatched} is false if the system refused or cancelled the gesture. Main thread. */
+        void onScrolled(boolean dispatched);
+    }
+
+    /** The connected service, or null if the user hasn't enabled it. */
+    @Nullable
+    static SwipeDetectorService get() {
+        return instance;
+    }
+
+    @Override
+    protected void onServiceConnected() {
+        super.onServiceConnected();
+        instance = this;
+        Log.i(TAG, "Connected");
+    }
+
+    @Override
+    public boolean onUnbind(Intent intent) {
+        instance = null;
+        return super.onUnbind(intent);
+    }
+
+    @Override
+    public void onDestroy() {
+        instance = null;
+        super.onDestroy();
+    }
+
     @Override public void onAccessibilityEvent(AccessibilityEvent event) { }
     @Override public void onInterrupt() { }
+
+    /**
+     * Drags the content up by {@code fraction} of a {@code width × height} screen, i.e.
+     * scrolls down. Call on the main thread; the callback runs there too.
+     */
+    void scrollDown(int width, int height, float fraction, ScrollCallback callback) {
+        float x = width / 2f;
+        float startY = height * SWIPE_START;
+        Path path = new Path();
+        path.moveTo(x, startY);
+        path.lineTo(x, Math.max(0, startY - height * fraction));
+        GestureDescription gesture = new GestureDescription.Builder()
+                .addStroke(new GestureDescription.StrokeDescription(path, 0, SWIPE_DURATION_MS))
+                .build();
+
+        boolean dispatched = dispatchGesture(gesture, new GestureResultCallback() {
+            @Override
+            public void onCompleted(GestureDescription description) {
+                callback.onScrolled(true);
+            }
+
+            @Override
+            public void onCancelled(GestureDescription description) {
+                Log.w(TAG, "Scroll gesture cancelled");
+                callback.onScrolled(false);
+            }
+        }, null);
+        if (!dispatched) callback.onScrolled(false);
+    }
 }
@@ -0,0 +1,111 @@
+package com.example.takess;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps the temp frame directory within a byte budget and a maximum age.
+ *
+ * Frames are normally deleted by a save or a discard, but a killed preview or a
+ * failed save leaves them behind. This evicts the oldest files first until the
+ * directory fits the budget, plus anything past the maximum age. Files the caller
+ * protects (frames with a live preview or an unfinished save) and files younger
+ * than a grace period (a frame being written) are never touched. Plain Java so the
+ * scan can be tested on the JVM.
+ */
+final class TempCacheCleaner {
+
+    /** Budget for the whole directory; two or three 1440p frames. */
+    static final long DEFAULT_MAX_BYTES = 48L * 1024 * 1024;
+    static final long DEFAULT_MAX_AGE_MS = 24L * 60 * 60 * 1000;
+    /** Covers a frame between its write and its journal record. */
+    static final long DEFAULT_GRACE_MS = 60L * 1000;
+
+    /** One file as seen by the scan. */
+    static final class Entry {
+        final File file;
+        final long bytes;
+        final long lastModified;
+
+        Entry(File file, long bytes, long lastModified) {
+            this.file = file;
+            this.bytes = bytes;
+            this.lastModified = lastModified;
+        }
+    }
+
+    /** What a {@link #clean} run did. */
+    static final class Result {
+        int deleted;
+        long freedBytes;
+        /** Bytes left in the directory, protected files included. */
+        long keptBytes;
+
+        @Override
+        public String toString() {
+            return "deleted " + deleted + " (" + freedBytes / 1024 + " KB), kept "
+                    + keptBytes / 1024 + " KB";
+        }
+    }
+
+    private final long maxBytes;
+    private final long maxAgeMs;
+    private final long graceMs;
+
+    TempCacheCleaner(long maxBytes, long maxAgeMs, long graceMs) {
+        this.maxBytes = maxBytes;
+        this.maxAgeMs = maxAgeMs;
+        this.graceMs = graceMs;
+    }
+
+    /**
+     * Deletes what {@link #select} picks from {@code dir}. {@code protectedPaths} holds
+     * absolute paths. Files that can't be deleted count as kept.
+     */
+    Result clean(File dir, Set<String> protectedPaths, long now) {
+        Result result = new Result();
+        File[] files = dir.listFiles(File::isFile);
+        if (files == null) return result;
+
+        List<Entry> entries = new ArrayList<>(files.length);
+        for (File f : files) entries.add(new Entry(f, f.length(), f.lastModified()));
+        long total = 0;
+        for (Entry e : entries) total += e.bytes;
+
+        for (Entry e : select(entries, protectedPaths, now)) {
+            if (e.file.delete()) {
+                result.deleted++;
+                result.freedBytes += e.bytes;
+            }
+        }
+        result.keptBytes = total - result.freedBytes;
+        return result;
+    }
+
+    /**
+     * Picks the entries to evict, oldest first: every unprotected entry past the
+     * maximum age, then more until the rest fits the byte budget.
+     */
+    List<Entry> select(List<Entry> entries, Set<String> protectedPaths, long now) {
+        List<Entry> byAge = new ArrayList<>(entries);
+        Collections.sort(byAge, Comparator.comparingLong(e -> e.lastModified));
+
+        long total = 0;
+        for (Entry e : byAge) total += e.bytes;
+
+        List<Entry> evict = new ArrayList<>();
+        for (Entry e : byAge) {
+            long age = now - e.lastModified;
+            if (age < graceMs || protectedPaths.contains(e.file.getAbsolutePath())) continue;
+            if (age > maxAgeMs || total > maxBytes) {
+                evict.add(e);
+                total -= e.bytes;
+            }
+        }
+        return evict;
+    }
+}
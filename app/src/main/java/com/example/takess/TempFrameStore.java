@@ -0,0 +1,286 @@
+package com.example.takess;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Point;
+import android.graphics.Rect;
+import android.os.Build;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * Uncompressed hand-off of a captured frame from the service to the preview.
+ *
+ * Frames are stored in the {@link RawFrameWriter} format: the service writes them
+ * with a single gathering channel write and the preview maps them with
+ * {@link RawFrameReader}, so nothing is encoded until the single final encode.
+ */
+final class TempFrameStore {
+
+    private static final String TAG = "TempFrameStore";
+
+    // Reused for every write (and for repacking padded frames) so a hand-off doesn't
+    // allocate a frame-sized array
+    private static ByteBuffer scratch;
+
+    private TempFrameStore() { }
+
+    /** A preview-sized copy of (a region of) a temp frame, plus the full frame size. */
+    static final class Thumbnail {
+        final Bitmap bitmap;
+        final int frameWidth;
+        final int frameHeight;
+
+        Thumbnail(Bitmap bitmap, int frameWidth, int frameHeight) {
+            this.bitmap = bitmap;
+            this.frameWidth = frameWidth;
+            this.frameHeight = frameHeight;
+        }
+    }
+
+    /** A downsampled copy of (a region of) a temp frame as ARGB ints, for analysis. */
+    static final class Sampled {
+        final int[] pixels;
+        final int width;
+        final int height;
+
+        Sampled(int[] pixels, int width, int height) {
+            this.pixels = pixels;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    static File dir(Context context) {
+        return new File(context.getCacheDir(), "screenshots");
+    }
+
+    /** Writes the bitmap's pixels and returns the temp file path, or null on failure. */
+    @Nullable
+    static synchronized String write(Context context, Bitmap bitmap) {
+        File tempDir = dir(context);
+        if (!tempDir.exists()) //noinspection ResultOfMethodCallIgnored
+            tempDir.mkdirs();
+        File tempFile = new File(tempDir, "temp_ss_" + System.currentTimeMillis() + ".raw");
+
+        ByteBuffer buf = scratch(bitmap.getByteCount());
+        bitmap.copyPixelsToBuffer(buf);
+        buf.flip();
+
+        try {
+            RawFrameWriter.write(tempFile, buf, bitmap.getWidth(), bitmap.getHeight(),
+                    bitmap.getRowBytes(), RawFrameWriter.FORMAT_RGBA_8888);
+            return tempFile.getAbsolutePath();
+        } catch (IOException e) {
+            Log.e(TAG, "write error", e);
+            //noinspection ResultOfMethodCallIgnored
+            tempFile.delete();
+            return null;
+        }
+    }
+
+    /**
+     * Writes frame {@code index} of a burst straight from its ring slot and returns the
+     * temp file path. Named by capture time and index, so frames of one burst never
+     * share a name even when they fall in the same millisecond.
+     */
+    static String write(Context context, FrameRing.Frame frame, int index) throws IOException {
+        File tempDir = dir(context);
+        if (!tempDir.exists() && !tempDir.mkdirs()) throw new IOException("Cannot create " + tempDir);
+        File tempFile = new File(tempDir, "temp_burst_" + frame.capturedAt + "_" + index + ".raw");
+
+        ByteBuffer pixels = frame.pixels.duplicate();
+        pixels.clear();
+        try {
+            RawFrameWriter.write(tempFile, pixels, frame.width, frame.height,
+                    frame.width * 4, RawFrameWriter.FORMAT_RGBA_8888);
+        } catch (IOException e) {
+            //noinspection ResultOfMethodCallIgnored
+            tempFile.delete();
+            throw e;
+        }
+        return tempFile.getAbsolutePath();
+    }
+
+    /** Writes frame {@code index} of a recent-frames snapshot and returns the temp file path. */
+    static synchronized String write(Context context, RecentFrameBuffer.Snapshot recent, int index)
+            throws IOException {
+        File tempDir = dir(context);
+        if (!tempDir.exists() && !tempDir.mkdirs()) throw new IOException("Cannot create " + tempDir);
+        File tempFile = new File(tempDir, "temp_recent_" + recent.timestamp(index) + ".raw");
+
+        ByteBuffer pixels = scratch(recent.width * recent.height * 4);
+        recent.render(index, pixels);
+        pixels.flip();
+        try {
+            RawFrameWriter.write(tempFile, pixels, recent.width, recent.height,
+                    recent.width * 4, RawFrameWriter.FORMAT_RGBA_8888);
+        } catch (IOException e) {
+            //noinspection ResultOfMethodCallIgnored
+            tempFile.delete();
+            throw e;
+        }
+        return tempFile.getAbsolutePath();
+    }
+
+    /** Width and height of a temp frame, or null if it can't be read. */
+    @Nullable
+    static Point frameSize(String path) {
+        try {
+            RawFrameReader frame = RawFrameReader.open(new File(path));
+            return new Point(frame.width, frame.height);
+        } catch (IOException e) {
+            Log.e(TAG, "read error", e);
+            return null;
+        }
+    }
+
+    /**
+     * Copies {@code region} of a temp frame (the whole frame if null) from the map into
+     * a pooled bitmap of just that size; release it to {@link BitmapPool} when done.
+     * Returns null if the frame can't be read or the region misses it.
+     */
+    @Nullable
+    static synchronized Bitmap read(String path, @Nullable Rect region) {
+        RawFrameReader frame;
+        try {
+            frame = RawFrameReader.open(new File(path));
+        } catch (IOException e) {
+            Log.e(TAG, "read error", e);
+            return null;
+        }
+
+        Rect r = new Rect(0, 0, frame.width, frame.height);
+        if (region != null && !r.intersect(region)) return null;
+        ByteBuffer pixels = frame.pixels();
+        if (!frame.isPacked() || r.width() != frame.width || r.height() != frame.height) {
+            pixels.position(r.top * frame.stride + r.left * frame.bytesPerPixel());
+            ByteBuffer packed = scratch(r.width() * r.height() * frame.bytesPerPixel());
+            FrameConverter.copyRows(pixels.slice(), r.width(), r.height(),
+                    frame.bytesPerPixel(), frame.stride, packed);
+            packed.flip();
+            pixels = packed;
+        }
+
+        Bitmap bitmap = BitmapPool.get().obtain(r.width(), r.height(), Bitmap.Config.ARGB_8888);
+        bitmap.copyPixelsFromBuffer(pixels);
+        return bitmap;
+    }
+
+    /**
+     * Copies {@code region} of a 4-byte-per-pixel temp frame from the map into a packed
+     * {@code int[]} for {@link Resampler}, bytes in frame order. {@code region} is clipped
+     * to the frame in place. Null if the frame can't be read or the region misses it.
+     */
+    @Nullable
+    static int[] readPixels(String path, Rect region) {
+        RawFrameReader frame;
+        try {
+            frame = RawFrameReader.open(new File(path));
+        } catch (IOException e) {
+            Log.e(TAG, "read error", e);
+            return null;
+        }
+        if (frame.bytesPerPixel() != 4 || !region.intersect(0, 0, frame.width, frame.height)) return null;
+
+        int[] pixels = new int[region.width() * region.height()];
+        IntBuffer rows = frame.pixels().order(ByteOrder.nativeOrder()).asIntBuffer();
+        int rowInts = frame.stride / 4;
+        for (int y = 0; y < region.height(); y++) {
+            rows.position((region.top + y) * rowInts + region.left);
+            rows.get(pixels, y * region.width(), region.width());
+        }
+        return pixels;
+    }
+
+    /**
+     * Box-filters {@code region} of a temp frame (the whole frame if null) straight from
+     * the mapped file down to roughly {@code maxWidth × maxHeight}, so the preview never
+     * holds a full-resolution bitmap. Returns a HARDWARE bitmap where supported; release
+     * it to {@link BitmapPool} when done.
+     */
+    @Nullable
+    static synchronized Thumbnail readThumbnail(String path, @Nullable Rect region,
+                                                int maxWidth, int maxHeight) {
+        RawFrameReader frame;
+        try {
+            frame = RawFrameReader.open(new File(path));
+        } catch (IOException e) {
+            Log.e(TAG, "read error", e);
+            return null;
+        }
+
+        Rect r = new Rect(0, 0, frame.width, frame.height);
+        if (region != null && !r.intersect(region)) return null;
+        int sample = FrameConverter.sampleSize(r.width(), r.height(), maxWidth, maxHeight);
+        int tw = FrameConverter.sampledSize(r.width(), sample);
+        int th = FrameConverter.sampledSize(r.height(), sample);
+
+        ByteBuffer pixels = scratch(tw * th * frame.bytesPerPixel());
+        FrameConverter.downsample(frame.pixels(), frame.stride, frame.bytesPerPixel(),
+                r.left, r.top, r.width(), r.height(), sample, pixels);
+        pixels.flip();
+
+        Bitmap bitmap = BitmapPool.get().obtain(tw, th, Bitmap.Config.ARGB_8888);
+        bitmap.copyPixelsFromBuffer(pixels);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            // Uploaded once; the preview only ever draws it
+            Bitmap hardware = bitmap.copy(Bitmap.Config.HARDWARE, false);
+            if (hardware != null) {
+                BitmapPool.get().release(bitmap);
+                bitmap = hardware;
+            }
+        }
+        return new Thumbnail(bitmap, frame.width, frame.height);
+    }
+
+    /**
+     * {@code region} of a 4-byte-per-pixel temp frame box-filtered from the map like
+     * {@link #readThumbnail}, as ARGB ints: the thumbnail itself may be a HARDWARE
+     * bitmap, whose pixels can't be read back. Null if the frame can't be read or the
+     * region misses it. Off the UI thread.
+     */
+    @Nullable
+    static synchronized Sampled readSampled(String path, Rect region, int maxWidth, int maxHeight) {
+        RawFrameReader frame;
+        try {
+            frame = RawFrameReader.open(new File(path));
+        } catch (IOException e) {
+            Log.e(TAG, "read error", e);
+            return null;
+        }
+        Rect r = new Rect(0, 0, frame.width, frame.height);
+        if (frame.bytesPerPixel() != 4 || !r.intersect(region)) return null;
+        int sample = FrameConverter.sampleSize(r.width(), r.height(), maxWidth, maxHeight);
+        int sw = FrameConverter.sampledSize(r.width(), sample);
+        int sh = FrameConverter.sampledSize(r.height(), sample);
+
+        ByteBuffer bytes = scratch(sw * sh * 4);
+        FrameConverter.downsample(frame.pixels(), frame.stride, 4,
+                r.left, r.top, r.width(), r.height(), sample, bytes);
+        bytes.flip();
+
+        // RGBA bytes read big-endian are 0xRRGGBBAA; rotate to 0xAARRGGBB
+        int[] pixels = new int[sw * sh];
+        bytes.order(ByteOrder.BIG_ENDIAN).asIntBuffer().get(pixels);
+        bytes.order(ByteOrder.nativeOrder());
+        for (int i = 0; i < pixels.length; i++) pixels[i] = Integer.rotateRight(pixels[i], 8);
+        return new Sampled(pixels, sw, sh);
+    }
+
+    private static ByteBuffer scratch(int size) {
+        if (scratch == null || scratch.capacity() < size) {
+            scratch = ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+        }
+        scratch.clear();
+        scratch.limit(size);
+        return scratch;
+    }
+}
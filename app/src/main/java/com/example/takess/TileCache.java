@@ -0,0 +1,110 @@
+package com.example.takess;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Decoded tiles for {@link TiledImageView}, keyed by {@link TileGrid#key}, with a byte
+ * budget and least-recently-used eviction.
+ *
+ * Unlike {@link SizedLruPool}, items stay in the cache when read: {@link #get} only
+ * marks a tile as recently drawn. Evicted tiles go to the {@link Evictor} (the bitmap
+ * pool). Not thread-safe; the view only touches it on the UI thread.
+ */
+final class TileCache<T> {
+
+    interface Evictor<T> {
+        void onEvicted(T item);
+    }
+
+    private static final class Entry<T> {
+        final T item;
+        final long bytes;
+
+        Entry(T item, long bytes) {
+            this.item = item;
+            this.bytes = bytes;
+        }
+    }
+
+    // Access order: least recently drawn first
+    private final LinkedHashMap<Long, Entry<T>> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final Evictor<T> evictor;
+    private long maxBytes;
+    private long currentBytes;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    TileCache(long maxBytes, Evictor<T> evictor) {
+        this.maxBytes = maxBytes;
+        this.evictor = evictor;
+    }
+
+    /** The tile for {@code key}, now the most recently used, or null. */
+    T get(long key) {
+        Entry<T> e = entries.get(key);
+        if (e == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return e.item;
+    }
+
+    /** Whether {@code key} is cached, without touching its recency or the counters. */
+    boolean contains(long key) {
+        return entries.containsKey(key);
+    }
+
+    /** Adds a tile (replacing any with the same key), evicting the least recently used if over budget. */
+    void put(long key, T item, long bytes) {
+        if (bytes > maxBytes) {
+            evictions++;
+            evictor.onEvicted(item);
+            return;
+        }
+        Entry<T> old = entries.put(key, new Entry<>(item, bytes));
+        if (old != null) {
+            currentBytes -= old.bytes;
+            if (old.item != item) evictor.onEvicted(old.item);
+        }
+        currentBytes += bytes;
+        trimTo(maxBytes);
+    }
+
+    /** Evicts least recently used tiles until at most {@code targetBytes} remain. */
+    void trimTo(long targetBytes) {
+        Iterator<Map.Entry<Long, Entry<T>>> it = entries.entrySet().iterator();
+        while (currentBytes > targetBytes && it.hasNext()) {
+            Entry<T> e = it.next().getValue();
+            it.remove();
+            currentBytes -= e.bytes;
+            evictions++;
+            evictor.onEvicted(e.item);
+        }
+    }
+
+    void clear() {
+        trimTo(0);
+    }
+
+    void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        trimTo(maxBytes);
+    }
+
+    long maxBytes() { return maxBytes; }
+    long currentBytes() { return currentBytes; }
+    int size() { return entries.size(); }
+    long hits() { return hits; }
+    long misses() { return misses; }
+    long evictions() { return evictions; }
+
+    String stats() {
+        return "hits=" + hits + " misses=" + misses + " evictions=" + evictions
+                + " tiles=" + entries.size() + " bytes=" + currentBytes + "/" + maxBytes;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.takess;
+
+/**
+ * Tile layout of an image shown at some zoom, for {@link TiledImageView}.
+ *
+ * The image is cut into {@link #TILE}-pixel tiles at each power-of-two sample level:
+ * at sample {@code s} a tile covers {@code TILE * s} image pixels and is decoded down to
+ * at most {@code TILE} pixels, so a tile costs the same memory at every zoom. Tiles are
+ * identified by a single {@code long} key, so looking them up while drawing doesn't
+ * allocate. Plain Java — no Android types.
+ */
+final class TileGrid {
+
+    static final int TILE = 256;
+
+    private TileGrid() { }
+
+    /**
+     * Sample level for drawing at {@code scale} view pixels per image pixel: the largest
+     * power of two that still gives at least one tile pixel per view pixel.
+     */
+    static int sampleFor(float scale) {
+        if (!(scale > 0) || scale >= 1f) return 1;
+        int sample = 1;
+        while (sample * 2 <= 1f / scale) sample *= 2;
+        return sample;
+    }
+
+    /** Image pixels covered by one tile at {@code sample}. */
+    static int span(int sample) {
+        return TILE * sample;
+    }
+
+    /** Tiles needed along an axis of {@code size} image pixels. */
+    static int count(int size, int sample) {
+        return (size + span(sample) - 1) / span(sample);
+    }
+
+    /** Index of the first tile that overlaps image coordinate {@code from} (clamped). */
+    static int first(float from, int sample) {
+        return Math.max(0, (int) Math.floor(from / span(sample)));
+    }
+
+    /**
+     * Index of the last tile that overlaps the span ending (exclusive) at image
+     * coordinate {@code to}, for an axis of {@code size} pixels (clamped).
+     */
+    static int last(float to, int size, int sample) {
+        int last = (int) Math.ceil(to / span(sample)) - 1;
+        return Math.min(count(size, sample) - 1, last);
+    }
+
+    static long key(int sample, int col, int row) {
+        return ((long) Integer.numberOfTrailingZeros(sample) << 56) | ((long) col << 28) | row;
+    }
+
+    static int sampleOf(long key) {
+        return 1 << (int) (key >>> 56);
+    }
+
+    static int colOf(long key) {
+        return (int) ((key >>> 28) & 0xFFFFFFF);
+    }
+
+    static int rowOf(long key) {
+        return (int) (key & 0xFFFFFFF);
+    }
+}
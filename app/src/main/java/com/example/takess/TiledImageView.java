@@ -0,0 +1,367 @@
+package com.example.takess;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.util.AttributeSet;
+import android.util.Log;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Pinch-zoomable view of a region of a temp frame that never holds it at full size.
+ *
+ * A card-sized thumbnail of the region is always drawn first. Once zoomed in past its
+ * resolution, the visible {@link TileGrid} tiles at the current sample level are drawn
+ * on top. Missing tiles (plus a one-tile margin, for panning) are box-filtered straight
+ * from the mapped frame on a background thread into a {@link TileCache} with a memory
+ * cap. Drawing only ever blits cached bitmaps, so zooming and panning never wait for a
+ * decode.
+ */
+public class TiledImageView extends View {
+
+    private static final String TAG = "TiledImageView";
+    // Most view pixels per image pixel when zoomed in
+    private static final float MAX_SCALE = 4f;
+    // The thumbnail is drawn alone until zoomed this far past its own resolution
+    private static final float BASE_UPSCALE_LIMIT = 1.25f;
+    // Images narrower than this share of the view at fit (long screenshots) open at fit-width
+    private static final float MIN_FIT_WIDTH_SHARE = 1 / 3f;
+    private static final float DOUBLE_TAP_ZOOM = 2.5f;
+    private static final long MAX_TILE_BYTES = 48L * 1024 * 1024;
+
+    public interface OnImageRectChangeListener {
+        /** Where the image now sits in view coordinates; extends past the view when zoomed. */
+        void onImageRectChanged(RectF imageRect);
+    }
+
+    /** One image shown; tiles decoded for an earlier one are dropped. */
+    private static final class Source {
+        final String path;
+        final Rect region;
+        // Decoder thread only
+        RawFrameReader frame;
+        volatile boolean failed;
+
+        Source(String path, Rect region) {
+            this.path = path;
+            this.region = region;
+        }
+    }
+
+    /** Tiles worth decoding: the visible ones plus the margin. */
+    private static final class Range {
+        final int sample, col0, row0, col1, row1;
+
+        Range(int sample, int col0, int row0, int col1, int row1) {
+            this.sample = sample;
+            this.col0 = col0;
+            this.row0 = row0;
+            this.col1 = col1;
+            this.row1 = row1;
+        }
+
+        boolean contains(long key) {
+            int col = TileGrid.colOf(key), row = TileGrid.rowOf(key);
+            return TileGrid.sampleOf(key) == sample
+                    && col >= col0 && col <= col1 && row >= row0 && row <= row1;
+        }
+    }
+
+    private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final TileCache<Bitmap> tiles = new TileCache<>(
+            Math.min(MAX_TILE_BYTES, Runtime.getRuntime().maxMemory() / 8), BitmapPool.get()::release);
+    private final ExecutorService decoder = Executors.newSingleThreadExecutor();
+    // Requested and not yet back from the decoder (UI thread)
+    private final Set<Long> pending = new HashSet<>();
+    private final RectF imageRect = new RectF();
+    private final RectF tileRect = new RectF();
+    private final ScaleGestureDetector scaleDetector;
+    private final GestureDetector gestureDetector;
+
+    private volatile Source source;
+    private volatile Range wanted;
+    private Bitmap base;
+    private float scale;
+    private float minScale;
+    private float transX;
+    private float transY;
+    private boolean released;
+    private OnImageRectChangeListener listener;
+    // Decoder thread only: one tile's worth of pixels
+    private ByteBuffer scratch;
+
+    public TiledImageView(Context context) { this(context, null); }
+    public TiledImageView(Context context, AttributeSet attrs) { this(context, attrs, 0); }
+    public TiledImageView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        scaleDetector = new ScaleGestureDetector(context, new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+            @Override
+            public boolean onScale(@NonNull ScaleGestureDetector detector) {
+                zoomTo(scale * detector.getScaleFactor(), detector.getFocusX(), detector.getFocusY());
+                return true;
+            }
+        });
+        gestureDetector = new GestureDetector(context, new GestureDetector.SimpleOnGestureListener() {
+            @Override
+            public boolean onDown(@NonNull MotionEvent e) {
+                return true;
+            }
+
+            @Override
+            public boolean onScroll(@Nullable MotionEvent e1, @NonNull MotionEvent e2, float dx, float dy) {
+                transX -= dx;
+                transY -= dy;
+                changed();
+                return true;
+            }
+
+            @Override
+            public boolean onDoubleTap(@NonNull MotionEvent e) {
+                zoomTo(scale > minScale * 1.01f ? minScale : minScale * DOUBLE_TAP_ZOOM, e.getX(), e.getY());
+                return true;
+            }
+        });
+    }
+
+    public void setOnImageRectChangeListener(OnImageRectChangeListener l) { this.listener = l; }
+
+    /**
+     * Shows {@code region} of the temp frame at {@code path}, with {@code thumbnail}
+     * (a downscaled copy of that region, still owned by the caller) drawn until tiles
+     * are needed. The zoom is reset unless it is the same region of the same frame.
+     */
+    public void setImage(String path, Rect region, Bitmap thumbnail) {
+        base = thumbnail;
+        Source current = source;
+        if (current == null || !current.path.equals(path) || !current.region.equals(region)) {
+            source = new Source(path, new Rect(region));
+            wanted = null;
+            pending.clear();
+            tiles.clear();
+            resetZoom();
+        }
+        changed();
+    }
+
+    /** Drops every cached tile when memory runs low; visible ones are decoded again. */
+    public void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            tiles.clear();
+            invalidate();
+        }
+    }
+
+    /** Stops decoding and returns every tile to the bitmap pool. The thumbnail stays the caller's. */
+    public void release() {
+        released = true;
+        decoder.shutdownNow();
+        Log.d(TAG, "tiles: " + tiles.stats());
+        tiles.clear();
+        base = null;
+        source = null;
+    }
+
+    // ──────────────────────────────────────────────
+    //  Zoom and pan
+    // ──────────────────────────────────────────────
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        resetZoom();
+        changed();
+    }
+
+    private int contentWidth() {
+        return getWidth() - getPaddingLeft() - getPaddingRight();
+    }
+
+    private int contentHeight() {
+        return getHeight() - getPaddingTop() - getPaddingBottom();
+    }
+
+    /** Fit-center, or fit-width from the top for images too tall to be seen at fit. */
+    private void resetZoom() {
+        Source src = source;
+        if (src == null || src.region.isEmpty() || contentWidth() <= 0 || contentHeight() <= 0) return;
+        int w = src.region.width(), h = src.region.height();
+        minScale = Math.min((float) contentWidth() / w, (float) contentHeight() / h);
+        scale = minScale;
+        if (w * minScale < contentWidth() * MIN_FIT_WIDTH_SHARE) {
+            scale = (float) contentWidth() / w;
+            transY = getPaddingTop();
+        } else {
+            transY = getPaddingTop() + (contentHeight() - h * scale) / 2f;
+        }
+        transX = getPaddingLeft() + (contentWidth() - w * scale) / 2f;
+    }
+
+    private void zoomTo(float newScale, float focusX, float focusY) {
+        newScale = Math.max(minScale, Math.min(Math.max(minScale, MAX_SCALE), newScale));
+        transX = focusX - (focusX - transX) * newScale / scale;
+        transY = focusY - (focusY - transY) * newScale / scale;
+        scale = newScale;
+        changed();
+    }
+
+    /** Keeps the image over the view (centered along an axis where it is smaller), then redraws. */
+    private void changed() {
+        Source src = source;
+        if (src == null || scale <= 0) return;
+        float w = src.region.width() * scale, h = src.region.height() * scale;
+        transX = clamp(transX, getPaddingLeft(), contentWidth(), w);
+        transY = clamp(transY, getPaddingTop(), contentHeight(), h);
+        imageRect.set(transX, transY, transX + w, transY + h);
+        if (listener != null) listener.onImageRectChanged(imageRect);
+        invalidate();
+    }
+
+    private static float clamp(float trans, int pad, int content, float size) {
+        if (size <= content) return pad + (content - size) / 2f;
+        return Math.max(pad + content - size, Math.min(pad, trans));
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (source == null) return false;
+        scaleDetector.onTouchEvent(event);
+        if (!scaleDetector.isInProgress()) gestureDetector.onTouchEvent(event);
+        if (event.getActionMasked() == MotionEvent.ACTION_UP) performClick();
+        return true;
+    }
+
+    @Override
+    public boolean performClick() {
+        return super.performClick();
+    }
+
+    // ──────────────────────────────────────────────
+    //  Drawing
+    // ──────────────────────────────────────────────
+
+    @Override
+    protected void onDraw(@NonNull Canvas canvas) {
+        Source src = source;
+        if (base == null || src == null || imageRect.isEmpty()) return;
+        canvas.drawBitmap(base, null, imageRect, paint);
+
+        float baseScale = (float) base.getWidth() / src.region.width();
+        if (scale <= baseScale * BASE_UPSCALE_LIMIT || src.failed) return;
+
+        int w = src.region.width(), h = src.region.height();
+        int sample = TileGrid.sampleFor(scale);
+        int col0 = TileGrid.first(-transX / scale, sample);
+        int row0 = TileGrid.first(-transY / scale, sample);
+        int col1 = TileGrid.last((getWidth() - transX) / scale, w, sample);
+        int row1 = TileGrid.last((getHeight() - transY) / scale, h, sample);
+        Range range = wanted;
+        if (range == null || range.sample != sample || range.col0 != col0 - 1 || range.row0 != row0 - 1
+                || range.col1 != col1 + 1 || range.row1 != row1 + 1) {
+            wanted = new Range(sample, col0 - 1, row0 - 1, col1 + 1, row1 + 1);
+        }
+
+        float span = TileGrid.span(sample) * scale;
+        for (int row = row0; row <= row1; row++) {
+            for (int col = col0; col <= col1; col++) {
+                long key = TileGrid.key(sample, col, row);
+                Bitmap tile = tiles.get(key);
+                if (tile == null) {
+                    request(src, key);
+                    continue;
+                }
+                float left = transX + col * span, top = transY + row * span;
+                tileRect.set(left, top, Math.min(left + span, imageRect.right),
+                        Math.min(top + span, imageRect.bottom));
+                canvas.drawBitmap(tile, null, tileRect, paint);
+            }
+        }
+        // Margin, after the visible tiles so those are decoded first
+        int cols = TileGrid.count(w, sample), rows = TileGrid.count(h, sample);
+        for (int row = Math.max(0, row0 - 1); row <= Math.min(rows - 1, row1 + 1); row++) {
+            for (int col = Math.max(0, col0 - 1); col <= Math.min(cols - 1, col1 + 1); col++) {
+                if (row >= row0 && row <= row1 && col >= col0 && col <= col1) continue;
+                long key = TileGrid.key(sample, col, row);
+                if (!tiles.contains(key)) request(src, key);
+            }
+        }
+    }
+
+    // ──────────────────────────────────────────────
+    //  Tile decoding
+    // ──────────────────────────────────────────────
+
+    private void request(Source src, long key) {
+        if (released || !pending.add(key)) return;
+        decoder.execute(() -> {
+            Bitmap tile = null;
+            // Skipped if scrolled or zoomed away while queued
+            Range range = wanted;
+            if (src == source && range != null && range.contains(key)) {
+                try {
+                    tile = decode(src, key);
+                } catch (IOException e) {
+                    Log.e(TAG, "tile decode failed", e);
+                    src.failed = true;
+                }
+            }
+            Bitmap decoded = tile;
+            post(() -> onDecoded(src, key, decoded));
+        });
+    }
+
+    private void onDecoded(Source src, long key, @Nullable Bitmap tile) {
+        if (released || src != source) {
+            BitmapPool.get().release(tile);
+            return;
+        }
+        pending.remove(key);
+        if (tile == null) return;
+        tiles.put(key, tile, tile.getAllocationByteCount());
+        invalidate();
+    }
+
+    /** Decoder thread: box-filters one tile of the region out of the mapped frame. */
+    @Nullable
+    private Bitmap decode(Source src, long key) throws IOException {
+        if (src.frame == null) src.frame = RawFrameReader.open(new File(src.path));
+        RawFrameReader frame = src.frame;
+        int sample = TileGrid.sampleOf(key), span = TileGrid.span(sample);
+        int x = src.region.left + TileGrid.colOf(key) * span;
+        int y = src.region.top + TileGrid.rowOf(key) * span;
+        int w = Math.min(span, Math.min(src.region.right, frame.width) - x);
+        int h = Math.min(span, Math.min(src.region.bottom, frame.height) - y);
+        if (w <= 0 || h <= 0) return null;
+
+        int tw = FrameConverter.sampledSize(w, sample), th = FrameConverter.sampledSize(h, sample);
+        if (scratch == null) {
+            scratch = ByteBuffer.allocateDirect(TileGrid.TILE * TileGrid.TILE * frame.bytesPerPixel())
+                    .order(ByteOrder.nativeOrder());
+        }
+        scratch.clear();
+        FrameConverter.downsample(frame.pixels(), frame.stride, frame.bytesPerPixel(),
+                x, y, w, h, sample, scratch);
+        scratch.flip();
+        Bitmap tile = BitmapPool.get().obtain(tw, th, Bitmap.Config.ARGB_8888);
+        tile.copyPixelsFromBuffer(scratch);
+        return tile;
+    }
+}
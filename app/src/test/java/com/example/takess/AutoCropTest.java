@@ -0,0 +1,141 @@
+package com.example.takess;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class AutoCropTest {
+
+    private static final int W = 360, H = 780;
+    private static final int BLACK = 0xFF000000, WHITE = 0xFFFFFFFF, BAR = 0xFF202124;
+
+    /** Random pixels: no row or column is uniform. */
+    private static int[] content(long seed) {
+        int[] px = new int[W * H];
+        Random random = new Random(seed);
+        for (int i = 0; i < px.length; i++) px[i] = 0xFF000000 | random.nextInt(0x1000000);
+        return px;
+    }
+
+    private static void fill(int[] px, int left, int top, int right, int bottom, int color) {
+        for (int y = top; y < bottom; y++) Arrays.fill(px, y * W + left, y * W + right, color);
+    }
+
+    /** A status bar {@code rows} tall with a clock and some icons on it. */
+    private static void statusBar(int[] px, int rows) {
+        fill(px, 0, 0, W, rows, BAR);
+        fill(px, 16, 6, 60, rows - 6, WHITE);
+        fill(px, 260, 6, 344, rows - 6, WHITE);
+    }
+
+    /** A gesture navigation bar {@code rows} tall with its handle. */
+    private static void navBar(int[] px, int rows) {
+        fill(px, 0, H - rows, W, H, BAR);
+        fill(px, 130, H - rows / 2 - 2, 230, H - rows / 2 + 2, WHITE);
+    }
+
+    @Test
+    public void screenshot_dropsStatusAndNavBars() {
+        int[] px = content(1);
+        statusBar(px, 24);
+        navBar(px, 16);
+
+        assertArrayEquals(new int[] { 0, 24, W, H - 16 }, AutoCrop.find(px, W, H, 24, 16));
+    }
+
+    @Test
+    public void letterboxing_isTrimmedOnAllSides() {
+        int[] px = content(2);
+        fill(px, 0, 0, W, 60, BLACK);
+        fill(px, 0, H - 70, W, H, BLACK);
+        fill(px, 0, 0, 20, H, BLACK);
+        fill(px, W - 30, 0, W, H, BLACK);
+
+        assertArrayEquals(new int[] { 20, 60, W - 30, H - 70 }, AutoCrop.find(px, W, H, 0, 0));
+    }
+
+    @Test
+    public void uniformMarginPastTheBar_isTrimmedToo() {
+        int[] px = content(3);
+        statusBar(px, 24);
+        fill(px, 0, 24, W, 40, WHITE);
+        navBar(px, 16);
+        fill(px, 0, H - 50, W, H - 16, WHITE);
+
+        assertArrayEquals(new int[] { 0, 40, W, H - 50 }, AutoCrop.find(px, W, H, 24, 16));
+    }
+
+    @Test
+    public void fullScreenContent_keepsTheBarRows() {
+        // Video or a game drawn under where the bars would be
+        int[] px = content(4);
+
+        assertArrayEquals(new int[] { 0, 0, W, H }, AutoCrop.find(px, W, H, 24, 16));
+    }
+
+    @Test
+    public void shadesWithinTolerance_countAsUniform() {
+        int[] px = content(5);
+        // Letterbox that isn't quite black, dithered by a few levels
+        for (int y = 0; y < 40; y++) {
+            for (int x = 0; x < W; x++) {
+                int v = (x + y) % (AutoCrop.TOLERANCE / 2);
+                px[y * W + x] = 0xFF000000 | v << 16 | v << 8 | v;
+            }
+        }
+
+        assertEquals(40, AutoCrop.find(px, W, H, 0, 0)[1]);
+    }
+
+    @Test
+    public void oversizedBarHint_isIgnored() {
+        int[] px = content(6);
+        statusBar(px, 24);
+
+        // Only the flat rows above the icons go
+        assertEquals(6, AutoCrop.find(px, W, H, H / 2, 0)[1]);
+    }
+
+    @Test
+    public void blankImage_keepsEverything() {
+        int[] px = new int[W * H];
+        Arrays.fill(px, WHITE);
+        statusBar(px, 24);
+
+        assertArrayEquals(new int[] { 0, 0, W, H }, AutoCrop.find(new int[W * H], W, H, 24, 16));
+        // Only the bar has anything in it, and the bar is dropped: nothing left to keep
+        assertArrayEquals(new int[] { 0, 0, W, H }, AutoCrop.find(px, W, H, 24, 0));
+    }
+
+    /** Wide blank margins: the worst case, since every margin pixel is compared. */
+    private static int[] wideMargins() {
+        int[] px = content(7);
+        fill(px, 0, 0, W, H / 3, WHITE);
+        fill(px, 0, H - H / 3, W, H, WHITE);
+        fill(px, 0, 0, W / 3, H, WHITE);
+        statusBar(px, 24);
+        navBar(px, 16);
+        return px;
+    }
+
+    @Test
+    public void wideMargins_areTrimmedPastTheBars() {
+        assertArrayEquals(new int[] { W / 3, H / 3, W, H - H / 3 }, AutoCrop.find(wideMargins(), W, H, 24, 16));
+    }
+
+    @Test
+    public void benchmark_thumbnailScan() {
+        Benchmark.assumeEnabled();
+        int[] px = wideMargins();
+        for (int i = 0; i < 20; i++) AutoCrop.find(px, W, H, 24, 16); // warm up
+
+        long start = System.nanoTime();
+        int runs = 50;
+        for (int i = 0; i < runs; i++) AutoCrop.find(px, W, H, 24, 16);
+        double ms = (System.nanoTime() - start) / 1e6 / runs;
+        System.out.printf("auto-crop %dx%d: %.3f ms%n", W, H, ms);
+    }
+}
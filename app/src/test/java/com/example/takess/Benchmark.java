@@ -0,0 +1,20 @@
+package com.example.takess;
+
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Switch for the timing runs in the unit tests. They print their numbers and assert
+ * nothing about speed, and are skipped unless asked for with
+ * {@code ./gradlew test -Ptakess.benchmark}, so a loaded CI machine can't fail a build.
+ */
+final class Benchmark {
+
+    static final boolean ENABLED = Boolean.getBoolean("takess.benchmark");
+
+    private Benchmark() { }
+
+    /** Skips the calling test unless benchmarks were asked for. */
+    static void assumeEnabled() {
+        assumeTrue("benchmarks are opt-in: -Ptakess.benchmark", ENABLED);
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.takess;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CaptureHistoryTest {
+
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("history").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] children = dir.listFiles();
+        if (children != null) for (File c : children) //noinspection ResultOfMethodCallIgnored
+            c.delete();
+        //noinspection ResultOfMethodCallIgnored
+        dir.delete();
+    }
+
+    private static CaptureHistory.Entry entry(long timestamp, String name) {
+        CaptureHistory.Entry e = new CaptureHistory.Entry();
+        e.timestamp = timestamp;
+        e.fileName = name;
+        e.uri = "content://media/external/images/media/" + timestamp;
+        e.format = "png";
+        e.width = 1080;
+        e.height = 2400;
+        e.bytes = 1000 + timestamp;
+        e.contentHash = 0x1234_5678_9ABC_DEF0L ^ timestamp;
+        e.captureMs = 42;
+        e.encodeMs = 180;
+        e.commitMs = 7;
+        return e;
+    }
+
+    @Test
+    public void append_roundTripsAcrossReopen() throws IOException {
+        CaptureHistory history = CaptureHistory.open(dir);
+        history.append(entry(100, "a.png"));
+        history.append(entry(200, "ü.png"));
+        history.close();
+
+        CaptureHistory reopened = CaptureHistory.open(dir);
+        assertEquals(2, reopened.size());
+        CaptureHistory.Entry e = reopened.get(1);
+        assertEquals(200, e.timestamp);
+        assertEquals("ü.png", e.fileName);
+        assertEquals("content://media/external/images/media/200", e.uri);
+        assertEquals("png", e.format);
+        assertEquals(1080, e.width);
+        assertEquals(2400, e.height);
+        assertEquals(1200, e.bytes);
+        assertEquals(0x1234_5678_9ABC_DEF0L ^ 200, e.contentHash);
+        assertEquals(42, e.captureMs);
+        assertEquals(180, e.encodeMs);
+        assertEquals(7, e.commitMs);
+        reopened.close();
+    }
+
+    @Test
+    public void range_findsHalfOpenInterval() throws IOException {
+        CaptureHistory history = CaptureHistory.open(dir);
+        for (int t = 10; t <= 100; t += 10) history.append(entry(t, "s" + t));
+
+        List<CaptureHistory.Entry> r = history.range(30, 60);
+        assertEquals(3, r.size());
+        assertEquals(30, r.get(0).timestamp);
+        assertEquals(50, r.get(2).timestamp);
+        assertEquals(3, history.count(30, 60));
+        assertEquals(1030 + 1040 + 1050, history.bytes(30, 60));
+
+        assertEquals(0, history.count(101, 200));
+        assertEquals(10, history.count(Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(0, history.count(60, 30));
+        assertEquals(10, history.indexAt(1000));
+        history.close();
+    }
+
+    @Test
+    public void append_keepsIndexSortedWhenClockGoesBack() throws IOException {
+        CaptureHistory history = CaptureHistory.open(dir);
+        history.append(entry(500, "late"));
+        history.append(entry(300, "recovered"));
+
+        assertEquals(500, history.get(1).timestamp);
+        assertEquals(2, history.count(500, 501));
+        history.close();
+    }
+
+    @Test
+    public void open_dropsTornLastRecord() throws IOException {
+        CaptureHistory history = CaptureHistory.open(dir);
+        history.append(entry(1, "a"));
+        history.append(entry(2, "b"));
+        history.close();
+        try (RandomAccessFile idx = new RandomAccessFile(new File(dir, "history.idx"), "rw")) {
+            idx.setLength(CaptureHistory.RECORD_BYTES + 20);
+        }
+
+        CaptureHistory reopened = CaptureHistory.open(dir);
+        assertEquals(1, reopened.size());
+        reopened.append(entry(3, "c"));
+        assertEquals("c", reopened.get(1).fileName);
+        reopened.close();
+    }
+
+    @Test
+    public void update_rewritesOneEntryInPlace() throws IOException {
+        CaptureHistory history = CaptureHistory.open(dir);
+        history.append(entry(100, "a"));
+        int index = history.append(entry(200, "b"));
+        history.append(entry(300, "c"));
+
+        CaptureHistory.Entry replaced = history.get(index);
+        replaced.uri = "content://media/external/images/media/999";
+        replaced.bytes = 1234;
+        replaced.timestamp = 0;
+        history.update(index, replaced);
+        history.close();
+
+        CaptureHistory reopened = CaptureHistory.open(dir);
+        assertEquals(3, reopened.size());
+        CaptureHistory.Entry e = reopened.get(1);
+        assertEquals("content://media/external/images/media/999", e.uri);
+        assertEquals(1234, e.bytes);
+        assertEquals("b", e.fileName);
+        assertEquals("timestamp is kept", 200, e.timestamp);
+        assertEquals("c", reopened.get(2).fileName);
+        reopened.close();
+    }
+
+    @Test
+    public void findRecent_matchesHashWithinWindowAndLimit() throws IOException {
+        CaptureHistory history = CaptureHistory.open(dir);
+        for (int t = 1; t <= 10; t++) {
+            CaptureHistory.Entry e = entry(t * 100, "s" + t);
+            e.contentHash = t == 3 || t == 8 ? 77 : t;
+            history.append(e);
+        }
+
+        assertEquals("s8", history.findRecent(77, 0, 100).fileName);
+        assertEquals("s8", history.findRecent(77, 800, 100).fileName);
+        assertNull(history.findRecent(77, 801, 100));
+        // Only the last two entries are looked at
+        assertNull(history.findRecent(77, 0, 2));
+        assertEquals("s8", history.findRecent(77, 0, 3).fileName);
+        assertNull(history.findRecent(12345, 0, 100));
+        history.close();
+    }
+}
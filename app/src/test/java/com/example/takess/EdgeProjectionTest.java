@@ -0,0 +1,126 @@
+package com.example.takess;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class EdgeProjectionTest {
+
+    private static final int W = 200, H = 400;
+    private static final int BLACK = 0xFF000000, WHITE = 0xFFFFFFFF, GREY = 0xFFC0C0C0;
+
+    private static int[] image(int color) {
+        int[] px = new int[W * H];
+        Arrays.fill(px, color);
+        return px;
+    }
+
+    private static void fill(int[] px, int left, int top, int right, int bottom, int color) {
+        for (int y = top; y < bottom; y++) Arrays.fill(px, y * W + left, y * W + right, color);
+    }
+
+    @Test
+    public void flatImage_hasNoEdges() {
+        EdgeProjection edges = EdgeProjection.build(image(GREY), W, H);
+        for (int y = 0; y <= H; y++) assertEquals(0, edges.rowStrength(y));
+        for (int x = 0; x <= W; x++) assertEquals(0, edges.columnStrength(x));
+    }
+
+    @Test
+    public void horizontalBorder_projectsOntoItsRowOnly() {
+        int[] px = image(WHITE);
+        fill(px, 0, 100, W, H, BLACK);
+        EdgeProjection edges = EdgeProjection.build(px, W, H);
+
+        assertEquals(255, edges.rowStrength(100));
+        assertEquals(0, edges.rowStrength(99));
+        assertEquals(0, edges.rowStrength(101));
+        for (int x = 0; x <= W; x++) assertEquals(0, edges.columnStrength(x));
+    }
+
+    @Test
+    public void verticalLine_projectsOntoBothSides() {
+        int[] px = image(WHITE);
+        fill(px, 50, 0, 51, H, BLACK);
+        EdgeProjection edges = EdgeProjection.build(px, W, H);
+
+        assertEquals(255, edges.columnStrength(50));
+        assertEquals(255, edges.columnStrength(51));
+        assertEquals(0, edges.columnStrength(52));
+    }
+
+    @Test
+    public void shortEdge_isWeakerByItsLength() {
+        // A card covering half the width: its top edge is half as strong as a full one
+        int[] px = image(WHITE);
+        fill(px, 0, 40, W / 2, 80, BLACK);
+        EdgeProjection edges = EdgeProjection.build(px, W, H);
+
+        assertEquals(127, edges.rowStrength(40));
+        assertEquals(127, edges.rowStrength(80));
+        assertEquals(255 * 40 / H, edges.columnStrength(W / 2));
+    }
+
+    @Test
+    public void snap_movesOntoANearbyEdge() {
+        int[] px = image(WHITE);
+        fill(px, 0, 100, W, H, BLACK);
+        EdgeProjection edges = EdgeProjection.build(px, W, H);
+
+        assertEquals(100f / H, edges.snapRow(104f / H, 10f / H), 1e-6);
+        assertEquals(100f / H, edges.snapRow(95f / H, 10f / H), 1e-6);
+        // Too far away: the handle stays where the finger is
+        assertEquals(120f / H, edges.snapRow(120f / H, 10f / H), 1e-6);
+    }
+
+    @Test
+    public void snap_prefersAStrongEdgeOverANearWeakOne() {
+        int[] px = image(WHITE);
+        fill(px, 0, 100, W, H, BLACK);
+        fill(px, 0, 96, W / 4, 100, 0xFFD0D0D0); // faint, short line just above
+        EdgeProjection edges = EdgeProjection.build(px, W, H);
+
+        assertTrue("weak edge is below threshold", edges.rowStrength(96) < EdgeProjection.MIN_STRENGTH);
+        assertEquals(100f / H, edges.snapRow(96f / H, 10f / H), 1e-6);
+    }
+
+    @Test
+    public void snap_ignoresTheImageBorders() {
+        int[] px = image(WHITE);
+        fill(px, 0, 0, 3, H, BLACK);
+        EdgeProjection edges = EdgeProjection.build(px, W, H);
+
+        // Only the inner side of the bar; 0 is never a snap target
+        assertEquals(3f / W, edges.snapColumn(1f / W, 10f / W), 1e-6);
+        assertEquals(0, edges.columnStrength(0));
+    }
+
+    /** Build and per-move snap cost; one ACTION_MOVE per frame at 120 Hz leaves about 8 ms. */
+    @Test
+    public void benchmark_dragPath() {
+        Benchmark.assumeEnabled();
+        // A full-resolution frame is the worst case; the preview uses its thumbnail
+        int w = 1080, h = 2400;
+        int[] px = new int[w * h];
+        for (int y = 0; y < h; y++) {
+            Arrays.fill(px, y * w, (y + 1) * w, (y / 48) % 2 == 0 ? WHITE : GREY);
+        }
+        long buildStart = System.nanoTime();
+        EdgeProjection edges = EdgeProjection.build(px, w, h);
+        double buildMs = (System.nanoTime() - buildStart) / 1e6;
+
+        int moves = 100_000;
+        float sink = 0;
+        for (int i = 0; i < moves; i++) sink += edges.snapRow((i % 1000) / 1000f, 0.02f); // warm up
+        long start = System.nanoTime();
+        for (int i = 0; i < moves; i++) {
+            float pct = (i % 1000) / 1000f;
+            sink += edges.snapRow(pct, 0.02f) + edges.snapColumn(pct, 0.02f);
+        }
+        double perMoveUs = (System.nanoTime() - start) / 1e3 / moves;
+        System.out.printf("edge projection %dx%d: build %.1f ms, snap %.2f us per move [%.0f]%n",
+                w, h, buildMs, perMoveUs, sink);
+    }
+}
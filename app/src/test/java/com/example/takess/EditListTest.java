@@ -0,0 +1,128 @@
+package com.example.takess;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class EditListTest {
+
+    /**
+     * The preview's crop before the edit list: {@code getCropPercents()} of the thumbnail,
+     * which covers exactly {@code rect}, folded into {@code rect} in frame pixels.
+     */
+    private static void legacyApplyCrop(int[] rect, float[] pct) {
+        int origW = rect[2] - rect[0];
+        int origH = rect[3] - rect[1];
+        int left = (int) (pct[0] * origW);
+        int top = (int) (pct[1] * origH);
+        int right = (int) (pct[2] * origW);
+        int bottom = (int) (pct[3] * origH);
+        int cropW = right - left;
+        int cropH = bottom - top;
+        if (cropW <= 0 || cropH <= 0) return;
+        if (left + cropW > origW) cropW = origW - left;
+        if (top + cropH > origH) cropH = origH - top;
+        if (cropW <= 0 || cropH <= 0) return;
+        rect[2] = rect[0] + left + cropW;
+        rect[3] = rect[1] + top + cropH;
+        rect[0] += left;
+        rect[1] += top;
+    }
+
+    private static void assertGeometry(int l, int t, int r, int b, int w, int h, EditList.Geometry g) {
+        assertArrayEquals(new int[] { l, t, r, b, w, h },
+                new int[] { g.left, g.top, g.right, g.bottom, g.width, g.height });
+    }
+
+    @Test
+    public void noOps_isWholeFrame() {
+        EditList edits = new EditList();
+        EditList.Geometry g = edits.geometry(1080, 2400);
+        assertGeometry(0, 0, 1080, 2400, 1080, 2400, g);
+        assertFalse(g.isCropped(1080, 2400));
+        assertFalse(g.isResized());
+    }
+
+    @Test
+    public void crops_matchLegacyCropPercents() {
+        Random random = new Random(7);
+        for (int run = 0; run < 500; run++) {
+            int fw = 200 + random.nextInt(3000), fh = 200 + random.nextInt(6000);
+            int[] legacy = { 0, 0, fw, fh };
+            EditList edits = new EditList();
+            for (int i = 0; i < 1 + random.nextInt(4); i++) {
+                // As the overlay allows: 0..1, at least 5% apart
+                float l = random.nextFloat() * 0.9f, t = random.nextFloat() * 0.9f;
+                float r = l + 0.05f + random.nextFloat() * (0.95f - l);
+                float b = t + 0.05f + random.nextFloat() * (0.95f - t);
+                float[] pct = { l, t, Math.min(1f, r), Math.min(1f, b) };
+                legacyApplyCrop(legacy, pct);
+                edits.push(new EditList.Crop(pct[0], pct[1], pct[2], pct[3]));
+            }
+            EditList.Geometry g = edits.geometry(fw, fh);
+            assertGeometry(legacy[0], legacy[1], legacy[2], legacy[3],
+                    legacy[2] - legacy[0], legacy[3] - legacy[1], g);
+            assertFalse(g.isResized());
+        }
+    }
+
+    @Test
+    public void cropAfterResize_mapsBackToFramePixels() {
+        EditList edits = new EditList();
+        edits.push(new EditList.Resize(540, 1200));
+        edits.push(new EditList.Crop(0.5f, 0.25f, 1f, 0.75f));
+        EditList.Geometry g = edits.geometry(1080, 2400);
+        assertGeometry(540, 600, 1080, 1800, 270, 600, g);
+        assertTrue(g.isCropped(1080, 2400));
+        assertTrue(g.isResized());
+    }
+
+    @Test
+    public void resizeAfterCrop_keepsCropAndSetsOutput() {
+        EditList edits = new EditList();
+        edits.push(new EditList.Crop(0f, 0f, 0.5f, 0.5f));
+        edits.push(new EditList.Resize(270, 600));
+        assertGeometry(0, 0, 540, 1200, 270, 600, edits.geometry(1080, 2400));
+    }
+
+    @Test
+    public void undoRedo_moveOverTheList() {
+        EditList edits = new EditList();
+        edits.push(new EditList.Crop(0f, 0f, 0.5f, 1f));
+        edits.push(new EditList.Resize(100, 400));
+        assertTrue(edits.undo());
+        assertGeometry(0, 0, 500, 1000, 500, 1000, edits.geometry(1000, 1000));
+        assertTrue(edits.undo());
+        assertFalse(edits.undo());
+        assertTrue(edits.isEmpty());
+        assertTrue(edits.redo());
+        assertTrue(edits.redo());
+        assertFalse(edits.redo());
+        assertGeometry(0, 0, 500, 1000, 100, 400, edits.geometry(1000, 1000));
+
+        // A new edit after an undo drops what could have been redone
+        edits.undo();
+        edits.push(new EditList.Crop(0f, 0.5f, 1f, 1f));
+        assertFalse(edits.canRedo());
+        assertGeometry(0, 500, 500, 1000, 500, 500, edits.geometry(1000, 1000));
+    }
+
+    @Test
+    public void encode_roundTripsAppliedOpsOnly() {
+        EditList edits = new EditList();
+        edits.push(new EditList.Crop(0.1f, 0.2f, 0.9f, 0.7f));
+        edits.push(new EditList.Resize(300, 200));
+        edits.push(new EditList.Crop(0f, 0f, 0.5f, 0.5f));
+        edits.undo();
+
+        String text = edits.encode();
+        EditList back = EditList.decode(text);
+        assertEquals(text, back.encode());
+        EditList.Geometry a = edits.geometry(1234, 5678), b = back.geometry(1234, 5678);
+        assertGeometry(a.left, a.top, a.right, a.bottom, a.width, a.height, b);
+        assertTrue(EditList.decode("").isEmpty());
+        assertTrue(EditList.decode("rotate:90;crop:x,1,2,3").isEmpty());
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.takess;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class FrameConverterTest {
+
+    /** Builds a strided plane where every pixel byte encodes (x, y, channel). */
+    private static ByteBuffer stridedPlane(int width, int height, int rowStride, boolean padLastRow) {
+        int size = rowStride * (height - 1) + (padLastRow ? rowStride : width * 4);
+        ByteBuffer buf = ByteBuffer.allocate(size);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < rowStride; x++) {
+                int i = y * rowStride + x;
+                if (i >= size) break;
+                // Padding bytes get a sentinel that must never reach the output
+                buf.put(i, x < width * 4 ? (byte) (y * 31 + x) : (byte) 0xEE);
+            }
+        }
+        return buf;
+    }
+
+    private static byte[] expected(int width, int height) {
+        byte[] out = new byte[width * height * 4];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width * 4; x++) {
+                out[y * width * 4 + x] = (byte) (y * 31 + x);
+            }
+        }
+        return out;
+    }
+
+    private static byte[] drain(ByteBuffer b) {
+        byte[] out = new byte[b.remaining()];
+        b.get(out);
+        return out;
+    }
+
+    @Test
+    public void pack_skipsRowPadding() {
+        ByteBuffer plane = stridedPlane(5, 4, 5 * 4 + 12, true);
+        ByteBuffer packed = new FrameConverter().pack(plane, 5, 4, 4, 32);
+        assertArrayEquals(expected(5, 4), drain(packed));
+    }
+
+    @Test
+    public void pack_handlesUnpaddedLastRow() {
+        ByteBuffer plane = stridedPlane(7, 3, 64, false);
+        ByteBuffer packed = new FrameConverter().pack(plane, 7, 3, 4, 64);
+        assertArrayEquals(expected(7, 3), drain(packed));
+    }
+
+    @Test
+    public void pack_withoutPaddingReturnsSourceView() {
+        ByteBuffer plane = stridedPlane(8, 2, 32, true);
+        plane.position(5); // caller's position must not matter
+        ByteBuffer packed = new FrameConverter().pack(plane, 8, 2, 4, 32);
+        assertArrayEquals(expected(8, 2), drain(packed));
+        assertEquals(5, plane.position());
+    }
+
+    @Test
+    public void pack_reusesDestinationBuffer() {
+        FrameConverter converter = new FrameConverter();
+        ByteBuffer first = converter.pack(stridedPlane(5, 4, 32, true), 5, 4, 4, 32);
+        ByteBuffer second = converter.pack(stridedPlane(5, 4, 32, true), 5, 4, 4, 32);
+        assertSame(first, second);
+        assertArrayEquals(expected(5, 4), drain(second));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void copyRows_rejectsShortStride() {
+        FrameConverter.copyRows(ByteBuffer.allocate(64), 5, 2, 4, 16, ByteBuffer.allocate(64));
+    }
+
+    @Test
+    public void sampleSize_fitsWithoutUpscaling() {
+        // 1080×2400 into a 605×770 card is height-limited: 2400 / 770 → 3
+        assertEquals(3, FrameConverter.sampleSize(1080, 2400, 605, 770));
+        assertEquals(1, FrameConverter.sampleSize(500, 700, 605, 770));
+        assertEquals(1, FrameConverter.sampleSize(500, 700, 0, 0));
+    }
+
+    @Test
+    public void downsample_averagesBlocksInsideRegion() {
+        // 5×3 single-channel plane, values 10*y + x, row stride 8
+        ByteBuffer plane = ByteBuffer.allocate(8 * 3);
+        for (int y = 0; y < 3; y++) {
+            for (int x = 0; x < 5; x++) plane.put(y * 8 + x, (byte) (10 * y + x));
+        }
+
+        // Region (1, 0, 4, 3) by 2: blocks 2×2, 2×2, 2×1, 2×1
+        ByteBuffer out = ByteBuffer.allocate(4);
+        FrameConverter.downsample(plane, 8, 1, 1, 0, 4, 3, 2, out);
+        out.flip();
+        assertArrayEquals(new byte[] {
+                (byte) ((1 + 2 + 11 + 12 + 2) / 4), (byte) ((3 + 4 + 13 + 14 + 2) / 4),
+                (byte) ((21 + 22 + 1) / 2), (byte) ((23 + 24 + 1) / 2) }, drain(out));
+    }
+
+    @Test
+    public void downsample_bySampleOneCopiesRegion() {
+        ByteBuffer plane = stridedPlane(6, 4, 32, true);
+        ByteBuffer out = ByteBuffer.allocate(6 * 4 * 4);
+        FrameConverter.downsample(plane, 32, 4, 0, 0, 6, 4, 1, out);
+        out.flip();
+        assertArrayEquals(expected(6, 4), drain(out));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void downsample_rejectsSmallDestination() {
+        FrameConverter.downsample(ByteBuffer.allocate(64), 16, 4, 0, 0, 4, 4, 2, ByteBuffer.allocate(8));
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.takess;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.*;
+
+public class FrameHashTest {
+
+    @Test
+    public void of_ignoresRowPaddingButNotPixels() {
+        ByteBuffer packed = ByteBuffer.allocate(5 * 3 * 4);
+        ByteBuffer padded = ByteBuffer.allocate(32 * 3);
+        for (int y = 0; y < 3; y++) {
+            for (int i = 0; i < 20; i++) {
+                packed.put(y * 20 + i, (byte) (y * 20 + i));
+                padded.put(y * 32 + i, (byte) (y * 20 + i));
+            }
+            padded.put(y * 32 + 25, (byte) 99);   // padding garbage
+        }
+        long a = FrameHash.of(packed, 20, 4, 0, 0, 5, 3);
+        assertEquals(a, FrameHash.of(padded, 32, 4, 0, 0, 5, 3));
+
+        packed.put(37, (byte) 1);
+        assertNotEquals(a, FrameHash.of(packed, 20, 4, 0, 0, 5, 3));
+        assertNotEquals(a, FrameHash.of(padded, 32, 4, 1, 0, 4, 3));
+        assertEquals(16, FrameHash.toHex(1).length());
+    }
+
+    @Test
+    public void of_distinguishesSinglePixelChangesAndShapes() {
+        ByteBuffer frame = ByteBuffer.allocate(64 * 64 * 4);
+        long base = FrameHash.of(frame, 256, 4, 0, 0, 64, 64);
+        // Same bytes, different shape
+        assertNotEquals(base, FrameHash.of(frame, 128, 4, 0, 0, 32, 128));
+        for (int p = 0; p < frame.capacity(); p += 997) {
+            frame.put(p, (byte) 1);
+            assertTrue("byte " + p, base != FrameHash.of(frame, 256, 4, 0, 0, 64, 64));
+            frame.put(p, (byte) 0);
+        }
+    }
+
+    /** Stands in for a JMH run: best of several passes over a mapped-like 1440p frame. */
+    @Test
+    public void benchmark_hash1440pFrame() {
+        Benchmark.assumeEnabled();
+        int w = 1440, h = 3200, stride = w * 4 + 64;
+        ByteBuffer frame = ByteBuffer.allocateDirect(stride * h).order(ByteOrder.nativeOrder());
+        for (int i = 0; i < frame.capacity(); i += 4) frame.putInt(i, i * 0x9E3779B1);
+
+        long sink = 0;
+        for (int i = 0; i < 20; i++) sink += FrameHash.of(frame, stride, 4, 0, 0, w, h);   // warm up
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            long t0 = System.nanoTime();
+            sink += FrameHash.of(frame, stride, 4, 0, 0, w, h);
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        double mb = (double) w * h * 4 / (1 << 20);
+        System.out.printf("FrameHash 1440x3200: %.2f ms (%.0f MB/s) [%x]%n",
+                best / 1e6, mb / (best / 1e9), sink & 0xF);
+    }
+}
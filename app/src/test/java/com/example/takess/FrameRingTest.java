@@ -0,0 +1,53 @@
+package com.example.takess;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FrameRingTest {
+
+    private static void fill(FrameRing ring, int n, long firstTime) {
+        for (int i = 0; i < n; i++) {
+            FrameRing.Frame f = ring.next();
+            f.capturedAt = firstTime + i;
+            f.pixels.putInt(0, (int) f.capturedAt);
+        }
+    }
+
+    @Test
+    public void capacity_isBoundedByBytes() {
+        assertEquals(4, new FrameRing(4 * 1000 + 999, 1000).capacity());
+        assertEquals(1, new FrameRing(10, 1000).capacity());
+    }
+
+    @Test
+    public void next_keepsNewestFramesAndCountsDrops() {
+        FrameRing ring = new FrameRing(3 * 64, 64);
+        fill(ring, 5, 100);
+
+        assertEquals(3, ring.size());
+        assertEquals(2, ring.dropped());
+        List<FrameRing.Frame> frames = ring.frames();
+        assertEquals(102, frames.get(0).capturedAt);
+        assertEquals(104, frames.get(2).capturedAt);
+        assertEquals(104, frames.get(2).pixels.getInt(0));
+    }
+
+    @Test
+    public void clear_reusesTheSameBuffers() {
+        FrameRing ring = new FrameRing(2 * 64, 64);
+        fill(ring, 2, 0);
+        List<FrameRing.Frame> before = ring.frames();
+        ring.clear();
+        assertEquals(0, ring.size());
+        assertEquals(0, ring.dropped());
+
+        fill(ring, 2, 10);
+        List<FrameRing.Frame> after = ring.frames();
+        assertSame(before.get(0).pixels, after.get(0).pixels);
+        assertEquals(10, after.get(0).capturedAt);
+        assertEquals(64, after.get(1).pixels.remaining());
+    }
+}
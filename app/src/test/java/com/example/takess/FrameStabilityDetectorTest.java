@@ -0,0 +1,108 @@
+package com.example.takess;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class FrameStabilityDetectorTest {
+
+    private static final int W = 360, H = 800, STRIDE = W * 4 + 32;
+    private static final long QUIET = 64, NO_CHANGE = 150, MAX_WAIT = 1000;
+
+    /** App content with a shade covering the top {@code shadeRows} rows. */
+    private static ByteBuffer frame(int shadeRows) {
+        ByteBuffer f = ByteBuffer.allocate(STRIDE * H);
+        for (int y = 0; y < H; y++) {
+            for (int x = 0; x < W; x++) {
+                int p = y * STRIDE + x * 4;
+                boolean shade = y < shadeRows;
+                f.put(p, (byte) (shade ? 30 : (x * 7 + y * 3)));
+                f.put(p + 1, (byte) (shade ? 30 : y));
+                f.put(p + 2, (byte) (shade ? 40 : x));
+                f.put(p + 3, (byte) 255);
+            }
+        }
+        return f;
+    }
+
+    private static FrameStabilityDetector detector() {
+        FrameStabilityDetector d = new FrameStabilityDetector(QUIET, NO_CHANGE, MAX_WAIT);
+        d.start(0);
+        return d;
+    }
+
+    private static boolean feed(FrameStabilityDetector d, ByteBuffer f, long now) {
+        return d.onFrame(f, W, H, STRIDE, 4, now);
+    }
+
+    @Test
+    public void collapsingShade_settlesQuietAfterLastMovement() {
+        FrameStabilityDetector d = detector();
+        long t = 5;
+        // Shade slides up over ~200 ms at 60 fps
+        for (int rows = H; rows > 0; rows -= 64, t += 16) {
+            feed(d, frame(rows), t);
+            assertFalse("settled mid-animation at " + t, d.isSettled(t));
+        }
+        long lastFrame = t;
+        assertTrue(feed(d, frame(0), lastFrame));
+        assertFalse(feed(d, frame(0), lastFrame + 16));   // identical repeat
+        assertFalse(d.isSettled(lastFrame + QUIET - 1));
+        assertEquals(lastFrame + QUIET, d.readyAt());
+        assertTrue(d.isSettled(lastFrame + QUIET));
+        assertFalse(d.timedOut(lastFrame + QUIET));
+        assertTrue(d.changes() > 5);
+    }
+
+    @Test
+    public void staticScreen_settlesAfterNoChangeWindow() {
+        FrameStabilityDetector d = detector();
+        feed(d, frame(0), 10);
+        assertFalse(d.isSettled(NO_CHANGE - 1));
+        assertTrue(d.isSettled(NO_CHANGE));
+        assertEquals(0, d.changes());
+    }
+
+    @Test
+    public void movementStartingLate_resetsTheWait() {
+        FrameStabilityDetector d = detector();
+        ByteBuffer full = frame(H);
+        feed(d, full, 10);
+        feed(d, frame(H / 2), 120);               // shade starts moving just before NO_CHANGE
+        assertFalse(d.isSettled(NO_CHANGE));
+        assertTrue(d.isSettled(120 + QUIET));
+    }
+
+    @Test
+    public void blinkingCursor_doesNotCountAsChange() {
+        FrameStabilityDetector d = detector();
+        ByteBuffer a = frame(0);
+        ByteBuffer b = frame(0);
+        for (int y = 400; y < 420; y++) b.put(y * STRIDE + 100 * 4, (byte) 0);  // one tile
+        feed(d, a, 10);
+        assertFalse(feed(d, b, 40));
+        assertFalse(feed(d, a, 70));
+        assertTrue(d.isSettled(NO_CHANGE));
+    }
+
+    @Test
+    public void endlessAnimation_firesAtUpperBound() {
+        FrameStabilityDetector d = detector();
+        for (long t = 0; t < MAX_WAIT; t += 16) {
+            feed(d, frame((int) (t % 400) + 100), t);
+            assertFalse(d.isSettled(t));
+        }
+        assertTrue(d.isSettled(MAX_WAIT));
+        assertTrue(d.timedOut(MAX_WAIT));
+    }
+
+    @Test
+    public void noFrames_waitsForUpperBound() {
+        FrameStabilityDetector d = detector();
+        assertEquals(MAX_WAIT, d.readyAt());
+        assertFalse(d.isSettled(MAX_WAIT - 1));
+        assertTrue(d.timedOut(MAX_WAIT));
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.takess;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class OutputFormatTest {
+
+    @Test
+    public void mimeTypeAndExtensionAgree() {
+        for (OutputFormat f : OutputFormat.values()) {
+            assertTrue(f.mimeType.startsWith("image/"));
+            String subtype = f.mimeType.substring("image/".length());
+            assertEquals(subtype, f.extension.equals("jpg") ? "jpeg" : f.extension);
+            assertEquals("shot." + f.extension, f.fileName("shot"));
+        }
+    }
+
+    @Test
+    public void fromId_roundTripsAndFallsBackToPng() {
+        for (OutputFormat f : OutputFormat.values()) {
+            assertSame(f, OutputFormat.fromId(f.id));
+        }
+        assertSame(OutputFormat.PNG, OutputFormat.fromId("bmp"));
+        assertSame(OutputFormat.Profile.BALANCED, OutputFormat.Profile.fromId("unknown"));
+    }
+
+    @Test
+    public void quality_ordersProfiles() {
+        for (OutputFormat f : OutputFormat.values()) {
+            int q = f.quality(OutputFormat.Profile.QUALITY);
+            int b = f.quality(OutputFormat.Profile.BALANCED);
+            int s = f.quality(OutputFormat.Profile.SPEED);
+            assertTrue(f + " quality >= balanced", q >= b);
+            assertTrue(f + " balanced >= speed", b >= s);
+            assertTrue(s >= 0 && q <= 100);
+        }
+        assertEquals(100, OutputFormat.PNG.quality(OutputFormat.Profile.SPEED));
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.takess;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.Deflater;
+
+import javax.imageio.ImageIO;
+
+import static org.junit.Assert.*;
+
+/**
+ * Encodes a small corpus of synthetic UI-like screenshots with every fixed filter and
+ * every {@link PngEncoder.Mode}, and checks that the adaptive choice is competitive
+ * with the best fixed filter at the same zlib level and never loses to no filtering.
+ * The opt-in {@link Benchmark} prints bytes / ms per mode.
+ */
+public class PngCompressionCorpusTest {
+
+    private static final int W = 720, H = 1560;
+    private static final List<String> UI_IMAGES = Arrays.asList("list", "cards");
+
+    private static Map<String, int[]> corpus() {
+        Map<String, int[]> images = new LinkedHashMap<>();
+        Random rnd = new Random(1);
+
+        // Settings list: flat rows, dividers and short runs of dark "glyphs"
+        int[] list = new int[W * H];
+        for (int y = 0; y < H; y++) {
+            for (int x = 0; x < W; x++) {
+                int c = y % 120 == 0 ? 0xFFDDDDDD : 0xFFFFFFFF;
+                int line = y % 120;
+                if (line > 40 && line < 64 && x > 48 && x < 500 && ((x / 7 + y / 5) % 3 != 0)
+                        && rnd.nextInt(3) != 0) {
+                    c = 0xFF1F1F1F;
+                }
+                list[y * W + x] = c;
+            }
+        }
+        images.put("list", list);
+
+        // App bar gradient over a card grid
+        int[] cards = new int[W * H];
+        for (int y = 0; y < H; y++) {
+            for (int x = 0; x < W; x++) {
+                int c;
+                if (y < 200) c = 0xFF000000 | (0x30 + y / 4) << 16 | (0x60 + x / 8) << 8 | 0xC0;
+                else if ((x % 360) > 16 && (y % 300) > 16) c = 0xFFF5F7FA;
+                else c = 0xFFE0E3E8;
+                cards[y * W + x] = c;
+            }
+        }
+        images.put("cards", cards);
+
+        // Diagonal gradient (wallpaper behind a launcher)
+        int[] gradient = new int[W * H];
+        for (int y = 0; y < H; y++) {
+            for (int x = 0; x < W; x++) {
+                int v = (x + y) * 255 / (W + H);
+                gradient[y * W + x] = 0xFF000000 | v << 16 | (255 - v) << 8 | (v / 2 + 64);
+            }
+        }
+        images.put("gradient", gradient);
+
+        // Photo-ish content embedded in a feed
+        int[] photo = new int[W * H];
+        for (int y = 0; y < H; y++) {
+            for (int x = 0; x < W; x++) {
+                int c = 0xFFFFFFFF;
+                if (y > 300 && y < 900) {
+                    int n = rnd.nextInt(24);
+                    c = 0xFF000000 | (90 + n + x / 10) << 16 | (120 + n) << 8 | (60 + n + y / 20);
+                }
+                photo[y * W + x] = c;
+            }
+        }
+        images.put("photo", photo);
+        return images;
+    }
+
+    /** Encoded size, after checking the PNG decodes back to {@code px}. */
+    private static long encodedBytes(PngEncoder encoder, int[] px) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.encode(px, W, H, out);
+        BufferedImage img = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+        assertArrayEquals(px, img.getRGB(0, 0, W, H, null, 0, W));
+        return out.size();
+    }
+
+    @Test
+    public void corpus_adaptiveModesStayNearTheBestFilter() throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+        try {
+            for (Map.Entry<String, int[]> image : corpus().entrySet()) {
+                String name = image.getKey();
+                int[] px = image.getValue();
+                long[] fixed = new long[PngEncoder.FILTER_PAETH + 1];
+                long bestFixedFast = Long.MAX_VALUE;
+                for (int f = PngEncoder.FILTER_NONE; f <= PngEncoder.FILTER_PAETH; f++) {
+                    fixed[f] = encodedBytes(new PngEncoder(pool, Deflater.DEFAULT_COMPRESSION, f), px);
+                    bestFixedFast = Math.min(bestFixedFast,
+                            encodedBytes(new PngEncoder(pool, Deflater.BEST_SPEED, f), px));
+                }
+                long[] sorted = fixed.clone();
+                Arrays.sort(sorted);
+
+                long fast = encodedBytes(PngEncoder.forMode(pool, PngEncoder.Mode.FAST), px);
+                long adaptive = encodedBytes(PngEncoder.forMode(pool, PngEncoder.Mode.DEFAULT), px);
+                long max = encodedBytes(PngEncoder.forMode(pool, PngEncoder.Mode.MAX), px);
+
+                assertTrue(name + ": fast " + fast + " vs best fixed at level 1 " + bestFixedFast,
+                        fast <= bestFixedFast * 1.15);
+                // Same zlib level as the fixed runs. Up on repeated rows may cost a few
+                // Huffman bits more than None's raw copies, nothing more
+                long none = fixed[PngEncoder.FILTER_NONE];
+                assertTrue(name + ": adaptive " + adaptive + " vs none " + none, adaptive <= none + none / 1000);
+                assertTrue(name + ": adaptive " + adaptive + " vs median fixed " + sorted[2], adaptive <= sorted[2]);
+                if (UI_IMAGES.contains(name)) {
+                    assertTrue(name + ": adaptive " + adaptive + " vs best fixed " + sorted[0],
+                            adaptive <= sorted[0] * 1.15);
+                }
+                assertTrue(name + ": max should not be larger than fast", max <= fast);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void benchmark_bytesAndTimePerMode() throws IOException {
+        Benchmark.assumeEnabled();
+        ForkJoinPool pool = new ForkJoinPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+        String[] fixedNames = { "none", "sub", "up", "avg", "paeth" };
+        try {
+            for (Map.Entry<String, int[]> image : corpus().entrySet()) {
+                for (int f = PngEncoder.FILTER_NONE; f <= PngEncoder.FILTER_PAETH; f++) {
+                    report(image.getKey(), fixedNames[f],
+                            new PngEncoder(pool, Deflater.DEFAULT_COMPRESSION, f), image.getValue());
+                }
+                for (PngEncoder.Mode mode : PngEncoder.Mode.values()) {
+                    report(image.getKey(), mode.name().toLowerCase(),
+                            PngEncoder.forMode(pool, mode), image.getValue());
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /** Prints the size and the best of two encode times. */
+    private static void report(String image, String encoderName, PngEncoder encoder, int[] px)
+            throws IOException {
+        long bytes = 0, nanos = Long.MAX_VALUE;
+        for (int i = 0; i < 2; i++) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            long t0 = System.nanoTime();
+            encoder.encode(px, W, H, out);
+            nanos = Math.min(nanos, System.nanoTime() - t0);
+            bytes = out.size();
+        }
+        System.out.printf("%-9s %-8s %8d bytes %5d ms%n", image, encoderName, bytes, nanos / 1_000_000);
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.takess;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.Adler32;
+import java.util.zip.Deflater;
+
+import javax.imageio.ImageIO;
+
+import static org.junit.Assert.*;
+
+public class PngEncoderTest {
+
+    /** Flat bands, a gradient and scattered "text" pixels — roughly what a UI looks like. */
+    static int[] uiLikeImage(int w, int h, boolean opaque) {
+        int[] px = new int[w * h];
+        Random rnd = new Random(42);
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int c;
+                if (y < h / 10) c = 0xFF000000 | ((x * 255 / w) << 16) | (y & 0xFF);
+                else c = (y / 24) % 2 == 0 ? 0xFFFAFAFA : 0xFFE8EAF0;
+                if (rnd.nextInt(40) == 0) c = 0xFF202124;
+                if (!opaque) c = (c & 0x00FFFFFF) | ((x + y) % 256) << 24;
+                px[y * w + x] = c;
+            }
+        }
+        return px;
+    }
+
+    private static int[] decode(byte[] png, int w, int h) throws IOException {
+        BufferedImage img = ImageIO.read(new ByteArrayInputStream(png));
+        assertNotNull("ImageIO could not decode output", img);
+        assertEquals(w, img.getWidth());
+        assertEquals(h, img.getHeight());
+        return img.getRGB(0, 0, w, h, null, 0, w);
+    }
+
+    private static byte[] encode(PngEncoder encoder, int[] px, int w, int h) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.encode(px, w, h, out);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void roundTrip_opaqueUiImage() throws IOException {
+        int w = 360, h = 780;
+        int[] px = uiLikeImage(w, h, true);
+        assertArrayEquals(px, decode(encode(new PngEncoder(), px, w, h), w, h));
+    }
+
+    @Test
+    public void roundTrip_translucentImage() throws IOException {
+        int w = 97, h = 211;
+        int[] px = uiLikeImage(w, h, false);
+        assertArrayEquals(px, decode(encode(new PngEncoder(), px, w, h), w, h));
+    }
+
+    @Test
+    public void stripRows_boundsEachStripForLongScreenshots() {
+        int rowBytes = 1440 * 3;
+        int rows = PngEncoder.stripRows(rowBytes, 60_000, 8);
+        assertTrue("strip of " + rows + " rows", (long) rows * (rowBytes + 1) <= PngEncoder.MAX_STRIP_BYTES);
+        // A normal screenshot is still split two strips per worker
+        assertEquals(150, PngEncoder.stripRows(rowBytes, 2400, 8));
+    }
+
+    @Test
+    public void roundTrip_moreStripsThanInFlight() throws IOException {
+        // One worker keeps two strips in flight; this image needs several more
+        int w = 2000, h = 3000;
+        assertTrue(h / PngEncoder.stripRows(w * 3, h, 1) > 2);
+        int[] px = uiLikeImage(w, h, true);
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            PngEncoder encoder = new PngEncoder(pool, Deflater.BEST_SPEED, PngEncoder.FILTER_ADAPTIVE);
+            assertArrayEquals(px, decode(encode(encoder, px, w, h), w, h));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void roundTrip_everyFilterAndManyStrips() throws IOException {
+        int w = 123, h = 400;
+        int[] px = uiLikeImage(w, h, true);
+        ForkJoinPool pool = new ForkJoinPool(8);
+        try {
+            for (int filter = PngEncoder.FILTER_NONE; filter <= PngEncoder.FILTER_PAETH; filter++) {
+                PngEncoder encoder = new PngEncoder(pool, Deflater.BEST_SPEED, filter);
+                assertArrayEquals("filter " + filter, px, decode(encode(encoder, px, w, h), w, h));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void adaptive_leavesShiftedRowsUnfilteredWhereRawMatchesWin() throws IOException {
+        // Diagonal gradient: each row is the one above moved one pixel left
+        int w = 200, h = 300;
+        int[] px = new int[w * h];
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int v = (x + y) * 255 / (w + h);
+                px[y * w + x] = 0xFF000000 | v << 16 | (255 - v) << 8 | v / 2;
+            }
+        }
+        int rowBytes = w * 3;
+        byte[] prev = new byte[rowBytes], cur = new byte[rowBytes], next = new byte[rowBytes];
+        for (int x = 0; x < w; x++) {
+            for (int c = 0; c < 3; c++) {
+                prev[x * 3 + c] = (byte) (px[10 * w + x] >> (16 - 8 * c));
+                cur[x * 3 + c] = (byte) (px[11 * w + x] >> (16 - 8 * c));
+                next[x * 3 + c] = (byte) (px[12 * w + x] >> (16 - 8 * c));
+            }
+        }
+        assertTrue(PngEncoder.rawMatchesWin(Deflater.DEFAULT_COMPRESSION));
+        assertFalse(PngEncoder.rawMatchesWin(Deflater.BEST_SPEED));
+        assertEquals(PngEncoder.FILTER_NONE,
+                new PngEncoder.RowFilter(rowBytes, 3, 1, true).choose(cur, prev, next, false));
+        // The first row has nothing above it, but starts the run
+        assertEquals(PngEncoder.FILTER_NONE,
+                new PngEncoder.RowFilter(rowBytes, 3, 1, true).choose(prev, null, cur, true));
+        assertNotEquals(PngEncoder.FILTER_NONE,
+                new PngEncoder.RowFilter(rowBytes, 3, 1, false).choose(cur, prev, next, false));
+
+        ForkJoinPool pool = new ForkJoinPool(8);
+        try {
+            PngEncoder encoder = PngEncoder.forMode(pool, PngEncoder.Mode.DEFAULT);
+            assertArrayEquals(px, decode(encode(encoder, px, w, h), w, h));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void roundTrip_noiseAndTinyImages() throws IOException {
+        Random rnd = new Random(7);
+        int[][] sizes = { { 1, 1 }, { 1, 300 }, { 300, 1 }, { 64, 64 } };
+        for (int[] s : sizes) {
+            int[] px = new int[s[0] * s[1]];
+            for (int i = 0; i < px.length; i++) px[i] = rnd.nextInt() | 0xFF000000;
+            assertArrayEquals(px, decode(encode(new PngEncoder(), px, s[0], s[1]), s[0], s[1]));
+        }
+    }
+
+    @Test
+    public void encodeRgba_unpremultipliesAndHonoursStride() throws IOException {
+        int w = 3, h = 2, stride = 16;
+        ByteBuffer buf = ByteBuffer.allocate(stride * h);
+        // Opaque red, half-transparent premultiplied white, transparent black
+        byte[] row = { (byte) 255, 0, 0, (byte) 255, (byte) 128, (byte) 128, (byte) 128, (byte) 128, 0, 0, 0, 0 };
+        for (int i = 0; i < row.length; i++) {
+            buf.put(i, row[i]);
+            buf.put(stride + i, row[i]);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new PngEncoder().encodeRgba(buf, w, h, stride, true, out);
+        int[] decoded = decode(out.toByteArray(), w, h);
+        assertEquals(0xFFFF0000, decoded[0]);
+        assertEquals(0x80FFFFFF, decoded[1]);
+        assertEquals(0, decoded[2] >>> 24);
+        assertEquals(decoded[1], decoded[4]);
+    }
+
+    @Test
+    public void adler32Combine_matchesWholeStream() {
+        byte[] data = new byte[200_000];
+        new Random(3).nextBytes(data);
+        Adler32 whole = new Adler32();
+        whole.update(data);
+        Adler32 a = new Adler32();
+        a.update(data, 0, 70_001);
+        Adler32 b = new Adler32();
+        b.update(data, 70_001, data.length - 70_001);
+        assertEquals((int) whole.getValue(), PngEncoder.adler32Combine(
+                (int) a.getValue(), (int) b.getValue(), data.length - 70_001));
+    }
+}
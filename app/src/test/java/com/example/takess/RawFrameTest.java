@@ -0,0 +1,162 @@
+package com.example.takess;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+import static org.junit.Assert.*;
+
+public class RawFrameTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("frame", ".raw");
+    }
+
+    @After
+    public void tearDown() {
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+
+    private static ByteBuffer frame(int width, int height, int stride) {
+        ByteBuffer buf = ByteBuffer.allocate(stride * height);
+        for (int i = 0; i < buf.capacity(); i++) buf.put(i, (byte) (i * 7 + i / stride));
+        return buf;
+    }
+
+    @Test
+    public void roundTrip_packed() throws IOException {
+        ByteBuffer pixels = frame(16, 9, 64);
+        RawFrameWriter.write(file, pixels, 16, 9, 64, RawFrameWriter.FORMAT_RGBA_8888);
+
+        RawFrameReader frame = RawFrameReader.open(file);
+        assertEquals(16, frame.width);
+        assertEquals(9, frame.height);
+        assertEquals(64, frame.stride);
+        assertTrue(frame.isPacked());
+        assertEquals(pixels, frame.pixels());
+        assertEquals(RawFrameWriter.HEADER_BYTES + 64 * 9, file.length());
+    }
+
+    @Test
+    public void roundTrip_paddedRowsRepackWithFrameConverter() throws IOException {
+        ByteBuffer pixels = frame(5, 3, 32);
+        RawFrameWriter.write(file, pixels, 5, 3, 32, RawFrameWriter.FORMAT_RGBA_8888);
+
+        RawFrameReader frame = RawFrameReader.open(file);
+        assertFalse(frame.isPacked());
+        ByteBuffer packed = ByteBuffer.allocate(5 * 3 * 4);
+        FrameConverter.copyRows(frame.pixels(), 5, 3, 4, frame.stride, packed);
+        for (int y = 0; y < 3; y++) {
+            for (int x = 0; x < 20; x++) {
+                assertEquals(pixels.get(y * 32 + x), packed.get(y * 20 + x));
+            }
+        }
+    }
+
+    @Test
+    public void write_leavesSourcePositionAlone() throws IOException {
+        ByteBuffer pixels = frame(4, 4, 16);
+        RawFrameWriter.write(file, pixels, 4, 4, 16, RawFrameWriter.FORMAT_RGBA_8888);
+        assertEquals(0, pixels.position());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void write_rejectsShortBuffer() throws IOException {
+        RawFrameWriter.write(file, ByteBuffer.allocate(10), 4, 4, 16, RawFrameWriter.FORMAT_RGBA_8888);
+    }
+
+    @Test(expected = IOException.class)
+    public void open_rejectsTruncatedFile() throws IOException {
+        RawFrameWriter.write(file, frame(8, 8, 32), 8, 8, 32, RawFrameWriter.FORMAT_RGBA_8888);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(RawFrameWriter.HEADER_BYTES + 100);
+        }
+        RawFrameReader.open(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void open_rejectsForeignFile() throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.write(new byte[64]);
+        }
+        RawFrameReader.open(file);
+    }
+
+    /**
+     * Not a pass/fail check — prints raw vs JPEG-95 round-trip cost for a 1440x3120
+     * UI-like frame so the two hand-off formats can be compared.
+     */
+    @Test
+    public void benchmark_rawVersusJpeg95() throws IOException {
+        Benchmark.assumeEnabled();
+        int w = 1440, h = 3120;
+        int[] argb = new int[w * h];
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                // Flat bars, a gradient header and some "text" noise
+                int c = y < 200 ? 0xFF000000 | (y & 0xFF) << 8
+                        : (y / 96) % 2 == 0 ? 0xFFFAFAFA : 0xFFE0E0E0;
+                if ((x * 31 + y * 17) % 97 < 3) c = 0xFF202020;
+                argb[y * w + x] = c;
+            }
+        }
+        ByteBuffer rgba = ByteBuffer.allocateDirect(w * h * 4);
+        for (int p : argb) {
+            rgba.put((byte) (p >> 16)).put((byte) (p >> 8)).put((byte) p).put((byte) (p >>> 24));
+        }
+        rgba.flip();
+
+        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        img.setRGB(0, 0, w, h, argb, 0, w);
+
+        long rawNs = Long.MAX_VALUE, jpegNs = Long.MAX_VALUE;
+        long jpegBytes = 0;
+        for (int i = 0; i < 3; i++) {
+            long t0 = System.nanoTime();
+            RawFrameWriter.write(file, rgba, w, h, w * 4, RawFrameWriter.FORMAT_RGBA_8888);
+            ByteBuffer mapped = RawFrameReader.open(file).pixels();
+            ByteBuffer copy = ByteBuffer.allocateDirect(mapped.remaining());
+            copy.put(mapped); // stands in for Bitmap.copyPixelsFromBuffer
+            rawNs = Math.min(rawNs, System.nanoTime() - t0);
+
+            t0 = System.nanoTime();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(0.95f);
+            try (MemoryCacheImageOutputStream ios = new MemoryCacheImageOutputStream(out)) {
+                writer.setOutput(ios);
+                writer.write(null, new IIOImage(img, null, null), param);
+            }
+            writer.dispose();
+            BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+            assertNotNull(decoded);
+            jpegNs = Math.min(jpegNs, System.nanoTime() - t0);
+            jpegBytes = out.size();
+        }
+
+        System.out.printf("raw frame round trip: %d ms, %d KB%n",
+                rawNs / 1_000_000, file.length() / 1024);
+        System.out.printf("JPEG-95 round trip:   %d ms, %d KB%n",
+                jpegNs / 1_000_000, jpegBytes / 1024);
+    }
+}
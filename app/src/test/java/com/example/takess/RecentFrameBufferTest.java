@@ -0,0 +1,131 @@
+package com.example.takess;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class RecentFrameBufferTest {
+
+    // Not a multiple of the tile size, so edge tiles are partial
+    private static final int W = 100;
+    private static final int H = 70;
+    private static final int FRAME_BYTES = W * H * 4;
+
+    private static ByteBuffer frame(int seed) {
+        ByteBuffer buf = ByteBuffer.allocate(FRAME_BYTES);
+        for (int i = 0; i < FRAME_BYTES; i++) buf.put(i, (byte) (i * 31 + seed));
+        return buf;
+    }
+
+    /** {@code base} with one pixel at (x, y) changed. */
+    private static ByteBuffer touched(ByteBuffer base, int x, int y) {
+        ByteBuffer buf = ByteBuffer.allocate(FRAME_BYTES);
+        buf.put(base.duplicate());
+        buf.clear();
+        int p = (y * W + x) * 4;
+        buf.put(p, (byte) ~buf.get(p));
+        return buf;
+    }
+
+    private static byte[] render(RecentFrameBuffer.Snapshot snapshot, int index) {
+        ByteBuffer out = ByteBuffer.allocate(FRAME_BYTES);
+        snapshot.render(index, out);
+        assertEquals(FRAME_BYTES, out.position());
+        return out.array();
+    }
+
+    @Test
+    public void render_reproducesEveryFrameExactly() {
+        RecentFrameBuffer buffer = new RecentFrameBuffer(W, H, Long.MAX_VALUE, 10_000);
+        ByteBuffer a = frame(1);
+        ByteBuffer b = touched(a, 99, 69);
+        ByteBuffer c = touched(b, 0, 0);
+        buffer.add(a, 0);
+        buffer.add(b, 100);
+        buffer.add(c, 200);
+
+        RecentFrameBuffer.Snapshot snapshot = buffer.snapshot(Long.MAX_VALUE);
+        assertEquals(3, snapshot.size());
+        assertArrayEquals(a.array(), render(snapshot, 0));
+        assertArrayEquals(b.array(), render(snapshot, 1));
+        assertArrayEquals(c.array(), render(snapshot, 2));
+        assertEquals(1, snapshot.changedTiles(2));
+    }
+
+    @Test
+    public void add_storesOnlyChangedTiles() {
+        RecentFrameBuffer buffer = new RecentFrameBuffer(W, H, Long.MAX_VALUE, 10_000);
+        ByteBuffer a = frame(1);
+        buffer.add(a, 0);
+        long keyframe = buffer.bytes();
+        assertTrue(keyframe >= FRAME_BYTES);
+
+        buffer.add(touched(a, 50, 40), 100);
+        long delta = buffer.bytes() - keyframe;
+        assertTrue("delta " + delta, delta < RecentFrameBuffer.TILE * RecentFrameBuffer.TILE * 4 + 1024);
+    }
+
+    @Test
+    public void add_skipsIdenticalFrames() {
+        RecentFrameBuffer buffer = new RecentFrameBuffer(W, H, Long.MAX_VALUE, 10_000);
+        assertTrue(buffer.add(frame(1), 0));
+        assertFalse(buffer.add(frame(1), 100));
+        assertEquals(1, buffer.size());
+        assertEquals(1, buffer.stats().unchanged);
+    }
+
+    @Test
+    public void evict_expiresOldFramesAndPromotesNextToKeyframe() {
+        RecentFrameBuffer buffer = new RecentFrameBuffer(W, H, Long.MAX_VALUE, 1_000);
+        ByteBuffer a = frame(1);
+        ByteBuffer b = touched(a, 10, 10);
+        buffer.add(a, 0);
+        buffer.add(b, 600);
+        buffer.add(touched(b, 20, 20), 1_200);
+
+        // The first frame left the window; the second is whole on its own
+        RecentFrameBuffer.Snapshot snapshot = buffer.snapshot(Long.MAX_VALUE);
+        assertEquals(2, snapshot.size());
+        assertEquals(600, snapshot.timestamp(0));
+        assertArrayEquals(b.array(), render(snapshot, 0));
+        assertEquals(0, buffer.stats().dropped);
+    }
+
+    @Test
+    public void evict_overBudgetCountsDrops() {
+        // Room for one full frame plus a few tiles
+        RecentFrameBuffer buffer = new RecentFrameBuffer(W, H, FRAME_BYTES + 8 * 1024, 10_000);
+        for (int i = 0; i < 4; i++) buffer.add(frame(i), i * 100);
+
+        RecentFrameBuffer.Stats stats = buffer.stats();
+        assertEquals(1, stats.frames);
+        assertEquals(3, stats.dropped);
+        assertEquals(0.75, stats.dropRate(), 1e-9);
+        assertTrue(stats.bytes <= stats.budgetBytes);
+        assertArrayEquals(frame(3).array(), render(buffer.snapshot(Long.MAX_VALUE), 0));
+    }
+
+    @Test
+    public void snapshot_excludesFramesAfterUntilAndSurvivesLaterAdds() {
+        RecentFrameBuffer buffer = new RecentFrameBuffer(W, H, Long.MAX_VALUE, 10_000);
+        ByteBuffer a = frame(1);
+        buffer.add(a, 0);
+        buffer.add(frame(2), 500);
+        RecentFrameBuffer.Snapshot snapshot = buffer.snapshot(499);
+        buffer.add(frame(3), 900);
+
+        assertEquals(1, snapshot.size());
+        assertArrayEquals(a.array(), render(snapshot, 0));
+    }
+
+    @Test
+    public void spread_includesNewestAndOldest() {
+        assertEquals("[0, 5, 9]", Arrays.toString(RecentFrameBuffer.spread(10, 3)));
+        assertEquals("[0, 1, 2]", Arrays.toString(RecentFrameBuffer.spread(3, 12)));
+        assertEquals("[4]", Arrays.toString(RecentFrameBuffer.spread(5, 1)));
+        assertEquals(0, RecentFrameBuffer.spread(0, 4).length);
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.takess;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.DoubleBinaryOperator;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks {@link Resampler} against exact averages, compares its quality (PSNR against
+ * an analytically rendered reference) with bilinear sampling, which is what
+ * {@code Bitmap.createScaledBitmap(…, true)} does, and prints ms per resize for both.
+ */
+public class ResamplerTest {
+
+    private static int pixel(int r, int g, int b) {
+        return 0xFF000000 | b << 16 | g << 8 | r;
+    }
+
+    @Test
+    public void sameSize_copies() {
+        int[] src = { 1, 2, 3, 4, 5, 6 };
+        int[] dst = new int[6];
+        new Resampler().resize(src, 3, 2, dst, 3, 2);
+        assertArrayEquals(src, dst);
+    }
+
+    @Test
+    public void flatImage_staysExactlyFlat() {
+        int c = pixel(13, 200, 77);
+        int[] src = new int[97 * 61];
+        Arrays.fill(src, c);
+        Resampler resampler = new Resampler();
+        int[][] sizes = { { 40, 25 }, { 300, 190 }, { 97, 13 }, { 5, 200 } };
+        for (int[] size : sizes) {
+            int[] dst = new int[size[0] * size[1]];
+            resampler.resize(src, 97, 61, dst, size[0], size[1]);
+            for (int p : dst) assertEquals(Integer.toHexString(p), c, p);
+        }
+    }
+
+    @Test
+    public void halving_isTheBlockAverage() {
+        Random rnd = new Random(3);
+        int w = 64, h = 48;
+        int[] src = new int[w * h];
+        for (int i = 0; i < src.length; i++) src[i] = rnd.nextInt();
+        int[] dst = new int[(w / 2) * (h / 2)];
+        new Resampler().resize(src, w, h, dst, w / 2, h / 2);
+
+        for (int y = 0; y < h / 2; y++) {
+            for (int x = 0; x < w / 2; x++) {
+                for (int shift = 0; shift < 32; shift += 8) {
+                    int sum = 0;
+                    for (int dy = 0; dy < 2; dy++) {
+                        for (int dx = 0; dx < 2; dx++) sum += (src[(2 * y + dy) * w + 2 * x + dx] >>> shift) & 0xFF;
+                    }
+                    int got = (dst[y * (w / 2) + x] >>> shift) & 0xFF;
+                    // Each pass rounds to 8 bits, so within one level of the exact mean
+                    assertTrue("at " + x + "," + y, Math.abs(got - sum / 4.0) <= 1);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void taps_sumToOne() {
+        int[][] cases = { { 1080, 456 }, { 456, 1080 }, { 7, 3 }, { 3, 7 }, { 100, 99 } };
+        for (int[] c : cases) {
+            for (Resampler.Filter filter : Resampler.Filter.values()) {
+                Resampler.Taps taps = Resampler.taps(c[0], c[1], filter);
+                for (int i = 0; i < c[1]; i++) {
+                    int sum = 0;
+                    for (int k = 0; k < taps.count[i]; k++) sum += taps.weights[i * taps.stride + k];
+                    assertEquals(1 << 14, sum);
+                    assertTrue(taps.start[i] >= 0 && taps.start[i] + taps.count[i] <= c[0]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void parallel_matchesSingleThread() {
+        Random rnd = new Random(5);
+        int[] src = new int[333 * 517];
+        for (int i = 0; i < src.length; i++) src[i] = rnd.nextInt();
+        int[] one = new int[211 * 800], many = new int[211 * 800];
+        ForkJoinPool single = new ForkJoinPool(1), pool = new ForkJoinPool(4);
+        try {
+            new Resampler(single).resize(src, 333, 517, one, 211, 800);
+            new Resampler(pool).resize(src, 333, 517, many, 211, 800);
+        } finally {
+            single.shutdown();
+            pool.shutdown();
+        }
+        assertArrayEquals(one, many);
+    }
+
+    // ──────────────────────────────────────────────
+    //  Quality and speed against bilinear
+    // ──────────────────────────────────────────────
+
+    /**
+     * Renders {@code f} (per channel, over the unit square) at {@code w × h}, each pixel
+     * the average of {@code ss × ss} samples: what a screen with that many pixels shows.
+     */
+    private static int[] render(int w, int h, int ss, DoubleBinaryOperator... f) {
+        int[] out = new int[w * h];
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int[] c = new int[3];
+                for (int ch = 0; ch < 3; ch++) {
+                    double sum = 0;
+                    for (int sy = 0; sy < ss; sy++) {
+                        for (int sx = 0; sx < ss; sx++) {
+                            sum += f[ch].applyAsDouble((x + (sx + 0.5) / ss) / w, (y + (sy + 0.5) / ss) / h);
+                        }
+                    }
+                    c[ch] = (int) Math.round(Math.max(0, Math.min(1, sum / (ss * ss))) * 255);
+                }
+                out[y * w + x] = pixel(c[0], c[1], c[2]);
+            }
+        }
+        return out;
+    }
+
+    /** Bilinear sampling at each output pixel's center, as createScaledBitmap(filter=true) does. */
+    private static void bilinear(int[] src, int sw, int sh, int[] dst, int dw, int dh) {
+        double sx = (double) sw / dw, sy = (double) sh / dh;
+        for (int y = 0; y < dh; y++) {
+            double fy = Math.max(0, Math.min(sh - 1, (y + 0.5) * sy - 0.5));
+            int y0 = (int) fy, y1 = Math.min(sh - 1, y0 + 1);
+            double ty = fy - y0;
+            for (int x = 0; x < dw; x++) {
+                double fx = Math.max(0, Math.min(sw - 1, (x + 0.5) * sx - 0.5));
+                int x0 = (int) fx, x1 = Math.min(sw - 1, x0 + 1);
+                double tx = fx - x0;
+                int p = 0;
+                for (int shift = 0; shift < 32; shift += 8) {
+                    double top = ((src[y0 * sw + x0] >>> shift) & 0xFF) * (1 - tx) + ((src[y0 * sw + x1] >>> shift) & 0xFF) * tx;
+                    double bottom = ((src[y1 * sw + x0] >>> shift) & 0xFF) * (1 - tx) + ((src[y1 * sw + x1] >>> shift) & 0xFF) * tx;
+                    p |= (int) Math.round(top * (1 - ty) + bottom * ty) << shift;
+                }
+                dst[y * dw + x] = p;
+            }
+        }
+    }
+
+    private static double psnr(int[] a, int[] b) {
+        double se = 0;
+        for (int i = 0; i < a.length; i++) {
+            for (int shift = 0; shift < 24; shift += 8) {
+                int d = ((a[i] >>> shift) & 0xFF) - ((b[i] >>> shift) & 0xFF);
+                se += d * d;
+            }
+        }
+        double mse = se / (a.length * 3.0);
+        return mse == 0 ? Double.POSITIVE_INFINITY : 10 * Math.log10(255 * 255 / mse);
+    }
+
+    /** Fine stripes, hard-edged "glyph" blocks and a gradient: the hard parts of a screenshot. */
+    private static final DoubleBinaryOperator[] SCREEN = {
+            (u, v) -> 0.5 + 0.5 * Math.sin(2 * Math.PI * 90 * u),
+            (u, v) -> ((int) (u * 160) + (int) (v * 240)) % 2 == 0 && (int) (v * 48) % 3 != 0 ? 0.1 : 0.9,
+            (u, v) -> u * v,
+    };
+
+    /** Smooth content, where enlarging can actually recover detail. */
+    private static final DoubleBinaryOperator[] SMOOTH = {
+            (u, v) -> 0.5 + 0.5 * Math.sin(2 * Math.PI * (14 * u + 3 * v)),
+            (u, v) -> 0.5 + 0.4 * Math.cos(2 * Math.PI * 11 * v) * Math.sin(2 * Math.PI * 5 * u),
+            (u, v) -> u * v,
+    };
+
+    @Test
+    public void shrinking_beatsBilinear() {
+        int sw = 720, sh = 1280, dw = 304, dh = 540;
+        int[] src = render(sw, sh, 3, SCREEN);
+        int[] reference = render(dw, dh, 5, SCREEN);
+        int[] area = new int[dw * dh], linear = new int[dw * dh];
+        new Resampler().resize(src, sw, sh, area, dw, dh);
+        bilinear(src, sw, sh, linear, dw, dh);
+
+        double pArea = psnr(reference, area), pLinear = psnr(reference, linear);
+        assertTrue("area " + pArea + " dB, bilinear " + pLinear + " dB", pArea > pLinear + 3);
+    }
+
+    @Test
+    public void enlarging_beatsBilinear() {
+        int sw = 240, sh = 400, dw = 600, dh = 1000;
+        int[] src = render(sw, sh, 3, SMOOTH);
+        int[] reference = render(dw, dh, 3, SMOOTH);
+        int[] lanczos = new int[dw * dh], linear = new int[dw * dh];
+        new Resampler().resize(src, sw, sh, lanczos, dw, dh);
+        bilinear(src, sw, sh, linear, dw, dh);
+
+        double pLanczos = psnr(reference, lanczos), pLinear = psnr(reference, linear);
+        assertTrue("lanczos " + pLanczos + " dB, bilinear " + pLinear + " dB", pLanczos > pLinear);
+    }
+
+    /** Prints ms per resize of a phone screenshot; best of a few runs after warm-up. */
+    @Test
+    public void benchmark() {
+        Benchmark.assumeEnabled();
+        int sw = 1080, sh = 2400;
+        Random rnd = new Random(9);
+        int[] src = new int[sw * sh];
+        for (int i = 0; i < src.length; i++) src[i] = rnd.nextInt();
+        int[][] targets = { { 720, 1600 }, { 540, 1200 }, { 1440, 3200 } };
+        ForkJoinPool single = new ForkJoinPool(1);
+        try {
+            for (int[] t : targets) {
+                int[] dst = new int[t[0] * t[1]];
+                long parallel = best(() -> new Resampler().resize(src, sw, sh, dst, t[0], t[1]));
+                long oneThread = best(() -> new Resampler(single).resize(src, sw, sh, dst, t[0], t[1]));
+                long linear = best(() -> bilinear(src, sw, sh, dst, t[0], t[1]));
+                System.out.printf("%dx%d -> %dx%d: resampler %d ms (1 thread %d ms), bilinear %d ms%n",
+                        sw, sh, t[0], t[1], parallel, oneThread, linear);
+            }
+        } finally {
+            single.shutdown();
+        }
+    }
+
+    private static long best(Runnable r) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long start = System.nanoTime();
+            r.run();
+            best = Math.min(best, (System.nanoTime() - start) / 1_000_000);
+        }
+        return best;
+    }
+}
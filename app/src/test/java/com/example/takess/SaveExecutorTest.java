@@ -0,0 +1,111 @@
+package com.example.takess;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class SaveExecutorTest {
+
+    @Test
+    public void submit_runsInOrderAndPostsResults() throws Exception {
+        List<Integer> results = Collections.synchronizedList(new ArrayList<>());
+        SaveExecutor executor = new SaveExecutor(8, Runnable::run);
+        for (int i = 0; i < 5; i++) {
+            int n = i;
+            assertTrue(executor.submit(() -> n, (r, e) -> results.add(r)));
+        }
+        assertTrue(drain(executor));
+        executor.shutdown();
+        assertEquals(List.of(0, 1, 2, 3, 4), results);
+    }
+
+    @Test
+    public void submit_refusesWhenSaturated() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        SaveExecutor executor = new SaveExecutor(2, Runnable::run);
+
+        assertTrue(executor.submit(() -> { awaitQuietly(release); }));
+        assertTrue(executor.submit(() -> { }));
+        assertTrue(executor.isSaturated());
+        assertFalse(executor.submit(() -> { }));
+        assertEquals(2, executor.pending());
+
+        release.countDown();
+        assertTrue(drain(executor));
+        assertFalse(executor.isSaturated());
+        assertTrue(executor.submit(() -> { }));
+        executor.shutdown();
+    }
+
+    @Test
+    public void submit_deliversErrorsToCallback() throws Exception {
+        AtomicReference<Exception> error = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+        SaveExecutor executor = new SaveExecutor(2, Runnable::run);
+        executor.submit(() -> { throw new IllegalStateException("disk full"); },
+                (r, e) -> { error.set(e); done.countDown(); });
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        assertEquals("disk full", error.get().getMessage());
+        executor.shutdown();
+    }
+
+    @Test
+    public void submit_logsErrorsWithoutCallback() throws Exception {
+        List<Exception> logged = Collections.synchronizedList(new ArrayList<>());
+        SaveExecutor executor = new SaveExecutor(2, Runnable::run, logged::add);
+        executor.submit(() -> { throw new IllegalStateException("bad frame"); });
+        executor.submitHousekeeping(() -> { throw new IllegalStateException("bad cache"); });
+        assertTrue(drain(executor));
+        executor.shutdown();
+
+        assertEquals(2, logged.size());
+        assertEquals("bad frame", logged.get(0).getMessage());
+        assertEquals("bad cache", logged.get(1).getMessage());
+    }
+
+    @Test
+    public void housekeeping_doesNotTakeSaveCapacity() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        SaveExecutor executor = new SaveExecutor(2, Runnable::run);
+
+        assertTrue(executor.submitHousekeeping(() -> awaitQuietly(release)));
+        assertTrue(executor.submitHousekeeping(() -> { }));
+        assertFalse(executor.isSaturated());
+        assertTrue(executor.submit(() -> { }));
+        assertTrue(executor.submit(() -> { }));
+        assertTrue(executor.isSaturated());
+
+        release.countDown();
+        assertTrue(drain(executor));
+        executor.shutdown();
+    }
+
+    @Test
+    public void submit_afterShutdownIsRefused() {
+        SaveExecutor executor = new SaveExecutor(2, Runnable::run);
+        executor.shutdown();
+        assertFalse(executor.submit(() -> { }));
+        assertEquals(0, executor.pending());
+    }
+
+    /** Waits for everything queued so far: the single worker runs tasks in order. */
+    private static boolean drain(SaveExecutor executor) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        assertTrue(executor.submitHousekeeping(done::countDown));
+        return done.await(2, TimeUnit.SECONDS);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(2, TimeUnit.SECONDS);
+        } catch (InterruptedException ignored) {
+        }
+    }
+}
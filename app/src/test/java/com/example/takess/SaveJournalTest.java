@@ -0,0 +1,355 @@
+package com.example.takess;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.*;
+
+public class SaveJournalTest {
+
+    private static final int OPS = 4;   // createTemp, write, commit, deleteFrame
+
+    private File dir;
+    private File journalFile;
+    private File dest;
+    private File frame;
+    private byte[] frameBytes;
+
+    /** Simulated process death: nothing after the throw runs. */
+    private static final class Crash extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+
+    /** File-backed store that can die before or halfway through any of its operations. */
+    private class FakeStore implements SaveJournal.Store {
+        private final int crashAt;
+        private final boolean midway;
+        private int op;
+
+        FakeStore(int crashAt, boolean midway) {
+            this.crashAt = crashAt;
+            this.midway = midway;
+        }
+
+        private boolean crashNow() {
+            boolean crash = op++ == crashAt;
+            if (crash && !midway) throw new Crash();
+            return crash;
+        }
+
+        @Override
+        public void prepare(SaveJournal.Job job) {
+            job.target = "file";
+            job.fileName = new File(job.framePath).getName().replace(".raw", ".png");
+            job.format = "png";
+        }
+
+        @Override
+        public String createTemp(SaveJournal.Job job) throws IOException {
+            boolean crash = crashNow();
+            File temp = new File(dest, ".pending-" + job.fileName);
+            Files.write(temp.toPath(), new byte[0]);
+            if (crash) throw new Crash();
+            return temp.getPath();
+        }
+
+        @Override
+        public void write(SaveJournal.Job job) throws IOException {
+            boolean crash = crashNow();
+            byte[] frameData = Files.readAllBytes(new File(job.framePath).toPath());
+            if (crash) {
+                Files.write(new File(job.location).toPath(), Arrays.copyOf(frameData, frameData.length / 2));
+                throw new Crash();
+            }
+            Files.write(new File(job.location).toPath(), frameData);
+        }
+
+        @Override
+        public void commit(SaveJournal.Job job) throws IOException {
+            boolean crash = crashNow();
+            File temp = new File(job.location);
+            File target = new File(dest, job.fileName);
+            if (temp.exists()) {
+                if (!temp.renameTo(target)) throw new IOException("rename failed");
+            } else if (!target.exists()) {
+                throw new IOException("nothing to commit");
+            }
+            if (crash) throw new Crash();
+        }
+
+        @Override
+        public void deleteTemp(SaveJournal.Job job) {
+            if (job.location != null) //noinspection ResultOfMethodCallIgnored
+                new File(job.location).delete();
+        }
+
+        @Override
+        public void deleteFrame(SaveJournal.Job job) {
+            boolean crash = crashNow();
+            //noinspection ResultOfMethodCallIgnored
+            new File(job.framePath).delete();
+            if (crash) throw new Crash();
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("journal").toFile();
+        journalFile = new File(dir, "save_journal");
+        dest = new File(dir, "dest");
+        assertTrue(dest.mkdir());
+        frame = new File(dir, "temp_ss_1.raw");
+        frameBytes = new byte[4096];
+        for (int i = 0; i < frameBytes.length; i++) frameBytes[i] = (byte) (i * 31);
+        Files.write(frame.toPath(), frameBytes);
+    }
+
+    @After
+    public void tearDown() {
+        deleteRecursively(dir);
+    }
+
+    private static void deleteRecursively(File f) {
+        File[] children = f.listFiles();
+        if (children != null) for (File c : children) deleteRecursively(c);
+        //noinspection ResultOfMethodCallIgnored
+        f.delete();
+    }
+
+    private SaveJournal.Job newJob(SaveJournal journal) throws IOException {
+        SaveJournal.Job job = journal.begin(frame.getPath());
+        job.crop = new int[] { 0, 10, 100, 200 };
+        return job;
+    }
+
+    private void assertSavedOnce() throws IOException {
+        String[] names = dest.list();
+        assertNotNull(names);
+        assertEquals(Arrays.toString(names), 1, names.length);
+        assertEquals("temp_ss_1.png", names[0]);
+        assertArrayEquals(frameBytes, Files.readAllBytes(new File(dest, names[0]).toPath()));
+        assertFalse("frame should be deleted", frame.exists());
+        assertTrue(SaveJournal.open(journalFile).unfinished().isEmpty());
+    }
+
+    @Test
+    public void save_commitsAndLeavesEmptyJournal() throws IOException {
+        SaveJournal journal = SaveJournal.open(journalFile);
+        journal.save(newJob(journal), new FakeStore(-1, false));
+        journal.close();
+
+        assertSavedOnce();
+        assertEquals(0, journalFile.length());
+    }
+
+    @Test
+    public void crashAtEveryStep_recoversToExactlyOneFile() throws IOException {
+        for (int crashAt = 0; crashAt < OPS; crashAt++) {
+            for (boolean midway : new boolean[] { false, true }) {
+                for (boolean tornRecord : new boolean[] { false, true }) {
+                    // A torn record only makes sense when the crash hit the append itself,
+                    // i.e. right before createTemp, write or commit
+                    if (tornRecord && (midway || crashAt > 2)) continue;
+                    String label = "crashAt=" + crashAt + " midway=" + midway + " torn=" + tornRecord;
+                    tearDown();
+                    setUp();
+
+                    SaveJournal journal = SaveJournal.open(journalFile);
+                    SaveJournal.Job job = newJob(journal);
+                    try {
+                        journal.save(job, new FakeStore(crashAt, midway));
+                        fail(label + ": expected crash");
+                    } catch (Crash expected) {
+                        // process died
+                    }
+                    journal.close();
+                    if (tornRecord) tearLastRecord();
+
+                    SaveJournal restarted = SaveJournal.open(journalFile);
+                    restarted.recover(new FakeStore(-1, false));
+                    restarted.close();
+                    try {
+                        assertSavedOnce();
+                    } catch (AssertionError e) {
+                        throw new AssertionError(label + ": " + e.getMessage(), e);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void saveAll_crashAnywhereInBatch_recoversEveryJobOnce() throws IOException {
+        int jobs = 3;
+        for (int crashAt = 0; crashAt < OPS * jobs; crashAt++) {
+            for (boolean midway : new boolean[] { false, true }) {
+                String label = "crashAt=" + crashAt + " midway=" + midway;
+                tearDown();
+                setUp();
+
+                SaveJournal journal = SaveJournal.open(journalFile);
+                List<SaveJournal.Job> batch = new ArrayList<>();
+                for (int i = 1; i <= jobs; i++) {
+                    File f = new File(dir, "temp_ss_" + i + ".raw");
+                    Files.write(f.toPath(), frameBytes);
+                    batch.add(journal.begin(f.getPath()));
+                }
+                try {
+                    journal.saveAll(batch, new FakeStore(crashAt, midway));
+                    fail(label + ": expected crash");
+                } catch (Crash expected) {
+                    // process died
+                }
+                journal.close();
+
+                SaveJournal restarted = SaveJournal.open(journalFile);
+                restarted.recover(new FakeStore(-1, false));
+                restarted.close();
+
+                String[] names = dest.list();
+                assertNotNull(names);
+                Arrays.sort(names);
+                assertEquals(label, Arrays.asList("temp_ss_1.png", "temp_ss_2.png", "temp_ss_3.png"),
+                        Arrays.asList(names));
+                for (String name : names) {
+                    assertArrayEquals(label, frameBytes, Files.readAllBytes(new File(dest, name).toPath()));
+                }
+                assertTrue(label, SaveJournal.open(journalFile).unfinished().isEmpty());
+            }
+        }
+    }
+
+    @Test
+    public void saveAll_batchesCreateAndCommit() throws IOException {
+        int[] calls = new int[2];
+        SaveJournal.Store batching = new FakeStore(-1, false) {
+            @Override
+            public List<String> createTemps(List<SaveJournal.Job> jobs) throws IOException {
+                calls[0]++;
+                return super.createTemps(jobs);
+            }
+
+            @Override
+            public void commitAll(List<SaveJournal.Job> jobs) throws IOException {
+                calls[1]++;
+                super.commitAll(jobs);
+            }
+        };
+
+        SaveJournal journal = SaveJournal.open(journalFile);
+        List<SaveJournal.Job> batch = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) {
+            File f = new File(dir, "temp_ss_" + i + ".raw");
+            Files.write(f.toPath(), frameBytes);
+            batch.add(journal.begin(f.getPath()));
+        }
+        journal.saveAll(batch, batching);
+        journal.close();
+
+        assertArrayEquals(new int[] { 1, 1 }, calls);
+        assertEquals(4, dest.list().length);
+        assertEquals(0, journalFile.length());
+    }
+
+    @Test
+    public void crashBeforeSaveRequested_savesWholeFrame() throws IOException {
+        SaveJournal journal = SaveJournal.open(journalFile);
+        journal.begin(frame.getPath());
+        journal.close();
+
+        SaveJournal restarted = SaveJournal.open(journalFile);
+        List<SaveJournal.Job> jobs = restarted.unfinished();
+        assertEquals(1, jobs.size());
+        assertEquals(SaveJournal.State.PENDING, jobs.get(0).state);
+        assertNull(jobs.get(0).crop);
+    }
+
+    @Test
+    public void recover_discardsJobsWhoseFrameIsGone() throws IOException {
+        SaveJournal journal = SaveJournal.open(journalFile);
+        newJob(journal);
+        journal.close();
+        assertTrue(frame.delete());
+
+        SaveJournal restarted = SaveJournal.open(journalFile);
+        assertEquals(0, restarted.recover(new FakeStore(-1, false)));
+        restarted.close();
+        assertTrue(SaveJournal.open(journalFile).unfinished().isEmpty());
+    }
+
+    @Test
+    public void discard_deletesFrameAndClosesJob() throws IOException {
+        SaveJournal journal = SaveJournal.open(journalFile);
+        journal.discard(newJob(journal), new FakeStore(-1, false));
+        journal.close();
+
+        assertFalse(frame.exists());
+        assertTrue(SaveJournal.open(journalFile).unfinished().isEmpty());
+    }
+
+    @Test
+    public void record_roundTripsAllFields() {
+        SaveJournal.Job job = new SaveJournal.Job("/cache/a\tb.raw");
+        job.state = SaveJournal.State.WRITTEN;
+        job.crop = new int[] { 1, 2, 3, 4 };
+        job.size = new int[] { 5, 6 };
+        job.target = "saf";
+        job.fileName = "";
+        job.format = "webp";
+        job.location = "content://x/y\\z";
+
+        SaveJournal.Job back = SaveJournal.decode(SaveJournal.encode(job));
+        assertNotNull(back);
+        assertEquals(job.framePath, back.framePath);
+        assertEquals(job.state, back.state);
+        assertArrayEquals(job.crop, back.crop);
+        assertArrayEquals(job.size, back.size);
+        assertEquals(job.target, back.target);
+        assertEquals("", back.fileName);
+        assertEquals(job.format, back.format);
+        assertEquals(job.location, back.location);
+    }
+
+    @Test
+    public void decode_readsRecordsWithoutOutputSize() {
+        String body = "PENDING\t/cache/f.raw\t1,2,3,4\t\t\t\t";
+        CRC32 crc = new CRC32();
+        crc.update(body.getBytes(StandardCharsets.UTF_8));
+        SaveJournal.Job job = SaveJournal.decode(body + '\t' + Long.toHexString(crc.getValue()));
+        assertNotNull(job);
+        assertArrayEquals(new int[] { 1, 2, 3, 4 }, job.crop);
+        assertNull(job.size);
+    }
+
+    @Test
+    public void decode_rejectsTornAndCorruptRecords() {
+        SaveJournal.Job job = new SaveJournal.Job("/cache/f.raw");
+        String line = SaveJournal.encode(job);
+        assertNotNull(SaveJournal.decode(line));
+        assertNull(SaveJournal.decode(line.substring(0, line.length() - 3)));
+        assertNull(SaveJournal.decode(line.replace("PENDING", "WRITTEN")));
+        assertNull(SaveJournal.decode(""));
+    }
+
+    /** Cuts the last record in half, as if the process died inside its write. */
+    private void tearLastRecord() throws IOException {
+        byte[] data = Files.readAllBytes(journalFile.toPath());
+        if (data.length < 2) return;
+        int start = data.length - 2;
+        while (start > 0 && data[start - 1] != '\n') start--;
+        try (RandomAccessFile raf = new RandomAccessFile(journalFile, "rw")) {
+            raf.setLength(start + (data.length - start) / 2);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.takess;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class SaveStatsTest {
+
+    @Test
+    public void record_accumulatesPerPath() {
+        SaveStats stats = new SaveStats();
+        stats.record(OutputFormat.PNG.id, 1, 0, 1000, 10);
+        stats.record(OutputFormat.PNG.id, 1, 0, 3000, 30);
+        stats.record(SaveStats.PATH_LEGACY, 3, 2, 9000, 90);
+
+        SaveStats.Totals single = stats.totals(OutputFormat.PNG.id);
+        assertEquals(2, single.saves);
+        assertEquals(2, single.encodes);
+        assertEquals(4000, single.bytes);
+        assertEquals(40, single.millis);
+
+        SaveStats.Totals legacy = stats.totals(SaveStats.PATH_LEGACY);
+        assertEquals(3, legacy.encodes);
+        assertEquals(2, legacy.decodes);
+        assertNull(stats.totals("other"));
+    }
+
+    @Test
+    public void summary_showsPathsSideBySide() {
+        SaveStats stats = new SaveStats();
+        stats.record(OutputFormat.PNG.id, 1, 0, 2048, 20);
+        stats.record(SaveStats.PATH_LEGACY, 3, 2, 8192, 80);
+
+        assertEquals("png: 1 saves, 1.0 enc + 0.0 dec, 2 KB, 20 ms per save"
+                        + " | legacy: 1 saves, 3.0 enc + 2.0 dec, 8 KB, 80 ms per save",
+                stats.summary());
+    }
+
+    @Test
+    public void throughput_isShotsPerSecondOfSaveTime() {
+        SaveStats stats = new SaveStats();
+        assertEquals(0f, stats.shotsPerSecond(), 0f);
+
+        stats.recordThroughput(1, 250);
+        stats.recordThroughput(3, 250);
+        assertEquals(8f, stats.shotsPerSecond(), 0.001f);
+
+        stats.record(OutputFormat.PNG.id, 1, 0, 2048, 20);
+        assertTrue(stats.summary().endsWith(" | throughput: 8.0 shots/s over 4"));
+    }
+
+    @Test
+    public void countingStream_countsAllWrites() throws IOException {
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        CountingOutputStream out = new CountingOutputStream(sink);
+        out.write(1);
+        out.write(new byte[10]);
+        out.write(new byte[10], 2, 5);
+        out.close();
+        assertEquals(16, out.getCount());
+        assertEquals(16, sink.size());
+    }
+}
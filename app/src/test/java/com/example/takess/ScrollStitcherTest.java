@@ -0,0 +1,185 @@
+package com.example.takess;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ScrollStitcherTest {
+
+    private static final int W = 48;
+    private static final int H = 200;
+    private static final int HEADER = 24;
+    private static final int FOOTER = 16;
+    private static final int VIEWPORT = H - HEADER - FOOTER;
+    private static final int ROW = W * 4;
+
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("stitch").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] children = dir.listFiles();
+        if (children != null) for (File c : children) //noinspection ResultOfMethodCallIgnored
+            c.delete();
+        //noinspection ResultOfMethodCallIgnored
+        dir.delete();
+    }
+
+    /** A page of distinct rows with runs of blank rows, like text with paragraph gaps. */
+    private static byte[] page(int rows, long seed) {
+        byte[] page = new byte[rows * ROW];
+        Random random = new Random(seed);
+        for (int y = 0; y < rows; y++) {
+            if (y % 37 < 6) continue;   // blank gap, identical rows
+            for (int i = 0; i < ROW; i++) page[y * ROW + i] = (byte) random.nextInt();
+        }
+        return page;
+    }
+
+    private static byte[] bar(int rows, int value) {
+        byte[] bar = new byte[rows * ROW];
+        Arrays.fill(bar, (byte) value);
+        for (int y = 0; y < rows; y++) bar[y * ROW] = (byte) y;
+        return bar;
+    }
+
+    /** The screen with the page scrolled by {@code offset} rows, rows padded to {@code stride}. */
+    private static ByteBuffer screen(byte[] page, int offset, int stride) {
+        ByteBuffer buf = ByteBuffer.allocate(stride * H);
+        byte[] header = bar(HEADER, 0x40);
+        byte[] footer = bar(FOOTER, 0x70);
+        for (int y = 0; y < H; y++) {
+            buf.position(y * stride);
+            if (y < HEADER) buf.put(header, y * ROW, ROW);
+            else if (y >= H - FOOTER) buf.put(footer, (y - H + FOOTER) * ROW, ROW);
+            else buf.put(page, (offset + y - HEADER) * ROW, ROW);
+        }
+        buf.clear();
+        return buf;
+    }
+
+    /** The whole page as a perfect long screenshot would show it. */
+    private static byte[] expected(byte[] page) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(bar(HEADER, 0x40), 0, HEADER * ROW);
+        out.write(page, 0, page.length);
+        out.write(bar(FOOTER, 0x70), 0, FOOTER * ROW);
+        return out.toByteArray();
+    }
+
+    private static final class Collector implements ScrollStitcher.RowSink {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        @Override
+        public void append(ByteBuffer src, int rowStride, int y0, int count) {
+            for (int y = y0; y < y0 + count; y++) {
+                byte[] row = new byte[ROW];
+                ByteBuffer b = src.duplicate();
+                b.position(src.position() + y * rowStride);
+                b.get(row);
+                out.write(row, 0, ROW);
+            }
+        }
+    }
+
+    @Test
+    public void stitch_reassemblesThePageFromScrolledFrames() throws IOException {
+        int rows = 900;
+        byte[] page = page(rows, 1);
+        Collector sink = new Collector();
+        ScrollStitcher stitcher = new ScrollStitcher(W, H, 16, sink);
+
+        int[] offsets = { 0, 90, 171, 250, 333, 420, 515, 600, 690, rows - VIEWPORT, rows - VIEWPORT };
+        int[] scrolled = new int[offsets.length];
+        for (int i = 0; i < offsets.length; i++) {
+            scrolled[i] = stitcher.add(screen(page, offsets[i], ROW), ROW);
+        }
+        int height = stitcher.finish();
+
+        for (int i = 1; i < offsets.length; i++) {
+            assertEquals("step " + i, offsets[i] - offsets[i - 1], scrolled[i]);
+        }
+        assertEquals(HEADER, stitcher.header());
+        assertEquals(FOOTER, stitcher.footer());
+        assertEquals(HEADER + rows + FOOTER, height);
+        assertArrayEquals(expected(page), sink.out.toByteArray());
+    }
+
+    @Test
+    public void stitch_streamsPaddedFramesIntoARawFrame() throws IOException {
+        int rows = 600;
+        int stride = ROW + 24;
+        byte[] page = page(rows, 2);
+        File file = new File(dir, "long.raw");
+        RawFrameWriter.Appender appender = new RawFrameWriter.Appender(file, W, RawFrameWriter.FORMAT_RGBA_8888);
+        ScrollStitcher stitcher = new ScrollStitcher(W, H, 16, appender::append);
+
+        for (int offset = 0; offset < rows - VIEWPORT; offset += 120) {
+            stitcher.add(screen(page, offset, stride), stride);
+        }
+        stitcher.add(screen(page, rows - VIEWPORT, stride), stride);
+        stitcher.finish();
+        appender.finish();
+
+        RawFrameReader frame = RawFrameReader.open(file);
+        assertEquals(W, frame.width);
+        assertEquals(HEADER + rows + FOOTER, frame.height);
+        byte[] actual = new byte[frame.height * ROW];
+        frame.pixels().get(actual);
+        assertArrayEquals(expected(page), actual);
+    }
+
+    @Test
+    public void add_reportsEndOfContentAsNoScroll() throws IOException {
+        byte[] page = page(300, 3);
+        ScrollStitcher stitcher = new ScrollStitcher(W, H, 16, new Collector());
+        assertEquals(0, stitcher.add(screen(page, 0, ROW), ROW));
+        assertEquals(0, stitcher.add(screen(page, 0, ROW), ROW));
+        assertEquals(40, stitcher.add(screen(page, 40, ROW), ROW));
+        assertEquals(0, stitcher.add(screen(page, 40, ROW), ROW));
+    }
+
+    @Test
+    public void add_rejectsFramesThatDoNotOverlap() throws IOException {
+        byte[] page = page(1000, 4);
+        Collector sink = new Collector();
+        ScrollStitcher stitcher = new ScrollStitcher(W, H, 16, sink);
+        stitcher.add(screen(page, 0, ROW), ROW);
+
+        // Scrolled further than a screen: nothing in common
+        assertEquals(ScrollStitcher.NOT_FOUND, stitcher.add(screen(page, 500, ROW), ROW));
+        // Still lines up with the last accepted frame afterwards
+        assertEquals(60, stitcher.add(screen(page, 60, ROW), ROW));
+        assertEquals(0, sink.out.size() % ROW);
+    }
+
+    @Test
+    public void findShift_ignoresRepeatedRows() {
+        long[] prev = new long[100];
+        long[] cur = new long[100];
+        for (int y = 0; y < 100; y++) prev[y] = y < 50 ? 7 : 1000 + y;   // blank top half
+        for (int y = 0; y < 100; y++) cur[y] = y + 10 < 100 ? prev[y + 10] : 5000 + y;
+
+        assertEquals(10, ScrollStitcher.findShift(prev, cur, 0, 100, 8));
+    }
+
+    @Test
+    public void findShift_blankScreenHasNoAnswer() {
+        long[] blank = new long[100];
+        assertEquals(ScrollStitcher.NOT_FOUND, ScrollStitcher.findShift(blank, blank.clone(), 0, 100, 8));
+    }
+}
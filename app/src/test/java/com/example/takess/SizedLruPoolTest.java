@@ -0,0 +1,95 @@
+package com.example.takess;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SizedLruPoolTest {
+
+    private final List<String> evicted = new ArrayList<>();
+
+    private SizedLruPool<String> pool(long maxBytes) {
+        return new SizedLruPool<>(maxBytes, evicted::add);
+    }
+
+    @Test
+    public void take_countsHitsAndMisses() {
+        SizedLruPool<String> pool = pool(100);
+        assertNull(pool.take("a"));
+        pool.put("a", "a1", 10);
+        assertEquals("a1", pool.take("a"));
+        assertNull(pool.take("a"));
+
+        assertEquals(1, pool.hits());
+        assertEquals(2, pool.misses());
+        assertEquals(0, pool.currentBytes());
+    }
+
+    @Test
+    public void take_returnsMostRecentForKey() {
+        SizedLruPool<String> pool = pool(100);
+        pool.put("a", "a1", 10);
+        pool.put("b", "b1", 10);
+        pool.put("a", "a2", 10);
+        assertEquals("a2", pool.take("a"));
+        assertEquals("a1", pool.take("a"));
+    }
+
+    @Test
+    public void put_evictsOldestWhenOverBudget() {
+        SizedLruPool<String> pool = pool(30);
+        pool.put("a", "a1", 10);
+        pool.put("b", "b1", 10);
+        pool.put("c", "c1", 10);
+        pool.put("d", "d1", 10);
+
+        assertEquals(1, pool.evictions());
+        assertEquals(30, pool.currentBytes());
+        assertEquals(List.of("a1"), evicted);
+        assertNull(pool.take("a"));
+    }
+
+    @Test
+    public void put_oversizedItemIsEvictedImmediately() {
+        SizedLruPool<String> pool = pool(30);
+        pool.put("a", "a1", 10);
+        pool.put("big", "huge", 31);
+
+        assertEquals(List.of("huge"), evicted);
+        assertEquals(10, pool.currentBytes());
+        assertEquals(1, pool.size());
+    }
+
+    @Test
+    public void trimAndClear_releaseEverything() {
+        SizedLruPool<String> pool = pool(100);
+        pool.put("a", "a1", 40);
+        pool.put("b", "b1", 40);
+        pool.trimTo(50);
+        assertEquals(List.of("a1"), evicted);
+
+        pool.clear();
+        assertEquals(List.of("a1", "b1"), evicted);
+        assertEquals(0, pool.currentBytes());
+        assertEquals(2, pool.evictions());
+    }
+
+    @Test
+    public void steadyState_allocatesNothing() {
+        SizedLruPool<String> pool = pool(100);
+        // First capture misses, every following obtain/release cycle hits
+        String frame = pool.take("1440x3120");
+        assertNull(frame);
+        frame = "frame";
+        for (int i = 0; i < 10; i++) {
+            pool.put("1440x3120", frame, 40);
+            frame = pool.take("1440x3120");
+        }
+        assertEquals(1, pool.misses());
+        assertEquals(10, pool.hits());
+        assertEquals(0, pool.evictions());
+    }
+}
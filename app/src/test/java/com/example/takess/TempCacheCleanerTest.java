@@ -0,0 +1,111 @@
+package com.example.takess;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class TempCacheCleanerTest {
+
+    private static final long NOW = 1_000_000_000L;
+    private static final long MINUTE = 60_000L;
+
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("screenshots").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] children = dir.listFiles();
+        if (children != null) for (File c : children) //noinspection ResultOfMethodCallIgnored
+            c.delete();
+        //noinspection ResultOfMethodCallIgnored
+        dir.delete();
+    }
+
+    private File frame(String name, int bytes, long ageMs) throws IOException {
+        File f = new File(dir, name);
+        Files.write(f.toPath(), new byte[bytes]);
+        assertTrue(f.setLastModified(NOW - ageMs));
+        return f;
+    }
+
+    private static TempCacheCleaner cleaner(long maxBytes) {
+        return new TempCacheCleaner(maxBytes, 60 * MINUTE, MINUTE);
+    }
+
+    private Set<String> remaining() {
+        String[] names = dir.list();
+        assertNotNull(names);
+        return new HashSet<>(Arrays.asList(names));
+    }
+
+    @Test
+    public void clean_evictsOldestFirstUntilWithinBudget() throws IOException {
+        frame("a.raw", 100, 30 * MINUTE);
+        frame("b.raw", 100, 20 * MINUTE);
+        frame("c.raw", 100, 10 * MINUTE);
+        frame("d.raw", 100, 5 * MINUTE);
+
+        TempCacheCleaner.Result result = cleaner(250).clean(dir, Collections.emptySet(), NOW);
+
+        assertEquals(2, result.deleted);
+        assertEquals(200, result.freedBytes);
+        assertEquals(200, result.keptBytes);
+        assertEquals(new HashSet<>(Arrays.asList("c.raw", "d.raw")), remaining());
+    }
+
+    @Test
+    public void clean_evictsExpiredEvenWithinBudget() throws IOException {
+        frame("old.jpg", 10, 61 * MINUTE);
+        frame("new.raw", 10, 2 * MINUTE);
+
+        cleaner(Long.MAX_VALUE).clean(dir, Collections.emptySet(), NOW);
+
+        assertEquals(Collections.singleton("new.raw"), remaining());
+    }
+
+    @Test
+    public void clean_neverEvictsProtectedFrames() throws IOException {
+        File live = frame("live.raw", 100, 120 * MINUTE);
+        frame("b.raw", 100, 20 * MINUTE);
+        frame("c.raw", 100, 10 * MINUTE);
+
+        TempCacheCleaner.Result result = cleaner(150)
+                .clean(dir, Collections.singleton(live.getAbsolutePath()), NOW);
+
+        // Still over budget, but the live frame outranks the budget
+        assertEquals(Collections.singleton("live.raw"), remaining());
+        assertEquals(100, result.keptBytes);
+    }
+
+    @Test
+    public void clean_skipsFramesInGracePeriod() throws IOException {
+        frame("writing.raw", 100, 10_000);
+        frame("older.raw", 100, 5 * MINUTE);
+
+        cleaner(0).clean(dir, Collections.emptySet(), NOW);
+
+        assertEquals(Collections.singleton("writing.raw"), remaining());
+    }
+
+    @Test
+    public void clean_missingDirectoryIsANoOp() {
+        TempCacheCleaner.Result result =
+                cleaner(0).clean(new File(dir, "absent"), Collections.emptySet(), NOW);
+        assertEquals(0, result.deleted);
+        assertEquals(0, result.keptBytes);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.takess;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TileCacheTest {
+
+    private final List<String> evicted = new ArrayList<>();
+
+    private TileCache<String> cache(long maxBytes) {
+        return new TileCache<>(maxBytes, evicted::add);
+    }
+
+    @Test
+    public void get_keepsTileAndCountsHitsAndMisses() {
+        TileCache<String> cache = cache(100);
+        assertNull(cache.get(1));
+        cache.put(1, "t1", 10);
+        assertEquals("t1", cache.get(1));
+        assertEquals("t1", cache.get(1));
+
+        assertEquals(2, cache.hits());
+        assertEquals(1, cache.misses());
+        assertEquals(10, cache.currentBytes());
+    }
+
+    @Test
+    public void put_evictsLeastRecentlyDrawn() {
+        TileCache<String> cache = cache(30);
+        cache.put(1, "t1", 10);
+        cache.put(2, "t2", 10);
+        cache.put(3, "t3", 10);
+        cache.get(1);
+        cache.put(4, "t4", 10);
+
+        assertEquals(List.of("t2"), evicted);
+        assertTrue(cache.contains(1));
+        assertFalse(cache.contains(2));
+        assertEquals(30, cache.currentBytes());
+    }
+
+    @Test
+    public void put_replacingKeyReleasesOldTile() {
+        TileCache<String> cache = cache(100);
+        cache.put(1, "old", 10);
+        cache.put(1, "new", 20);
+
+        assertEquals(List.of("old"), evicted);
+        assertEquals(20, cache.currentBytes());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void put_oversizedTileIsEvictedImmediately() {
+        TileCache<String> cache = cache(30);
+        cache.put(1, "t1", 10);
+        cache.put(2, "huge", 31);
+
+        assertEquals(List.of("huge"), evicted);
+        assertEquals(10, cache.currentBytes());
+    }
+
+    @Test
+    public void setMaxBytes_trimsAndClearReleasesAll() {
+        TileCache<String> cache = cache(100);
+        cache.put(1, "t1", 40);
+        cache.put(2, "t2", 40);
+        cache.setMaxBytes(50);
+        assertEquals(List.of("t1"), evicted);
+
+        cache.clear();
+        assertEquals(List.of("t1", "t2"), evicted);
+        assertEquals(0, cache.currentBytes());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void grid_sampleForScale() {
+        assertEquals(1, TileGrid.sampleFor(2f));
+        assertEquals(1, TileGrid.sampleFor(1f));
+        assertEquals(1, TileGrid.sampleFor(0.6f));
+        assertEquals(2, TileGrid.sampleFor(0.5f));
+        assertEquals(2, TileGrid.sampleFor(0.3f));
+        assertEquals(8, TileGrid.sampleFor(0.1f));
+        assertEquals(1, TileGrid.sampleFor(0f));
+    }
+
+    @Test
+    public void grid_visibleRangeIsClampedToImage() {
+        // 1080 × 40000 image at sample 2: tiles cover 512 px
+        assertEquals(3, TileGrid.count(1080, 2));
+        assertEquals(79, TileGrid.count(40000, 2));
+        assertEquals(0, TileGrid.first(-100f, 2));
+        assertEquals(1, TileGrid.first(600f, 2));
+        assertEquals(0, TileGrid.last(512f, 1080, 2));
+        assertEquals(1, TileGrid.last(513f, 1080, 2));
+        assertEquals(2, TileGrid.last(5000f, 1080, 2));
+    }
+
+    @Test
+    public void grid_keyRoundTrips() {
+        long key = TileGrid.key(16, 12, 150_000);
+        assertEquals(16, TileGrid.sampleOf(key));
+        assertEquals(12, TileGrid.colOf(key));
+        assertEquals(150_000, TileGrid.rowOf(key));
+        assertTrue(TileGrid.key(1, 0, 1) != TileGrid.key(2, 0, 1));
+        assertTrue(TileGrid.key(1, 1, 0) != TileGrid.key(1, 0, 1));
+    }
+}